@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.core.cache;
+
+import com.fujieid.jap.core.jfr.JapFlightRecorder;
+import com.fujieid.jap.core.metrics.JapMetrics;
+import com.fujieid.jap.core.metrics.JapMetricsHelper;
+
+import java.io.Serializable;
+
+/**
+ * A {@link JapCache} that times the operations of the delegate cache through {@link JapMetricsHelper},
+ * and fires the {@code CacheGet} event of {@link JapFlightRecorder}.
+ * <p>
+ * {@link com.fujieid.jap.core.context.JapContext} and the context of jap-ids wrap their caches automatically,
+ * when the metrics are disabled, the overhead is a volatile read per operation.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class TimedJapCache implements JapCache, Serializable {
+
+    private final JapCache delegate;
+
+    private TimedJapCache(JapCache delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Wrap the cache, the cache already wrapped or null is returned as it is
+     *
+     * @param cache JapCache
+     * @return JapCache
+     */
+    public static JapCache wrap(JapCache cache) {
+        if (null == cache || cache instanceof TimedJapCache) {
+            return cache;
+        }
+        return new TimedJapCache(cache);
+    }
+
+    public JapCache getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void set(String key, Serializable value) {
+        long start = JapMetricsHelper.startTimer();
+        try {
+            delegate.set(key, value);
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.CACHE, "set", start);
+        }
+    }
+
+    @Override
+    public void set(String key, Serializable value, long timeout) {
+        long start = JapMetricsHelper.startTimer();
+        try {
+            delegate.set(key, value, timeout);
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.CACHE, "set", start);
+        }
+    }
+
+    @Override
+    public Serializable get(String key) {
+        long start = JapMetricsHelper.startTimer();
+        Object event = JapFlightRecorder.beginCacheGet();
+        Serializable value = null;
+        try {
+            value = delegate.get(key);
+            return value;
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.CACHE, "get", start);
+            JapFlightRecorder.commitCacheGet(event, key, null != value);
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        long start = JapMetricsHelper.startTimer();
+        try {
+            return delegate.containsKey(key);
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.CACHE, "containsKey", start);
+        }
+    }
+
+    @Override
+    public void removeKey(String key) {
+        long start = JapMetricsHelper.startTimer();
+        try {
+            delegate.removeKey(key);
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.CACHE, "removeKey", start);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package com.fujieid.jap.core.context;
 
 import com.fujieid.jap.core.cache.JapCache;
+import com.fujieid.jap.core.cache.TimedJapCache;
 import com.fujieid.jap.core.config.JapConfig;
 import com.fujieid.jap.core.store.JapUserStore;
 
@@ -47,7 +48,7 @@ public class JapContext {
 
     public JapContext(JapUserStore userStore, JapCache cache, JapConfig config) {
         this.userStore = userStore;
-        this.cache = cache;
+        this.cache = TimedJapCache.wrap(cache);
         this.config = config;
     }
 
@@ -65,7 +66,7 @@ public class JapContext {
     }
 
     public JapContext setCache(JapCache cache) {
-        this.cache = cache;
+        this.cache = TimedJapCache.wrap(cache);
         return this;
     }
 
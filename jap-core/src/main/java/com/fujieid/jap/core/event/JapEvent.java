@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.core.event;
+
+/**
+ * An authentication event in the ring buffer of {@link JapEventBus}.
+ * <p>
+ * The event objects are preallocated and reused by the bus, an event is only valid during
+ * {@link JapEventConsumer#onEvent(JapEvent, long, boolean)}. Please use {@link #copy()} when the event needs to be retained.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class JapEvent {
+
+    private JapEventType type;
+    private String subject;
+    private String clientId;
+    private String detail;
+    private long timestamp;
+
+    void set(JapEventType type, String subject, String clientId, String detail, long timestamp) {
+        this.type = type;
+        this.subject = subject;
+        this.clientId = clientId;
+        this.detail = detail;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return A copy of the current event that is not reused by the bus
+     */
+    public JapEvent copy() {
+        JapEvent event = new JapEvent();
+        event.set(type, subject, clientId, detail, timestamp);
+        return event;
+    }
+
+    public JapEventType getType() {
+        return type;
+    }
+
+    /**
+     * @return The user id or username of the event, if any
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * @return Additional information, such as the grant type or the strategy, if any
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * @return The time when the event occurred, in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "JapEvent{" +
+            "type=" + type +
+            ", subject='" + subject + '\'' +
+            ", clientId='" + clientId + '\'' +
+            ", detail='" + detail + '\'' +
+            ", timestamp=" + timestamp +
+            '}';
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.core.event;
+
+import com.fujieid.jap.core.exception.JapException;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The authentication event stream of Jap, backed by a preallocated ring buffer.
+ * <p>
+ * Publishing an event claims a sequence with a CAS on the cursor and fills the reused {@link JapEvent} in the slot,
+ * there is no lock and no allocation on the authentication path. Each {@link JapEventConsumer} runs on its own daemon thread
+ * and reads the events in batches behind the cursor. When the slowest consumer is a whole ring behind, new events are dropped
+ * instead of blocking the publisher. When there is no consumer, publishing returns immediately.
+ * <p>
+ * Usage:
+ * <pre>
+ * JapEventBus.getDefault().subscribe((event, sequence, endOfBatch) -&gt; auditLog.write(event));
+ * </pre>
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class JapEventBus {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    /**
+     * The number of empty polls before the consumer thread starts to park
+     */
+    private static final int SPIN_TRIES = 100;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+
+    private static final JapEventBus DEFAULT = new JapEventBus(DEFAULT_BUFFER_SIZE);
+
+    private final int bufferSize;
+    private final int mask;
+    private final JapEvent[] entries;
+    /**
+     * The sequence last published in each slot, the consumers read a slot only after its sequence has been published
+     */
+    private final AtomicLongArray published;
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final AtomicLong dropped = new AtomicLong();
+    /**
+     * The last known sequence of the slowest consumer, refreshed only when the ring appears to be full
+     */
+    private volatile long gatingSequence = -1;
+    private volatile Subscriber[] subscribers = NO_SUBSCRIBERS;
+
+    /**
+     * @param bufferSize The size of the ring buffer, must be a power of 2
+     */
+    public JapEventBus(int bufferSize) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new JapException("The buffer size of JapEventBus must be a power of 2.");
+        }
+        this.bufferSize = bufferSize;
+        this.mask = bufferSize - 1;
+        this.entries = new JapEvent[bufferSize];
+        this.published = new AtomicLongArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            entries[i] = new JapEvent();
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * @return The default event bus, the built-in events of Jap are published to it
+     */
+    public static JapEventBus getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Publish an event
+     *
+     * @param type     event type
+     * @param subject  The user id or username, if any
+     * @param clientId The client id, if any
+     * @param detail   Additional information, if any
+     * @return boolean, false when there is no consumer or the event is dropped
+     */
+    public boolean publish(JapEventType type, String subject, String clientId, String detail) {
+        Subscriber[] current = subscribers;
+        if (current.length == 0) {
+            return false;
+        }
+        long sequence = this.claim(current);
+        if (sequence < 0) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        int index = (int) sequence & mask;
+        entries[index].set(type, subject, clientId, detail, System.currentTimeMillis());
+        published.lazySet(index, sequence);
+        return true;
+    }
+
+    /**
+     * Subscribe to the events, the consumer receives the events published after the subscription
+     *
+     * @param consumer event consumer
+     */
+    public synchronized void subscribe(JapEventConsumer consumer) {
+        if (null == consumer) {
+            return;
+        }
+        Subscriber subscriber = new Subscriber(consumer, cursor.get());
+        Subscriber[] current = subscribers;
+        Subscriber[] newSubscribers = Arrays.copyOf(current, current.length + 1);
+        newSubscribers[current.length] = subscriber;
+        subscribers = newSubscribers;
+        // Force the publishers to take the new consumer into account
+        gatingSequence = Long.MIN_VALUE;
+        subscriber.thread.start();
+    }
+
+    /**
+     * Unsubscribe the consumer, its thread exits after the current batch
+     *
+     * @param consumer event consumer
+     * @return boolean, false when the consumer is not subscribed
+     */
+    public synchronized boolean unsubscribe(JapEventConsumer consumer) {
+        Subscriber[] current = subscribers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].consumer == consumer) {
+                Subscriber[] newSubscribers = new Subscriber[current.length - 1];
+                System.arraycopy(current, 0, newSubscribers, 0, i);
+                System.arraycopy(current, i + 1, newSubscribers, i, current.length - i - 1);
+                subscribers = newSubscribers.length == 0 ? NO_SUBSCRIBERS : newSubscribers;
+                current[i].stop();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Unsubscribe all consumers
+     */
+    public synchronized void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.stop();
+        }
+        subscribers = NO_SUBSCRIBERS;
+    }
+
+    /**
+     * @return The number of events dropped because the slowest consumer was a whole ring behind
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private long claim(Subscriber[] current) {
+        for (; ; ) {
+            long cursorValue = cursor.get();
+            long next = cursorValue + 1;
+            long wrapPoint = next - bufferSize;
+            if (wrapPoint > gatingSequence) {
+                long minimum = cursorValue;
+                for (Subscriber subscriber : current) {
+                    minimum = Math.min(minimum, subscriber.sequence.get());
+                }
+                gatingSequence = minimum;
+                if (wrapPoint > minimum) {
+                    return -1;
+                }
+            }
+            if (cursor.compareAndSet(cursorValue, next)) {
+                return next;
+            }
+        }
+    }
+
+    private class Subscriber implements Runnable {
+        private final JapEventConsumer consumer;
+        /**
+         * The sequence of the last event handled by the consumer
+         */
+        private final AtomicLong sequence;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        Subscriber(JapEventConsumer consumer, long sequence) {
+            this.consumer = consumer;
+            this.sequence = new AtomicLong(sequence);
+            this.thread = new Thread(this, "JapEventBus-" + consumer.getClass().getSimpleName());
+            this.thread.setDaemon(true);
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            int idle = 0;
+            while (running) {
+                long available = next - 1;
+                while (published.get((int) (available + 1) & mask) == available + 1) {
+                    available++;
+                }
+                if (available < next) {
+                    long slotSequence = published.get((int) next & mask);
+                    if (slotSequence > next) {
+                        // Lapped while subscribing, skip the overwritten events
+                        next = slotSequence - bufferSize + 1;
+                        sequence.lazySet(next - 1);
+                        continue;
+                    }
+                    if (++idle < SPIN_TRIES) {
+                        Thread.yield();
+                    } else {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    continue;
+                }
+                idle = 0;
+                for (long s = next; s <= available; s++) {
+                    JapEvent event = entries[(int) s & mask];
+                    try {
+                        consumer.onEvent(event, s, s == available);
+                    } catch (Throwable e) {
+                        consumer.onError(event, s, e);
+                    }
+                }
+                sequence.lazySet(available);
+                next = available + 1;
+            }
+        }
+    }
+}
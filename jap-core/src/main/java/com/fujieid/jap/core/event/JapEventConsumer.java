@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.core.event;
+
+import cn.hutool.log.LogFactory;
+
+/**
+ * The consumer of the authentication events, such as audit logging, metrics or SIEM export.
+ * <p>
+ * Each consumer runs on its own thread and receives the events in batches, {@code endOfBatch} can be used to flush buffered output.
+ * A slow consumer never blocks the authentication path, when it falls a whole ring behind, the new events are dropped.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public interface JapEventConsumer {
+
+    /**
+     * Handle the event, the event object is reused after this method returns
+     *
+     * @param event      authentication event
+     * @param sequence   The sequence of the event in the bus
+     * @param endOfBatch Whether the event is the last one currently available
+     */
+    void onEvent(JapEvent event, long sequence, boolean endOfBatch);
+
+    /**
+     * Callback when {@link #onEvent(JapEvent, long, boolean)} throws an exception, the consumer continues with the next event
+     *
+     * @param event     authentication event
+     * @param sequence  The sequence of the event in the bus
+     * @param throwable the exception thrown
+     */
+    default void onError(JapEvent event, long sequence, Throwable throwable) {
+        LogFactory.get(this.getClass()).error(throwable, "Failed to handle the event {} at sequence {}.", event.getType(), sequence);
+    }
+}
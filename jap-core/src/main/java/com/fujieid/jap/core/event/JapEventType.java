@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.core.event;
+
+/**
+ * The type of the authentication events published to {@link JapEventBus}
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public enum JapEventType {
+    /**
+     * The user logged in successfully
+     */
+    LOGIN_SUCCESS,
+    /**
+     * The user failed to log in
+     */
+    LOGIN_FAILURE,
+    /**
+     * The user logged out
+     */
+    LOGOUT,
+    /**
+     * An authorization code was issued
+     */
+    AUTHORIZATION_CODE_ISSUED,
+    /**
+     * An access token was issued
+     */
+    TOKEN_ISSUED,
+    /**
+     * An access token was refreshed
+     */
+    TOKEN_REFRESHED,
+    /**
+     * A token family was revoked, because of logout or the reuse of a refresh token
+     */
+    TOKEN_REVOKED,
+    /**
+     * The client secret presented by the client is invalid
+     */
+    CLIENT_SECRET_FAILURE,
+    /**
+     * The one time password was verified successfully
+     */
+    MFA_SUCCESS,
+    /**
+     * The one time password is invalid
+     */
+    MFA_FAILURE
+}
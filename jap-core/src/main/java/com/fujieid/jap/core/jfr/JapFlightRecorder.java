@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.core.jfr;
+
+/**
+ * Fire the Java Flight Recorder events of Jap, so that the CPU and allocation samples of JFR can be correlated with
+ * the operations of Jap (jwt signing and verification, cache reads, token issuance, calls to the identity providers
+ * and strategy authentication).
+ * <p>
+ * Each operation is recorded as {@code Object event = beginXxx(); ... commitXxx(event, ...)}. {@code beginXxx} returns null
+ * when the event is not enabled in the current recording or when the JVM has no {@code jdk.jfr} module (such as Java 8 before 8u262),
+ * and {@code commitXxx} ignores null, so the callers never touch the {@code jdk.jfr} classes.
+ * <p>
+ * Usage:
+ * <pre>
+ * java -XX:StartFlightRecording=settings=profile ...
+ * jfr print --categories JAP recording.jfr
+ * </pre>
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class JapFlightRecorder {
+
+    private static final boolean AVAILABLE = isJfrAvailable();
+
+    private JapFlightRecorder() {
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return boolean, whether the JVM supports JFR events
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    public static Object beginJwtSign() {
+        return AVAILABLE ? JapJfrEvents.beginJwtSign() : null;
+    }
+
+    public static void commitJwtSign(Object event, String clientId, String algorithm) {
+        if (null != event) {
+            JapJfrEvents.commitJwtSign(event, clientId, algorithm);
+        }
+    }
+
+    public static Object beginJwtVerify() {
+        return AVAILABLE ? JapJfrEvents.beginJwtVerify() : null;
+    }
+
+    public static void commitJwtVerify(Object event, String clientId, String mode) {
+        if (null != event) {
+            JapJfrEvents.commitJwtVerify(event, clientId, mode);
+        }
+    }
+
+    public static Object beginCacheGet() {
+        return AVAILABLE ? JapJfrEvents.beginCacheGet() : null;
+    }
+
+    /**
+     * @param event the event returned by {@link #beginCacheGet()}
+     * @param key   The cache key, only its namespace is recorded
+     * @param hit   Whether the value exists
+     */
+    public static void commitCacheGet(Object event, String key, boolean hit) {
+        if (null != event) {
+            JapJfrEvents.commitCacheGet(event, key, hit);
+        }
+    }
+
+    public static Object beginTokenIssued() {
+        return AVAILABLE ? JapJfrEvents.beginTokenIssued() : null;
+    }
+
+    public static void commitTokenIssued(Object event, String clientId, String grantType) {
+        if (null != event) {
+            JapJfrEvents.commitTokenIssued(event, clientId, grantType);
+        }
+    }
+
+    public static Object beginIdpHttpCall() {
+        return AVAILABLE ? JapJfrEvents.beginIdpHttpCall() : null;
+    }
+
+    public static void commitIdpHttpCall(Object event, String method, String url) {
+        if (null != event) {
+            JapJfrEvents.commitIdpHttpCall(event, method, url);
+        }
+    }
+
+    public static Object beginStrategyAuthenticate() {
+        return AVAILABLE ? JapJfrEvents.beginStrategyAuthenticate() : null;
+    }
+
+    public static void commitStrategyAuthenticate(Object event, String strategy) {
+        if (null != event) {
+            JapJfrEvents.commitStrategyAuthenticate(event, strategy);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.core.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * The JFR event classes of Jap. This class is only loaded by {@link JapFlightRecorder} when {@code jdk.jfr} is available.
+ * <p>
+ * The events follow the usual JFR pattern: when an event is not enabled in the current recording,
+ * {@link Event#isEnabled()} returns false and the JIT removes the allocation of the event.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+class JapJfrEvents {
+
+    private static final String CATEGORY = "JAP";
+
+    private JapJfrEvents() {
+    }
+
+    static Object begin(Event event) {
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static Object beginJwtSign() {
+        return begin(new JwtSign());
+    }
+
+    static void commitJwtSign(Object event, String clientId, String algorithm) {
+        JwtSign jwtSign = (JwtSign) event;
+        jwtSign.end();
+        if (jwtSign.shouldCommit()) {
+            jwtSign.clientId = clientId;
+            jwtSign.algorithm = algorithm;
+            jwtSign.commit();
+        }
+    }
+
+    static Object beginJwtVerify() {
+        return begin(new JwtVerify());
+    }
+
+    static void commitJwtVerify(Object event, String clientId, String mode) {
+        JwtVerify jwtVerify = (JwtVerify) event;
+        jwtVerify.end();
+        if (jwtVerify.shouldCommit()) {
+            jwtVerify.clientId = clientId;
+            jwtVerify.mode = mode;
+            jwtVerify.commit();
+        }
+    }
+
+    static Object beginCacheGet() {
+        return begin(new CacheGet());
+    }
+
+    static void commitCacheGet(Object event, String key, boolean hit) {
+        CacheGet cacheGet = (CacheGet) event;
+        cacheGet.end();
+        if (cacheGet.shouldCommit()) {
+            cacheGet.namespace = getNamespace(key);
+            cacheGet.hit = hit;
+            cacheGet.commit();
+        }
+    }
+
+    static Object beginTokenIssued() {
+        return begin(new TokenIssued());
+    }
+
+    static void commitTokenIssued(Object event, String clientId, String grantType) {
+        TokenIssued tokenIssued = (TokenIssued) event;
+        tokenIssued.end();
+        if (tokenIssued.shouldCommit()) {
+            tokenIssued.clientId = clientId;
+            tokenIssued.grantType = grantType;
+            tokenIssued.commit();
+        }
+    }
+
+    static Object beginIdpHttpCall() {
+        return begin(new IdpHttpCall());
+    }
+
+    static void commitIdpHttpCall(Object event, String method, String url) {
+        IdpHttpCall idpHttpCall = (IdpHttpCall) event;
+        idpHttpCall.end();
+        if (idpHttpCall.shouldCommit()) {
+            idpHttpCall.method = method;
+            idpHttpCall.url = url;
+            idpHttpCall.commit();
+        }
+    }
+
+    static Object beginStrategyAuthenticate() {
+        return begin(new StrategyAuthenticate());
+    }
+
+    static void commitStrategyAuthenticate(Object event, String strategy) {
+        StrategyAuthenticate strategyAuthenticate = (StrategyAuthenticate) event;
+        strategyAuthenticate.end();
+        if (strategyAuthenticate.shouldCommit()) {
+            strategyAuthenticate.strategy = strategy;
+            strategyAuthenticate.commit();
+        }
+    }
+
+    /**
+     * The namespace of the cache key is the part before the last colon, such as {@code JAPIDS:OAUTH2:CODE:},
+     * the rest of the key (such as the code or the token) is never recorded
+     *
+     * @param key cache key
+     * @return namespace
+     */
+    static String getNamespace(String key) {
+        if (null == key) {
+            return null;
+        }
+        int index = key.lastIndexOf(':');
+        return index < 0 ? "" : key.substring(0, index + 1);
+    }
+
+    @Name("jap.JwtSign")
+    @Label("JWT Sign")
+    @Category(CATEGORY)
+    static class JwtSign extends Event {
+        @Label("Client Id")
+        String clientId;
+        @Label("Algorithm")
+        String algorithm;
+    }
+
+    @Name("jap.JwtVerify")
+    @Label("JWT Verify")
+    @Category(CATEGORY)
+    static class JwtVerify extends Event {
+        @Label("Client Id")
+        String clientId;
+        @Label("Mode")
+        String mode;
+    }
+
+    @Name("jap.CacheGet")
+    @Label("Cache Get")
+    @Category(CATEGORY)
+    static class CacheGet extends Event {
+        @Label("Cache Namespace")
+        String namespace;
+        @Label("Hit")
+        boolean hit;
+    }
+
+    @Name("jap.TokenIssued")
+    @Label("Token Issued")
+    @Category(CATEGORY)
+    static class TokenIssued extends Event {
+        @Label("Client Id")
+        String clientId;
+        @Label("Grant Type")
+        String grantType;
+    }
+
+    @Name("jap.IdpHttpCall")
+    @Label("IdP HTTP Call")
+    @Category(CATEGORY)
+    static class IdpHttpCall extends Event {
+        @Label("Method")
+        String method;
+        @Label("Url")
+        String url;
+    }
+
+    @Name("jap.StrategyAuthenticate")
+    @Label("Strategy Authenticate")
+    @Category(CATEGORY)
+    static class StrategyAuthenticate extends Event {
+        @Label("Strategy")
+        String strategy;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.core.metrics;
+
+/**
+ * The metrics SPI of Jap, used to bridge the timers on the hot paths of Jap to the metrics system of the application
+ * (such as Micrometer, Dropwizard Metrics or Prometheus client).
+ * <p>
+ * The implementation is loaded through {@link com.fujieid.jap.core.spi.JapServiceLoader}, or set by
+ * {@link JapMetricsHelper#setMetrics(JapMetrics)}. When there is no implementation, {@link NoopJapMetrics} is used,
+ * and the hot paths do not even read the clock.
+ * <p>
+ * Each metric has a name and a single tag with low cardinality, such as the strategy, the grant type or the cache operation.
+ * The methods are called on the request threads and must not block.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public interface JapMetrics {
+
+    /**
+     * Timer of {@code JapStrategy#authenticate}, tagged by strategy
+     */
+    String STRATEGY_AUTHENTICATE = "jap.strategy.authenticate";
+    /**
+     * Timer of the calls to {@code JapUserService} and {@code IdsUserService}, tagged by method
+     */
+    String USER_SERVICE = "jap.user.service";
+    /**
+     * Timer of {@code JapCache} operations, tagged by operation
+     */
+    String CACHE = "jap.cache";
+    /**
+     * Timer of the outbound HTTP requests to the identity providers, tagged by request method
+     */
+    String HTTP_REQUEST = "jap.http.request";
+    /**
+     * Timer of the token endpoint of jap-ids, tagged by grant type
+     */
+    String IDS_TOKEN = "jap.ids.token";
+    /**
+     * Timer of signing the jwt token, tagged by signing algorithm
+     */
+    String JWT_SIGN = "jap.jwt.sign";
+    /**
+     * Timer of verifying the jwt token, tagged by the way of verification
+     */
+    String JWT_VERIFY = "jap.jwt.verify";
+    /**
+     * Histogram of the length of the signed jwt tokens, tagged by signing algorithm
+     */
+    String JWT_SIZE = "jap.jwt.size";
+
+    /**
+     * Increment the counter by 1
+     *
+     * @param name counter name
+     * @param tag  tag value
+     */
+    void increment(String name, String tag);
+
+    /**
+     * Record a duration in the timer
+     *
+     * @param name          timer name
+     * @param tag           tag value
+     * @param durationNanos The duration, in nanoseconds
+     */
+    void recordTime(String name, String tag, long durationNanos);
+
+    /**
+     * Record a value in the histogram
+     *
+     * @param name  histogram name
+     * @param tag   tag value
+     * @param value The value
+     */
+    void recordValue(String name, String tag, long value);
+
+    /**
+     * @return boolean, when it returns false, Jap will skip the measurement entirely
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.core.metrics;
+
+import com.fujieid.jap.core.spi.JapServiceLoader;
+
+/**
+ * Hold the current {@link JapMetrics} and measure the hot paths.
+ * <p>
+ * Usage:
+ * <pre>
+ * long start = JapMetricsHelper.startTimer();
+ * try {
+ *     ...
+ * } finally {
+ *     JapMetricsHelper.stopTimer(JapMetrics.CACHE, "get", start);
+ * }
+ * </pre>
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class JapMetricsHelper {
+
+    /**
+     * The start time returned when the metrics are disabled
+     */
+    private static final long DISABLED = Long.MIN_VALUE;
+
+    private static volatile JapMetrics metrics = loadMetrics();
+
+    private JapMetricsHelper() {
+    }
+
+    private static JapMetrics loadMetrics() {
+        JapMetrics japMetrics = JapServiceLoader.loadFirst(JapMetrics.class);
+        return null == japMetrics ? new NoopJapMetrics() : japMetrics;
+    }
+
+    public static JapMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Replace the current metrics, null means {@link NoopJapMetrics}
+     *
+     * @param japMetrics JapMetrics
+     */
+    public static void setMetrics(JapMetrics japMetrics) {
+        metrics = null == japMetrics ? new NoopJapMetrics() : japMetrics;
+    }
+
+    /**
+     * Start a timer
+     *
+     * @return The start time, to be passed to {@link #stopTimer(String, String, long)}
+     */
+    public static long startTimer() {
+        return metrics.isEnabled() ? System.nanoTime() : DISABLED;
+    }
+
+    /**
+     * Stop the timer and record the duration
+     *
+     * @param name  timer name
+     * @param tag   tag value
+     * @param start The start time returned by {@link #startTimer()}
+     */
+    public static void stopTimer(String name, String tag, long start) {
+        if (start == DISABLED) {
+            return;
+        }
+        JapMetrics current = metrics;
+        if (current.isEnabled()) {
+            current.recordTime(name, tag, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Increment the counter by 1
+     *
+     * @param name counter name
+     * @param tag  tag value
+     */
+    public static void increment(String name, String tag) {
+        JapMetrics current = metrics;
+        if (current.isEnabled()) {
+            current.increment(name, tag);
+        }
+    }
+
+    /**
+     * Record a value in the histogram
+     *
+     * @param name  histogram name
+     * @param tag   tag value
+     * @param value The value
+     */
+    public static void recordValue(String name, String tag, long value) {
+        JapMetrics current = metrics;
+        if (current.isEnabled()) {
+            current.recordValue(name, tag, value);
+        }
+    }
+}
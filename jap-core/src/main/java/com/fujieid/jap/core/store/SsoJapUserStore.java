@@ -18,6 +18,8 @@ package com.fujieid.jap.core.store;
 import cn.hutool.core.util.StrUtil;
 import com.fujieid.jap.core.JapUser;
 import com.fujieid.jap.core.JapUserService;
+import com.fujieid.jap.core.metrics.JapMetrics;
+import com.fujieid.jap.core.metrics.JapMetricsHelper;
 import com.fujieid.jap.core.util.JapTokenHelper;
 import com.fujieid.jap.sso.JapSsoHelper;
 import com.fujieid.jap.sso.config.JapSsoConfig;
@@ -106,7 +108,12 @@ public class SsoJapUserStore extends SessionJapUserStore {
             At this time, the session needs to be updated
          */
         if (null == sessionUser || !sessionUser.getUserId().equals(userId)) {
-            sessionUser = this.japUserService.getById(userId);
+            long start = JapMetricsHelper.startTimer();
+            try {
+                sessionUser = this.japUserService.getById(userId);
+            } finally {
+                JapMetricsHelper.stopTimer(JapMetrics.USER_SERVICE, "getById", start);
+            }
             // Back-to-back operation to prevent anomalies
             if (null == sessionUser) {
                 return null;
@@ -26,6 +26,8 @@ import com.fujieid.jap.core.config.AuthenticateConfig;
 import com.fujieid.jap.core.config.JapConfig;
 import com.fujieid.jap.core.context.JapAuthentication;
 import com.fujieid.jap.core.context.JapContext;
+import com.fujieid.jap.core.event.JapEventBus;
+import com.fujieid.jap.core.event.JapEventType;
 import com.fujieid.jap.core.exception.JapException;
 import com.fujieid.jap.core.result.JapErrorCode;
 import com.fujieid.jap.core.result.JapResponse;
@@ -112,6 +114,8 @@ public abstract class AbstractJapStrategy implements JapStrategy {
 
     protected JapResponse loginSuccess(JapUser japUser, HttpServletRequest request, HttpServletResponse response) {
         japContext.getUserStore().save(request, response, japUser);
+        JapEventBus.getDefault().publish(JapEventType.LOGIN_SUCCESS,
+            null == japUser.getUserId() ? japUser.getUsername() : japUser.getUserId(), null, this.getClass().getSimpleName());
         return JapResponse.success(japUser);
     }
 
@@ -0,0 +1,133 @@
+package com.fujieid.jap.core.event;
+
+import com.fujieid.jap.core.exception.JapException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class JapEventBusTest {
+
+    @Test
+    public void invalidBufferSize() {
+        Assert.assertThrows(JapException.class, () -> new JapEventBus(100));
+    }
+
+    @Test
+    public void publishWithoutConsumer() {
+        JapEventBus bus = new JapEventBus(16);
+        Assert.assertFalse(bus.publish(JapEventType.LOGIN_SUCCESS, "1", null, null));
+        Assert.assertEquals(0, bus.getDropped());
+    }
+
+    @Test
+    public void publishInOrder() throws InterruptedException {
+        JapEventBus bus = new JapEventBus(64);
+        int threads = 4;
+        int eventsPerThread = 2000;
+        CountDownLatch received = new CountDownLatch(threads * eventsPerThread);
+        List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        List<JapEvent> events = Collections.synchronizedList(new ArrayList<>());
+        bus.subscribe((event, sequence, endOfBatch) -> {
+            sequences.add(sequence);
+            events.add(event.copy());
+            received.countDown();
+        });
+
+        List<Thread> publishers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String subject = String.valueOf(i);
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < eventsPerThread; j++) {
+                    // The consumer is fast enough, retry when the ring is full
+                    while (!bus.publish(JapEventType.TOKEN_ISSUED, subject, "clientId", String.valueOf(j))) {
+                        Thread.yield();
+                    }
+                }
+            });
+            publishers.add(thread);
+            thread.start();
+        }
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+        Assert.assertTrue(received.await(10, TimeUnit.SECONDS));
+        bus.shutdown();
+
+        for (int i = 0; i < sequences.size(); i++) {
+            Assert.assertEquals(i, sequences.get(i).longValue());
+        }
+        // The events of each publisher are received in the order in which they were published
+        int[] last = new int[threads];
+        Arrays.fill(last, -1);
+        for (JapEvent event : events) {
+            int subject = Integer.parseInt(event.getSubject());
+            int detail = Integer.parseInt(event.getDetail());
+            Assert.assertEquals(last[subject] + 1, detail);
+            last[subject] = detail;
+            Assert.assertEquals(JapEventType.TOKEN_ISSUED, event.getType());
+        }
+    }
+
+    @Test
+    public void dropWhenConsumerIsBehind() throws InterruptedException {
+        JapEventBus bus = new JapEventBus(4);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(4);
+        bus.subscribe((event, sequence, endOfBatch) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.countDown();
+        });
+        Assert.assertTrue(bus.publish(JapEventType.LOGIN_SUCCESS, "1", null, null));
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        // The first event is still being handled, it occupies a slot
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(bus.publish(JapEventType.LOGIN_SUCCESS, "1", null, null));
+        }
+        // The slowest consumer is a whole ring behind
+        Assert.assertFalse(bus.publish(JapEventType.LOGIN_SUCCESS, "1", null, null));
+        Assert.assertEquals(1, bus.getDropped());
+
+        release.countDown();
+        Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+        bus.shutdown();
+    }
+
+    @Test
+    public void consumerFailure() throws InterruptedException {
+        JapEventBus bus = new JapEventBus(16);
+        CountDownLatch failed = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(1);
+        bus.subscribe(new JapEventConsumer() {
+            @Override
+            public void onEvent(JapEvent event, long sequence, boolean endOfBatch) {
+                if (sequence == 0) {
+                    throw new IllegalStateException("failed");
+                }
+                received.countDown();
+            }
+
+            @Override
+            public void onError(JapEvent event, long sequence, Throwable throwable) {
+                failed.countDown();
+            }
+        });
+        bus.publish(JapEventType.MFA_FAILURE, "1", null, null);
+        bus.publish(JapEventType.MFA_SUCCESS, "1", null, null);
+        Assert.assertTrue(failed.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+        bus.shutdown();
+        Assert.assertFalse(bus.publish(JapEventType.MFA_SUCCESS, "1", null, null));
+    }
+}
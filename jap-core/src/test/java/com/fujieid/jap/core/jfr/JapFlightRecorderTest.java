@@ -0,0 +1,62 @@
+package com.fujieid.jap.core.jfr;
+
+import com.fujieid.jap.core.cache.JapCache;
+import com.fujieid.jap.core.cache.JapLocalCache;
+import com.fujieid.jap.core.cache.TimedJapCache;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class JapFlightRecorderTest {
+
+    @Test
+    public void disabled() {
+        Assert.assertTrue(JapFlightRecorder.isAvailable());
+        Assert.assertNull(JapFlightRecorder.beginJwtSign());
+        // Ignore the event that is not started
+        JapFlightRecorder.commitJwtSign(null, "clientId", "RS256");
+    }
+
+    @Test
+    public void getNamespace() {
+        Assert.assertEquals("JAPIDS:OAUTH2:CODE:", JapJfrEvents.getNamespace("JAPIDS:OAUTH2:CODE:abc"));
+        Assert.assertEquals("", JapJfrEvents.getNamespace("abc"));
+        Assert.assertNull(JapJfrEvents.getNamespace(null));
+    }
+
+    @Test
+    public void recordCacheGet() throws IOException {
+        JapCache cache = TimedJapCache.wrap(new JapLocalCache());
+        cache.set("JAP:TEST:key", "value");
+
+        Path path = Files.createTempFile("jap", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jap.CacheGet");
+            recording.enable("jap.StrategyAuthenticate");
+            recording.start();
+            cache.get("JAP:TEST:key");
+            cache.get("JAP:TEST:missing");
+            JapFlightRecorder.commitStrategyAuthenticate(JapFlightRecorder.beginStrategyAuthenticate(), "simple");
+            recording.stop();
+            recording.dump(path);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(path);
+            Assert.assertEquals(3, events.size());
+            Assert.assertEquals("jap.CacheGet", events.get(0).getEventType().getName());
+            Assert.assertEquals("JAP:TEST:", events.get(0).getString("namespace"));
+            Assert.assertTrue(events.get(0).getBoolean("hit"));
+            Assert.assertFalse(events.get(1).getBoolean("hit"));
+            Assert.assertEquals("simple", events.get(2).getString("strategy"));
+        } finally {
+            new File(path.toString()).delete();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.fujieid.jap.core.metrics;
+
+import com.fujieid.jap.core.cache.JapCache;
+import com.fujieid.jap.core.cache.JapLocalCache;
+import com.fujieid.jap.core.cache.TimedJapCache;
+import com.fujieid.jap.core.context.JapContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class JapMetricsHelperTest {
+
+    private final RecordingJapMetrics metrics = new RecordingJapMetrics();
+
+    @After
+    public void reset() {
+        JapMetricsHelper.setMetrics(null);
+    }
+
+    @Test
+    public void noopByDefault() {
+        Assert.assertTrue(JapMetricsHelper.getMetrics() instanceof NoopJapMetrics);
+        long start = JapMetricsHelper.startTimer();
+        JapMetricsHelper.setMetrics(metrics);
+        // The timer started while the metrics were disabled is not recorded
+        JapMetricsHelper.stopTimer(JapMetrics.CACHE, "get", start);
+        Assert.assertTrue(metrics.records.isEmpty());
+    }
+
+    @Test
+    public void record() {
+        JapMetricsHelper.setMetrics(metrics);
+        long start = JapMetricsHelper.startTimer();
+        JapMetricsHelper.stopTimer(JapMetrics.STRATEGY_AUTHENTICATE, "simple", start);
+        JapMetricsHelper.increment(JapMetrics.USER_SERVICE, "getByName");
+        JapMetricsHelper.recordValue(JapMetrics.JWT_SIZE, "RS256", 100);
+        Assert.assertEquals(3, metrics.records.size());
+        Assert.assertEquals("time:jap.strategy.authenticate:simple", metrics.records.get(0));
+        Assert.assertEquals("count:jap.user.service:getByName", metrics.records.get(1));
+        Assert.assertEquals("value:jap.jwt.size:RS256:100", metrics.records.get(2));
+    }
+
+    @Test
+    public void timedCache() {
+        JapMetricsHelper.setMetrics(metrics);
+        JapContext context = new JapContext(null, new JapLocalCache(), null);
+        JapCache cache = context.getCache();
+        Assert.assertTrue(cache instanceof TimedJapCache);
+        Assert.assertSame(cache, TimedJapCache.wrap(cache));
+
+        cache.set("key", "value");
+        Assert.assertTrue(cache.containsKey("key"));
+        Assert.assertEquals("value", cache.get("key"));
+        cache.removeKey("key");
+        Assert.assertEquals(4, metrics.records.size());
+        Assert.assertEquals("time:jap.cache:set", metrics.records.get(0));
+        Assert.assertEquals("time:jap.cache:containsKey", metrics.records.get(1));
+        Assert.assertEquals("time:jap.cache:get", metrics.records.get(2));
+        Assert.assertEquals("time:jap.cache:removeKey", metrics.records.get(3));
+    }
+
+    private static class RecordingJapMetrics implements JapMetrics {
+        private final List<String> records = new ArrayList<>();
+
+        @Override
+        public void increment(String name, String tag) {
+            records.add("count:" + name + ":" + tag);
+        }
+
+        @Override
+        public void recordTime(String name, String tag, long durationNanos) {
+            Assert.assertTrue(durationNanos >= 0);
+            records.add("time:" + name + ":" + tag);
+        }
+
+        @Override
+        public void recordValue(String name, String tag, long value) {
+            records.add("value:" + name + ":" + tag + ":" + value);
+        }
+    }
+}
@@ -17,12 +17,17 @@ package com.fujieid.jap.ids;
 
 import com.fujieid.jap.core.spi.JapServiceLoader;
 import com.fujieid.jap.ids.config.IdsConfig;
+import com.fujieid.jap.ids.config.IdsConfigSnapshot;
 import com.fujieid.jap.ids.context.IdsContext;
+import com.fujieid.jap.ids.context.IdsRequestContext;
 import com.fujieid.jap.ids.exception.IdsException;
 import com.fujieid.jap.ids.model.UserInfo;
+import com.fujieid.jap.ids.pipeline.IdsAsyncStage;
 import com.fujieid.jap.ids.pipeline.IdsFilterPipeline;
 import com.fujieid.jap.ids.pipeline.IdsLogoutPipeline;
 import com.fujieid.jap.ids.pipeline.IdsSignInPipeline;
+import com.fujieid.jap.ids.service.ClientSecretVerifier;
+import com.fujieid.jap.ids.service.ClientSecretVerifierImpl;
 import com.fujieid.jap.ids.service.IdsClientDetailService;
 import com.fujieid.jap.ids.service.IdsIdentityService;
 import com.fujieid.jap.ids.service.IdsUserService;
@@ -30,6 +35,7 @@ import com.fujieid.jap.ids.service.IdsUserStoreService;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Authorization service based on RFC6749 protocol specification and OpenID Connect Core 1.0 specification
@@ -40,6 +46,7 @@ import java.io.Serializable;
  */
 public class JapIds implements Serializable {
     private static final String UNREGISTERED_IDS_CONTEXT = "Unregistered ids context.Please use `JapIds.registerContext(IdsContext)` to register ids context.";
+    private static final AtomicReference<IdsConfigSnapshot> CONFIG_SNAPSHOT = new AtomicReference<>();
     private static IdsContext context;
 
     private JapIds() {
@@ -50,6 +57,7 @@ public class JapIds implements Serializable {
             throw new IdsException(UNREGISTERED_IDS_CONTEXT);
         }
         context = idsContext;
+        CONFIG_SNAPSHOT.set(null == idsContext.getIdsConfig() ? null : new IdsConfigSnapshot(idsContext.getIdsConfig()));
 
         loadService();
 
@@ -69,6 +77,10 @@ public class JapIds implements Serializable {
         if (null == context.getUserStoreService()) {
             context.setUserStoreService(JapServiceLoader.loadFirst(IdsUserStoreService.class));
         }
+        if (null == context.getClientSecretVerifier()) {
+            ClientSecretVerifier clientSecretVerifier = JapServiceLoader.loadFirst(ClientSecretVerifier.class);
+            context.setClientSecretVerifier(null == clientSecretVerifier ? new ClientSecretVerifierImpl() : clientSecretVerifier);
+        }
     }
 
     private static void loadPipeline() {
@@ -81,6 +93,9 @@ public class JapIds implements Serializable {
         if (null == context.getLogoutPipeline()) {
             context.setLogoutPipeline(JapServiceLoader.loadFirst(IdsLogoutPipeline.class));
         }
+        if (context.getAsyncStages().isEmpty()) {
+            context.setAsyncStages(JapServiceLoader.load(IdsAsyncStage.class));
+        }
     }
 
     public static IdsContext getContext() {
@@ -97,20 +112,48 @@ public class JapIds implements Serializable {
     public static void saveUserInfo(UserInfo userInfo, HttpServletRequest request) {
         IdsContext context = getContext();
         context.getUserStoreService().save(userInfo, request);
+        IdsRequestContext.of(request).setUserInfo(userInfo);
     }
 
     public static UserInfo getUserInfo(HttpServletRequest request) {
-        IdsContext context = getContext();
-        return context.getUserStoreService().get(request);
+        return IdsRequestContext.of(request).getUserInfo();
     }
 
     public static void removeUserInfo(HttpServletRequest request) {
         IdsContext context = getContext();
         context.getUserStoreService().remove(request);
+        IdsRequestContext.of(request).setUserInfo(null);
     }
 
     public static IdsConfig getIdsConfig() {
         IdsContext context = getContext();
         return context.getIdsConfig();
     }
+
+    /**
+     * Get the snapshot of the current {@link IdsConfig}.
+     * When the config of the context is replaced, a new snapshot is created and published.
+     *
+     * @return IdsConfigSnapshot
+     */
+    public static IdsConfigSnapshot getConfigSnapshot() {
+        IdsConfig config = getIdsConfig();
+        IdsConfigSnapshot snapshot = CONFIG_SNAPSHOT.get();
+        if (null != snapshot && snapshot.isSnapshotOf(config)) {
+            return snapshot;
+        }
+        IdsConfigSnapshot newSnapshot = new IdsConfigSnapshot(config);
+        return CONFIG_SNAPSHOT.compareAndSet(snapshot, newSnapshot) ? newSnapshot : CONFIG_SNAPSHOT.get();
+    }
+
+    /**
+     * Publish a new snapshot of the current {@link IdsConfig}, it needs to be called after modifying the properties of the config.
+     *
+     * @return the new IdsConfigSnapshot
+     */
+    public static IdsConfigSnapshot reloadIdsConfig() {
+        IdsConfigSnapshot snapshot = new IdsConfigSnapshot(getIdsConfig());
+        CONFIG_SNAPSHOT.set(snapshot);
+        return snapshot;
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.config;
+
+import com.fujieid.jap.ids.model.enums.AsyncOverflowPolicy;
+
+/**
+ * The configuration of the asynchronous pipeline stages, see {@link com.fujieid.jap.ids.pipeline.IdsAsyncPipelineExecutor}.
+ * <p>
+ * The events are distributed to {@code threads} workers by user, each worker holds at most {@code queueCapacity / threads} events.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class AsyncPipelineConfig {
+
+    private int threads = 2;
+    private int queueCapacity = 4096;
+    private AsyncOverflowPolicy overflowPolicy = AsyncOverflowPolicy.DROP;
+    /**
+     * When the overflow policy is {@link AsyncOverflowPolicy#BLOCK}, the maximum time to wait for the queue, in milliseconds
+     */
+    private long blockTimeout = 100;
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public AsyncPipelineConfig setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public AsyncPipelineConfig setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public AsyncOverflowPolicy getOverflowPolicy() {
+        return null == overflowPolicy ? AsyncOverflowPolicy.DROP : overflowPolicy;
+    }
+
+    public AsyncPipelineConfig setOverflowPolicy(AsyncOverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+        return this;
+    }
+
+    public long getBlockTimeout() {
+        return blockTimeout;
+    }
+
+    public AsyncPipelineConfig setBlockTimeout(long blockTimeout) {
+        this.blockTimeout = blockTimeout;
+        return this;
+    }
+}
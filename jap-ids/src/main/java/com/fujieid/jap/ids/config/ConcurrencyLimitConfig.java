@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.config;
+
+/**
+ * The configuration of the adaptive concurrency limiting of the ids endpoints,
+ * see {@link com.fujieid.jap.ids.filter.IdsConcurrencyLimitFilter}.
+ * <p>
+ * Each class of endpoints (token, authorize, userinfo, discovery) has its own limit, the limit starts from {@code initialLimit}
+ * and is adjusted between {@code minLimit} and {@code maxLimit} according to the observed latency.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class ConcurrencyLimitConfig {
+
+    /**
+     * Whether to enable concurrency limiting, the default is false
+     */
+    private boolean enabled;
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 500;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public ConcurrencyLimitConfig setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public ConcurrencyLimitConfig setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+        return this;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public ConcurrencyLimitConfig setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+        return this;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public ConcurrencyLimitConfig setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+        return this;
+    }
+}
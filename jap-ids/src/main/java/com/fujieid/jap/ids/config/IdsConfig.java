@@ -124,6 +124,41 @@ public class IdsConfig {
      * you can specify jwt config when obtaining the token.
      */
     private JwtConfig jwtConfig = new JwtConfig();
+    /**
+     * The {@code Cache-Control} max-age of the discovery and jwks documents (seconds), the default is 10 minutes
+     */
+    private long documentCacheMaxAge = 600;
+    /**
+     * How long the rendered jwks documents are served without calling {@code IdsIdentityService#getJwksJson(String)} again (seconds),
+     * the default is 1 minute, 0 means the jwks is read on every request
+     */
+    private long jwksDocumentTtl = 60;
+    /**
+     * The validity period of the rendered userinfo responses (seconds), the default is 1 minute, 0 means no caching
+     */
+    private long userinfoCacheTtl = 60;
+    /**
+     * The maximum validity period of the validated access tokens and jwt claims cached in the current process (seconds),
+     * the default is 30 seconds, 0 means no caching.
+     * A token revoked on another node may still be accepted by this node within this period.
+     */
+    private long validatedTokenCacheTtl = 30;
+    /**
+     * The validity period of the memoized client secret verifications (seconds), the default is 1 minute, 0 means no memo
+     */
+    private long clientSecretMemoTtl = 60;
+    /**
+     * The rate limiting of the token and login endpoints, disabled by default
+     */
+    private RateLimitConfig rateLimitConfig = new RateLimitConfig();
+    /**
+     * The adaptive concurrency limiting of the ids endpoints, disabled by default
+     */
+    private ConcurrencyLimitConfig concurrencyLimitConfig = new ConcurrencyLimitConfig();
+    /**
+     * The executor of the asynchronous pipeline stages
+     */
+    private AsyncPipelineConfig asyncPipelineConfig = new AsyncPipelineConfig();
 
     public IdsConfig(String issuer) {
         this.issuer = issuer;
@@ -338,4 +373,76 @@ public class IdsConfig {
         this.clientSecretAuthMethods = clientSecretAuthMethods;
         return this;
     }
+
+    public long getDocumentCacheMaxAge() {
+        return documentCacheMaxAge;
+    }
+
+    public IdsConfig setDocumentCacheMaxAge(long documentCacheMaxAge) {
+        this.documentCacheMaxAge = documentCacheMaxAge;
+        return this;
+    }
+
+    public long getJwksDocumentTtl() {
+        return jwksDocumentTtl;
+    }
+
+    public IdsConfig setJwksDocumentTtl(long jwksDocumentTtl) {
+        this.jwksDocumentTtl = jwksDocumentTtl;
+        return this;
+    }
+
+    public long getUserinfoCacheTtl() {
+        return userinfoCacheTtl;
+    }
+
+    public IdsConfig setUserinfoCacheTtl(long userinfoCacheTtl) {
+        this.userinfoCacheTtl = userinfoCacheTtl;
+        return this;
+    }
+
+    public long getValidatedTokenCacheTtl() {
+        return validatedTokenCacheTtl;
+    }
+
+    public IdsConfig setValidatedTokenCacheTtl(long validatedTokenCacheTtl) {
+        this.validatedTokenCacheTtl = validatedTokenCacheTtl;
+        return this;
+    }
+
+    public long getClientSecretMemoTtl() {
+        return clientSecretMemoTtl;
+    }
+
+    public IdsConfig setClientSecretMemoTtl(long clientSecretMemoTtl) {
+        this.clientSecretMemoTtl = clientSecretMemoTtl;
+        return this;
+    }
+
+    public RateLimitConfig getRateLimitConfig() {
+        return null == rateLimitConfig ? new RateLimitConfig() : rateLimitConfig;
+    }
+
+    public IdsConfig setRateLimitConfig(RateLimitConfig rateLimitConfig) {
+        this.rateLimitConfig = rateLimitConfig;
+        return this;
+    }
+
+    public ConcurrencyLimitConfig getConcurrencyLimitConfig() {
+        return null == concurrencyLimitConfig ? new ConcurrencyLimitConfig() : concurrencyLimitConfig;
+    }
+
+    public IdsConfig setConcurrencyLimitConfig(ConcurrencyLimitConfig concurrencyLimitConfig) {
+        this.concurrencyLimitConfig = concurrencyLimitConfig;
+        return this;
+    }
+
+    public AsyncPipelineConfig getAsyncPipelineConfig() {
+        return null == asyncPipelineConfig ? new AsyncPipelineConfig() : asyncPipelineConfig;
+    }
+
+    public IdsConfig setAsyncPipelineConfig(AsyncPipelineConfig asyncPipelineConfig) {
+        this.asyncPipelineConfig = asyncPipelineConfig;
+        return this;
+    }
 }
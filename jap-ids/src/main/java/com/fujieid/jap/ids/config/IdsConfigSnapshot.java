@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.config;
+
+import com.xkcoding.json.util.StringUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable snapshot of the endpoint urls of {@link IdsConfig}.
+ * <p>
+ * The absolute url of each endpoint is calculated once when the snapshot is created, the endpoints only read the calculated urls.
+ * When the dynamic issuer is enabled, the urls of each issuer (host) are calculated on first use and cached in the snapshot,
+ * up to {@link #MAX_ISSUERS} issuers.
+ * <p>
+ * The current snapshot is obtained through {@code JapIds.getConfigSnapshot()}, after modifying the properties of the current
+ * {@link IdsConfig}, please call {@code JapIds.reloadIdsConfig()} to publish a new snapshot.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public final class IdsConfigSnapshot {
+
+    /**
+     * The maximum number of issuers whose urls are cached when the dynamic issuer is enabled
+     */
+    static final int MAX_ISSUERS = 64;
+
+    private final IdsConfig config;
+    private final boolean enableDynamicIssuer;
+    private final String loginUrl;
+    private final String errorUrl;
+    private final String authorizeUrl;
+    private final String authorizeAutoApproveUrl;
+    private final String tokenUrl;
+    private final String userinfoUrl;
+    private final String registrationUrl;
+    private final String endSessionUrl;
+    private final String checkSessionUrl;
+    private final String logoutRedirectUrl;
+    private final String jwksUrl;
+    private final String discoveryUrl;
+    private final String loginPageUrl;
+    private final boolean externalLoginPageUrl;
+    private final String confirmPageUrl;
+    private final boolean externalConfirmPageUrl;
+    private final List<String> ignoreUrls;
+    private final EndpointUrls endpointUrls;
+    private final Map<String, EndpointUrls> issuerEndpointUrls;
+
+    public IdsConfigSnapshot(IdsConfig config) {
+        this.config = config;
+        this.enableDynamicIssuer = config.isEnableDynamicIssuer();
+        this.loginUrl = config.getLoginUrl();
+        this.errorUrl = config.getErrorUrl();
+        this.authorizeUrl = config.getAuthorizeUrl();
+        this.authorizeAutoApproveUrl = config.getAuthorizeAutoApproveUrl();
+        this.tokenUrl = config.getTokenUrl();
+        this.userinfoUrl = config.getUserinfoUrl();
+        this.registrationUrl = config.getRegistrationUrl();
+        this.endSessionUrl = config.getEndSessionUrl();
+        this.checkSessionUrl = config.getCheckSessionUrl();
+        this.logoutRedirectUrl = config.getLogoutRedirectUrl();
+        this.jwksUrl = config.getJwksUrl();
+        this.discoveryUrl = config.getDiscoveryUrl();
+        this.loginPageUrl = config.getLoginPageUrl();
+        this.externalLoginPageUrl = config.isExternalLoginPageUrl();
+        this.confirmPageUrl = config.getConfirmPageUrl();
+        this.externalConfirmPageUrl = config.isExternalConfirmPageUrl();
+
+        List<String> ignoreUrls = new ArrayList<>();
+        String[] urls = {authorizeUrl, authorizeAutoApproveUrl, loginUrl, loginPageUrl, errorUrl, confirmPageUrl,
+            tokenUrl, registrationUrl, jwksUrl, discoveryUrl, logoutRedirectUrl, checkSessionUrl};
+        for (String url : urls) {
+            if (StringUtil.isNotEmpty(url) && !ignoreUrls.contains(url)) {
+                ignoreUrls.add(url);
+            }
+        }
+        this.ignoreUrls = Collections.unmodifiableList(ignoreUrls);
+
+        if (enableDynamicIssuer) {
+            this.endpointUrls = null;
+            this.issuerEndpointUrls = new ConcurrentHashMap<>();
+        } else {
+            this.endpointUrls = new EndpointUrls(this, config.getIssuer());
+            this.issuerEndpointUrls = Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Whether the snapshot is created from the config
+     *
+     * @param config ids config
+     * @return boolean
+     */
+    public boolean isSnapshotOf(IdsConfig config) {
+        return this.config == config;
+    }
+
+    public IdsConfig getConfig() {
+        return config;
+    }
+
+    public boolean isEnableDynamicIssuer() {
+        return enableDynamicIssuer;
+    }
+
+    /**
+     * The relative urls of the endpoints that do not require authentication, such as the login, authorize and token endpoints
+     *
+     * @return unmodifiable list
+     */
+    public List<String> getIgnoreUrls() {
+        return ignoreUrls;
+    }
+
+    /**
+     * Get the endpoint urls of the configured issuer, only available when the dynamic issuer is not enabled
+     *
+     * @return EndpointUrls, null when the dynamic issuer is enabled
+     */
+    public EndpointUrls getEndpointUrls() {
+        return endpointUrls;
+    }
+
+    /**
+     * Get the endpoint urls of the issuer
+     *
+     * @param issuer The issuer of the current request when the dynamic issuer is enabled, ignored otherwise
+     * @return EndpointUrls
+     */
+    public EndpointUrls getEndpointUrls(String issuer) {
+        if (!enableDynamicIssuer) {
+            return endpointUrls;
+        }
+        String key = String.valueOf(issuer);
+        EndpointUrls urls = issuerEndpointUrls.get(key);
+        if (null == urls) {
+            if (issuerEndpointUrls.size() >= MAX_ISSUERS) {
+                issuerEndpointUrls.clear();
+            }
+            urls = new EndpointUrls(this, issuer);
+            issuerEndpointUrls.put(key, urls);
+        }
+        return urls;
+    }
+
+    /**
+     * The absolute urls of all endpoints of an issuer
+     */
+    public static final class EndpointUrls {
+        private final String issuer;
+        private final String loginUrl;
+        private final String errorUrl;
+        private final String authorizeUrl;
+        private final String authorizeAutoApproveUrl;
+        private final String tokenUrl;
+        private final String userinfoUrl;
+        private final String registrationUrl;
+        private final String endSessionUrl;
+        private final String checkSessionUrl;
+        private final String logoutRedirectUrl;
+        private final String jwksUrl;
+        private final String discoveryUrl;
+        private final String loginPageUrl;
+        private final String confirmPageUrl;
+
+        EndpointUrls(IdsConfigSnapshot snapshot, String issuer) {
+            this.issuer = issuer;
+            this.loginUrl = issuer + snapshot.loginUrl;
+            this.errorUrl = issuer + snapshot.errorUrl;
+            this.authorizeUrl = issuer + snapshot.authorizeUrl;
+            this.authorizeAutoApproveUrl = issuer + snapshot.authorizeAutoApproveUrl;
+            this.tokenUrl = issuer + snapshot.tokenUrl;
+            this.userinfoUrl = issuer + snapshot.userinfoUrl;
+            this.registrationUrl = issuer + snapshot.registrationUrl;
+            this.endSessionUrl = issuer + snapshot.endSessionUrl;
+            this.checkSessionUrl = issuer + snapshot.checkSessionUrl;
+            this.logoutRedirectUrl = issuer + snapshot.logoutRedirectUrl;
+            this.jwksUrl = issuer + snapshot.jwksUrl;
+            this.discoveryUrl = issuer + snapshot.discoveryUrl;
+            this.loginPageUrl = snapshot.externalLoginPageUrl ? snapshot.loginPageUrl : issuer + snapshot.loginPageUrl;
+            this.confirmPageUrl = snapshot.externalConfirmPageUrl ? snapshot.confirmPageUrl : issuer + snapshot.confirmPageUrl;
+        }
+
+        public String getIssuer() {
+            return issuer;
+        }
+
+        public String getLoginUrl() {
+            return loginUrl;
+        }
+
+        public String getErrorUrl() {
+            return errorUrl;
+        }
+
+        public String getAuthorizeUrl() {
+            return authorizeUrl;
+        }
+
+        public String getAuthorizeAutoApproveUrl() {
+            return authorizeAutoApproveUrl;
+        }
+
+        public String getTokenUrl() {
+            return tokenUrl;
+        }
+
+        public String getUserinfoUrl() {
+            return userinfoUrl;
+        }
+
+        public String getRegistrationUrl() {
+            return registrationUrl;
+        }
+
+        public String getEndSessionUrl() {
+            return endSessionUrl;
+        }
+
+        public String getCheckSessionUrl() {
+            return checkSessionUrl;
+        }
+
+        public String getLogoutRedirectUrl() {
+            return logoutRedirectUrl;
+        }
+
+        public String getJwksUrl() {
+            return jwksUrl;
+        }
+
+        public String getDiscoveryUrl() {
+            return discoveryUrl;
+        }
+
+        public String getLoginPageUrl() {
+            return loginPageUrl;
+        }
+
+        public String getConfirmPageUrl() {
+            return confirmPageUrl;
+        }
+    }
+}
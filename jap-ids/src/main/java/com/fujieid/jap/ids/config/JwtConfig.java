@@ -17,6 +17,7 @@ package com.fujieid.jap.ids.config;
 
 import com.fujieid.jap.ids.model.enums.JwtVerificationType;
 import com.fujieid.jap.ids.model.enums.TokenSigningAlg;
+import com.fujieid.jap.ids.util.JwkKeyRing;
 
 /**
  * Generate/verify the global configuration of jwt token.
@@ -53,6 +54,11 @@ public class JwtConfig {
      * jwt token encryption algorithm, the default is {@code RS256}
      */
     private TokenSigningAlg tokenSigningAlg = TokenSigningAlg.RS256;
+    /**
+     * <strong>Optional</strong>, the ring of signing keys. When it is set, the token is signed with the active key of the ring,
+     * and the keys in the verification window of the ring are accepted, {@code jwksKeyId}, {@code jwksJson} and {@code tokenSigningAlg} will be ignored.
+     */
+    private JwkKeyRing keyRing;
 
     public JwtVerificationType getJwtVerificationType() {
         return jwtVerificationType;
@@ -89,4 +95,17 @@ public class JwtConfig {
         this.tokenSigningAlg = tokenSigningAlg;
         return this;
     }
+
+    public JwkKeyRing getKeyRing() {
+        return keyRing;
+    }
+
+    public JwtConfig setKeyRing(JwkKeyRing keyRing) {
+        // Generate the missing keys now, rather than on the first request
+        if (null != keyRing) {
+            keyRing.initialize();
+        }
+        this.keyRing = keyRing;
+        return this;
+    }
 }
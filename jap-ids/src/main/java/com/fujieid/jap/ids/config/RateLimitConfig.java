@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.config;
+
+/**
+ * The configuration of the token-bucket rate limiting of the token and login endpoints,
+ * see {@link com.fujieid.jap.ids.filter.IdsRateLimitFilter}.
+ * <p>
+ * The requests are limited by the client id, the username and the client ip respectively,
+ * each of them has its own rate ({@code permitsPerSecond}) and burst capacity ({@code burst}).
+ * The rate limiting of a dimension is disabled when its rate is less than or equal to 0.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class RateLimitConfig {
+
+    /**
+     * Whether to enable rate limiting, the default is false
+     */
+    private boolean enabled;
+    private double clientPermitsPerSecond = 50;
+    private int clientBurst = 100;
+    /**
+     * The username is limited strictly, which is the target of credential stuffing
+     */
+    private double usernamePermitsPerSecond = 0.2;
+    private int usernameBurst = 10;
+    private double ipPermitsPerSecond = 10;
+    private int ipBurst = 50;
+    /**
+     * The maximum number of keys of each dimension that are limited by their own exact token bucket
+     */
+    private int hotKeys = 4096;
+    /**
+     * The number of approximate token buckets of each dimension, used by the keys that find no room for an exact bucket,
+     * the memory used does not grow with the number of keys, keys sharing the same buckets are limited together
+     */
+    private int buckets = 16384;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public RateLimitConfig setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public double getClientPermitsPerSecond() {
+        return clientPermitsPerSecond;
+    }
+
+    public RateLimitConfig setClientPermitsPerSecond(double clientPermitsPerSecond) {
+        this.clientPermitsPerSecond = clientPermitsPerSecond;
+        return this;
+    }
+
+    public int getClientBurst() {
+        return clientBurst;
+    }
+
+    public RateLimitConfig setClientBurst(int clientBurst) {
+        this.clientBurst = clientBurst;
+        return this;
+    }
+
+    public double getUsernamePermitsPerSecond() {
+        return usernamePermitsPerSecond;
+    }
+
+    public RateLimitConfig setUsernamePermitsPerSecond(double usernamePermitsPerSecond) {
+        this.usernamePermitsPerSecond = usernamePermitsPerSecond;
+        return this;
+    }
+
+    public int getUsernameBurst() {
+        return usernameBurst;
+    }
+
+    public RateLimitConfig setUsernameBurst(int usernameBurst) {
+        this.usernameBurst = usernameBurst;
+        return this;
+    }
+
+    public double getIpPermitsPerSecond() {
+        return ipPermitsPerSecond;
+    }
+
+    public RateLimitConfig setIpPermitsPerSecond(double ipPermitsPerSecond) {
+        this.ipPermitsPerSecond = ipPermitsPerSecond;
+        return this;
+    }
+
+    public int getIpBurst() {
+        return ipBurst;
+    }
+
+    public RateLimitConfig setIpBurst(int ipBurst) {
+        this.ipBurst = ipBurst;
+        return this;
+    }
+
+    public int getHotKeys() {
+        return hotKeys;
+    }
+
+    public RateLimitConfig setHotKeys(int hotKeys) {
+        this.hotKeys = hotKeys;
+        return this;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    public RateLimitConfig setBuckets(int buckets) {
+        this.buckets = buckets;
+        return this;
+    }
+}
@@ -17,12 +17,17 @@ package com.fujieid.jap.ids.context;
 
 import com.fujieid.jap.core.cache.JapCache;
 import com.fujieid.jap.core.cache.JapLocalCache;
+import com.fujieid.jap.core.cache.TimedJapCache;
 import com.fujieid.jap.ids.config.IdsConfig;
 import com.fujieid.jap.ids.model.UserInfo;
+import com.fujieid.jap.ids.pipeline.IdsAsyncStage;
 import com.fujieid.jap.ids.pipeline.IdsPipeline;
 import com.fujieid.jap.ids.service.*;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * ids context
@@ -33,7 +38,7 @@ import java.io.Serializable;
  */
 public class IdsContext implements Serializable {
 
-    private JapCache cache = new JapLocalCache();
+    private JapCache cache = TimedJapCache.wrap(new JapLocalCache());
 
     private IdsClientDetailService clientDetailService;
 
@@ -43,6 +48,8 @@ public class IdsContext implements Serializable {
 
     private IdsUserStoreService userStoreService = new IdsUserStoreServiceImpl();
 
+    private ClientSecretVerifier clientSecretVerifier;
+
     private IdsConfig idsConfig;
 
     private IdsPipeline<Object> filterPipeline;
@@ -51,12 +58,17 @@ public class IdsContext implements Serializable {
 
     private IdsPipeline<UserInfo> logoutPipeline;
 
+    /**
+     * The stages executed asynchronously after signin and logout, see {@link com.fujieid.jap.ids.pipeline.IdsAsyncPipelineExecutor}
+     */
+    private List<IdsAsyncStage> asyncStages = new CopyOnWriteArrayList<>();
+
     public JapCache getCache() {
         return cache == null ? new JapLocalCache() : cache;
     }
 
     public IdsContext setCache(JapCache cache) {
-        this.cache = cache;
+        this.cache = TimedJapCache.wrap(cache);
         return this;
     }
 
@@ -78,6 +90,15 @@ public class IdsContext implements Serializable {
         return this;
     }
 
+    public ClientSecretVerifier getClientSecretVerifier() {
+        return clientSecretVerifier;
+    }
+
+    public IdsContext setClientSecretVerifier(ClientSecretVerifier clientSecretVerifier) {
+        this.clientSecretVerifier = clientSecretVerifier;
+        return this;
+    }
+
     public IdsConfig getIdsConfig() {
         return idsConfig;
     }
@@ -131,4 +152,21 @@ public class IdsContext implements Serializable {
         this.logoutPipeline = logoutPipeline;
         return this;
     }
+
+    public List<IdsAsyncStage> getAsyncStages() {
+        return null == asyncStages ? Collections.emptyList() : asyncStages;
+    }
+
+    public IdsContext setAsyncStages(List<IdsAsyncStage> asyncStages) {
+        this.asyncStages = null == asyncStages ? null : new CopyOnWriteArrayList<>(asyncStages);
+        return this;
+    }
+
+    public IdsContext addAsyncStage(IdsAsyncStage asyncStage) {
+        if (null == asyncStages) {
+            asyncStages = new CopyOnWriteArrayList<>();
+        }
+        asyncStages.add(asyncStage);
+        return this;
+    }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.context;
+
+import com.fujieid.jap.core.util.RequestUtil;
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.model.ClientDetail;
+import com.fujieid.jap.ids.model.IdsRequestParam;
+import com.fujieid.jap.ids.model.UserInfo;
+import com.fujieid.jap.ids.provider.IdsRequestParamProvider;
+import com.fujieid.jap.ids.util.ClientPolicy;
+import com.fujieid.jap.ids.util.OauthUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Objects;
+
+/**
+ * The context of the current HTTP request, which is stored in the attribute of the request.
+ * <p>
+ * The request parameters, client detail, issuer and the current user are obtained at most once in a request,
+ * the endpoints and providers share them through {@link #of(HttpServletRequest)}.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class IdsRequestContext {
+
+    private static final String ATTRIBUTE_NAME = IdsRequestContext.class.getName();
+
+    private final HttpServletRequest request;
+
+    private IdsRequestParam param;
+
+    private String clientId;
+
+    private ClientDetail clientDetail;
+
+    private String issuer;
+
+    private UserInfo userInfo;
+
+    /**
+     * Whether the user has been looked up, so that an anonymous request does not query the user store again
+     */
+    private boolean userInfoLoaded;
+
+    private IdsRequestContext(HttpServletRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * Get the context of the current HTTP request, create it if it does not exist
+     *
+     * @param request current HTTP request
+     * @return IdsRequestContext
+     */
+    public static IdsRequestContext of(HttpServletRequest request) {
+        Object context = request.getAttribute(ATTRIBUTE_NAME);
+        if (context instanceof IdsRequestContext) {
+            return (IdsRequestContext) context;
+        }
+        IdsRequestContext requestContext = new IdsRequestContext(request);
+        request.setAttribute(ATTRIBUTE_NAME, requestContext);
+        return requestContext;
+    }
+
+    /**
+     * Get the parameters of the current HTTP request, the request will only be parsed once
+     *
+     * @return IdsRequestParam
+     */
+    public IdsRequestParam getParam() {
+        if (null == param) {
+            param = IdsRequestParamProvider.parseRequest(request);
+        }
+        return param;
+    }
+
+    /**
+     * Get the client detail of the {@code client_id} in the current HTTP request
+     *
+     * @return ClientDetail
+     */
+    public ClientDetail getClientDetail() {
+        return this.getClientDetail(this.getParam().getClientId());
+    }
+
+    /**
+     * Get the client detail, the client detail of the same client id will only be queried once in a request
+     *
+     * @param clientId client id
+     * @return ClientDetail
+     */
+    public ClientDetail getClientDetail(String clientId) {
+        if (null == clientDetail || !Objects.equals(this.clientId, clientId)) {
+            clientDetail = JapIds.getContext().getClientDetailService().getByClientId(clientId);
+            this.clientId = clientId;
+        }
+        return clientDetail;
+    }
+
+    /**
+     * Get the pre-compiled policy of the client in the current HTTP request, the client must be valid
+     *
+     * @return ClientPolicy
+     */
+    public ClientPolicy getClientPolicy() {
+        ClientDetail detail = this.getClientDetail();
+        OauthUtil.validClientDetail(detail);
+        return ClientPolicy.of(detail);
+    }
+
+    /**
+     * Get the issuer of the current HTTP request, only used when the dynamic issuer is enabled
+     *
+     * @return issuer
+     */
+    public String getIssuer() {
+        if (null == issuer) {
+            issuer = RequestUtil.getFullDomainName(request);
+        }
+        return issuer;
+    }
+
+    /**
+     * Get the user logged in in the current HTTP request
+     *
+     * @return UserInfo, null if the user is not logged in
+     */
+    public UserInfo getUserInfo() {
+        if (!userInfoLoaded) {
+            userInfo = JapIds.getContext().getUserStoreService().get(request);
+            userInfoLoaded = true;
+        }
+        return userInfo;
+    }
+
+    /**
+     * Update the user of the current HTTP request after the user logs in or logs out
+     *
+     * @param userInfo The user logged in, null when the user logs out
+     */
+    public void setUserInfo(UserInfo userInfo) {
+        this.userInfo = userInfo;
+        this.userInfoLoaded = true;
+    }
+}
@@ -15,13 +15,18 @@
  */
 package com.fujieid.jap.ids.endpoint;
 
+import com.fujieid.jap.ids.JapIds;
 import com.fujieid.jap.ids.model.UserInfo;
+import com.fujieid.jap.ids.pipeline.IdsAsyncPipelineExecutor;
 import com.fujieid.jap.ids.pipeline.IdsPipeline;
+import com.fujieid.jap.ids.pipeline.IdsPipelineEvent;
 import com.fujieid.jap.ids.service.Oauth2Service;
 import com.fujieid.jap.ids.service.Oauth2ServiceImpl;
+import com.fujieid.jap.ids.util.DateUtil;
 
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
 
 /**
  * Abstract classes common to various endpoints
@@ -53,4 +58,19 @@ public abstract class AbstractEndpoint {
         }
         return idsSigninPipeline;
     }
+
+    /**
+     * Publish the event to the asynchronous pipeline stages, the stages are executed after the current request returns
+     *
+     * @param type     event type
+     * @param userInfo current user
+     * @param clientId client id
+     * @param request  current HTTP request
+     */
+    protected void publishAsyncEvent(IdsPipelineEvent.Type type, UserInfo userInfo, String clientId, HttpServletRequest request) {
+        if (JapIds.getContext().getAsyncStages().isEmpty()) {
+            return;
+        }
+        IdsAsyncPipelineExecutor.publish(new IdsPipelineEvent(type, userInfo, clientId, request.getRemoteAddr(), DateUtil.currentTimeMillis()));
+    }
 }
@@ -16,15 +16,19 @@
 package com.fujieid.jap.ids.endpoint;
 
 import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.context.IdsRequestContext;
 import com.fujieid.jap.ids.model.ClientDetail;
 import com.fujieid.jap.ids.model.IdsRequestParam;
 import com.fujieid.jap.ids.model.IdsResponse;
 import com.fujieid.jap.ids.model.IdsScope;
-import com.fujieid.jap.ids.provider.IdsRequestParamProvider;
 import com.fujieid.jap.ids.provider.IdsScopeProvider;
+import com.fujieid.jap.ids.template.HtmlTemplate;
+import com.fujieid.jap.ids.template.IdsPageTemplates;
+import com.fujieid.jap.ids.util.ClientPolicy;
 import com.fujieid.jap.ids.util.EndpointUtil;
 import com.fujieid.jap.ids.util.OauthUtil;
 import com.fujieid.jap.ids.util.ObjectUtils;
+import com.fujieid.jap.ids.util.ScopeIds;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -48,9 +52,7 @@ public class ApprovalEndpoint extends AbstractEndpoint {
      * @throws IOException IOException
      */
     public void showConfirmPage(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        final String approvalContent = createConfirmPageHtml(request);
-        response.setContentType("text/html;charset=UTF-8");
-        response.getWriter().append(approvalContent);
+        IdsPageTemplates.getConfirmTemplate().write(response, createConfirmPageModel(request));
     }
 
     /**
@@ -60,11 +62,11 @@ public class ApprovalEndpoint extends AbstractEndpoint {
      * @return IdsResponse
      */
     public IdsResponse<String, Map<String, Object>> getAuthClientInfo(HttpServletRequest request) {
-        IdsRequestParam param = IdsRequestParamProvider.parseRequest(request);
-        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getByClientId(param.getClientId());
+        IdsRequestParam param = IdsRequestContext.of(request).getParam();
+        ClientDetail clientDetail = IdsRequestContext.of(request).getClientDetail(param.getClientId());
         OauthUtil.validClientDetail(clientDetail);
 
-        List<Map<String, Object>> scopeInfo = getScopeInfo(param);
+        List<Map<String, Object>> scopeInfo = getScopeInfo(request);
 
         Map<String, Object> result = new HashMap<>(5);
         result.put("appInfo", clientDetail);
@@ -75,95 +77,59 @@ public class ApprovalEndpoint extends AbstractEndpoint {
     }
 
     /**
-     * Generate the html of the authorization confirmation page
+     * Generate the model of the authorization confirmation page
      *
      * @param request current HTTP request
-     * @return Confirm the html of the authorization page
+     * @return the values of the slots of the confirm template
      */
-    private String createConfirmPageHtml(HttpServletRequest request) {
-        IdsRequestParam param = IdsRequestParamProvider.parseRequest(request);
+    private Map<String, Object> createConfirmPageModel(HttpServletRequest request) {
+        IdsRequestParam param = IdsRequestContext.of(request).getParam();
         String clientId = param.getClientId();
-        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getByClientId(clientId);
+        ClientDetail clientDetail = IdsRequestContext.of(request).getClientDetail(clientId);
         OauthUtil.validClientDetail(clientDetail);
 
-        StringBuilder builder = new StringBuilder();
-        String html = "<!DOCTYPE html>\n"
-            + "<html lang=\"en\">\n"
-            + "  <head>\n"
-            + "    <meta charset=\"utf-8\">\n"
-            + "    <meta name=\"viewport\" content=\"width=device-width, initial-scale=1, shrink-to-fit=no\">\n"
-            + "    <meta name=\"description\" content=\"\">\n"
-            + "    <meta name=\"author\" content=\"\">\n"
-            + "    <title>OAuth Approval</title>\n"
-            + "  </head>\n"
-            + "  \n";
-        builder.append(html).append("<body><h1>OAuth Approval</h1>");
-        builder.append("<p>Do you authorize \"<strong>").append(clientDetail.getAppName()).append("</strong>");
-        builder.append(" (").append(clientId).append(")");
-        builder.append("\" to access your protected resources?</p>");
-        builder.append("<form id=\"confirmationForm\" name=\"confirmationForm\" action=\"");
-
         String requestPath = ObjectUtils.appendIfNotEndWith(EndpointUtil.getAuthorizeUrl(request), "?") + request.getQueryString();
-        builder.append(requestPath).append("\" method=\"post\">");
-        builder.append("<input name=\"user_oauth_approval\" value=\"true\" type=\"hidden\"/>");
-
-        String authorizeInputTemplate = "<label><input name=\"authorize\" value=\"Authorize\" type=\"submit\"/></label></form>";
-
+        Map<String, Object> model = new HashMap<>(8);
+        model.put("appName", clientDetail.getAppName());
+        model.put("clientId", clientId);
+        model.put("action", requestPath);
         if (param.getScope() != null) {
-            builder.append(createScopes(param, request));
-            builder.append(authorizeInputTemplate);
+            model.put("scopes", HtmlTemplate.each(IdsPageTemplates.getConfirmScopeTemplate(), createScopes(request)));
         } else {
-            builder.append(authorizeInputTemplate);
-            builder.append("<form id=\"denialForm\" name=\"denialForm\" action=\"");
-            builder.append(requestPath).append("/oauth/authorize\" method=\"post\">");
-            builder.append("<input name=\"user_oauth_approval\" value=\"false\" type=\"hidden\"/>");
-            builder.append("<label><input name=\"deny\" value=\"Deny\" type=\"submit\"/></label></form>");
+            model.put("denial", HtmlTemplate.each(IdsPageTemplates.getConfirmDenialTemplate(), Collections.singletonList(Collections.singletonMap("action", requestPath))));
         }
-
-        builder.append("</body></html>");
-
-        return builder.toString();
+        return model;
     }
 
     /**
      * Generate the scope list of the authorization confirmation page
      *
-     * @param param   Parameters of the current HTTP request
      * @param request current HTTP request
-     * @return the scope list of the authorization confirmation page
+     * @return the models of the scope items of the authorization confirmation page
      */
-    private String createScopes(IdsRequestParam param, HttpServletRequest request) {
-        StringBuilder builder = new StringBuilder("<ul style=\"list-style: none;padding-inline-start: 20px;\">");
-        List<Map<String, Object>> scopeInfo = getScopeInfo(param);
-
+    private List<Map<String, Object>> createScopes(HttpServletRequest request) {
+        List<Map<String, Object>> scopeInfo = getScopeInfo(request);
         for (Map<String, Object> scope : scopeInfo) {
-            String approved = (Boolean) scope.get("selected") ? " checked" : "";
-            String denied = (Boolean) scope.get("selected") ? "" : " checked";
-
-            builder.append("<li><div class=\"form-group\">");
-            builder.append("<input type=\"checkbox\" name=\"scopes\"").append(" value=\"").append(scope.get("code")).append("\"").append(approved).append(" style=\"margin-right: 5px;\">")
-                .append(scope.get("code")).append(" - ").append(scope.get("description"))
-                .append("</input> ");
-            builder.append(denied).append("</div></li>");
+            scope.put("checked", (Boolean) scope.get("selected") ? " checked" : null);
         }
-        builder.append("</ul>");
-        return builder.toString();
+        return scopeInfo;
     }
 
     /**
      * Reorganize scope information
      *
-     * @param param Parameters of the current HTTP request
+     * @param request current HTTP request
      * @return List
      */
-    private List<Map<String, Object>> getScopeInfo(IdsRequestParam param) {
-        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getByClientId(param.getClientId());
-
-        Set<String> userAuthorizedScopes = OauthUtil.validateScope(param.getScope(), clientDetail.getScopes());
+    private List<Map<String, Object>> getScopeInfo(HttpServletRequest request) {
+        IdsRequestContext requestContext = IdsRequestContext.of(request);
+        IdsRequestParam param = requestContext.getParam();
+        ClientDetail clientDetail = requestContext.getClientDetail();
 
-        Set<String> supportedScopes = OauthUtil.convertStrToList(clientDetail.getScopes());
+        OauthUtil.validateScope(param.getScope(), clientDetail);
+        BitSet userAuthorizedScopes = ScopeIds.parse(param.getScope());
 
-        List<IdsScope> scopeList = IdsScopeProvider.getScopeByCodes(supportedScopes);
+        List<IdsScope> scopeList = IdsScopeProvider.getScopeByIds(ClientPolicy.of(clientDetail).getScopeIds());
 
         List<Map<String, Object>> scopeInfo = new LinkedList<>();
         Map<String, Object> scopeItem = null;
@@ -171,7 +137,7 @@ public class ApprovalEndpoint extends AbstractEndpoint {
             scopeItem = new HashMap<>(5);
             scopeItem.put("code", idsScope.getCode());
             scopeItem.put("description", idsScope.getDescription());
-            scopeItem.put("selected", userAuthorizedScopes.contains(idsScope.getCode()));
+            scopeItem.put("selected", userAuthorizedScopes.get(ScopeIds.idOf(idsScope.getCode())));
             scopeInfo.add(scopeItem);
         }
         return scopeInfo;
@@ -17,6 +17,7 @@ package com.fujieid.jap.ids.endpoint;
 
 import cn.hutool.core.util.ArrayUtil;
 import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.context.IdsRequestContext;
 import com.fujieid.jap.ids.exception.InvalidScopeException;
 import com.fujieid.jap.ids.model.ClientDetail;
 import com.fujieid.jap.ids.model.IdsRequestParam;
@@ -25,7 +26,6 @@ import com.fujieid.jap.ids.model.UserInfo;
 import com.fujieid.jap.ids.model.enums.ErrorResponse;
 import com.fujieid.jap.ids.model.enums.ResponseType;
 import com.fujieid.jap.ids.provider.IdsAuthorizationProvider;
-import com.fujieid.jap.ids.provider.IdsRequestParamProvider;
 import com.fujieid.jap.ids.util.EndpointUtil;
 import com.fujieid.jap.ids.util.OauthUtil;
 import com.xkcoding.json.util.StringUtil;
@@ -60,14 +60,14 @@ public class AuthorizationEndpoint extends AbstractEndpoint {
      * @throws IOException IOException
      */
     public IdsResponse<String, String> authorize(HttpServletRequest request) throws IOException {
-        IdsRequestParam param = IdsRequestParamProvider.parseRequest(request);
+        IdsRequestParam param = IdsRequestContext.of(request).getParam();
 
-        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getByClientId(param.getClientId());
+        ClientDetail clientDetail = IdsRequestContext.of(request).getClientDetail(param.getClientId());
 
         OauthUtil.validClientDetail(clientDetail);
-        OauthUtil.validateResponseType(param.getResponseType(), clientDetail.getResponseTypes());
+        OauthUtil.validateResponseType(param.getResponseType(), clientDetail);
         OauthUtil.validateRedirectUri(param.getRedirectUri(), clientDetail);
-        OauthUtil.validateScope(param.getScope(), clientDetail.getScopes());
+        OauthUtil.validateScope(param.getScope(), clientDetail);
 
         if (JapIds.isAuthenticated(request)) {
             UserInfo userInfo = JapIds.getUserInfo(request);
@@ -86,7 +86,7 @@ public class AuthorizationEndpoint extends AbstractEndpoint {
      * @return Return the callback url (with parameters such as code)
      */
     public IdsResponse<String, String> agree(HttpServletRequest request) {
-        IdsRequestParam param = IdsRequestParamProvider.parseRequest(request);
+        IdsRequestParam param = IdsRequestContext.of(request).getParam();
 
         // The scope checked by the user may be inconsistent with the scope passed in the current HTTP request
         String[] requestScopes = request.getParameterValues("scopes");
@@ -102,7 +102,7 @@ public class AuthorizationEndpoint extends AbstractEndpoint {
         // Ultimately participating in the authorized scope
         param.setScope(String.join(" ", scopes));
 
-        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getByClientId(param.getClientId());
+        ClientDetail clientDetail = IdsRequestContext.of(request).getClientDetail(param.getClientId());
         OauthUtil.validClientDetail(clientDetail);
 
         String responseType = param.getResponseType();
@@ -15,10 +15,13 @@
  */
 package com.fujieid.jap.ids.endpoint;
 
+import com.fujieid.jap.ids.JapIds;
 import com.fujieid.jap.ids.model.OidcDiscoveryDto;
 import com.fujieid.jap.ids.oidc.OidcUtil;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 
 /**
  * OpenID Provider Endpoint
@@ -69,5 +72,32 @@ public class DiscoveryEndpoint extends AbstractEndpoint {
         return OidcUtil.getJwksPublicKey(identity);
     }
 
+    /**
+     * Write the pre-rendered OpenID Provider Configuration to the response,
+     * with {@code ETag} and {@code Cache-Control}, and return {@code 304 Not Modified} when the client has cached the current version.
+     *
+     * @param request  current HTTP request
+     * @param response current HTTP response
+     * @throws IOException IOException
+     * @see #getOidcDiscoveryInfo(HttpServletRequest)
+     */
+    public void writeOidcDiscoveryInfo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        OidcUtil.getOidcDiscoveryDocument(request).write(request, response, JapIds.getIdsConfig().getDocumentCacheMaxAge());
+    }
+
+    /**
+     * Write the pre-rendered public key to the response,
+     * with {@code ETag} and {@code Cache-Control}, and return {@code 304 Not Modified} when the client has cached the current version.
+     *
+     * @param identity identity
+     * @param request  current HTTP request
+     * @param response current HTTP response
+     * @throws IOException IOException
+     * @see #getJwksPublicKey(String)
+     */
+    public void writeJwksPublicKey(String identity, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        OidcUtil.getJwksDocument(identity).write(request, response, JapIds.getIdsConfig().getDocumentCacheMaxAge());
+    }
+
 
 }
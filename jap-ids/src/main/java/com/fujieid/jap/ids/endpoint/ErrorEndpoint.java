@@ -17,12 +17,14 @@ package com.fujieid.jap.ids.endpoint;
 
 import com.fujieid.jap.core.util.RequestUtil;
 import com.fujieid.jap.ids.model.enums.ErrorResponse;
+import com.fujieid.jap.ids.template.IdsPageTemplates;
 import com.xkcoding.json.util.StringUtil;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * OAuth 异常
@@ -41,7 +43,7 @@ public class ErrorEndpoint extends AbstractEndpoint {
      * @return error page html
      */
     public String createErrorPageHtml(String error, String errorDescription) {
-        return generateErrorPageHtml(error, errorDescription);
+        return IdsPageTemplates.getErrorTemplate().render(createErrorPageModel(error, errorDescription));
     }
 
     /**
@@ -53,10 +55,7 @@ public class ErrorEndpoint extends AbstractEndpoint {
      */
     public void showErrorPage(HttpServletRequest request, HttpServletResponse response) throws IOException {
         ErrorResponse errorResponse = ErrorResponse.getByError(RequestUtil.getParam("error", request));
-        String errorPageHtml = createErrorPageHtml(errorResponse.getError(), errorResponse.getErrorDescription());
-        response.setContentType("text/html;charset=UTF-8");
-        response.setContentLength(errorPageHtml.getBytes(StandardCharsets.UTF_8).length);
-        response.getWriter().write(errorPageHtml);
+        this.showErrorPage(errorResponse.getError(), errorResponse.getErrorDescription(), response);
     }
 
     /**
@@ -68,35 +67,13 @@ public class ErrorEndpoint extends AbstractEndpoint {
      * @throws IOException IOException
      */
     public void showErrorPage(String error, String errorDescription, HttpServletResponse response) throws IOException {
-        String errorPageHtml = createErrorPageHtml(error, errorDescription);
-        response.setContentType("text/html;charset=UTF-8");
-        response.setContentLength(errorPageHtml.getBytes(StandardCharsets.UTF_8).length);
-        response.getWriter().write(errorPageHtml);
+        IdsPageTemplates.getErrorTemplate().write(response, createErrorPageModel(error, errorDescription));
     }
 
-
-    private String generateErrorPageHtml(String error, String errorDescription) {
-        String html = "<!DOCTYPE html>\n"
-            + "<html lang=\"en\">\n"
-            + "  <head>\n"
-            + "    <meta charset=\"utf-8\">\n"
-            + "    <meta name=\"viewport\" content=\"width=device-width, initial-scale=1, shrink-to-fit=no\">\n"
-            + "    <meta name=\"description\" content=\"\">\n"
-            + "    <meta name=\"author\" content=\"\">\n"
-            + "    <title>Oops!, something went wrong</title>\n"
-            + "    <link href=\"https://maxcdn.bootstrapcdn.com/bootstrap/4.0.0-beta/css/bootstrap.min.css\" rel=\"stylesheet\" integrity=\"sha384-/Y6pD6FV/Vv2HJnA6t+vslU6fwYXjCFtcEpHbNJ0lyAFsXTsjBbfaDjzALeQsN6M\" crossorigin=\"anonymous\">\n"
-            + "  </head>\n"
-            + "  <body>\n"
-            + "     <div class=\"container text-center\" style=\"margin-top: 10%;\">\n"
-            + "        <p><h1>Oops!, something went wrong</h1></p>\n";
-        if (StringUtil.isNotEmpty(error)) {
-            html += "<p>" + error + "</p>";
-        }
-        html += "        <p>\n" + errorDescription + "        </p>\n"
-            + "        <p>Feel free to contact us.</p>\n"
-            + "        <p>Please try again.</p>\n" +
-            "</div>\n" +
-            "</body></html>";
-        return html;
+    private Map<String, Object> createErrorPageModel(String error, String errorDescription) {
+        Map<String, Object> model = new HashMap<>(4);
+        model.put("error", StringUtil.isEmpty(error) ? null : error);
+        model.put("errorDescription", errorDescription);
+        return model;
     }
 }
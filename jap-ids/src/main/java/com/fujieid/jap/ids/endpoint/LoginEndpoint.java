@@ -17,7 +17,13 @@ package com.fujieid.jap.ids.endpoint;
 
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
+import com.fujieid.jap.core.event.JapEventBus;
+import com.fujieid.jap.core.event.JapEventType;
+import com.fujieid.jap.core.metrics.JapMetrics;
+import com.fujieid.jap.core.metrics.JapMetricsHelper;
 import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.config.IdsConfig;
+import com.fujieid.jap.ids.context.IdsRequestContext;
 import com.fujieid.jap.ids.exception.IdsException;
 import com.fujieid.jap.ids.model.ClientDetail;
 import com.fujieid.jap.ids.model.IdsRequestParam;
@@ -25,7 +31,8 @@ import com.fujieid.jap.ids.model.IdsResponse;
 import com.fujieid.jap.ids.model.UserInfo;
 import com.fujieid.jap.ids.model.enums.ErrorResponse;
 import com.fujieid.jap.ids.pipeline.IdsPipeline;
-import com.fujieid.jap.ids.provider.IdsRequestParamProvider;
+import com.fujieid.jap.ids.pipeline.IdsPipelineEvent;
+import com.fujieid.jap.ids.template.IdsPageTemplates;
 import com.fujieid.jap.ids.util.EndpointUtil;
 import com.fujieid.jap.ids.util.OauthUtil;
 import com.fujieid.jap.ids.util.ObjectUtils;
@@ -35,7 +42,8 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Login Endpoint
@@ -54,45 +62,16 @@ public class LoginEndpoint extends AbstractEndpoint {
      * @throws IOException IOException
      */
     public void showLoginPage(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        String loginPageHtml = generateLoginPageHtml(request);
-        response.setContentType("text/html;charset=UTF-8");
-        response.setContentLength(loginPageHtml.getBytes(StandardCharsets.UTF_8).length);
-        response.getWriter().write(loginPageHtml);
+        IdsPageTemplates.getLoginTemplate().write(response, createLoginPageModel(request));
     }
 
-    private String generateLoginPageHtml(HttpServletRequest request) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("<!DOCTYPE html>\n"
-            + "<html lang=\"en\">\n"
-            + "  <head>\n"
-            + "    <meta charset=\"utf-8\">\n"
-            + "    <meta name=\"viewport\" content=\"width=device-width, initial-scale=1, shrink-to-fit=no\">\n"
-            + "    <meta name=\"description\" content=\"\">\n"
-            + "    <meta name=\"author\" content=\"\">\n"
-            + "    <title>Please sign in</title>\n"
-            + "    <link href=\"https://maxcdn.bootstrapcdn.com/bootstrap/4.0.0-beta/css/bootstrap.min.css\" rel=\"stylesheet\" integrity=\"sha384-/Y6pD6FV/Vv2HJnA6t+vslU6fwYXjCFtcEpHbNJ0lyAFsXTsjBbfaDjzALeQsN6M\" crossorigin=\"anonymous\">\n"
-            + "    <link href=\"https://getbootstrap.com/docs/4.0/examples/signin/signin.css\" rel=\"stylesheet\" crossorigin=\"anonymous\"/>\n"
-            + "  </head>\n"
-            + "  <body>\n"
-            + "     <div class=\"container\">\n");
-
-        String authenticationUrl = ObjectUtils.appendIfNotEndWith(EndpointUtil.getLoginUrl(request), "?") + request.getQueryString();
-        sb.append("      <form class=\"form-signin\" method=\"post\" action=\"").append(authenticationUrl).append("\">\n")
-            .append("        <h2 class=\"form-signin-heading\">Please sign in</h2>\n")
-            .append("        <p>\n")
-            .append("          <label for=\"username\" class=\"sr-only\">Username</label>\n")
-            .append("          <input type=\"text\" id=\"username\" name=\"").append(JapIds.getIdsConfig().getUsernameField())
-            .append("\" class=\"form-control\" placeholder=\"Username\" required autofocus>\n").append("        </p>\n")
-            .append("        <p>\n").append("          <label for=\"password\" class=\"sr-only\">Password</label>\n")
-            .append("          <input type=\"password\" id=\"password\" name=\"")
-            .append(JapIds.getIdsConfig().getPasswordField()).append("\" class=\"form-control\" placeholder=\"Password\" required>\n")
-            .append("        </p>\n").append("        <button class=\"btn btn-lg btn-primary btn-block\" type=\"submit\">Sign in</button>\n")
-            .append("      </form>\n");
-
-        sb.append("</div>\n");
-        sb.append("</body></html>");
-
-        return sb.toString();
+    private Map<String, Object> createLoginPageModel(HttpServletRequest request) {
+        IdsConfig config = JapIds.getIdsConfig();
+        Map<String, Object> model = new HashMap<>(4);
+        model.put("action", ObjectUtils.appendIfNotEndWith(EndpointUtil.getLoginUrl(request), "?") + request.getQueryString());
+        model.put("usernameField", config.getUsernameField());
+        model.put("passwordField", config.getPasswordField());
+        return model;
     }
 
     /**
@@ -109,7 +88,7 @@ public class LoginEndpoint extends AbstractEndpoint {
         if (!idsSigninPipeline.preHandle(request, servletResponse)) {
             throw new IdsException("IdsSigninPipeline<UserInfo>.preHandle returns false, the process is blocked.");
         }
-        IdsRequestParam param = IdsRequestParamProvider.parseRequest(request);
+        IdsRequestParam param = IdsRequestContext.of(request).getParam();
         UserInfo userInfo = idsSigninPipeline.postHandle(request, servletResponse);
         if (null == userInfo) {
             String username = param.getUsername();
@@ -117,16 +96,24 @@ public class LoginEndpoint extends AbstractEndpoint {
             if (ObjectUtil.hasEmpty(username, password)) {
                 throw new IdsException(ErrorResponse.INVALID_USER_CERTIFICATE);
             }
-            userInfo = JapIds.getContext().getUserService().loginByUsernameAndPassword(username, password, param.getClientId());
+            long start = JapMetricsHelper.startTimer();
+            try {
+                userInfo = JapIds.getContext().getUserService().loginByUsernameAndPassword(username, password, param.getClientId());
+            } finally {
+                JapMetricsHelper.stopTimer(JapMetrics.USER_SERVICE, "loginByUsernameAndPassword", start);
+            }
             if (null == userInfo) {
+                JapEventBus.getDefault().publish(JapEventType.LOGIN_FAILURE, username, param.getClientId(), null);
                 throw new IdsException(ErrorResponse.INVALID_USER_CERTIFICATE);
             }
         }
 
         JapIds.saveUserInfo(userInfo, request);
 
-        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getByClientId(param.getClientId());
+        ClientDetail clientDetail = IdsRequestContext.of(request).getClientDetail(param.getClientId());
         OauthUtil.validClientDetail(clientDetail);
+        JapEventBus.getDefault().publish(JapEventType.LOGIN_SUCCESS, userInfo.getId(), param.getClientId(), null);
+        this.publishAsyncEvent(IdsPipelineEvent.Type.SIGNIN, userInfo, param.getClientId(), request);
 
         String redirectUri = null;
         // When the client supports automatic authorization, it will judge whether the {@code autoapprove} function is enabled
@@ -15,11 +15,15 @@
  */
 package com.fujieid.jap.ids.endpoint;
 
+import com.fujieid.jap.core.event.JapEventBus;
+import com.fujieid.jap.core.event.JapEventType;
 import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.context.IdsRequestContext;
 import com.fujieid.jap.ids.exception.IdsException;
 import com.fujieid.jap.ids.model.IdsResponse;
 import com.fujieid.jap.ids.model.UserInfo;
 import com.fujieid.jap.ids.pipeline.IdsPipeline;
+import com.fujieid.jap.ids.pipeline.IdsPipelineEvent;
 import com.fujieid.jap.ids.util.EndpointUtil;
 
 import javax.servlet.ServletResponse;
@@ -40,10 +44,14 @@ public class LogoutEndpoint extends AbstractEndpoint {
         if (!logoutPipeline.preHandle(request, response)) {
             throw new IdsException("IdsLogoutPipeline<UserInfo>.preHandle returns false, the process is blocked.");
         }
+        UserInfo userInfo = JapIds.getUserInfo(request);
         JapIds.removeUserInfo(request);
         request.getSession().invalidate();
 
         logoutPipeline.afterHandle(request, response);
+        String clientId = IdsRequestContext.of(request).getParam().getClientId();
+        JapEventBus.getDefault().publish(JapEventType.LOGOUT, null == userInfo ? null : userInfo.getId(), clientId, null);
+        this.publishAsyncEvent(IdsPipelineEvent.Type.LOGOUT, userInfo, clientId, request);
         return new IdsResponse<String, String>()
             .data(EndpointUtil.getLogoutRedirectUrl(request));
     }
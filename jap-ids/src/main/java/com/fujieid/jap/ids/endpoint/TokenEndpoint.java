@@ -15,17 +15,23 @@
  */
 package com.fujieid.jap.ids.endpoint;
 
+import com.fujieid.jap.core.metrics.JapMetrics;
+import com.fujieid.jap.core.metrics.JapMetricsHelper;
+import com.fujieid.jap.ids.context.IdsRequestContext;
 import com.fujieid.jap.ids.exception.UnsupportedGrantTypeException;
 import com.fujieid.jap.ids.model.IdsRequestParam;
 import com.fujieid.jap.ids.model.IdsResponse;
+import com.fujieid.jap.ids.model.IdsTokenResponse;
 import com.fujieid.jap.ids.model.enums.ErrorResponse;
 import com.fujieid.jap.ids.model.enums.GrantType;
-import com.fujieid.jap.ids.provider.IdsRequestParamProvider;
 import com.fujieid.jap.ids.provider.IdsTokenProvider;
+import com.fujieid.jap.ids.util.IdsJsonWriter;
 import com.fujieid.jap.ids.util.TokenUtil;
 import com.xkcoding.json.util.StringUtil;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 
 /**
  * Token Endpoint. According to the request parameters, to obtain different types of access tokens, refer to:
@@ -42,25 +48,71 @@ import javax.servlet.http.HttpServletRequest;
  */
 public class TokenEndpoint extends AbstractEndpoint {
 
+    private static final GrantType[] SUPPORTED_GRANT_TYPES = {
+        GrantType.AUTHORIZATION_CODE, GrantType.PASSWORD, GrantType.CLIENT_CREDENTIALS, GrantType.REFRESH_TOKEN
+    };
+
     private final IdsTokenProvider idsTokenProvider = new IdsTokenProvider(oauth2Service);
 
     public IdsResponse<String, Object> getToken(HttpServletRequest request) {
-        IdsRequestParam param = IdsRequestParamProvider.parseRequest(request);
+        return this.getTokenResponse(request).toIdsResponse();
+    }
+
+    /**
+     * Generate the token and write the token response to the HTTP response directly
+     *
+     * @param request  current HTTP request
+     * @param response current HTTP response
+     * @throws IOException IOException
+     * @see <a href="https://tools.ietf.org/html/rfc6749#section-5.1" target="_blank">5.1.  Successful Response</a>
+     */
+    public void writeToken(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        IdsTokenResponse tokenResponse = this.getTokenResponse(request);
+        response.setHeader("Cache-Control", "no-store");
+        response.setHeader("Pragma", "no-cache");
+        IdsJsonWriter.write(response, tokenResponse);
+    }
+
+    public IdsTokenResponse getTokenResponse(HttpServletRequest request) {
+        IdsRequestParam param = IdsRequestContext.of(request).getParam();
+        long start = JapMetricsHelper.startTimer();
+        try {
+            return this.generateTokenResponse(param, request);
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.IDS_TOKEN, getGrantTypeTag(param.getGrantType()), start);
+        }
+    }
+
+    /**
+     * Only the supported grant types are used as the tag of the metrics, so that the tag values are bounded
+     *
+     * @param grantType The grant type in the current HTTP request
+     * @return tag value
+     */
+    private static String getGrantTypeTag(String grantType) {
+        for (GrantType supported : SUPPORTED_GRANT_TYPES) {
+            if (supported.getType().equals(grantType)) {
+                return supported.getType();
+            }
+        }
+        return "unsupported";
+    }
 
+    private IdsTokenResponse generateTokenResponse(IdsRequestParam param, HttpServletRequest request) {
         if (StringUtil.isEmpty(param.getGrantType())) {
             throw new UnsupportedGrantTypeException(ErrorResponse.UNSUPPORTED_GRANT_TYPE);
         }
         if (GrantType.AUTHORIZATION_CODE.getType().equals(param.getGrantType())) {
-            return idsTokenProvider.generateAuthorizationCodeResponse(param, request);
+            return idsTokenProvider.generateAuthorizationCodeTokenResponse(param, request);
         }
         if (GrantType.PASSWORD.getType().equals(param.getGrantType())) {
-            return idsTokenProvider.generatePasswordResponse(param, request);
+            return idsTokenProvider.generatePasswordTokenResponse(param, request);
         }
         if (GrantType.CLIENT_CREDENTIALS.getType().equals(param.getGrantType())) {
-            return idsTokenProvider.generateClientCredentialsResponse(param, request);
+            return idsTokenProvider.generateClientCredentialsTokenResponse(param, request);
         }
         if (GrantType.REFRESH_TOKEN.getType().equals(param.getGrantType())) {
-            return idsTokenProvider.generateRefreshTokenResponse(param, request);
+            return idsTokenProvider.generateRefreshTokenTokenResponse(param, request);
         }
         throw new UnsupportedGrantTypeException(ErrorResponse.UNSUPPORTED_GRANT_TYPE);
     }
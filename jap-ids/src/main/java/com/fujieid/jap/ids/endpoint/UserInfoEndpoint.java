@@ -15,22 +15,27 @@
  */
 package com.fujieid.jap.ids.endpoint;
 
+import com.fujieid.jap.core.metrics.JapMetrics;
+import com.fujieid.jap.core.metrics.JapMetricsHelper;
 import com.fujieid.jap.ids.JapIds;
 import com.fujieid.jap.ids.exception.IdsException;
 import com.fujieid.jap.ids.exception.InvalidTokenException;
 import com.fujieid.jap.ids.model.AccessToken;
 import com.fujieid.jap.ids.model.IdsResponse;
+import com.fujieid.jap.ids.model.IdsUserInfoResponse;
 import com.fujieid.jap.ids.model.UserInfo;
 import com.fujieid.jap.ids.model.enums.ErrorResponse;
 import com.fujieid.jap.ids.model.enums.ScopeClaimsMapping;
+import com.fujieid.jap.ids.oidc.OidcDocument;
+import com.fujieid.jap.ids.util.IdsJsonWriter;
 import com.fujieid.jap.ids.util.OauthUtil;
 import com.fujieid.jap.ids.util.TokenUtil;
-import com.xkcoding.json.JsonUtil;
+import com.fujieid.jap.ids.util.UserInfoCache;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.*;
 
 /**
  * userinfo endpoint
@@ -42,6 +47,20 @@ import java.util.Set;
  */
 public class UserInfoEndpoint extends AbstractEndpoint {
 
+    /**
+     * The excluded claims of each bitmask of the granted scopes
+     */
+    private static final List<Set<String>> EXCLUDED_CLAIMS;
+
+    static {
+        int size = 1 << ScopeClaimsMapping.values().length;
+        List<Set<String>> excludedClaims = new ArrayList<>(size);
+        for (int scopeMask = 0; scopeMask < size; scopeMask++) {
+            excludedClaims.add(createExcludedClaims(scopeMask));
+        }
+        EXCLUDED_CLAIMS = Collections.unmodifiableList(excludedClaims);
+    }
+
     /**
      * Get the currently logged-in user information through the access token
      *
@@ -52,7 +71,49 @@ public class UserInfoEndpoint extends AbstractEndpoint {
      * @see <a href="https://openid.net/specs/openid-connect-core-1_0.html#ScopeClaims" target="_blank">5.4.  Requesting Claims using Scope Values</a>
      */
     public IdsResponse<String, Object> getCurrentUserInfo(HttpServletRequest request) {
+        return this.getCurrentUserInfoResponse(request).toIdsResponse();
+    }
+
+    /**
+     * Get the currently logged-in user information through the access token, and write it to the HTTP response directly.
+     * <p>
+     * The rendered response is cached for {@code IdsConfig#getUserinfoCacheTtl()} seconds, and carries an ETag,
+     * when the client has the latest response ({@code If-None-Match}), only {@code 304 Not Modified} is returned.
+     *
+     * @param request  current HTTP request
+     * @param response current HTTP response
+     * @throws IOException IOException
+     * @see UserInfoCache#evict(String)
+     */
+    public void writeCurrentUserInfo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AccessToken accessToken = this.getAccessToken(request);
+        String userId = accessToken.getUserId();
+        int scopeMask = ScopeClaimsMapping.maskOf(OauthUtil.convertStrToList(accessToken.getScope()));
+
+        OidcDocument document = UserInfoCache.get(userId, scopeMask);
+        if (null == document) {
+            long epoch = UserInfoCache.epoch();
+            UserInfo user = this.getUser(userId, scopeMask);
+            document = new OidcDocument(IdsJsonWriter.toJsonString(new IdsUserInfoResponse(user, EXCLUDED_CLAIMS.get(scopeMask))));
+            UserInfoCache.put(userId, scopeMask, document, JapIds.getIdsConfig().getUserinfoCacheTtl() * 1000, epoch);
+        }
+        document.write(request, response, "private, no-cache");
+    }
+
+    /**
+     * Get the typed userinfo response of the currently logged-in user
+     *
+     * @param request current HTTP request
+     * @return IdsUserInfoResponse
+     */
+    public IdsUserInfoResponse getCurrentUserInfoResponse(HttpServletRequest request) {
+        AccessToken accessToken = this.getAccessToken(request);
+        int scopeMask = ScopeClaimsMapping.maskOf(OauthUtil.convertStrToList(accessToken.getScope()));
+        UserInfo user = this.getUser(accessToken.getUserId(), scopeMask);
+        return new IdsUserInfoResponse(user, EXCLUDED_CLAIMS.get(scopeMask));
+    }
 
+    private AccessToken getAccessToken(HttpServletRequest request) {
         String accessTokenStr = TokenUtil.getAccessToken(request);
 
         AccessToken accessToken = TokenUtil.getByAccessToken(accessTokenStr);
@@ -60,51 +121,39 @@ public class UserInfoEndpoint extends AbstractEndpoint {
         if (null == accessToken) {
             throw new InvalidTokenException(ErrorResponse.INVALID_TOKEN);
         }
-        UserInfo user = JapIds.getContext().getUserService().getById(accessToken.getUserId());
+        return accessToken;
+    }
+
+    private UserInfo getUser(String userId, int scopeMask) {
+        long start = JapMetricsHelper.startTimer();
+        UserInfo user;
+        try {
+            user = JapIds.getContext().getUserService().getById(userId, ScopeClaimsMapping.getRequiredClaims(scopeMask));
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.USER_SERVICE, "getById", start);
+        }
 
         if (null == user) {
             throw new IdsException(ErrorResponse.ACCESS_DENIED);
         }
+        return user;
+    }
 
-        String scope = accessToken.getScope();
-        Set<String> scopes = OauthUtil.convertStrToList(scope);
-        Map<String, Object> userInfoMap = JsonUtil.parseKv(JsonUtil.toJsonString(user));
-        // This scope value requests access to the End-User's default profile Claims,
-        // which are: name, family_name, given_name, middle_name, nickname, preferred_username, profile, picture, website, gender, birthdate, zoneinfo, locale, and updated_at.
-        if (!scopes.contains("profile")) {
-            ScopeClaimsMapping scopeClaimsMapping = ScopeClaimsMapping.profile;
-            List<String> claims = scopeClaimsMapping.getClaims();
-            for (String claim : claims) {
-                userInfoMap.remove(claim);
-            }
-        }
-        // This scope value requests access to the email and email_verified Claims.
-        if (scopes.contains("email")) {
-            ScopeClaimsMapping scopeClaimsMapping = ScopeClaimsMapping.email;
-            List<String> claims = scopeClaimsMapping.getClaims();
-            for (String claim : claims) {
-                userInfoMap.remove(claim);
-            }
-        }
-        // This scope value requests access to the phone_number and phone_number_verified Claims.
-        if (scopes.contains("phone")) {
-            ScopeClaimsMapping scopeClaimsMapping = ScopeClaimsMapping.phone;
-            List<String> claims = scopeClaimsMapping.getClaims();
-            for (String claim : claims) {
-                userInfoMap.remove(claim);
-            }
-        }
-        // This scope value requests access to the address Claim.
-        if (scopes.contains("address")) {
-            ScopeClaimsMapping scopeClaimsMapping = ScopeClaimsMapping.address;
-            List<String> claims = scopeClaimsMapping.getClaims();
-            for (String claim : claims) {
-                userInfoMap.remove(claim);
+    /**
+     * Calculate the claims to be removed from the userinfo response for the bitmask of the granted scopes
+     *
+     * @param scopeMask bitmask created by {@link ScopeClaimsMapping#maskOf(Set)}
+     * @return the excluded claims
+     */
+    private static Set<String> createExcludedClaims(int scopeMask) {
+        Set<String> excludedClaims = new HashSet<>();
+        // Each scope value requests access to a group of claims, such as the profile, email, phone and address,
+        // the claims of the scopes that are not granted are not returned
+        for (ScopeClaimsMapping mapping : ScopeClaimsMapping.values()) {
+            if (!mapping.in(scopeMask)) {
+                excludedClaims.addAll(mapping.getClaims());
             }
         }
-        IdsResponse<String, Object> idsResponse = new IdsResponse<>();
-        idsResponse.putAll(userInfoMap);
-        return idsResponse;
+        return Collections.unmodifiableSet(excludedClaims);
     }
-
 }
@@ -18,15 +18,15 @@ package com.fujieid.jap.ids.filter;
 import cn.hutool.log.Log;
 import cn.hutool.log.LogFactory;
 import com.fujieid.jap.ids.JapIds;
-import com.fujieid.jap.ids.config.IdsConfig;
 import com.fujieid.jap.ids.pipeline.IdsPipeline;
-import com.xkcoding.json.util.StringUtil;
 
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -38,7 +38,16 @@ import java.util.List;
  */
 public class AbstractIdsFilter {
     protected static final Log log = LogFactory.get();
-    protected final List<String> ignoreUrls = new ArrayList<>();
+    /**
+     * The urls that do not need to be intercepted. They are compiled into {@link #ignoreUrlMatcher} instead of being
+     * consulted on every request, so they can only be modified through {@link #addIgnoreUrls(Collection)}, which recompiles the matcher.
+     */
+    private final List<String> ignoreUrls = new ArrayList<>();
+
+    /**
+     * The compiled {@link #ignoreUrls}, shared by the filters with the same ignore urls
+     */
+    private volatile IgnoreUrlMatcher ignoreUrlMatcher;
 
     /**
      * Whether it is a servlet request that needs to be ignored
@@ -47,26 +56,41 @@ public class AbstractIdsFilter {
      * @return boolean, the request does not need to be intercepted when true is returned
      */
     protected boolean isIgnoredServletPath(HttpServletRequest request) {
-        String servletPath = request.getServletPath();
-        if (ignoreUrls.contains(servletPath)) {
-            return true;
+        IgnoreUrlMatcher matcher = this.ignoreUrlMatcher;
+        if (null == matcher) {
+            // The filter is not initialized through {@code initIgnoreUrls}
+            matcher = this.compileIgnoreUrls();
         }
-        for (String ignoreUrl : ignoreUrls) {
-            if (ignoreUrl.contains("**")) {
-                String[] urls = ignoreUrl.split("\\*\\*");
-                if (urls.length == 1) {
-                    if (servletPath.startsWith(urls[0])) {
-                        return true;
-                    }
-                }
-                if (urls.length > 1) {
-                    if (servletPath.startsWith(urls[0]) && servletPath.endsWith(urls[urls.length - 1])) {
-                        return true;
-                    }
-                }
-            }
+        return matcher.matches(request.getServletPath());
+    }
+
+    /**
+     * Add the urls that do not need to be intercepted, the ignore urls are recompiled immediately
+     *
+     * @param urls URLs that do not need to be intercepted, Ant-style patterns are supported
+     */
+    protected void addIgnoreUrls(Collection<String> urls) {
+        synchronized (ignoreUrls) {
+            ignoreUrls.addAll(urls);
+            this.compileIgnoreUrls();
+        }
+    }
+
+    /**
+     * @return an unmodifiable copy of the urls that do not need to be intercepted
+     */
+    protected List<String> getIgnoreUrls() {
+        synchronized (ignoreUrls) {
+            return Collections.unmodifiableList(new ArrayList<>(ignoreUrls));
+        }
+    }
+
+    private IgnoreUrlMatcher compileIgnoreUrls() {
+        synchronized (ignoreUrls) {
+            IgnoreUrlMatcher matcher = IgnoreUrlMatcher.compile(ignoreUrls);
+            this.ignoreUrlMatcher = matcher;
+            return matcher;
         }
-        return false;
     }
 
     /**
@@ -75,36 +99,15 @@ public class AbstractIdsFilter {
      * @param ignoreUrl URLs that do not need to be intercepted
      */
     protected void initIgnoreUrls(String ignoreUrl) {
+        List<String> urls = new ArrayList<>();
         if (null != ignoreUrl) {
-            String[] ignoreUrls = ignoreUrl.split(",");
-            this.ignoreUrls.addAll(Arrays.asList(ignoreUrls));
+            urls.addAll(Arrays.asList(ignoreUrl.split(",")));
         } else {
             // Fault-tolerant processing
-            IdsConfig config = JapIds.getIdsConfig();
-            String authorizeUrl = config.getAuthorizeUrl();
-            String authorizeAutoApproveUrl = config.getAuthorizeAutoApproveUrl();
-            String loginUrl = config.getLoginUrl();
-            String loginPageUrl = config.getLoginPageUrl();
-            String errorUrl = config.getErrorUrl();
-            String confirmPageUrl = config.getConfirmPageUrl();
-            String tokenUrl = config.getTokenUrl();
-            String registrationUrl = config.getRegistrationUrl();
-            String checkSessionUrl = config.getCheckSessionUrl();
-            String jwksUrl = config.getJwksUrl();
-            String discoveryUrl = config.getDiscoveryUrl();
-            String logoutUrl = config.getLoginUrl();
-            String logoutRedirectUrl = config.getLogoutRedirectUrl();
-            String[] urls = {authorizeUrl, authorizeAutoApproveUrl, loginUrl, loginPageUrl, errorUrl, confirmPageUrl,
-                tokenUrl, registrationUrl, jwksUrl, discoveryUrl, logoutUrl, logoutRedirectUrl, checkSessionUrl};
-            for (String url : urls) {
-                if (StringUtil.isEmpty(url)) {
-                    continue;
-                }
-
-                this.ignoreUrls.add(url);
-            }
+            urls.addAll(JapIds.getConfigSnapshot().getIgnoreUrls());
         }
-        this.ignoreUrls.add("/favicon.ico");
+        urls.add("/favicon.ico");
+        this.addIgnoreUrls(urls);
     }
 
     protected IdsPipeline<Object> getFilterErrorPipeline(IdsPipeline<Object> idsFilterErrorPipeline) {
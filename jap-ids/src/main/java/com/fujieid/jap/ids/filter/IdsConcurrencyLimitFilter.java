@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.filter;
+
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.config.IdsConfig;
+import com.fujieid.jap.ids.exception.IdsException;
+import com.fujieid.jap.ids.model.IdsErrorResponse;
+import com.fujieid.jap.ids.model.enums.ErrorResponse;
+import com.fujieid.jap.ids.util.AdaptiveConcurrencyLimiter;
+import com.fujieid.jap.ids.util.IdsConcurrencyLimiter;
+import com.fujieid.jap.ids.util.IdsConcurrencyLimiter.EndpointType;
+import com.fujieid.jap.ids.util.IdsJsonWriter;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Admission control of the ids endpoints, see {@link IdsConcurrencyLimiter}.
+ * <p>
+ * The requests of the token, authorize, userinfo and discovery endpoints are admitted by the limiter of their class,
+ * the requests beyond the estimated capacity are rejected immediately with {@code 503 Service Unavailable}
+ * and the {@code temporarily_unavailable} error, other requests are passed through.
+ * <p>
+ * The requests completed with an {@link IdsException} (such as an invalid grant) are regarded as successful,
+ * other exceptions shrink the limit.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class IdsConcurrencyLimitFilter extends AbstractIdsFilter implements Filter {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private volatile EndpointMatchers endpointMatchers;
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        AdaptiveConcurrencyLimiter limiter = IdsConcurrencyLimiter.getLimiter(this.getEndpointType(request.getServletPath()));
+        if (null == limiter) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        if (null == permit) {
+            log.debug("{} - {} is rejected by the concurrency limiting", request.getMethod(), request.getRequestURI());
+            HttpServletResponse response = (HttpServletResponse) servletResponse;
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+            IdsJsonWriter.write(response, new IdsErrorResponse(ErrorResponse.TEMPORARILY_UNAVAILABLE));
+            return;
+        }
+        boolean success = false;
+        try {
+            filterChain.doFilter(servletRequest, servletResponse);
+            success = true;
+        } catch (IdsException e) {
+            success = true;
+            throw e;
+        } finally {
+            permit.release(success);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        Filter.super.destroy();
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        Filter.super.init(filterConfig);
+    }
+
+    private EndpointType getEndpointType(String servletPath) {
+        EndpointMatchers matchers = this.endpointMatchers;
+        IdsConfig config = JapIds.getIdsConfig();
+        if (null == matchers || matchers.config != config) {
+            matchers = this.endpointMatchers = new EndpointMatchers(config);
+        }
+        return matchers.match(servletPath);
+    }
+
+    /**
+     * The endpoint urls of each class compiled from the ids config
+     */
+    private static class EndpointMatchers {
+        private final IdsConfig config;
+        private final IgnoreUrlMatcher token;
+        private final IgnoreUrlMatcher authorize;
+        private final IgnoreUrlMatcher userinfo;
+        private final IgnoreUrlMatcher discovery;
+
+        EndpointMatchers(IdsConfig config) {
+            this.config = config;
+            this.token = IgnoreUrlMatcher.compile(Arrays.asList(config.getTokenUrl()));
+            this.authorize = IgnoreUrlMatcher.compile(Arrays.asList(config.getAuthorizeUrl(), config.getAuthorizeAutoApproveUrl(), config.getLoginUrl()));
+            this.userinfo = IgnoreUrlMatcher.compile(Arrays.asList(config.getUserinfoUrl()));
+            this.discovery = IgnoreUrlMatcher.compile(Arrays.asList(config.getDiscoveryUrl(), config.getJwksUrl()));
+        }
+
+        EndpointType match(String servletPath) {
+            if (token.matches(servletPath)) {
+                return EndpointType.TOKEN;
+            }
+            if (authorize.matches(servletPath)) {
+                return EndpointType.AUTHORIZE;
+            }
+            if (userinfo.matches(servletPath)) {
+                return EndpointType.USERINFO;
+            }
+            if (discovery.matches(servletPath)) {
+                return EndpointType.DISCOVERY;
+            }
+            return null;
+        }
+    }
+}
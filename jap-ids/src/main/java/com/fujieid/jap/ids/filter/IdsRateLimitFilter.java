@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.filter;
+
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.config.IdsConfig;
+import com.fujieid.jap.ids.exception.SlowDownException;
+import com.fujieid.jap.ids.model.IdsErrorResponse;
+import com.fujieid.jap.ids.model.enums.ErrorResponse;
+import com.fujieid.jap.ids.util.IdsJsonWriter;
+import com.fujieid.jap.ids.util.IdsRateLimiter;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rate limiting filter of the token and login endpoints, see {@link IdsRateLimiter}.
+ * <p>
+ * The urls to be limited can be specified by the {@code limitUrl} init parameter (separated by commas, Ant-style patterns are supported),
+ * the default is the token url and the login url in {@link IdsConfig}.
+ * The rejected requests are responded with {@code 429 Too Many Requests}, the {@code Retry-After} header and the {@code slow_down} error.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class IdsRateLimitFilter extends AbstractIdsFilter implements Filter {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * The urls specified by the {@code limitUrl} init parameter, null when the default urls are limited
+     */
+    private volatile IgnoreUrlMatcher limitUrlMatcher;
+    /**
+     * The default urls compiled from the current ids config
+     */
+    private volatile DefaultLimitUrls defaultLimitUrls;
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        if (!this.getLimitUrlMatcher().matches(request.getServletPath())) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+        try {
+            IdsRateLimiter.check(request);
+        } catch (SlowDownException e) {
+            log.debug("{} - {} is rejected by the rate limiting", request.getMethod(), request.getRequestURI());
+            HttpServletResponse response = (HttpServletResponse) servletResponse;
+            response.setStatus(TOO_MANY_REQUESTS);
+            response.setHeader("Retry-After", String.valueOf(e.getRetryAfter()));
+            response.setHeader("Cache-Control", "no-store");
+            IdsJsonWriter.write(response, new IdsErrorResponse(ErrorResponse.SLOW_DOWN));
+            return;
+        }
+        filterChain.doFilter(servletRequest, servletResponse);
+    }
+
+    @Override
+    public void destroy() {
+        Filter.super.destroy();
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        Filter.super.init(filterConfig);
+        String limitUrl = filterConfig.getInitParameter("limitUrl");
+        if (null != limitUrl) {
+            List<String> limitUrls = new ArrayList<>();
+            for (String url : limitUrl.split(",")) {
+                if (!url.trim().isEmpty()) {
+                    limitUrls.add(url.trim());
+                }
+            }
+            if (!limitUrls.isEmpty()) {
+                this.limitUrlMatcher = IgnoreUrlMatcher.compile(limitUrls);
+            }
+        }
+    }
+
+    private IgnoreUrlMatcher getLimitUrlMatcher() {
+        IgnoreUrlMatcher matcher = this.limitUrlMatcher;
+        if (null != matcher) {
+            return matcher;
+        }
+        DefaultLimitUrls limitUrls = this.defaultLimitUrls;
+        IdsConfig config = JapIds.getIdsConfig();
+        if (null == limitUrls || limitUrls.config != config) {
+            limitUrls = this.defaultLimitUrls = new DefaultLimitUrls(config);
+        }
+        return limitUrls.matcher;
+    }
+
+    /**
+     * The token url and the login url compiled from the ids config
+     */
+    private static class DefaultLimitUrls {
+        private final IdsConfig config;
+        private final IgnoreUrlMatcher matcher;
+
+        DefaultLimitUrls(IdsConfig config) {
+            this.config = config;
+            this.matcher = IgnoreUrlMatcher.compile(Arrays.asList(config.getTokenUrl(), config.getLoginUrl()));
+        }
+    }
+}
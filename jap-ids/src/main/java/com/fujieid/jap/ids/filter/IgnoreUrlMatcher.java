@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.filter;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ant-style matcher of the urls ignored by the ids filters.
+ * <p>
+ * The patterns are compiled into a segment trie once:
+ * <ul>
+ *     <li>{@code /oauth/token} matches the path exactly</li>
+ *     <li>{@code *} and {@code ?} match characters within one path segment, such as {@code /static/*.js}</li>
+ *     <li>{@code **} matches zero or more path segments, such as {@code /static/**}{@code /*.css};
+ *     a trailing {@code **} matches one or more, so {@code /oauth/**} matches everything starting with {@code /oauth/}, but not {@code /oauth}</li>
+ *     <li>{@code **} adjacent to other characters in a segment is treated as {@code **} followed by (or following) a {@code *} segment,
+ *     so {@code /static/**.js} keeps matching every {@code .js} file under {@code /static/}, and {@code /api**} everything starting with {@code /api}</li>
+ * </ul>
+ * Matching walks the servlet path once by index, without splitting or allocating.
+ * Like the plain string comparison the ignore urls used to be matched with, every slash is significant:
+ * empty path segments are not collapsed, so {@code /oauth/token} matches neither {@code /oauth/token/} nor {@code //oauth/token},
+ * and {@code *} or {@code ?} never match an empty segment.
+ * <p>
+ * The compiled matchers are shared, filters configured with the same ignore urls use the same matcher.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public final class IgnoreUrlMatcher {
+
+    /**
+     * Maximum number of shared matchers, the cache is cleared when the limit is reached
+     */
+    static final int MAX_MATCHERS = 64;
+
+    private static final String ANY_SEGMENTS = "**";
+    private static final Map<List<String>, IgnoreUrlMatcher> MATCHERS = new ConcurrentHashMap<>();
+
+    private final List<String> patterns;
+    private final Node root;
+
+    private IgnoreUrlMatcher(List<String> patterns) {
+        this.patterns = patterns;
+        Builder root = new Builder();
+        for (String pattern : patterns) {
+            root.add(pattern);
+        }
+        this.root = root.build();
+    }
+
+    /**
+     * Compile the ignore url patterns, blank patterns are skipped
+     *
+     * @param patterns Ant-style ignore url patterns
+     * @return the shared matcher of the patterns
+     */
+    public static IgnoreUrlMatcher compile(Collection<String> patterns) {
+        List<String> key = new ArrayList<>();
+        if (null != patterns) {
+            for (String pattern : patterns) {
+                if (null != pattern && !pattern.trim().isEmpty() && !key.contains(pattern.trim())) {
+                    key.add(pattern.trim());
+                }
+            }
+        }
+        key = Collections.unmodifiableList(key);
+        IgnoreUrlMatcher matcher = MATCHERS.get(key);
+        if (null == matcher) {
+            if (MATCHERS.size() >= MAX_MATCHERS) {
+                MATCHERS.clear();
+            }
+            matcher = MATCHERS.computeIfAbsent(key, IgnoreUrlMatcher::new);
+        }
+        return matcher;
+    }
+
+    /**
+     * @return the compiled patterns
+     */
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Whether the path matches any of the compiled patterns
+     *
+     * @param path servlet path
+     * @return boolean
+     */
+    public boolean matches(String path) {
+        return null != path && root.matches(path, 0);
+    }
+
+    private static int segmentEnd(String path, int pos) {
+        int end = path.indexOf('/', pos);
+        return end < 0 ? path.length() : end;
+    }
+
+    /**
+     * Match a segment of the path against a segment pattern containing {@code *} or {@code ?}
+     */
+    private static boolean matchesSegment(String pattern, String path, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        int p = 0;
+        int s = start;
+        int starPattern = -1;
+        int starPath = -1;
+        int patternLength = pattern.length();
+        while (s < end) {
+            if (p < patternLength && (pattern.charAt(p) == '?' || pattern.charAt(p) == path.charAt(s))) {
+                p++;
+                s++;
+            } else if (p < patternLength && pattern.charAt(p) == '*') {
+                starPattern = p++;
+                starPath = s;
+            } else if (starPattern >= 0) {
+                p = starPattern + 1;
+                s = ++starPath;
+            } else {
+                return false;
+            }
+        }
+        while (p < patternLength && pattern.charAt(p) == '*') {
+            p++;
+        }
+        return p == patternLength;
+    }
+
+    private static boolean isWildcard(String segment) {
+        return segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0;
+    }
+
+    private static int hash(String path, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + path.charAt(i);
+        }
+        return h;
+    }
+
+    /**
+     * An immutable node of the segment trie
+     */
+    private static class Node {
+        private final boolean terminal;
+        /**
+         * Open addressing table of the literal child segments, the hash is the same as {@link String#hashCode()}
+         */
+        private final String[] literals;
+        private final int[] literalHashes;
+        private final Node[] literalNodes;
+        private final String[] wildcards;
+        private final Node[] wildcardNodes;
+        /**
+         * The node after a {@code **} segment
+         */
+        private final Node anySegments;
+
+        Node(boolean terminal, Map<String, Node> literalChildren, Map<String, Node> wildcardChildren, Node anySegments) {
+            this.terminal = terminal;
+            this.anySegments = anySegments;
+            int capacity = 1;
+            while (capacity < literalChildren.size() * 2) {
+                capacity <<= 1;
+            }
+            this.literals = new String[literalChildren.isEmpty() ? 0 : capacity];
+            this.literalHashes = new int[this.literals.length];
+            this.literalNodes = new Node[this.literals.length];
+            for (Map.Entry<String, Node> entry : literalChildren.entrySet()) {
+                int h = entry.getKey().hashCode();
+                int i = h & (capacity - 1);
+                while (null != literals[i]) {
+                    i = (i + 1) & (capacity - 1);
+                }
+                literals[i] = entry.getKey();
+                literalHashes[i] = h;
+                literalNodes[i] = entry.getValue();
+            }
+            this.wildcards = wildcardChildren.keySet().toArray(new String[0]);
+            this.wildcardNodes = wildcardChildren.values().toArray(new Node[0]);
+        }
+
+        /**
+         * @param pos The start of the next segment of the path, greater than the length of the path when there is no more segment
+         */
+        boolean matches(String path, int pos) {
+            if (pos > path.length()) {
+                // A trailing "**" has to consume at least one segment, so the path must not end here
+                return terminal;
+            }
+            int end = segmentEnd(path, pos);
+            Node literal = this.getLiteral(path, pos, end);
+            if (null != literal && literal.matches(path, end + 1)) {
+                return true;
+            }
+            for (int i = 0; i < wildcards.length; i++) {
+                if (matchesSegment(wildcards[i], path, pos, end) && wildcardNodes[i].matches(path, end + 1)) {
+                    return true;
+                }
+            }
+            if (null != anySegments) {
+                // "**" consumes zero or more segments, empty segments included
+                int next = pos;
+                while (true) {
+                    if (anySegments.matches(path, next)) {
+                        return true;
+                    }
+                    if (next > path.length()) {
+                        return false;
+                    }
+                    next = segmentEnd(path, next) + 1;
+                }
+            }
+            return false;
+        }
+
+        private Node getLiteral(String path, int start, int end) {
+            if (literals.length == 0) {
+                return null;
+            }
+            int length = end - start;
+            int h = hash(path, start, end);
+            int mask = literals.length - 1;
+            for (int i = h & mask; null != literals[i]; i = (i + 1) & mask) {
+                if (literalHashes[i] == h && literals[i].length() == length && path.regionMatches(start, literals[i], 0, length)) {
+                    return literalNodes[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The mutable node used while compiling the patterns
+     */
+    private static class Builder {
+        private final Map<String, Builder> literalChildren = new HashMap<>();
+        private final Map<String, Builder> wildcardChildren = new LinkedHashMap<>();
+        private Builder anySegments;
+        private boolean terminal;
+        /**
+         * Whether this node is reached through a {@code **} segment
+         */
+        private boolean anySegmentsNode;
+
+        void add(String pattern) {
+            Builder node = this;
+            String[] segments = pattern.split("/", -1);
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.contains(ANY_SEGMENTS) && !ANY_SEGMENTS.equals(segment)) {
+                    // Such as "**.js" or "api**", the "**" also matches the rest of this segment only
+                    int index = segment.indexOf(ANY_SEGMENTS);
+                    String before = segment.substring(0, index);
+                    String after = segment.substring(index + ANY_SEGMENTS.length()).replace(ANY_SEGMENTS, "*");
+                    if (!before.isEmpty()) {
+                        if (i == segments.length - 1) {
+                            // "api**" matches "api" and "api1" as well
+                            node.child(before + "*" + after).terminal = true;
+                        }
+                        node = node.child(before + "*");
+                    }
+                    node = node.child(ANY_SEGMENTS);
+                    if (!after.isEmpty()) {
+                        node = node.child("*" + after);
+                    }
+                } else {
+                    node = node.child(segment);
+                }
+            }
+            node.terminal = true;
+        }
+
+        private Builder child(String segment) {
+            if (ANY_SEGMENTS.equals(segment)) {
+                if (anySegmentsNode) {
+                    // Consecutive "**" are the same as one
+                    return this;
+                }
+                if (null == anySegments) {
+                    anySegments = new Builder();
+                    anySegments.anySegmentsNode = true;
+                }
+                return anySegments;
+            }
+            Map<String, Builder> children = isWildcard(segment) ? wildcardChildren : literalChildren;
+            return children.computeIfAbsent(segment, key -> new Builder());
+        }
+
+        Node build() {
+            Map<String, Node> literals = new HashMap<>(literalChildren.size() * 2);
+            literalChildren.forEach((segment, child) -> literals.put(segment, child.build()));
+            Map<String, Node> wildcards = new LinkedHashMap<>();
+            wildcardChildren.forEach((segment, child) -> wildcards.put(segment, child.build()));
+            return new Node(terminal, literals, wildcards, null == anySegments ? null : anySegments.build());
+        }
+    }
+}
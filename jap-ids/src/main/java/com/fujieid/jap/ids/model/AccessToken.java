@@ -15,6 +15,8 @@
  */
 package com.fujieid.jap.ids.model;
 
+import com.fujieid.jap.ids.util.DateUtil;
+
 import java.io.Serializable;
 import java.time.LocalDateTime;
 
@@ -26,6 +28,10 @@ import java.time.LocalDateTime;
  * @since 1.0.1
  */
 public class AccessToken implements Serializable {
+    /**
+     * The id of the token family. All access tokens and refresh tokens rotated from the same grant share a family id
+     */
+    private String familyId;
     private String accessToken;
     private String refreshToken;
     private String userId;
@@ -35,8 +41,23 @@ public class AccessToken implements Serializable {
     private String clientId;
     private Long accessTokenExpiresIn;
     private Long refreshTokenExpiresIn;
-    private LocalDateTime accessTokenExpiration;
-    private LocalDateTime refreshTokenExpiration;
+    /**
+     * The expiration time of the access token, in epoch milliseconds
+     */
+    private long accessTokenExpiresAt;
+    /**
+     * The expiration time of the refresh token, in epoch milliseconds
+     */
+    private long refreshTokenExpiresAt;
+
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public AccessToken setFamilyId(String familyId) {
+        this.familyId = familyId;
+        return this;
+    }
 
     public String getAccessToken() {
         return accessToken;
@@ -119,21 +140,39 @@ public class AccessToken implements Serializable {
         return this;
     }
 
+    public long getAccessTokenExpiresAt() {
+        return accessTokenExpiresAt;
+    }
+
+    public AccessToken setAccessTokenExpiresAt(long accessTokenExpiresAt) {
+        this.accessTokenExpiresAt = accessTokenExpiresAt;
+        return this;
+    }
+
+    public long getRefreshTokenExpiresAt() {
+        return refreshTokenExpiresAt;
+    }
+
+    public AccessToken setRefreshTokenExpiresAt(long refreshTokenExpiresAt) {
+        this.refreshTokenExpiresAt = refreshTokenExpiresAt;
+        return this;
+    }
+
     public LocalDateTime getAccessTokenExpiration() {
-        return accessTokenExpiration;
+        return DateUtil.ofEpochMilli(accessTokenExpiresAt);
     }
 
     public AccessToken setAccessTokenExpiration(LocalDateTime accessTokenExpiration) {
-        this.accessTokenExpiration = accessTokenExpiration;
+        this.accessTokenExpiresAt = DateUtil.toEpochMilli(accessTokenExpiration);
         return this;
     }
 
     public LocalDateTime getRefreshTokenExpiration() {
-        return refreshTokenExpiration;
+        return DateUtil.ofEpochMilli(refreshTokenExpiresAt);
     }
 
     public AccessToken setRefreshTokenExpiration(LocalDateTime refreshTokenExpiration) {
-        this.refreshTokenExpiration = refreshTokenExpiration;
+        this.refreshTokenExpiresAt = DateUtil.toEpochMilli(refreshTokenExpiration);
         return this;
     }
 }
@@ -15,7 +15,10 @@
  */
 package com.fujieid.jap.ids.model;
 
+import com.fujieid.jap.ids.util.DateUtil;
+
 import java.io.Serializable;
+import java.time.LocalDateTime;
 
 /**
  * Authorization code
@@ -30,6 +33,12 @@ public class AuthCode implements Serializable {
     private String nonce;
     private String codeChallengeMethod;
     private String codeChallenge;
+    /**
+     * The expiration time of the authorization code, in epoch milliseconds.
+     * 0 means unset (such as a code cached by an earlier version or by a custom {@code Oauth2Service}),
+     * the code is then valid until it expires in the cache.
+     */
+    private long expiresAt;
 
     public String getScope() {
         return scope;
@@ -75,4 +84,17 @@ public class AuthCode implements Serializable {
         this.codeChallenge = codeChallenge;
         return this;
     }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public AuthCode setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+        return this;
+    }
+
+    public LocalDateTime getExpiration() {
+        return expiresAt <= 0 ? null : DateUtil.ofEpochMilli(expiresAt);
+    }
 }
@@ -72,6 +72,11 @@ public interface IdsConsts {
      */
     String OAUTH_REFRESH_TOKEN_CACHE_KEY = IDS_OAUTH_CACHE_KEY + "REFRESH_TOKEN:";
 
+    /**
+     * Cache the key of the grant record, one record is shared by all tokens of the same token family
+     */
+    String OAUTH_GRANT_CACHE_KEY = IDS_OAUTH_CACHE_KEY + "GRANT:";
+
     /**
      * Cache the key of the oauth code
      */
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.model;
+
+import com.fujieid.jap.ids.model.enums.ErrorResponse;
+import com.fujieid.jap.ids.util.IdsJsonWriter;
+
+/**
+ * The error response
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @see <a href="https://tools.ietf.org/html/rfc6749#section-5.2" target="_blank">5.2.  Error Response</a>
+ * @since 1.0.2
+ */
+public class IdsErrorResponse implements IdsJsonResponse {
+    private static final IdsJsonWriter.Name ERROR = IdsJsonWriter.Name.of("error");
+    private static final IdsJsonWriter.Name ERROR_DESCRIPTION = IdsJsonWriter.Name.of("error_description");
+    private static final IdsJsonWriter.Name ERROR_URI = IdsJsonWriter.Name.of("error_uri");
+    private static final IdsJsonWriter.Name STATE = IdsJsonWriter.Name.of("state");
+
+    private String error;
+    private String errorDescription;
+    private String errorUri;
+    private String state;
+
+    public IdsErrorResponse() {
+    }
+
+    public IdsErrorResponse(ErrorResponse errorResponse) {
+        this.error = errorResponse.getError();
+        this.errorDescription = errorResponse.getErrorDescription();
+    }
+
+    @Override
+    public void writeJson(IdsJsonWriter writer) {
+        writer.beginObject()
+            .fieldIfPresent(ERROR, error)
+            .fieldIfPresent(ERROR_DESCRIPTION, errorDescription)
+            .fieldIfPresent(ERROR_URI, errorUri)
+            .fieldIfPresent(STATE, state)
+            .endObject();
+    }
+
+    @Override
+    public IdsResponse<String, Object> toIdsResponse() {
+        IdsResponse<String, Object> response = new IdsResponse<>();
+        if (null != error) {
+            response.error(error);
+        }
+        if (null != errorDescription) {
+            response.errorDescription(errorDescription);
+        }
+        if (null != errorUri) {
+            response.errorUri(errorUri);
+        }
+        if (null != state) {
+            response.state(state);
+        }
+        return response;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public IdsErrorResponse setError(String error) {
+        this.error = error;
+        return this;
+    }
+
+    public String getErrorDescription() {
+        return errorDescription;
+    }
+
+    public IdsErrorResponse setErrorDescription(String errorDescription) {
+        this.errorDescription = errorDescription;
+        return this;
+    }
+
+    public String getErrorUri() {
+        return errorUri;
+    }
+
+    public IdsErrorResponse setErrorUri(String errorUri) {
+        this.errorUri = errorUri;
+        return this;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public IdsErrorResponse setState(String state) {
+        this.state = state;
+        return this;
+    }
+}
@@ -17,17 +17,23 @@ package com.fujieid.jap.ids.model;
 
 import cn.hutool.core.util.ObjectUtil;
 import com.fujieid.jap.ids.model.enums.ErrorResponse;
+import com.fujieid.jap.ids.util.IdsJsonWriter;
 import com.xkcoding.json.util.StringUtil;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
+ * The general response of the endpoints.
+ * <p>
+ * The token, userinfo and error responses have typed implementations of {@link IdsJsonResponse}, which can be written
+ * by {@link IdsJsonWriter} directly, this map is kept as an adapter of them.
+ *
  * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
  * @version 1.0.0
  * @since 1.0.0
  */
-public class IdsResponse<K, V> extends HashMap<String, Object> {
+public class IdsResponse<K, V> extends HashMap<String, Object> implements IdsJsonResponse {
     private final String error = "error";
     private final String error_description = "error_description";
     private final String error_uri = "error_uri";
@@ -99,4 +105,19 @@ public class IdsResponse<K, V> extends HashMap<String, Object> {
     public V getData() {
         return (V) this.get(data);
     }
+
+    @Override
+    public void writeJson(IdsJsonWriter writer) {
+        writer.beginObject();
+        for (Map.Entry<String, Object> entry : this.entrySet()) {
+            writer.name(entry.getKey()).value(entry.getValue());
+        }
+        writer.endObject();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public IdsResponse<String, Object> toIdsResponse() {
+        return (IdsResponse<String, Object>) this;
+    }
 }
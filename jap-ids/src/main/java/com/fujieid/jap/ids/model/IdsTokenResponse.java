@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.model;
+
+import com.fujieid.jap.ids.util.IdsJsonWriter;
+
+/**
+ * The successful token response
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @see <a href="https://tools.ietf.org/html/rfc6749#section-5.1" target="_blank">5.1.  Successful Response</a>
+ * @since 1.0.2
+ */
+public class IdsTokenResponse implements IdsJsonResponse {
+    private static final IdsJsonWriter.Name ACCESS_TOKEN = IdsJsonWriter.Name.of(IdsConsts.ACCESS_TOKEN);
+    private static final IdsJsonWriter.Name REFRESH_TOKEN = IdsJsonWriter.Name.of(IdsConsts.REFRESH_TOKEN);
+    private static final IdsJsonWriter.Name EXPIRES_IN = IdsJsonWriter.Name.of(IdsConsts.EXPIRES_IN);
+    private static final IdsJsonWriter.Name TOKEN_TYPE = IdsJsonWriter.Name.of(IdsConsts.TOKEN_TYPE);
+    private static final IdsJsonWriter.Name SCOPE = IdsJsonWriter.Name.of(IdsConsts.SCOPE);
+    private static final IdsJsonWriter.Name ID_TOKEN = IdsJsonWriter.Name.of(IdsConsts.ID_TOKEN);
+
+    private String accessToken;
+    private String refreshToken;
+    private long expiresIn;
+    private String tokenType = IdsConsts.TOKEN_TYPE_BEARER;
+    private String scope;
+    private String idToken;
+
+    @Override
+    public void writeJson(IdsJsonWriter writer) {
+        writer.beginObject()
+            .fieldIfPresent(ACCESS_TOKEN, accessToken)
+            .fieldIfPresent(REFRESH_TOKEN, refreshToken)
+            .name(EXPIRES_IN).value(expiresIn)
+            .fieldIfPresent(TOKEN_TYPE, tokenType)
+            .fieldIfPresent(SCOPE, scope)
+            .fieldIfPresent(ID_TOKEN, idToken)
+            .endObject();
+    }
+
+    @Override
+    public IdsResponse<String, Object> toIdsResponse() {
+        IdsResponse<String, Object> response = new IdsResponse<String, Object>()
+            .add(IdsConsts.ACCESS_TOKEN, accessToken);
+        if (null != refreshToken) {
+            response.add(IdsConsts.REFRESH_TOKEN, refreshToken);
+        }
+        response.add(IdsConsts.EXPIRES_IN, expiresIn)
+            .add(IdsConsts.TOKEN_TYPE, tokenType);
+        if (null != scope) {
+            response.add(IdsConsts.SCOPE, scope);
+        }
+        if (null != idToken) {
+            response.add(IdsConsts.ID_TOKEN, idToken);
+        }
+        return response;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public IdsTokenResponse setAccessToken(String accessToken) {
+        this.accessToken = accessToken;
+        return this;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public IdsTokenResponse setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+        return this;
+    }
+
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+
+    public IdsTokenResponse setExpiresIn(long expiresIn) {
+        this.expiresIn = expiresIn;
+        return this;
+    }
+
+    public String getTokenType() {
+        return tokenType;
+    }
+
+    public IdsTokenResponse setTokenType(String tokenType) {
+        this.tokenType = tokenType;
+        return this;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public IdsTokenResponse setScope(String scope) {
+        this.scope = scope;
+        return this;
+    }
+
+    public String getIdToken() {
+        return idToken;
+    }
+
+    public IdsTokenResponse setIdToken(String idToken) {
+        this.idToken = idToken;
+        return this;
+    }
+}
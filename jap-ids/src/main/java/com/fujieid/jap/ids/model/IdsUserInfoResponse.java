@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.model;
+
+import com.fujieid.jap.ids.util.IdsJsonWriter;
+import com.xkcoding.json.JsonUtil;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The successful userinfo response, the claims of the user are written directly without converting the user to a map.
+ * <p>
+ * When the user is a subclass of {@link UserInfo}, the user is serialized by {@link JsonUtil} to keep the custom claims.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @see <a href="https://openid.net/specs/openid-connect-core-1_0.html#UserInfoResponse" target="_blank">5.3.2.  Successful UserInfo Response</a>
+ * @since 1.0.2
+ */
+public class IdsUserInfoResponse implements IdsJsonResponse {
+
+    private static final Claim[] CLAIMS = {
+        new Claim("id", UserInfo::getId),
+        new Claim("sub", UserInfo::getSub),
+        new Claim("name", UserInfo::getName),
+        new Claim("username", UserInfo::getUsername),
+        new Claim("given_name", UserInfo::getGiven_name),
+        new Claim("family_name", UserInfo::getFamily_name),
+        new Claim("middle_name", UserInfo::getMiddle_name),
+        new Claim("nickname", UserInfo::getNickname),
+        new Claim("preferred_username", UserInfo::getPreferred_username),
+        new Claim("profile", UserInfo::getProfile),
+        new Claim("picture", UserInfo::getPicture),
+        new Claim("website", UserInfo::getWebsite),
+        new Claim("email", UserInfo::getEmail),
+        new Claim("email_verified", UserInfo::getEmail_verified),
+        new Claim("gender", UserInfo::getGender),
+        new Claim("birthdate", UserInfo::getBirthdate),
+        new Claim("zoneinfo", UserInfo::getZoneinfo),
+        new Claim("locale", UserInfo::getLocale),
+        new Claim("phone_number", UserInfo::getPhone_number),
+        new Claim("phone_number_verified", UserInfo::getPhone_number_verified),
+        new Claim("address", UserInfo::getAddress),
+        new Claim("updated_at", UserInfo::getUpdated_at)
+    };
+
+    private final UserInfo user;
+    private final Set<String> excludedClaims;
+
+    /**
+     * @param user           The current user
+     * @param excludedClaims The claims that the client is not allowed to obtain
+     */
+    public IdsUserInfoResponse(UserInfo user, Set<String> excludedClaims) {
+        this.user = user;
+        this.excludedClaims = null == excludedClaims ? Collections.emptySet() : excludedClaims;
+    }
+
+    @Override
+    public void writeJson(IdsJsonWriter writer) {
+        if (user.getClass() != UserInfo.class) {
+            writer.value(this.getClaims());
+            return;
+        }
+        writer.beginObject();
+        for (Claim claim : CLAIMS) {
+            if (excludedClaims.contains(claim.name)) {
+                continue;
+            }
+            // Unset claims are omitted, as the other json responses do
+            Object value = claim.getter.apply(user);
+            if (null != value) {
+                writer.name(claim.jsonName).value(value);
+            }
+        }
+        writer.endObject();
+    }
+
+    @Override
+    public IdsResponse<String, Object> toIdsResponse() {
+        IdsResponse<String, Object> response = new IdsResponse<>();
+        response.putAll(this.getClaims());
+        return response;
+    }
+
+    /**
+     * Get all the claims that can be returned to the client
+     *
+     * @return claims
+     */
+    public Map<String, Object> getClaims() {
+        Map<String, Object> claims;
+        if (user.getClass() == UserInfo.class) {
+            claims = new LinkedHashMap<>();
+            for (Claim claim : CLAIMS) {
+                Object value = claim.getter.apply(user);
+                if (null != value) {
+                    claims.put(claim.name, value);
+                }
+            }
+        } else {
+            claims = JsonUtil.parseKv(JsonUtil.toJsonString(user));
+            claims.values().removeIf(Objects::isNull);
+        }
+        for (String excludedClaim : excludedClaims) {
+            claims.remove(excludedClaim);
+        }
+        return claims;
+    }
+
+    private static class Claim {
+        private final String name;
+        private final IdsJsonWriter.Name jsonName;
+        private final Function<UserInfo, Object> getter;
+
+        Claim(String name, Function<UserInfo, Object> getter) {
+            this.name = name;
+            this.jsonName = IdsJsonWriter.Name.of(name);
+            this.getter = getter;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.model.enums;
+
+/**
+ * What to do when the queue of the asynchronous pipeline stages is full,
+ * see {@link com.fujieid.jap.ids.pipeline.IdsAsyncPipelineExecutor}
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public enum AsyncOverflowPolicy {
+    /**
+     * Drop the new event immediately, the request thread is never blocked
+     */
+    DROP,
+    /**
+     * Block the request thread until there is room in the queue, the event is dropped when the wait times out
+     */
+    BLOCK
+}
@@ -49,6 +49,8 @@ public enum ErrorResponse {
     AUTHORIZATION_FAILED("authorization_failed", "Authorization failed, please contact the systems administrator."),
     EXPIRED_TOKEN("expired_token", "The requested token has expired (access token, refresh token, or id token)."),
     DISABLED_CLIENT("disabled_client", "The client is not accessible and may have been disabled by the administrator."),
+    SLOW_DOWN("slow_down", "Too many requests, please slow down and try again later."),
+    TEMPORARILY_UNAVAILABLE("temporarily_unavailable", "The authorization server is currently overloaded, please try again later."),
     ;
 
     private final String error;
@@ -15,9 +15,7 @@
  */
 package com.fujieid.jap.ids.model.enums;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 /**
  * The relationship table between scope and user attributes. For a specific scope, only part of the user attributes can be obtained
@@ -31,7 +29,7 @@ public enum ScopeClaimsMapping {
 
     // This scope value requests access to the End-User's default profile Claims,
     // which are: name, family_name, given_name, middle_name, nickname, preferred_username, profile, picture, website, gender, birthdate, zoneinfo, locale, and updated_at.
-    profile(Arrays.asList("name", "family_name", "given_name", "middle_name", "nickname", "preferred_username", "profile", "picture", "website", "gender", "birthdate", "zoneinfo", "locale", "and updated_at")),
+    profile(Arrays.asList("name", "family_name", "given_name", "middle_name", "nickname", "preferred_username", "profile", "picture", "website", "gender", "birthdate", "zoneinfo", "locale", "updated_at")),
     // This scope value requests access to the email and email_verified Claims.
     email(Arrays.asList("email", "email_verified")),
     // This scope value requests access to the phone_number and phone_number_verified Claims.
@@ -40,6 +38,31 @@ public enum ScopeClaimsMapping {
     address(Collections.singletonList("address"));
 
 
+    private static final ScopeClaimsMapping[] VALUES = values();
+    /**
+     * The claims that are always required: the subject and the username
+     */
+    private static final List<String> BASIC_CLAIMS = Arrays.asList("id", "sub", "username");
+    /**
+     * The required claims of each bitmask of the granted scopes
+     */
+    private static final List<Set<String>> REQUIRED_CLAIMS;
+
+    static {
+        int size = 1 << VALUES.length;
+        List<Set<String>> requiredClaims = new ArrayList<>(size);
+        for (int mask = 0; mask < size; mask++) {
+            Set<String> claims = new LinkedHashSet<>(BASIC_CLAIMS);
+            for (ScopeClaimsMapping mapping : VALUES) {
+                if (mapping.in(mask)) {
+                    claims.addAll(mapping.getClaims());
+                }
+            }
+            requiredClaims.add(Collections.unmodifiableSet(claims));
+        }
+        REQUIRED_CLAIMS = Collections.unmodifiableList(requiredClaims);
+    }
+
     private final List<String> claims;
 
     ScopeClaimsMapping(List<String> claims) {
@@ -49,4 +72,50 @@ public enum ScopeClaimsMapping {
     public List<String> getClaims() {
         return claims;
     }
+
+    /**
+     * Get the bitmask of the scopes that are mapped to claims, the bit of each scope is its ordinal
+     *
+     * @param scopes The granted scopes
+     * @return bitmask
+     */
+    public static int maskOf(Set<String> scopes) {
+        int mask = 0;
+        for (ScopeClaimsMapping mapping : VALUES) {
+            if (scopes.contains(mapping.name())) {
+                mask |= 1 << mapping.ordinal();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Get the claims required by the granted scopes, including the basic claims ({@code id}, {@code sub}, {@code username})
+     *
+     * @param scopes The granted scopes
+     * @return unmodifiable set of claims
+     */
+    public static Set<String> getRequiredClaims(Set<String> scopes) {
+        return getRequiredClaims(maskOf(scopes));
+    }
+
+    /**
+     * Get the claims required by the granted scopes, including the basic claims ({@code id}, {@code sub}, {@code username})
+     *
+     * @param mask bitmask created by {@link #maskOf(Set)}
+     * @return unmodifiable set of claims
+     */
+    public static Set<String> getRequiredClaims(int mask) {
+        return REQUIRED_CLAIMS.get(mask);
+    }
+
+    /**
+     * Whether the scope is in the bitmask
+     *
+     * @param mask bitmask created by {@link #maskOf(Set)}
+     * @return boolean
+     */
+    public boolean in(int mask) {
+        return (mask & (1 << this.ordinal())) != 0;
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.oidc;
+
+import cn.hutool.crypto.SecureUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A pre-rendered json document, such as the OpenID Provider Configuration, the public jwks and the userinfo.
+ * <p>
+ * The document is encoded as UTF-8 only once, and is identified by a strong ETag calculated from its content.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class OidcDocument {
+
+    private static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+
+    private final String json;
+    private final byte[] body;
+    private final String etag;
+
+    public OidcDocument(String json) {
+        this.json = json;
+        this.body = json.getBytes(StandardCharsets.UTF_8);
+        this.etag = "\"" + SecureUtil.sha256().digestHex(body).substring(0, 32) + "\"";
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Whether the document has not been modified since the version cached by the client
+     *
+     * @param ifNoneMatch The {@code If-None-Match} header of the current HTTP request
+     * @return boolean
+     */
+    public boolean isNotModified(String ifNoneMatch) {
+        if (null == ifNoneMatch) {
+            return false;
+        }
+        return "*".equals(ifNoneMatch.trim()) || ifNoneMatch.contains(etag);
+    }
+
+    /**
+     * Write the document to the response, when the client has cached the current version, only {@code 304 Not Modified} is returned
+     *
+     * @param request  current HTTP request
+     * @param response current HTTP response
+     * @param maxAge   The {@code Cache-Control} max-age (seconds)
+     * @throws IOException IOException
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, long maxAge) throws IOException {
+        this.write(request, response, "public, max-age=" + maxAge);
+    }
+
+    /**
+     * Write the document to the response, when the client has cached the current version, only {@code 304 Not Modified} is returned
+     *
+     * @param request      current HTTP request
+     * @param response     current HTTP response
+     * @param cacheControl The {@code Cache-Control} header
+     * @throws IOException IOException
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, String cacheControl) throws IOException {
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", cacheControl);
+        if (this.isNotModified(request.getHeader("If-None-Match"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(CONTENT_TYPE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
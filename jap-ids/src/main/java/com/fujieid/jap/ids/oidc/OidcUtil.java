@@ -20,20 +20,27 @@ import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.ObjectUtil;
 import com.fujieid.jap.ids.JapIds;
 import com.fujieid.jap.ids.config.IdsConfig;
+import com.fujieid.jap.ids.config.IdsConfigSnapshot;
+import com.fujieid.jap.ids.exception.InvalidJwksException;
 import com.fujieid.jap.ids.model.IdsConsts;
 import com.fujieid.jap.ids.model.OidcDiscoveryDto;
 import com.fujieid.jap.ids.model.enums.ClientSecretAuthMethod;
+import com.fujieid.jap.ids.model.enums.ErrorResponse;
 import com.fujieid.jap.ids.model.enums.GrantType;
 import com.fujieid.jap.ids.model.enums.ResponseType;
 import com.fujieid.jap.ids.provider.IdsScopeProvider;
+import com.fujieid.jap.ids.util.DateUtil;
 import com.fujieid.jap.ids.util.EndpointUtil;
 import com.fujieid.jap.ids.util.JwtUtil;
+import com.xkcoding.json.JsonUtil;
+import com.xkcoding.json.util.StringUtil;
 import org.jose4j.jwk.JsonWebKey;
 import org.jose4j.jwk.JsonWebKeySet;
 import org.jose4j.jwt.ReservedClaimNames;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -43,6 +50,13 @@ import java.util.stream.Collectors;
  */
 public class OidcUtil {
 
+    /**
+     * The maximum number of pre-rendered documents, when the dynamic issuer is enabled, each issuer has its own discovery document
+     */
+    private static final int MAX_DOCUMENTS = 1024;
+    private static final Map<String, DiscoveryDocument> DISCOVERY_DOCUMENTS = new ConcurrentHashMap<>();
+    private static final Map<String, JwksDocument> JWKS_DOCUMENTS = new ConcurrentHashMap<>();
+
     public static OidcDiscoveryDto getOidcDiscoveryInfo(HttpServletRequest request) {
 
         IdsConfig config = JapIds.getIdsConfig();
@@ -117,9 +131,101 @@ public class OidcUtil {
         return BeanUtil.mapToBean(model, OidcDiscoveryDto.class, false, null);
     }
 
+    /**
+     * Get the pre-rendered OpenID Provider Configuration of the issuer of the current HTTP request.
+     * The document will be re-rendered after the config or the scopes change.
+     *
+     * @param request current HTTP request
+     * @return OidcDocument
+     */
+    public static OidcDocument getOidcDiscoveryDocument(HttpServletRequest request) {
+        IdsConfigSnapshot config = JapIds.getConfigSnapshot();
+        List<String> scopes = IdsScopeProvider.getScopeCodes();
+        String issuer = String.valueOf(EndpointUtil.getIssuer(request));
+        DiscoveryDocument document = DISCOVERY_DOCUMENTS.get(issuer);
+        if (null != document && document.config == config && document.scopes == scopes) {
+            return document.document;
+        }
+        if (DISCOVERY_DOCUMENTS.size() >= MAX_DOCUMENTS) {
+            DISCOVERY_DOCUMENTS.clear();
+        }
+        document = new DiscoveryDocument(config, scopes, new OidcDocument(JsonUtil.toJsonString(getOidcDiscoveryInfo(request))));
+        DISCOVERY_DOCUMENTS.put(issuer, document);
+        return document.document;
+    }
+
     public static String getJwksPublicKey(String identity) {
+        return getJwksDocument(identity).getJson();
+    }
+
+    /**
+     * Get the pre-rendered public jwks of the identity.
+     * The jwks of the identity is read again at most once per {@link IdsConfig#getJwksDocumentTtl()}, or after the config changes,
+     * and the document is only re-rendered when the jwks has changed.
+     *
+     * @param identity identity
+     * @return OidcDocument
+     */
+    public static OidcDocument getJwksDocument(String identity) {
+        IdsConfigSnapshot config = JapIds.getConfigSnapshot();
+        String key = null == identity ? "" : identity;
+        JwksDocument document = JWKS_DOCUMENTS.get(key);
+        if (null != document && document.config == config && !DateUtil.isExpired(document.refreshAt)) {
+            return document.document;
+        }
         String jwksJson = JapIds.getContext().getIdentityService().getJwksJson(identity);
-        JsonWebKeySet jsonWebKeySet = JwtUtil.IdsVerificationKeyResolver.createJsonWebKeySet(jwksJson);
-        return jsonWebKeySet.toJson(JsonWebKey.OutputControlLevel.PUBLIC_ONLY);
+        if (StringUtil.isEmpty(jwksJson)) {
+            throw new InvalidJwksException(ErrorResponse.INVALID_JWKS);
+        }
+        long refreshAt = DateUtil.currentTimeMillis() + JapIds.getIdsConfig().getJwksDocumentTtl() * 1000;
+        OidcDocument oidcDocument;
+        if (null != document && document.jwksJson.equals(jwksJson)) {
+            oidcDocument = document.document;
+        } else {
+            if (JWKS_DOCUMENTS.size() >= MAX_DOCUMENTS) {
+                JWKS_DOCUMENTS.clear();
+            }
+            JsonWebKeySet jsonWebKeySet = JwtUtil.IdsVerificationKeyResolver.createJsonWebKeySet(jwksJson);
+            oidcDocument = new OidcDocument(jsonWebKeySet.toJson(JsonWebKey.OutputControlLevel.PUBLIC_ONLY));
+        }
+        JWKS_DOCUMENTS.put(key, new JwksDocument(config, jwksJson, oidcDocument, refreshAt));
+        return oidcDocument;
+    }
+
+    /**
+     * Clear the pre-rendered documents, they will be re-rendered on the next request.
+     * It can also be called after the jwks of an identity changes, so that the new jwks is published before {@link IdsConfig#getJwksDocumentTtl()}.
+     * It needs to be called after modifying the properties of the current {@link IdsConfig} other than the endpoint urls,
+     * the discovery documents are re-rendered automatically after {@link JapIds#reloadIdsConfig()}.
+     */
+    public static void clearDocuments() {
+        DISCOVERY_DOCUMENTS.clear();
+        JWKS_DOCUMENTS.clear();
+    }
+
+    private static class DiscoveryDocument {
+        private final IdsConfigSnapshot config;
+        private final List<String> scopes;
+        private final OidcDocument document;
+
+        DiscoveryDocument(IdsConfigSnapshot config, List<String> scopes, OidcDocument document) {
+            this.config = config;
+            this.scopes = scopes;
+            this.document = document;
+        }
+    }
+
+    private static class JwksDocument {
+        private final IdsConfigSnapshot config;
+        private final String jwksJson;
+        private final OidcDocument document;
+        private final long refreshAt;
+
+        JwksDocument(IdsConfigSnapshot config, String jwksJson, OidcDocument document, long refreshAt) {
+            this.config = config;
+            this.jwksJson = jwksJson;
+            this.document = document;
+            this.refreshAt = refreshAt;
+        }
     }
 }
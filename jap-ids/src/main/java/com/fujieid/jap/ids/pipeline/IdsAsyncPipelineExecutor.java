@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.pipeline;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.config.AsyncPipelineConfig;
+import com.fujieid.jap.ids.model.UserInfo;
+import com.fujieid.jap.ids.model.enums.AsyncOverflowPolicy;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Execute the {@link IdsAsyncStage}s on a fixed number of daemon worker threads, so that the request returns
+ * as soon as its critical path has completed.
+ * <p>
+ * Each worker consumes its own lock-free queue, the events are distributed to the workers by user id (or client id),
+ * so the events of the same user are always handled by the same worker in the order in which they were published.
+ * The queues are bounded, when a queue is full the event is dropped or the request thread waits according to
+ * {@link AsyncPipelineConfig#getOverflowPolicy()}.
+ * <p>
+ * When the config or the stages change, a new executor replaces the current one. The new workers accept events at once,
+ * but do not start handling them until the previous workers have drained their queues, so the order of the events of
+ * the same user is kept across the replacement.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class IdsAsyncPipelineExecutor {
+    private static final Log log = LogFactory.get();
+
+    /**
+     * The interval at which a blocked request thread checks the queue again
+     */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static volatile IdsAsyncPipelineExecutor executor;
+
+    private final AsyncPipelineConfig config;
+    private final int threads;
+    private final int queueCapacity;
+    private final AsyncOverflowPolicy overflowPolicy;
+    private final long blockTimeout;
+    private final List<IdsAsyncStage> stages;
+    private final Worker[] workers;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running = true;
+    /**
+     * The executor replaced by this one, the workers wait for it to terminate before handling any event
+     */
+    private volatile IdsAsyncPipelineExecutor predecessor;
+
+    public IdsAsyncPipelineExecutor(AsyncPipelineConfig config, List<IdsAsyncStage> stages) {
+        this(config, stages, null);
+    }
+
+    private IdsAsyncPipelineExecutor(AsyncPipelineConfig config, List<IdsAsyncStage> stages, IdsAsyncPipelineExecutor predecessor) {
+        this.predecessor = predecessor;
+        this.config = config;
+        this.threads = config.getThreads();
+        this.queueCapacity = config.getQueueCapacity();
+        this.overflowPolicy = config.getOverflowPolicy();
+        this.blockTimeout = config.getBlockTimeout();
+        this.stages = stages;
+        int workerCount = Math.max(1, threads);
+        int workerCapacity = Math.max(1, queueCapacity / workerCount);
+        this.workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            Worker worker = new Worker(workerCapacity);
+            Thread thread = new Thread(worker, "JapIds-AsyncPipeline-" + i);
+            thread.setDaemon(true);
+            worker.thread = thread;
+            workers[i] = worker;
+        }
+        for (Worker worker : workers) {
+            worker.thread.start();
+        }
+    }
+
+    /**
+     * Publish the event to the asynchronous stages registered in {@link com.fujieid.jap.ids.context.IdsContext#getAsyncStages()}
+     *
+     * @param event pipeline event
+     * @return boolean, false when there is no asynchronous stage or the event is dropped
+     */
+    public static boolean publish(IdsPipelineEvent event) {
+        List<IdsAsyncStage> stages = JapIds.getContext().getAsyncStages();
+        if (stages.isEmpty() || null == event) {
+            return false;
+        }
+        AsyncPipelineConfig config = JapIds.getIdsConfig().getAsyncPipelineConfig();
+        IdsAsyncPipelineExecutor current = executor;
+        if (null == current || !current.isBuiltFrom(config, stages)) {
+            synchronized (IdsAsyncPipelineExecutor.class) {
+                current = executor;
+                if (null == current || !current.isBuiltFrom(config, stages)) {
+                    IdsAsyncPipelineExecutor previous = current;
+                    if (null != previous) {
+                        // The previous workers exit after handling the events in their queues
+                        previous.shutdown();
+                    }
+                    current = executor = new IdsAsyncPipelineExecutor(config, stages, previous);
+                }
+            }
+        }
+        return current.submit(event);
+    }
+
+    /**
+     * Submit the event to the worker of the user
+     *
+     * @param event pipeline event
+     * @return boolean, false when the event is dropped
+     */
+    public boolean submit(IdsPipelineEvent event) {
+        if (running && workers[indexOf(event)].offer(event)) {
+            return true;
+        }
+        long count = dropped.incrementAndGet();
+        // Log at 1, 2, 4, 8... dropped events to avoid flooding the log
+        if ((count & (count - 1)) == 0) {
+            log.warn("The asynchronous pipeline is saturated, {} events have been dropped.", count);
+        }
+        return false;
+    }
+
+    /**
+     * Stop accepting events, the workers exit after handling the events already in their queues
+     */
+    public void shutdown() {
+        running = false;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker.thread);
+        }
+    }
+
+    /**
+     * Wait for the workers to exit after {@link #shutdown()}
+     *
+     * @param timeout The maximum time to wait, in milliseconds
+     * @return boolean, true when all workers have exited
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        for (Worker worker : workers) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            worker.thread.join(remaining);
+        }
+        for (Worker worker : workers) {
+            if (worker.thread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of events dropped because the queue was full or the executor was shut down
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The number of events waiting to be handled
+     */
+    public int getQueueSize() {
+        int size = 0;
+        for (Worker worker : workers) {
+            size += worker.size.get();
+        }
+        return size;
+    }
+
+    private boolean isBuiltFrom(AsyncPipelineConfig config, List<IdsAsyncStage> stages) {
+        return this.config == config && this.stages == stages && running
+            && threads == config.getThreads() && queueCapacity == config.getQueueCapacity()
+            && overflowPolicy == config.getOverflowPolicy() && blockTimeout == config.getBlockTimeout();
+    }
+
+    private int indexOf(IdsPipelineEvent event) {
+        UserInfo userInfo = event.getUserInfo();
+        String key = null == userInfo || null == userInfo.getId() ? event.getClientId() : userInfo.getId();
+        if (null == key) {
+            return 0;
+        }
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % workers.length;
+    }
+
+    private void handle(IdsPipelineEvent event) {
+        for (IdsAsyncStage stage : stages) {
+            try {
+                stage.handle(event);
+            } catch (RuntimeException e) {
+                log.error(e, "Failed to execute the asynchronous pipeline stage {}.", stage.getClass().getName());
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+        private final ConcurrentLinkedQueue<IdsPipelineEvent> queue = new ConcurrentLinkedQueue<>();
+        /**
+         * The number of reserved slots, including the events that are being offered
+         */
+        private final AtomicInteger size = new AtomicInteger();
+        private final int capacity;
+        private Thread thread;
+
+        Worker(int capacity) {
+            this.capacity = capacity;
+        }
+
+        boolean offer(IdsPipelineEvent event) {
+            if (!reserve()) {
+                if (overflowPolicy != AsyncOverflowPolicy.BLOCK) {
+                    return false;
+                }
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeout);
+                while (!reserve()) {
+                    if (!running || System.nanoTime() - deadline >= 0) {
+                        return false;
+                    }
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+            }
+            // The reservation keeps the worker alive, check again in case the executor was shut down before it
+            if (!running) {
+                size.decrementAndGet();
+                LockSupport.unpark(thread);
+                return false;
+            }
+            queue.offer(event);
+            LockSupport.unpark(thread);
+            return true;
+        }
+
+        private boolean reserve() {
+            for (; ; ) {
+                int current = size.get();
+                if (current >= capacity) {
+                    return false;
+                }
+                if (size.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            this.awaitPredecessor();
+            for (; ; ) {
+                IdsPipelineEvent event = queue.poll();
+                if (null == event) {
+                    if (!running && size.get() == 0) {
+                        return;
+                    }
+                    // Woken up by the producer after the event is offered, or by shutdown
+                    LockSupport.park(this);
+                    continue;
+                }
+                size.decrementAndGet();
+                handle(event);
+            }
+        }
+
+        private void awaitPredecessor() {
+            IdsAsyncPipelineExecutor previous = predecessor;
+            if (null == previous) {
+                return;
+            }
+            try {
+                while (!previous.awaitTermination(TimeUnit.SECONDS.toMillis(1))) {
+                    log.debug("Waiting for the previous asynchronous pipeline to drain its queues.");
+                }
+            } catch (InterruptedException e) {
+                log.warn("Interrupted while waiting for the previous asynchronous pipeline, the order of the events may not be kept.");
+            }
+            // Release the previous executor once all workers no longer need it
+            predecessor = null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.pipeline;
+
+/**
+ * A pipeline stage executed asynchronously after the critical path of the request has completed,
+ * such as audit logging, login history and webhook notifications.
+ * <p>
+ * The stages are executed by {@link IdsAsyncPipelineExecutor} on its own worker threads, so the current HTTP request is no longer available,
+ * all the information of the request is carried by {@link IdsPipelineEvent}.
+ * The events of the same user are handled in the order in which they occurred.
+ * <p>
+ * Register the stages through {@link com.fujieid.jap.ids.context.IdsContext#addAsyncStage(IdsAsyncStage)} or the SPI.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public interface IdsAsyncStage {
+
+    /**
+     * Handle the event, the exceptions thrown will be logged and will not affect the other stages
+     *
+     * @param event pipeline event
+     */
+    void handle(IdsPipelineEvent event);
+}
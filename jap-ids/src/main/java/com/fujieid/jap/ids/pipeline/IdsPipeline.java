@@ -16,13 +16,12 @@
 package com.fujieid.jap.ids.pipeline;
 
 import com.fujieid.jap.ids.exception.IdsException;
-import com.fujieid.jap.ids.model.IdsResponse;
-import com.xkcoding.json.JsonUtil;
+import com.fujieid.jap.ids.model.IdsErrorResponse;
+import com.fujieid.jap.ids.util.IdsJsonWriter;
 
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 
 /**
  * The pipeline is an enhanced interface for the business process of {@code JustAuthPlus}<br>
@@ -46,19 +45,16 @@ public interface IdsPipeline<T> {
      * @param throwable       any exception thrown on handler execution, if any.
      */
     default void errorHandle(ServletRequest servletRequest, ServletResponse servletResponse, Throwable throwable) {
-        IdsResponse<String, Object> response = new IdsResponse<>();
+        IdsErrorResponse response = new IdsErrorResponse();
         if (throwable instanceof IdsException) {
             IdsException idsException = (IdsException) throwable;
-            response.error(idsException.getError())
-                .errorDescription(idsException.getErrorDescription());
+            response.setError(idsException.getError())
+                .setErrorDescription(idsException.getErrorDescription());
         } else {
-            response.errorDescription(throwable.getMessage());
+            response.setErrorDescription(throwable.getMessage());
         }
-        String errorResponseStr = JsonUtil.toJsonString(response);
-        servletResponse.setContentType("text/html;charset=UTF-8");
-        servletResponse.setContentLength(errorResponseStr.getBytes(StandardCharsets.UTF_8).length);
         try {
-            servletResponse.getWriter().write(errorResponseStr);
+            IdsJsonWriter.write(servletResponse, response, "text/html;charset=UTF-8");
         } catch (IOException e) {
             e.printStackTrace();
         }
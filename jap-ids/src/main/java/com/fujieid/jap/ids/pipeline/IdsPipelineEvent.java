@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.pipeline;
+
+import com.fujieid.jap.ids.model.UserInfo;
+
+/**
+ * The event passed to {@link IdsAsyncStage}, it is an immutable snapshot of the request taken on the request thread.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class IdsPipelineEvent {
+
+    private final Type type;
+    private final UserInfo userInfo;
+    private final String clientId;
+    private final String ip;
+    private final long timestamp;
+
+    public IdsPipelineEvent(Type type, UserInfo userInfo, String clientId, String ip, long timestamp) {
+        this.type = type;
+        this.userInfo = userInfo;
+        this.clientId = clientId;
+        this.ip = ip;
+        this.timestamp = timestamp;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public UserInfo getUserInfo() {
+        return userInfo;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    /**
+     * @return The time when the event occurred, in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public enum Type {
+        /**
+         * The user signed in successfully
+         */
+        SIGNIN,
+        /**
+         * The user logged out
+         */
+        LOGOUT
+    }
+}
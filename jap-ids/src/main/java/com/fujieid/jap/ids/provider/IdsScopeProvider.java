@@ -17,10 +17,10 @@ package com.fujieid.jap.ids.provider;
 
 import cn.hutool.core.util.ObjectUtil;
 import com.fujieid.jap.ids.model.IdsScope;
+import com.fujieid.jap.ids.util.ScopeIds;
 import com.xkcoding.json.util.StringUtil;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Define and manage the scope used in oauth authorization.
@@ -37,7 +37,10 @@ import java.util.stream.Collectors;
  */
 public class IdsScopeProvider {
 
-    private static final List<IdsScope> SCOPES = new ArrayList<>();
+    /**
+     * The registered scopes, replaced as a whole when a scope is added (copy-on-write)
+     */
+    private static volatile Registry registry = new Registry(new LinkedHashMap<>(0));
 
     static {
         addScope(new IdsScope().setCode("read").setDescription("Allow users to read protected resources."));
@@ -61,27 +64,20 @@ public class IdsScopeProvider {
         if (null == idsScope || StringUtil.isEmpty(idsScope.getCode())) {
             return;
         }
-        long num = SCOPES.stream().filter(scope -> scope.getCode().equals(idsScope.getCode())).count();
-        if (num > 0) {
-            SCOPES.stream()
-                .filter(scope -> scope.getCode().equals(idsScope.getCode()))
-                .findFirst()
-                .map(scope -> scope.setDescription(idsScope.getDescription()));
-            return;
+        synchronized (IdsScopeProvider.class) {
+            Map<String, IdsScope> scopes = new LinkedHashMap<>(registry.scopes);
+            scopes.put(idsScope.getCode(), new IdsScope().setCode(idsScope.getCode()).setDescription(idsScope.getDescription()));
+            registry = new Registry(scopes);
         }
-        SCOPES.add(idsScope);
     }
 
     /**
      * Return the set of available scopes after deduplication according to the scope code
      *
-     * @return Unique scope collection
+     * @return Unique scope collection, sorted by scope code
      */
     public static List<IdsScope> getScopes() {
-        return SCOPES.stream().collect(Collectors.collectingAndThen(
-            Collectors.toCollection(() -> new TreeSet<>(
-                Comparator.comparing(
-                    IdsScope::getCode))), ArrayList::new));
+        return registry.sortedScopes;
     }
 
     /**
@@ -94,12 +90,45 @@ public class IdsScopeProvider {
         if (ObjectUtil.isEmpty(codes)) {
             return new ArrayList<>(0);
         }
-        return Optional.ofNullable(SCOPES.stream().filter((scope) -> codes.contains(scope.getCode()))
-            .collect(Collectors.collectingAndThen(
-                Collectors.toCollection(() -> new TreeSet<>(
-                    Comparator.comparing(
-                        IdsScope::getCode))), ArrayList::new)))
-            .orElse(new ArrayList<>(0));
+        BitSet ids = new BitSet();
+        for (String code : codes) {
+            int id = ScopeIds.idOf(code);
+            if (id >= 0) {
+                ids.set(id);
+            }
+        }
+        return getScopeByIds(ids);
+    }
+
+    /**
+     * Obtain the scope collection through the ids of scope codes, see {@link ScopeIds}
+     *
+     * @param ids The ids of scope codes
+     * @return Unique scope collection, sorted by scope code
+     */
+    public static List<IdsScope> getScopeByIds(BitSet ids) {
+        Registry current = registry;
+        BitSet matched = (BitSet) current.ids.clone();
+        matched.and(ids);
+        if (matched.isEmpty()) {
+            return new ArrayList<>(0);
+        }
+        List<IdsScope> result = new ArrayList<>(matched.cardinality());
+        for (int i = 0; i < current.sortedIds.length; i++) {
+            if (matched.get(current.sortedIds[i])) {
+                result.add(current.sortedScopes.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the ids of all registered scopes
+     *
+     * @return The ids of all scope codes
+     */
+    public static BitSet getScopeIds() {
+        return (BitSet) registry.ids.clone();
     }
 
     /**
@@ -108,7 +137,30 @@ public class IdsScopeProvider {
      * @return code of all scopes
      */
     public static List<String> getScopeCodes() {
-        return SCOPES.stream().map(IdsScope::getCode).distinct().collect(Collectors.toList());
+        return registry.codes;
     }
 
+    /**
+     * An immutable snapshot of the registered scopes, with the sorted views computed in advance
+     */
+    private static class Registry {
+        private final Map<String, IdsScope> scopes;
+        private final BitSet ids = new BitSet();
+        private final List<String> codes;
+        private final List<IdsScope> sortedScopes;
+        private final int[] sortedIds;
+
+        Registry(Map<String, IdsScope> scopes) {
+            this.scopes = Collections.unmodifiableMap(scopes);
+            this.codes = Collections.unmodifiableList(new ArrayList<>(scopes.keySet()));
+            List<IdsScope> sorted = new ArrayList<>(scopes.values());
+            sorted.sort(Comparator.comparing(IdsScope::getCode));
+            this.sortedScopes = Collections.unmodifiableList(sorted);
+            this.sortedIds = new int[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                sortedIds[i] = ScopeIds.intern(sorted.get(i).getCode());
+                ids.set(sortedIds[i]);
+            }
+        }
+    }
 }
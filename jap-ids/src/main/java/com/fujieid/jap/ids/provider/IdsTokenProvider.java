@@ -15,11 +15,15 @@
  */
 package com.fujieid.jap.ids.provider;
 
+import com.fujieid.jap.core.metrics.JapMetrics;
+import com.fujieid.jap.core.metrics.JapMetricsHelper;
 import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.context.IdsRequestContext;
 import com.fujieid.jap.ids.exception.IdsException;
 import com.fujieid.jap.ids.model.*;
 import com.fujieid.jap.ids.model.enums.ErrorResponse;
 import com.fujieid.jap.ids.model.enums.GrantType;
+import com.fujieid.jap.ids.model.enums.ScopeClaimsMapping;
 import com.fujieid.jap.ids.service.Oauth2Service;
 import com.fujieid.jap.ids.util.EndpointUtil;
 import com.fujieid.jap.ids.util.OauthUtil;
@@ -52,16 +56,27 @@ public class IdsTokenProvider {
      * @see <a href="https://tools.ietf.org/html/rfc6749#section-4.1" target="_blank">4.1.  Authorization Code Grant</a>
      */
     public IdsResponse<String, Object> generateAuthorizationCodeResponse(IdsRequestParam param, HttpServletRequest request) {
+        return this.generateAuthorizationCodeTokenResponse(param, request).toIdsResponse();
+    }
+
+    /**
+     * Generate the typed token response of the authorization code grant, it can be written by {@code IdsJsonWriter} directly
+     *
+     * @param param   request params
+     * @param request current HTTP request
+     * @return IdsTokenResponse
+     */
+    public IdsTokenResponse generateAuthorizationCodeTokenResponse(IdsRequestParam param, HttpServletRequest request) {
         AuthCode codeInfo = oauth2Service.validateAndGetAuthrizationCode(param.getGrantType(), param.getCode());
 
         String scope = codeInfo.getScope();
         UserInfo userInfo = codeInfo.getUser();
         String nonce = codeInfo.getNonce();
 
-        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getByClientId(param.getClientId());
+        ClientDetail clientDetail = IdsRequestContext.of(request).getClientDetail(param.getClientId());
 
         OauthUtil.validClientDetail(clientDetail);
-        OauthUtil.validateGrantType(param.getGrantType(), clientDetail.getGrantTypes(), GrantType.AUTHORIZATION_CODE);
+        OauthUtil.validateGrantType(param.getGrantType(), clientDetail, GrantType.AUTHORIZATION_CODE);
         OauthUtil.validateSecret(param, clientDetail, oauth2Service);
         OauthUtil.validateRedirectUri(param.getRedirectUri(), clientDetail);
 
@@ -70,14 +85,13 @@ public class IdsTokenProvider {
         long expiresIn = OauthUtil.getAccessTokenExpiresIn(clientDetail.getAccessTokenExpiresIn());
 
         AccessToken accessToken = TokenUtil.createAccessToken(userInfo, clientDetail, param.getGrantType(), scope, nonce, EndpointUtil.getIssuer(request));
-        IdsResponse<String, Object> response = new IdsResponse<String, Object>()
-            .add(IdsConsts.ACCESS_TOKEN, accessToken.getAccessToken())
-            .add(IdsConsts.REFRESH_TOKEN, accessToken.getRefreshToken())
-            .add(IdsConsts.EXPIRES_IN, expiresIn)
-            .add(IdsConsts.TOKEN_TYPE, IdsConsts.TOKEN_TYPE_BEARER)
-            .add(IdsConsts.SCOPE, scope);
+        IdsTokenResponse response = new IdsTokenResponse()
+            .setAccessToken(accessToken.getAccessToken())
+            .setRefreshToken(accessToken.getRefreshToken())
+            .setExpiresIn(expiresIn)
+            .setScope(scope);
         if (OauthUtil.isOidcProtocol(scope)) {
-            response.add(IdsConsts.ID_TOKEN, TokenUtil.createIdToken(clientDetail, userInfo, nonce, EndpointUtil.getIssuer(request)));
+            response.setIdToken(TokenUtil.createIdToken(clientDetail, userInfo, nonce, EndpointUtil.getIssuer(request)));
         }
         return response;
     }
@@ -91,35 +105,51 @@ public class IdsTokenProvider {
      * @see <a href="https://tools.ietf.org/html/rfc6749#section-4.3" target="_blank">4.3.  Resource Owner Password Credentials Grant</a>
      */
     public IdsResponse<String, Object> generatePasswordResponse(IdsRequestParam param, HttpServletRequest request) {
+        return this.generatePasswordTokenResponse(param, request).toIdsResponse();
+    }
+
+    /**
+     * Generate the typed token response of the resource owner password credentials grant, it can be written by {@code IdsJsonWriter} directly
+     *
+     * @param param   request params
+     * @param request current HTTP request
+     * @return IdsTokenResponse
+     */
+    public IdsTokenResponse generatePasswordTokenResponse(IdsRequestParam param, HttpServletRequest request) {
         String username = param.getUsername();
         String password = param.getPassword();
         String clientId = param.getClientId();
-        UserInfo userInfo = JapIds.getContext().getUserService().loginByUsernameAndPassword(username, password, clientId);
+        long start = JapMetricsHelper.startTimer();
+        UserInfo userInfo;
+        try {
+            userInfo = JapIds.getContext().getUserService().loginByUsernameAndPassword(username, password, clientId);
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.USER_SERVICE, "loginByUsernameAndPassword", start);
+        }
         if (null == userInfo) {
             throw new IdsException(ErrorResponse.INVALID_USER_CERTIFICATE);
         }
         JapIds.saveUserInfo(userInfo, request);
 
-        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getByClientId(param.getClientId());
+        ClientDetail clientDetail = IdsRequestContext.of(request).getClientDetail(param.getClientId());
         String requestScope = param.getScope();
 
         OauthUtil.validClientDetail(clientDetail);
-        OauthUtil.validateScope(requestScope, clientDetail.getScopes());
-        OauthUtil.validateGrantType(param.getGrantType(), clientDetail.getGrantTypes(), GrantType.PASSWORD);
+        OauthUtil.validateScope(requestScope, clientDetail);
+        OauthUtil.validateGrantType(param.getGrantType(), clientDetail, GrantType.PASSWORD);
         OauthUtil.validateSecret(param, clientDetail, oauth2Service);
 
         long expiresIn = OauthUtil.getAccessTokenExpiresIn(clientDetail.getAccessTokenExpiresIn());
 
         AccessToken accessToken = TokenUtil.createAccessToken(userInfo, clientDetail, param.getGrantType(), requestScope, param.getNonce(), EndpointUtil.getIssuer(request));
-        IdsResponse<String, Object> response = new IdsResponse<String, Object>()
-            .add(IdsConsts.ACCESS_TOKEN, accessToken.getAccessToken())
-            .add(IdsConsts.REFRESH_TOKEN, accessToken.getRefreshToken())
-            .add(IdsConsts.EXPIRES_IN, expiresIn)
-            .add(IdsConsts.TOKEN_TYPE, IdsConsts.TOKEN_TYPE_BEARER)
-            .add(IdsConsts.SCOPE, requestScope);
+        IdsTokenResponse response = new IdsTokenResponse()
+            .setAccessToken(accessToken.getAccessToken())
+            .setRefreshToken(accessToken.getRefreshToken())
+            .setExpiresIn(expiresIn)
+            .setScope(requestScope);
 
         if (OauthUtil.isOidcProtocol(requestScope)) {
-            response.add(IdsConsts.ID_TOKEN, TokenUtil.createIdToken(clientDetail, userInfo, param.getNonce(), EndpointUtil.getIssuer(request)));
+            response.setIdToken(TokenUtil.createIdToken(clientDetail, userInfo, param.getNonce(), EndpointUtil.getIssuer(request)));
         }
         return response;
     }
@@ -133,14 +163,25 @@ public class IdsTokenProvider {
      * @see <a href="https://tools.ietf.org/html/rfc6749#section-4.4" target="_blank">4.4.  Client Credentials Grant</a>
      */
     public IdsResponse<String, Object> generateClientCredentialsResponse(IdsRequestParam param, HttpServletRequest request) {
+        return this.generateClientCredentialsTokenResponse(param, request).toIdsResponse();
+    }
+
+    /**
+     * Generate the typed token response of the client credentials grant, it can be written by {@code IdsJsonWriter} directly
+     *
+     * @param param   request params
+     * @param request current HTTP request
+     * @return IdsTokenResponse
+     */
+    public IdsTokenResponse generateClientCredentialsTokenResponse(IdsRequestParam param, HttpServletRequest request) {
         String clientId = param.getClientId();
 
-        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getByClientId(clientId);
+        ClientDetail clientDetail = IdsRequestContext.of(request).getClientDetail(clientId);
         String requestScope = param.getScope();
 
         OauthUtil.validClientDetail(clientDetail);
-        OauthUtil.validateScope(requestScope, clientDetail.getScopes());
-        OauthUtil.validateGrantType(param.getGrantType(), clientDetail.getGrantTypes(), GrantType.CLIENT_CREDENTIALS);
+        OauthUtil.validateScope(requestScope, clientDetail);
+        OauthUtil.validateGrantType(param.getGrantType(), clientDetail, GrantType.CLIENT_CREDENTIALS);
         OauthUtil.validateSecret(param, clientDetail, oauth2Service);
 
         long expiresIn = OauthUtil.getAccessTokenExpiresIn(clientDetail.getAccessTokenExpiresIn());
@@ -149,12 +190,11 @@ public class IdsTokenProvider {
 
         // https://tools.ietf.org/html/rfc6749#section-4.2.2
         // The authorization server MUST NOT issue a refresh token.
-        IdsResponse<String, Object> response = new IdsResponse<String, Object>()
-            .add(IdsConsts.ACCESS_TOKEN, accessToken.getAccessToken())
-            .add(IdsConsts.EXPIRES_IN, expiresIn)
-            .add(IdsConsts.TOKEN_TYPE, IdsConsts.TOKEN_TYPE_BEARER);
+        IdsTokenResponse response = new IdsTokenResponse()
+            .setAccessToken(accessToken.getAccessToken())
+            .setExpiresIn(expiresIn);
         if (!StringUtil.isEmpty(requestScope)) {
-            response.add(IdsConsts.SCOPE, requestScope);
+            response.setScope(requestScope);
         }
         return response;
     }
@@ -168,30 +208,48 @@ public class IdsTokenProvider {
      * @see <a href="https://tools.ietf.org/html/rfc6749#section-6" target="_blank">6.  Refreshing an Access Token</a>
      */
     public IdsResponse<String, Object> generateRefreshTokenResponse(IdsRequestParam param, HttpServletRequest request) {
+        return this.generateRefreshTokenTokenResponse(param, request).toIdsResponse();
+    }
+
+    /**
+     * Generate the typed token response of the refreshing an access token, it can be written by {@code IdsJsonWriter} directly
+     *
+     * @param param   request params
+     * @param request current HTTP request
+     * @return IdsTokenResponse
+     */
+    public IdsTokenResponse generateRefreshTokenTokenResponse(IdsRequestParam param, HttpServletRequest request) {
         TokenUtil.validateRefreshToken(param.getRefreshToken());
 
         try {
             AccessToken token = TokenUtil.getByRefreshToken(param.getRefreshToken());
 
-            ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getByClientId(token.getClientId());
+            ClientDetail clientDetail = IdsRequestContext.of(request).getClientDetail(token.getClientId());
             String requestScope = param.getScope();
 
             OauthUtil.validClientDetail(clientDetail);
-            OauthUtil.validateScope(requestScope, clientDetail.getScopes());
-            OauthUtil.validateGrantType(param.getGrantType(), clientDetail.getGrantTypes(), GrantType.REFRESH_TOKEN);
+            OauthUtil.validateScope(requestScope, clientDetail);
+            OauthUtil.validateGrantType(param.getGrantType(), clientDetail, GrantType.REFRESH_TOKEN);
             OauthUtil.validateSecret(param, clientDetail, oauth2Service);
 
-            UserInfo user = JapIds.getContext().getUserService().getById(token.getUserId());
+            long start = JapMetricsHelper.startTimer();
+            UserInfo user;
+            try {
+                user = JapIds.getContext().getUserService().getById(token.getUserId(), ScopeClaimsMapping.getRequiredClaims(OauthUtil.convertStrToList(token.getScope())));
+            } finally {
+                JapMetricsHelper.stopTimer(JapMetrics.USER_SERVICE, "getById", start);
+            }
 
-            long expiresIn = OauthUtil.getRefreshTokenExpiresIn(clientDetail.getRefreshTokenExpiresIn());
+            long expiresIn = OauthUtil.getAccessTokenExpiresIn(clientDetail.getAccessTokenExpiresIn());
 
             AccessToken accessToken = TokenUtil.refreshAccessToken(user, clientDetail, token, param.getNonce(), EndpointUtil.getIssuer(request));
-            return new IdsResponse<String, Object>()
-                .add(IdsConsts.ACCESS_TOKEN, accessToken.getAccessToken())
-                .add(IdsConsts.REFRESH_TOKEN, accessToken.getRefreshToken())
-                .add(IdsConsts.EXPIRES_IN, expiresIn)
-                .add(IdsConsts.TOKEN_TYPE, IdsConsts.TOKEN_TYPE_BEARER)
-                .add(IdsConsts.SCOPE, requestScope);
+            return new IdsTokenResponse()
+                .setAccessToken(accessToken.getAccessToken())
+                .setRefreshToken(accessToken.getRefreshToken())
+                .setExpiresIn(expiresIn)
+                .setScope(requestScope);
+        } catch (IdsException e) {
+            throw e;
         } catch (Exception e) {
             throw new IdsException(ErrorResponse.SERVER_ERROR);
         }
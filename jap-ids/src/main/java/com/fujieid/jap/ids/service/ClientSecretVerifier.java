@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.service;
+
+/**
+ * Verify the client secret presented in the token request against the secret stored in
+ * {@link com.fujieid.jap.ids.model.ClientDetail#getClientSecret()}.
+ * <p>
+ * Implementations can store the client secrets as slow password hashes (such as bcrypt or PBKDF2),
+ * successful verifications are memoized for a short time by {@link com.fujieid.jap.ids.util.ClientSecretMemo},
+ * so that the hash is not recomputed on every token request.
+ * <p>
+ * The implementation must compare the secrets in constant time.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public interface ClientSecretVerifier {
+
+    /**
+     * Verify the client secret
+     *
+     * @param presentedSecret The client secret in the current HTTP request
+     * @param storedSecret    The client secret stored in the client detail
+     * @return boolean, true when the presented secret matches the stored secret
+     */
+    boolean verify(String presentedSecret, String storedSecret);
+
+    /**
+     * Encode the raw client secret into the format stored in the client detail
+     *
+     * @param rawSecret raw client secret
+     * @return the encoded client secret
+     */
+    String encode(String rawSecret);
+}
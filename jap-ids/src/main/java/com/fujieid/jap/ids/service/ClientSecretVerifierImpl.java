@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.service;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.crypto.digest.BCrypt;
+import com.fujieid.jap.ids.exception.IdsException;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * The default client secret verifier, the stored client secret supports the following formats:
+ * <p>
+ * 1. {@code {pbkdf2}<iterations>$<base64 salt>$<base64 hash>}: PBKDF2 with HMAC-SHA256, generated by {@link #encode(String)}
+ * <p>
+ * 2. {@code {bcrypt}<bcrypt hash>}: bcrypt
+ * <p>
+ * 3. {@code {noop}<secret>} or a secret without prefix: plaintext, for compatibility with the existing client details
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class ClientSecretVerifierImpl implements ClientSecretVerifier {
+
+    public static final String PBKDF2_PREFIX = "{pbkdf2}";
+    public static final String BCRYPT_PREFIX = "{bcrypt}";
+    public static final String NOOP_PREFIX = "{noop}";
+
+    private static final String PBKDF2_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int DEFAULT_ITERATIONS = 100000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final SecureRandom random = new SecureRandom();
+    private final int iterations;
+
+    public ClientSecretVerifierImpl() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * @param iterations The number of PBKDF2 iterations used by {@link #encode(String)}
+     */
+    public ClientSecretVerifierImpl(int iterations) {
+        this.iterations = iterations;
+    }
+
+    @Override
+    public boolean verify(String presentedSecret, String storedSecret) {
+        if (null == presentedSecret || null == storedSecret) {
+            return false;
+        }
+        if (storedSecret.startsWith(PBKDF2_PREFIX)) {
+            return verifyPbkdf2(presentedSecret, storedSecret.substring(PBKDF2_PREFIX.length()));
+        }
+        if (storedSecret.startsWith(BCRYPT_PREFIX)) {
+            try {
+                return BCrypt.checkpw(presentedSecret, storedSecret.substring(BCRYPT_PREFIX.length()));
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        if (storedSecret.startsWith(NOOP_PREFIX)) {
+            storedSecret = storedSecret.substring(NOOP_PREFIX.length());
+        }
+        // Compare the digests, so that the length of the stored secret is not leaked either
+        return MessageDigest.isEqual(sha256(presentedSecret), sha256(storedSecret));
+    }
+
+    @Override
+    public String encode(String rawSecret) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(rawSecret, salt, iterations);
+        return PBKDF2_PREFIX + iterations + "$" + Base64.encode(salt) + "$" + Base64.encode(hash);
+    }
+
+    private boolean verifyPbkdf2(String presentedSecret, String encoded) {
+        String[] parts = encoded.split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        try {
+            int iterations = Integer.parseInt(parts[0]);
+            byte[] salt = Base64.decode(parts[1]);
+            byte[] hash = Base64.decode(parts[2]);
+            if (iterations <= 0 || salt.length == 0 || hash.length == 0) {
+                return false;
+            }
+            return MessageDigest.isEqual(pbkdf2(presentedSecret, salt, iterations), hash);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException, invalid base64 or a key spec rejected by PBEKeySpec
+            return false;
+        }
+    }
+
+    private static byte[] pbkdf2(String secret, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(secret.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(PBKDF2_ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IdsException("Unable to hash the client secret: " + e.getMessage());
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static byte[] sha256(String secret) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IdsException("Unable to hash the client secret: " + e.getMessage());
+        }
+    }
+}
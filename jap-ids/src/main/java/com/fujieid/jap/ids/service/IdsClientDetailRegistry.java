@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.service;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import com.fujieid.jap.ids.exception.IdsException;
+import com.fujieid.jap.ids.model.ClientDetail;
+import com.fujieid.jap.ids.util.ClientPolicy;
+import com.fujieid.jap.ids.util.ClientSecretMemo;
+import com.fujieid.jap.ids.util.DateUtil;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory registry of client details in front of {@link IdsClientDetailService}.
+ * <p>
+ * All clients are loaded through {@link IdsClientDetailService#getAllClientDetail()} into an immutable snapshot indexed by client id,
+ * querying a client is a read of the snapshot, and {@link #reload()} replaces the whole snapshot at once.
+ * Clients that are not in the snapshot are read through the delegate service and kept for {@code readThroughTtl} milliseconds,
+ * unknown client ids are kept for a much shorter period, and the read-through cache holds at most {@value #MAX_READ_THROUGH_CLIENTS} clients.
+ * <p>
+ * Adding, modifying and deleting clients through the registry will invalidate the corresponding client.
+ * When a client is modified elsewhere (such as on another node), please call {@link #invalidate(String)} or {@link #reload()}.
+ * <p>
+ * Usage:
+ * <pre>
+ * JapIds.registerContext(new IdsContext()
+ *     .setClientDetailService(new IdsClientDetailRegistry(new IdsClientDetailServiceImpl()))
+ *     ...
+ * </pre>
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class IdsClientDetailRegistry implements IdsClientDetailService {
+    private static final Log log = LogFactory.get();
+
+    /**
+     * The default validity period of clients read through the delegate service is 5 minutes
+     */
+    private static final long DEFAULT_READ_THROUGH_TTL = 5 * 60 * 1000;
+    /**
+     * The validity period of unknown client ids read through the delegate service is at most 10 seconds
+     */
+    private static final long MISS_TTL = 10 * 1000;
+    /**
+     * The maximum number of clients read through the delegate service, the cache is cleared when the limit is reached
+     */
+    static final int MAX_READ_THROUGH_CLIENTS = 10000;
+    /**
+     * The maximum number of attempts to load all clients when the clients are modified during the reload
+     */
+    static final int MAX_RELOAD_ATTEMPTS = 3;
+
+    private final IdsClientDetailService delegate;
+    private final long readThroughTtl;
+    private final Map<String, ReadThroughEntry> readThroughCache = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    /**
+     * Incremented on every invalidation, so that a client read before an invalidation is not cached after it
+     */
+    private final AtomicLong version = new AtomicLong();
+    private volatile Map<String, ClientDetail> snapshot = Collections.emptyMap();
+    private volatile ScheduledExecutorService reloadScheduler;
+
+    public IdsClientDetailRegistry(IdsClientDetailService delegate) {
+        this(delegate, DEFAULT_READ_THROUGH_TTL);
+    }
+
+    /**
+     * @param delegate       The client detail service that actually stores the clients
+     * @param readThroughTtl The validity period of clients read through the delegate service, in milliseconds
+     */
+    public IdsClientDetailRegistry(IdsClientDetailService delegate, long readThroughTtl) {
+        if (null == delegate) {
+            throw new IdsException("The delegate of IdsClientDetailRegistry cannot be empty.");
+        }
+        this.delegate = delegate;
+        this.readThroughTtl = readThroughTtl;
+        this.reload();
+    }
+
+    /**
+     * Reload all clients and replace the current snapshot.
+     * If the delegate service does not implement {@code getAllClientDetail()}, all clients will be read through.
+     * <p>
+     * If a client is invalidated while the clients are being loaded, the loaded clients may be stale, they are loaded again
+     * at most {@value #MAX_RELOAD_ATTEMPTS} times, after that the current snapshot is kept.
+     */
+    public void reload() {
+        for (int attempt = 0; attempt < MAX_RELOAD_ATTEMPTS; attempt++) {
+            long readVersion = version.get();
+            List<ClientDetail> clientDetails;
+            try {
+                clientDetails = delegate.getAllClientDetail();
+            } catch (IdsException e) {
+                log.warn("Unable to load all clients, the client details will be read through: {}", e.getMessage());
+                return;
+            }
+            Map<String, ClientDetail> newSnapshot = new HashMap<>(Math.max(16, (int) (clientDetails.size() / 0.75f) + 1));
+            for (ClientDetail clientDetail : clientDetails) {
+                if (null != clientDetail && null != clientDetail.getClientId()) {
+                    newSnapshot.put(clientDetail.getClientId(), clientDetail);
+                }
+            }
+            synchronized (writeLock) {
+                if (version.get() == readVersion) {
+                    this.snapshot = Collections.unmodifiableMap(newSnapshot);
+                    version.incrementAndGet();
+                    this.readThroughCache.clear();
+                    return;
+                }
+            }
+        }
+        log.warn("The clients were modified during every reload, the current client snapshot is kept.");
+    }
+
+    /**
+     * Reload all clients periodically
+     *
+     * @param period Interval duration, in milliseconds
+     */
+    public synchronized void scheduleReload(long period) {
+        if (null == reloadScheduler) {
+            reloadScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "JapIds-ClientDetailRegistry-Reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloadScheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    this.reload();
+                } catch (RuntimeException e) {
+                    log.error("Failed to reload client details.", e);
+                }
+            }, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop reloading clients periodically
+     */
+    public synchronized void shutdown() {
+        if (null != reloadScheduler) {
+            reloadScheduler.shutdown();
+            reloadScheduler = null;
+        }
+    }
+
+    /**
+     * Invalidate the client, the next query will read the client from the delegate service
+     *
+     * @param clientId Client application id
+     */
+    public void invalidate(String clientId) {
+        if (null == clientId) {
+            return;
+        }
+        ClientPolicy.evict(clientId);
+        ClientSecretMemo.evict(clientId);
+        synchronized (writeLock) {
+            version.incrementAndGet();
+            readThroughCache.remove(clientId);
+            if (snapshot.containsKey(clientId)) {
+                Map<String, ClientDetail> newSnapshot = new HashMap<>(snapshot);
+                newSnapshot.remove(clientId);
+                this.snapshot = Collections.unmodifiableMap(newSnapshot);
+            }
+        }
+    }
+
+    @Override
+    public ClientDetail getByClientId(String clientId) {
+        if (null == clientId) {
+            return null;
+        }
+        ClientDetail clientDetail = snapshot.get(clientId);
+        if (null != clientDetail) {
+            return clientDetail;
+        }
+        ReadThroughEntry entry = readThroughCache.get(clientId);
+        if (null != entry && !DateUtil.isExpired(entry.expiresAt)) {
+            return entry.clientDetail;
+        }
+        long readVersion = version.get();
+        clientDetail = delegate.getByClientId(clientId);
+        // Unknown clients are also cached briefly to protect the delegate service
+        long ttl = null == clientDetail ? Math.min(MISS_TTL, readThroughTtl) : readThroughTtl;
+        if (readThroughCache.size() >= MAX_READ_THROUGH_CLIENTS) {
+            readThroughCache.clear();
+        }
+        entry = new ReadThroughEntry(clientDetail, DateUtil.currentTimeMillis() + ttl);
+        readThroughCache.put(clientId, entry);
+        // The client has been invalidated during the read, the value may be stale
+        if (version.get() != readVersion) {
+            readThroughCache.remove(clientId, entry);
+        }
+        return clientDetail;
+    }
+
+    @Override
+    public ClientDetail add(ClientDetail clientDetail) {
+        ClientDetail result = delegate.add(clientDetail);
+        this.invalidate(null == clientDetail ? null : clientDetail.getClientId());
+        return result;
+    }
+
+    @Override
+    public ClientDetail update(ClientDetail clientDetail) {
+        ClientDetail result = delegate.update(clientDetail);
+        this.invalidate(null == clientDetail ? null : clientDetail.getClientId());
+        return result;
+    }
+
+    @Override
+    public boolean removeById(String id) {
+        boolean result = delegate.removeById(id);
+        synchronized (writeLock) {
+            version.incrementAndGet();
+            Map<String, ClientDetail> newSnapshot = null;
+            for (ClientDetail clientDetail : snapshot.values()) {
+                if (Objects.equals(id, clientDetail.getId())) {
+                    ClientPolicy.evict(clientDetail.getClientId());
+                    ClientSecretMemo.evict(clientDetail.getClientId());
+                    if (null == newSnapshot) {
+                        newSnapshot = new HashMap<>(snapshot);
+                    }
+                    newSnapshot.remove(clientDetail.getClientId());
+                }
+            }
+            if (null != newSnapshot) {
+                this.snapshot = Collections.unmodifiableMap(newSnapshot);
+            }
+            for (Map.Entry<String, ReadThroughEntry> entry : readThroughCache.entrySet()) {
+                ClientDetail clientDetail = entry.getValue().clientDetail;
+                if (null != clientDetail && Objects.equals(id, clientDetail.getId())) {
+                    ClientPolicy.evict(entry.getKey());
+                    ClientSecretMemo.evict(entry.getKey());
+                    readThroughCache.remove(entry.getKey());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean removeByClientId(String clientId) {
+        boolean result = delegate.removeByClientId(clientId);
+        this.invalidate(clientId);
+        return result;
+    }
+
+    @Override
+    public List<ClientDetail> getAllClientDetail() {
+        return delegate.getAllClientDetail();
+    }
+
+    private static class ReadThroughEntry {
+        private final ClientDetail clientDetail;
+        private final long expiresAt;
+
+        ReadThroughEntry(ClientDetail clientDetail, long expiresAt) {
+            this.clientDetail = clientDetail;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
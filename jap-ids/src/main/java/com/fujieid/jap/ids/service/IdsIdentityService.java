@@ -34,7 +34,8 @@ public interface IdsIdentityService {
      * @return Encryption key string in json format
      */
     default String getJwksJson(String identity) {
-        return JapIds.getIdsConfig().getJwtConfig().getJwksJson();
+        JwtConfig jwtConfig = JapIds.getIdsConfig().getJwtConfig();
+        return null == jwtConfig.getKeyRing() ? jwtConfig.getJwksJson() : jwtConfig.getKeyRing().getJwksJson();
     }
 
     /**
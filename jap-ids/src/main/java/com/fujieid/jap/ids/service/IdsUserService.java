@@ -17,6 +17,9 @@ package com.fujieid.jap.ids.service;
 
 import com.fujieid.jap.ids.exception.IdsException;
 import com.fujieid.jap.ids.model.UserInfo;
+import com.fujieid.jap.ids.model.enums.ScopeClaimsMapping;
+
+import java.util.Set;
 
 /**
  * User-related interface
@@ -53,6 +56,21 @@ public interface IdsUserService {
         throw new IdsException("Not implemented `IdsUserService.getById(String)`");
     }
 
+    /**
+     * Get user info by userid, only the claims required by the granted scopes need to be loaded.
+     * <p>
+     * The claims are calculated by {@link ScopeClaimsMapping#getRequiredClaims(Set)}, the business system can load only
+     * the corresponding columns (such as skip the profile, address and phone tables), the other properties of the user can be null.
+     * By default, the complete user is loaded by {@link #getById(String)}.
+     *
+     * @param userId userId of the business system
+     * @param claims The claims required by the granted scopes
+     * @return UserInfo
+     */
+    default UserInfo getById(String userId, Set<String> claims) {
+        return this.getById(userId);
+    }
+
     /**
      * Get user info by username.
      * <p>
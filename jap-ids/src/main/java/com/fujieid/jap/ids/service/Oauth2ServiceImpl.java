@@ -16,9 +16,10 @@
 package com.fujieid.jap.ids.service;
 
 import cn.hutool.core.util.ObjectUtil;
-import cn.hutool.core.util.RandomUtil;
 import cn.hutool.log.Log;
 import cn.hutool.log.LogFactory;
+import com.fujieid.jap.core.event.JapEventBus;
+import com.fujieid.jap.core.event.JapEventType;
 import com.fujieid.jap.ids.JapIds;
 import com.fujieid.jap.ids.exception.InvalidCodeException;
 import com.fujieid.jap.ids.exception.UnsupportedGrantTypeException;
@@ -28,7 +29,9 @@ import com.fujieid.jap.ids.model.IdsRequestParam;
 import com.fujieid.jap.ids.model.UserInfo;
 import com.fujieid.jap.ids.model.enums.ErrorResponse;
 import com.fujieid.jap.ids.model.enums.GrantType;
+import com.fujieid.jap.ids.util.DateUtil;
 import com.fujieid.jap.ids.util.OauthUtil;
+import com.fujieid.jap.ids.util.TokenGenerator;
 
 /**
  * oauth 2.0 related methods
@@ -44,15 +47,17 @@ public class Oauth2ServiceImpl implements Oauth2Service {
     public String createAuthorizationCode(IdsRequestParam param, UserInfo user, Long codeExpiresIn) {
         String scopeStr = param.getScope();
         String nonce = param.getNonce();
-        String code = RandomUtil.randomString(12);
+        String code = TokenGenerator.generateCode();
 
         AuthCode authCode = new AuthCode()
             .setScope(scopeStr)
             .setUser(user)
             .setNonce(nonce)
             .setCodeChallenge(param.getCodeChallenge())
-            .setCodeChallengeMethod(param.getCodeChallengeMethod());
+            .setCodeChallengeMethod(param.getCodeChallengeMethod())
+            .setExpiresAt(DateUtil.expiresAt(codeExpiresIn));
         JapIds.getContext().getCache().set(IdsConsts.OAUTH_CODE_CACHE_KEY + code, authCode, codeExpiresIn * 1000);
+        JapEventBus.getDefault().publish(JapEventType.AUTHORIZATION_CODE_ISSUED, null == user ? null : user.getId(), param.getClientId(), scopeStr);
         return code;
     }
 
@@ -62,7 +67,9 @@ public class Oauth2ServiceImpl implements Oauth2Service {
             throw new UnsupportedGrantTypeException(ErrorResponse.UNSUPPORTED_GRANT_TYPE);
         }
         AuthCode authCode = this.getCodeInfo(code);
-        if (null == authCode || ObjectUtil.hasNull(authCode.getUser(), authCode.getScope())) {
+        // An unset expiration time relies on the cache ttl of the code
+        if (null == authCode || ObjectUtil.hasNull(authCode.getUser(), authCode.getScope())
+            || (authCode.getExpiresAt() > 0 && DateUtil.isExpired(authCode.getExpiresAt()))) {
             throw new InvalidCodeException(ErrorResponse.INVALID_CODE);
         }
         return authCode;
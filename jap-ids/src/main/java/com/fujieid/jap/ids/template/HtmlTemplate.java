@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.template;
+
+import com.fujieid.jap.ids.util.Utf8Buffer;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A precompiled html template.
+ * <p>
+ * The template source is split by the slots ({@code ${name}}) when compiling, the static fragments are encoded as UTF-8 in advance.
+ * When rendering, the static fragments are copied as they are, and the values of the slots are HTML-escaped and encoded on the fly,
+ * into a {@link Utf8Buffer} held by the current thread. The rendered page is written to the {@code OutputStream} of the response at once.
+ * <p>
+ * The value of a slot can be:
+ * <ul>
+ *     <li>{@code null}, nothing is written</li>
+ *     <li>a {@link Section} created by {@link #each(HtmlTemplate, List)}, the nested template is rendered with each model</li>
+ *     <li>any other object, the escaped {@code String.valueOf(value)} is written</li>
+ * </ul>
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public final class HtmlTemplate {
+
+    private static final byte[] AMP = "&amp;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LT = "&lt;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GT = "&gt;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] QUOT = "&quot;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] APOS = "&#39;".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * {@code fragments.length == slots.length + 1}, the i-th slot is between the i-th and (i+1)-th fragment
+     */
+    private final byte[][] fragments;
+    private final String[] slots;
+
+    private HtmlTemplate(byte[][] fragments, String[] slots) {
+        this.fragments = fragments;
+        this.slots = slots;
+    }
+
+    /**
+     * Compile the template source
+     *
+     * @param source Template source, the slots are declared as {@code ${name}}
+     * @return HtmlTemplate
+     */
+    public static HtmlTemplate compile(String source) {
+        if (null == source) {
+            throw new IllegalArgumentException("The template source cannot be null");
+        }
+        List<byte[]> fragments = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        int fragmentStart = 0;
+        int slotStart;
+        while ((slotStart = source.indexOf("${", fragmentStart)) != -1) {
+            int slotEnd = source.indexOf('}', slotStart + 2);
+            if (slotEnd == -1) {
+                break;
+            }
+            fragments.add(source.substring(fragmentStart, slotStart).getBytes(StandardCharsets.UTF_8));
+            slots.add(source.substring(slotStart + 2, slotEnd).trim());
+            fragmentStart = slotEnd + 1;
+        }
+        fragments.add(source.substring(fragmentStart).getBytes(StandardCharsets.UTF_8));
+        return new HtmlTemplate(fragments.toArray(new byte[0][]), slots.toArray(new String[0]));
+    }
+
+    /**
+     * Create a section that renders the template with each model
+     *
+     * @param template The nested template
+     * @param models   The models of each rendering
+     * @return Section
+     */
+    public static Section each(HtmlTemplate template, List<? extends Map<String, ?>> models) {
+        return new Section(template, models);
+    }
+
+    /**
+     * Get the names of all slots in the order they appear in the template
+     *
+     * @return unmodifiable list
+     */
+    public List<String> getSlots() {
+        return Collections.unmodifiableList(Arrays.asList(slots));
+    }
+
+    /**
+     * Render the template and write the page to the HTTP response, with the content type and content length
+     *
+     * @param response current HTTP response
+     * @param model    The values of the slots
+     * @throws IOException IOException
+     */
+    public void write(HttpServletResponse response, Map<String, ?> model) throws IOException {
+        Utf8Buffer buffer = Utf8Buffer.acquire();
+        try {
+            this.render(buffer, model);
+            response.setContentType("text/html;charset=UTF-8");
+            response.setContentLength(buffer.size());
+            OutputStream out = response.getOutputStream();
+            buffer.writeTo(out);
+            out.flush();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Render the template and write the page to the output stream
+     *
+     * @param out   The output stream
+     * @param model The values of the slots
+     * @throws IOException IOException
+     */
+    public void write(OutputStream out, Map<String, ?> model) throws IOException {
+        Utf8Buffer buffer = Utf8Buffer.acquire();
+        try {
+            this.render(buffer, model);
+            buffer.writeTo(out);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Render the template as a string
+     *
+     * @param model The values of the slots
+     * @return html
+     */
+    public String render(Map<String, ?> model) {
+        Utf8Buffer buffer = Utf8Buffer.acquire();
+        try {
+            this.render(buffer, model);
+            return buffer.toString();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private void render(Utf8Buffer buffer, Map<String, ?> model) {
+        for (int i = 0; i < slots.length; i++) {
+            buffer.write(fragments[i]);
+            Object value = null == model ? null : model.get(slots[i]);
+            if (null == value) {
+                continue;
+            }
+            if (value instanceof Section) {
+                Section section = (Section) value;
+                for (Map<String, ?> sectionModel : section.models) {
+                    section.template.render(buffer, sectionModel);
+                }
+            } else {
+                writeEscaped(buffer, String.valueOf(value));
+            }
+        }
+        buffer.write(fragments[slots.length]);
+    }
+
+    private static void writeEscaped(Utf8Buffer buffer, String value) {
+        int length = value.length();
+        for (int i = 0; i < length; ) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    buffer.write(AMP);
+                    i++;
+                    break;
+                case '<':
+                    buffer.write(LT);
+                    i++;
+                    break;
+                case '>':
+                    buffer.write(GT);
+                    i++;
+                    break;
+                case '"':
+                    buffer.write(QUOT);
+                    i++;
+                    break;
+                case '\'':
+                    buffer.write(APOS);
+                    i++;
+                    break;
+                default:
+                    i += buffer.writeChar(value, i);
+            }
+        }
+    }
+
+    /**
+     * A nested template rendered with a list of models
+     */
+    public static final class Section {
+        private final HtmlTemplate template;
+        private final List<? extends Map<String, ?>> models;
+
+        private Section(HtmlTemplate template, List<? extends Map<String, ?>> models) {
+            this.template = template;
+            this.models = null == models ? Collections.emptyList() : models;
+        }
+    }
+}
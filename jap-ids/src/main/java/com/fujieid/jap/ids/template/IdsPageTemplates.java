@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.template;
+
+/**
+ * The templates of the default pages of jap-ids, such as the login page, the authorization confirmation page and the error page.
+ * <p>
+ * Each template can be overridden by a custom template with the same slots, for example:
+ * <pre>
+ * IdsPageTemplates.setLoginTemplate("&lt;form method=\"post\" action=\"${action}\"&gt;...&lt;/form&gt;");
+ * </pre>
+ * Pass {@code null} to restore the default template.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class IdsPageTemplates {
+
+    /**
+     * The default login page, slots: {@code action}, {@code usernameField}, {@code passwordField}
+     */
+    public static final String DEFAULT_LOGIN_TEMPLATE = "<!DOCTYPE html>\n"
+        + "<html lang=\"en\">\n"
+        + "  <head>\n"
+        + "    <meta charset=\"utf-8\">\n"
+        + "    <meta name=\"viewport\" content=\"width=device-width, initial-scale=1, shrink-to-fit=no\">\n"
+        + "    <meta name=\"description\" content=\"\">\n"
+        + "    <meta name=\"author\" content=\"\">\n"
+        + "    <title>Please sign in</title>\n"
+        + "    <link href=\"https://maxcdn.bootstrapcdn.com/bootstrap/4.0.0-beta/css/bootstrap.min.css\" rel=\"stylesheet\" integrity=\"sha384-/Y6pD6FV/Vv2HJnA6t+vslU6fwYXjCFtcEpHbNJ0lyAFsXTsjBbfaDjzALeQsN6M\" crossorigin=\"anonymous\">\n"
+        + "    <link href=\"https://getbootstrap.com/docs/4.0/examples/signin/signin.css\" rel=\"stylesheet\" crossorigin=\"anonymous\"/>\n"
+        + "  </head>\n"
+        + "  <body>\n"
+        + "     <div class=\"container\">\n"
+        + "      <form class=\"form-signin\" method=\"post\" action=\"${action}\">\n"
+        + "        <h2 class=\"form-signin-heading\">Please sign in</h2>\n"
+        + "        <p>\n"
+        + "          <label for=\"username\" class=\"sr-only\">Username</label>\n"
+        + "          <input type=\"text\" id=\"username\" name=\"${usernameField}\" class=\"form-control\" placeholder=\"Username\" required autofocus>\n"
+        + "        </p>\n"
+        + "        <p>\n"
+        + "          <label for=\"password\" class=\"sr-only\">Password</label>\n"
+        + "          <input type=\"password\" id=\"password\" name=\"${passwordField}\" class=\"form-control\" placeholder=\"Password\" required>\n"
+        + "        </p>\n"
+        + "        <button class=\"btn btn-lg btn-primary btn-block\" type=\"submit\">Sign in</button>\n"
+        + "      </form>\n"
+        + "</div>\n"
+        + "</body></html>";
+
+    /**
+     * The default authorization confirmation page, slots: {@code appName}, {@code clientId}, {@code action},
+     * {@code scopes} (rendered with the confirm scope template), {@code denial} (rendered with the confirm denial template)
+     */
+    public static final String DEFAULT_CONFIRM_TEMPLATE = "<!DOCTYPE html>\n"
+        + "<html lang=\"en\">\n"
+        + "  <head>\n"
+        + "    <meta charset=\"utf-8\">\n"
+        + "    <meta name=\"viewport\" content=\"width=device-width, initial-scale=1, shrink-to-fit=no\">\n"
+        + "    <meta name=\"description\" content=\"\">\n"
+        + "    <meta name=\"author\" content=\"\">\n"
+        + "    <title>OAuth Approval</title>\n"
+        + "  </head>\n"
+        + "  \n"
+        + "<body><h1>OAuth Approval</h1>"
+        + "<p>Do you authorize \"<strong>${appName}</strong> (${clientId})\" to access your protected resources?</p>"
+        + "<form id=\"confirmationForm\" name=\"confirmationForm\" action=\"${action}\" method=\"post\">"
+        + "<input name=\"user_oauth_approval\" value=\"true\" type=\"hidden\"/>"
+        + "<ul style=\"list-style: none;padding-inline-start: 20px;\">${scopes}</ul>"
+        + "<label><input name=\"authorize\" value=\"Authorize\" type=\"submit\"/></label></form>"
+        + "${denial}"
+        + "</body></html>";
+
+    /**
+     * The scope list of the authorization confirmation page, rendered for each scope, slots: {@code code}, {@code description}, {@code checked}
+     */
+    public static final String DEFAULT_CONFIRM_SCOPE_TEMPLATE = "<li><div class=\"form-group\">"
+        + "<input type=\"checkbox\" name=\"scopes\" value=\"${code}\"${checked} style=\"margin-right: 5px;\">${code} - ${description}</input> "
+        + "</div></li>";
+
+    /**
+     * The denial form of the authorization confirmation page, rendered when no scope is requested, slots: {@code action}
+     */
+    public static final String DEFAULT_CONFIRM_DENIAL_TEMPLATE = "<form id=\"denialForm\" name=\"denialForm\" action=\"${action}\" method=\"post\">"
+        + "<input name=\"user_oauth_approval\" value=\"false\" type=\"hidden\"/>"
+        + "<label><input name=\"deny\" value=\"Deny\" type=\"submit\"/></label></form>";
+
+    /**
+     * The default error page, slots: {@code error}, {@code errorDescription}
+     */
+    public static final String DEFAULT_ERROR_TEMPLATE = "<!DOCTYPE html>\n"
+        + "<html lang=\"en\">\n"
+        + "  <head>\n"
+        + "    <meta charset=\"utf-8\">\n"
+        + "    <meta name=\"viewport\" content=\"width=device-width, initial-scale=1, shrink-to-fit=no\">\n"
+        + "    <meta name=\"description\" content=\"\">\n"
+        + "    <meta name=\"author\" content=\"\">\n"
+        + "    <title>Oops!, something went wrong</title>\n"
+        + "    <link href=\"https://maxcdn.bootstrapcdn.com/bootstrap/4.0.0-beta/css/bootstrap.min.css\" rel=\"stylesheet\" integrity=\"sha384-/Y6pD6FV/Vv2HJnA6t+vslU6fwYXjCFtcEpHbNJ0lyAFsXTsjBbfaDjzALeQsN6M\" crossorigin=\"anonymous\">\n"
+        + "  </head>\n"
+        + "  <body>\n"
+        + "     <div class=\"container text-center\" style=\"margin-top: 10%;\">\n"
+        + "        <p><h1>Oops!, something went wrong</h1></p>\n"
+        + "<p>${error}</p>"
+        + "        <p>\n${errorDescription}        </p>\n"
+        + "        <p>Feel free to contact us.</p>\n"
+        + "        <p>Please try again.</p>\n"
+        + "</div>\n"
+        + "</body></html>";
+
+    private static volatile HtmlTemplate loginTemplate = HtmlTemplate.compile(DEFAULT_LOGIN_TEMPLATE);
+    private static volatile HtmlTemplate confirmTemplate = HtmlTemplate.compile(DEFAULT_CONFIRM_TEMPLATE);
+    private static volatile HtmlTemplate confirmScopeTemplate = HtmlTemplate.compile(DEFAULT_CONFIRM_SCOPE_TEMPLATE);
+    private static volatile HtmlTemplate confirmDenialTemplate = HtmlTemplate.compile(DEFAULT_CONFIRM_DENIAL_TEMPLATE);
+    private static volatile HtmlTemplate errorTemplate = HtmlTemplate.compile(DEFAULT_ERROR_TEMPLATE);
+
+    private IdsPageTemplates() {
+    }
+
+    public static HtmlTemplate getLoginTemplate() {
+        return loginTemplate;
+    }
+
+    public static void setLoginTemplate(String source) {
+        loginTemplate = HtmlTemplate.compile(null == source ? DEFAULT_LOGIN_TEMPLATE : source);
+    }
+
+    public static HtmlTemplate getConfirmTemplate() {
+        return confirmTemplate;
+    }
+
+    public static void setConfirmTemplate(String source) {
+        confirmTemplate = HtmlTemplate.compile(null == source ? DEFAULT_CONFIRM_TEMPLATE : source);
+    }
+
+    public static HtmlTemplate getConfirmScopeTemplate() {
+        return confirmScopeTemplate;
+    }
+
+    public static void setConfirmScopeTemplate(String source) {
+        confirmScopeTemplate = HtmlTemplate.compile(null == source ? DEFAULT_CONFIRM_SCOPE_TEMPLATE : source);
+    }
+
+    public static HtmlTemplate getConfirmDenialTemplate() {
+        return confirmDenialTemplate;
+    }
+
+    public static void setConfirmDenialTemplate(String source) {
+        confirmDenialTemplate = HtmlTemplate.compile(null == source ? DEFAULT_CONFIRM_DENIAL_TEMPLATE : source);
+    }
+
+    public static HtmlTemplate getErrorTemplate() {
+        return errorTemplate;
+    }
+
+    public static void setErrorTemplate(String source) {
+        errorTemplate = HtmlTemplate.compile(null == source ? DEFAULT_ERROR_TEMPLATE : source);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An adaptive concurrency limiter based on the TCP Vegas congestion control algorithm.
+ * <p>
+ * The limiter keeps the minimum observed latency as the latency without queueing, and estimates the number of
+ * queued requests with {@code limit * (1 - minLatency / latency)}: the limit grows while the estimated queue is small,
+ * and shrinks when the queue grows, that is, when the downstream (such as the user database) slows down.
+ * Failed requests shrink the limit multiplicatively (AIMD).
+ * <p>
+ * Requests beyond the limit are rejected immediately by {@link #acquire()}, instead of queueing on the container threads.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * The minimum latency is re-measured after every this number of samples, so that the limiter adapts to a new baseline
+     */
+    private static final int PROBE_INTERVAL = 1000;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int minLimit;
+    private final int maxLimit;
+    private volatile double limit;
+    private long minLatency = Long.MAX_VALUE;
+    private int samples;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("The limits must satisfy 0 < minLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Try to admit a request
+     *
+     * @return the permit of the request, null when the in-flight requests have reached the limit
+     */
+    public Permit acquire() {
+        int current = inFlight.incrementAndGet();
+        if (current > (int) limit) {
+            inFlight.decrementAndGet();
+            return null;
+        }
+        return new Permit(current);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Update the limit with a latency sample
+     *
+     * @param latency  latency of the request, in nanoseconds
+     * @param inFlight the number of in-flight requests when the request was admitted
+     */
+    synchronized void onSample(long latency, int inFlight) {
+        if (++samples >= PROBE_INTERVAL) {
+            samples = 0;
+            minLatency = Long.MAX_VALUE;
+        }
+        latency = Math.max(1, latency);
+        if (latency < minLatency) {
+            minLatency = latency;
+        }
+        double current = limit;
+        double log = Math.max(1, Math.log10(current));
+        double queue = Math.ceil(current * (1 - (double) minLatency / latency));
+        double alpha = 3 * log;
+        double beta = 6 * log;
+        double next;
+        if (queue <= log) {
+            // Only grow the limit when it is actually used
+            next = inFlight * 2 >= current ? current + beta : current;
+        } else if (queue < alpha) {
+            next = inFlight * 2 >= current ? current + log : current;
+        } else if (queue > beta) {
+            next = current - log;
+        } else {
+            next = current;
+        }
+        this.limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    /**
+     * Shrink the limit multiplicatively when the request failed
+     */
+    synchronized void onDropped() {
+        this.limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+    }
+
+    /**
+     * The permit of an admitted request, {@link #release(boolean)} must be called when the request is completed
+     */
+    public class Permit {
+        private final long startTime = System.nanoTime();
+        private final int inFlightOnAdmit;
+        private boolean released;
+
+        Permit(int inFlightOnAdmit) {
+            this.inFlightOnAdmit = inFlightOnAdmit;
+        }
+
+        /**
+         * Release the permit
+         *
+         * @param success false when the request failed because of the server, such as a timeout of the user database
+         */
+        public void release(boolean success) {
+            if (released) {
+                return;
+            }
+            released = true;
+            inFlight.decrementAndGet();
+            if (success) {
+                onSample(System.nanoTime() - startTime, inFlightOnAdmit);
+            } else {
+                onDropped();
+            }
+        }
+    }
+}
@@ -19,8 +19,6 @@ import com.fujieid.jap.ids.model.ClientCertificate;
 import org.jose4j.base64url.internal.apache.commons.codec.binary.Base64;
 
 import java.nio.charset.StandardCharsets;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Credentials in Basic authentication.
@@ -29,10 +27,7 @@ import java.util.regex.Pattern;
  * @see <a href="http://tools.ietf.org/html/rfc2617#section-2">RFC 2617 (HTTP Authentication), 2. Basic Authentication Scheme</a>
  */
 public class BasicCredentials {
-    /**
-     * Regular expression to parse {@code Authorization} header.
-     */
-    private static final Pattern CHALLENGE_PATTERN = Pattern.compile("^Basic *([^ ]+) *$", Pattern.CASE_INSENSITIVE);
+    private static final String SCHEME = "Basic";
     private final ClientCertificate clientCertificate;
 
     /**
@@ -64,24 +59,20 @@ public class BasicCredentials {
             return null;
         }
 
-        Matcher matcher = CHALLENGE_PATTERN.matcher(input);
+        String encoded = BearerToken.parseChallenge(input, SCHEME);
 
-        if (!matcher.matches()) {
+        if (null == encoded) {
             return new BasicCredentials(null, null);
         }
 
-        String encoded = matcher.group(1);
         byte[] decoded = Base64.decodeBase64(encoded);
         String value = new String(decoded, StandardCharsets.UTF_8);
-        String[] credentials = value.split(":", 2);
+        int separator = value.indexOf(':');
 
-        String id = credentials[0];
-        String secret = null;
-        if (credentials.length == 2) {
-            secret = credentials[1];
+        if (separator < 0) {
+            return new BasicCredentials(value, null);
         }
-
-        return new BasicCredentials(id, secret);
+        return new BasicCredentials(value.substring(0, separator), value.substring(separator + 1));
     }
 
     public String getId() {
@@ -106,12 +97,12 @@ public class BasicCredentials {
             return formatted;
         }
 
-        String credentials = String.format("%s:%s", clientCertificate.getId(), clientCertificate.getSecret());
+        String credentials = clientCertificate.getId() + ":" + clientCertificate.getSecret();
 
         byte[] credentialsBytes = credentials.getBytes(StandardCharsets.UTF_8);
 
         String encoded = Base64.encodeBase64String(credentialsBytes);
 
-        return (formatted = "Basic " + encoded);
+        return (formatted = SCHEME + " " + encoded);
     }
 }
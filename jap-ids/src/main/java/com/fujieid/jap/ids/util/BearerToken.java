@@ -20,8 +20,6 @@ import com.fujieid.jap.ids.model.IdsConsts;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 
 /**
@@ -32,11 +30,7 @@ import java.util.regex.Pattern;
  * @see <a href="http://tools.ietf.org/html/rfc6750">RFC 6750 (OAuth 2.0 Bearer Token Usage)</a>
  */
 public class BearerToken {
-    /**
-     * Regular expression to parse {@code Authorization} header.
-     */
-    private static final Pattern CHALLENGE_PATTERN
-        = Pattern.compile("^Bearer *([^ ]+) *$", Pattern.CASE_INSENSITIVE);
+    private static final String ACCESS_TOKEN_PARAMETER = IdsConsts.ACCESS_TOKEN + "=";
 
 
     private BearerToken() {
@@ -98,46 +92,77 @@ public class BearerToken {
             return null;
         }
 
-        if (!input.startsWith(IdsConsts.TOKEN_TYPE_BEARER) && !input.contains("&")) {
+        if (!input.startsWith(IdsConsts.TOKEN_TYPE_BEARER) && input.indexOf('&') < 0) {
             return input;
         }
 
-        // First, check whether the input matches the pattern
-        // "Bearer {access-token}".
-        Matcher matcher = CHALLENGE_PATTERN.matcher(input);
-
-        // If the input matches the pattern.
-        if (matcher.matches()) {
+        // First, check whether the input matches "Bearer {access-token}".
+        String token = parseChallenge(input, IdsConsts.TOKEN_TYPE_BEARER);
+        if (null != token) {
             // Return the value as is. Note that it is not Base64-encoded.
             // See https://www.ietf.org/mail-archive/web/oauth/current/msg08489.html
-            return matcher.group(1);
-        } else {
-            // Assume that the input is formatted in
-            // application/x-www-form-urlencoded.
-            return extractFromFormParameters(input);
+            return token;
         }
+        // Assume that the input is formatted in
+        // application/x-www-form-urlencoded.
+        return extractFromFormParameters(input);
     }
 
-
-    private static String extractFromFormParameters(String input) {
-        for (String parameter : input.split("&")) {
-            String[] pair = parameter.split("=", 2);
-
-            if (pair.length != 2 || pair[1].length() == 0) {
-                continue;
+    /**
+     * Scan the credentials of the authentication scheme, equivalent to the regular expression
+     * {@code ^{scheme} *([^ ]+) *$} (case-insensitive scheme), but without regular expressions.
+     *
+     * @param input  The value of {@code Authorization} header
+     * @param scheme Authentication scheme, such as {@code Bearer} or {@code Basic}
+     * @return The credentials, or {@code null} if the input does not match the scheme
+     */
+    static String parseChallenge(String input, String scheme) {
+        int length = input.length();
+        if (!input.regionMatches(true, 0, scheme, 0, scheme.length())) {
+            return null;
+        }
+        int start = scheme.length();
+        while (start < length && input.charAt(start) == ' ') {
+            start++;
+        }
+        int end = start;
+        while (end < length && input.charAt(end) != ' ') {
+            end++;
+        }
+        if (end == start) {
+            return null;
+        }
+        for (int i = end; i < length; i++) {
+            if (input.charAt(i) != ' ') {
+                return null;
             }
+        }
+        return input.substring(start, end);
+    }
 
-            if (!"access_token".equals(pair[0])) {
-                continue;
+    private static String extractFromFormParameters(String input) {
+        int length = input.length();
+        int start = 0;
+        while (start < length) {
+            int end = input.indexOf('&', start);
+            if (end < 0) {
+                end = length;
             }
-
-            try {
-                // URL-decode
-                return URLDecoder.decode(pair[1], "UTF-8");
-            } catch (UnsupportedEncodingException e) {
-                // This won't happen.
-                return null;
+            int valueStart = start + ACCESS_TOKEN_PARAMETER.length();
+            if (valueStart < end && input.startsWith(ACCESS_TOKEN_PARAMETER, start)) {
+                String value = input.substring(valueStart, end);
+                if (value.indexOf('%') < 0 && value.indexOf('+') < 0) {
+                    return value;
+                }
+                try {
+                    // URL-decode
+                    return URLDecoder.decode(value, "UTF-8");
+                } catch (UnsupportedEncodingException e) {
+                    // This won't happen.
+                    return null;
+                }
             }
+            start = end + 1;
         }
 
         // Not found.
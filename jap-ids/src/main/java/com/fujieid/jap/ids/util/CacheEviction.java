@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * The eviction of the bounded in-process caches: when a cache is full, the expired entries are purged first,
+ * then the entries that expire the earliest are evicted, instead of clearing the whole cache at once.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+final class CacheEviction {
+
+    private CacheEviction() {
+    }
+
+    /**
+     * Purge the expired entries, then evict the entries that expire first until at most {@code target} entries are left.
+     * The caller should hold a lock of the cache, so that the same cache is not evicted concurrently.
+     *
+     * @param cache     the cache to be evicted
+     * @param expiresAt the expiration time of a value, in epoch milliseconds
+     * @param target    the number of entries kept after the eviction
+     */
+    static <K, V> void evictOldest(Map<K, V> cache, ToLongFunction<V> expiresAt, int target) {
+        long now = DateUtil.currentTimeMillis();
+        List<Map.Entry<K, Long>> entries = new ArrayList<>(cache.size());
+        for (Map.Entry<K, V> entry : cache.entrySet()) {
+            long entryExpiresAt = expiresAt.applyAsLong(entry.getValue());
+            if (entryExpiresAt < now) {
+                cache.remove(entry.getKey(), entry.getValue());
+            } else {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entryExpiresAt));
+            }
+        }
+        int excess = cache.size() - target;
+        if (excess <= 0) {
+            return;
+        }
+        entries.sort(Map.Entry.comparingByValue());
+        for (int i = 0; i < excess && i < entries.size(); i++) {
+            cache.remove(entries.get(i).getKey());
+        }
+    }
+
+    /**
+     * Purge the expired entries of a nested cache, and get the latest expiration time of the entries left
+     *
+     * @param cache     the nested cache
+     * @param expiresAt the expiration time of a value, in epoch milliseconds
+     * @return the latest expiration time, {@link Long#MIN_VALUE} when no entry is left
+     */
+    static <K, V> long purgeExpired(Map<K, V> cache, ToLongFunction<V> expiresAt) {
+        long now = DateUtil.currentTimeMillis();
+        long latestExpiresAt = Long.MIN_VALUE;
+        for (Map.Entry<K, V> entry : cache.entrySet()) {
+            long entryExpiresAt = expiresAt.applyAsLong(entry.getValue());
+            if (entryExpiresAt < now) {
+                cache.remove(entry.getKey(), entry.getValue());
+            } else {
+                latestExpiresAt = Math.max(latestExpiresAt, entryExpiresAt);
+            }
+        }
+        return latestExpiresAt;
+    }
+}
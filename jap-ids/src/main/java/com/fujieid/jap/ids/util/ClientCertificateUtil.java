@@ -24,8 +24,9 @@ import com.fujieid.jap.ids.model.enums.ClientSecretAuthMethod;
 import com.xkcoding.json.util.StringUtil;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Get the client secret, client id from the request
@@ -36,31 +37,29 @@ import java.util.List;
  */
 public class ClientCertificateUtil {
 
+    /**
+     * The sources of the client certificate compiled from {@code IdsConfig#getClientSecretAuthMethods()}
+     */
+    private static volatile ClientCertificateSources clientCertificateSources;
+
     public static ClientCertificate getClientCertificate(HttpServletRequest request) {
-        List<ClientSecretAuthMethod> clientSecretAuthMethods = JapIds.getIdsConfig().getClientSecretAuthMethods();
-        if (ObjectUtil.isEmpty(clientSecretAuthMethods)) {
-            clientSecretAuthMethods = Collections.singletonList(ClientSecretAuthMethod.ALL);
+        ClientCertificateSources sources = getClientCertificateSources(JapIds.getIdsConfig().getClientSecretAuthMethods());
+        ClientCertificate clientCertificate = null;
+        if (sources.parameter) {
+            clientCertificate = getClientCertificateFromRequestParameter(request);
         }
+        if (sources.header && (null == clientCertificate || StringUtil.isEmpty(clientCertificate.getId()))) {
+            clientCertificate = getClientCertificateFromHeader(request);
+        }
+        return null == clientCertificate ? new ClientCertificate() : clientCertificate;
+    }
 
-        if (clientSecretAuthMethods.contains(ClientSecretAuthMethod.ALL)) {
-            ClientCertificate clientCertificate = getClientCertificateFromRequestParameter(request);
-            if (StringUtil.isEmpty(clientCertificate.getId())) {
-                clientCertificate = getClientCertificateFromHeader(request);
-            }
-            return clientCertificate;
-
-        } else {
-
-            if (clientSecretAuthMethods.contains(ClientSecretAuthMethod.CLIENT_SECRET_POST)
-                || clientSecretAuthMethods.contains(ClientSecretAuthMethod.NONE)) {
-                return getClientCertificateFromRequestParameter(request);
-            }
-
-            if (clientSecretAuthMethods.contains(ClientSecretAuthMethod.CLIENT_SECRET_BASIC)) {
-                return getClientCertificateFromHeader(request);
-            }
+    private static ClientCertificateSources getClientCertificateSources(List<ClientSecretAuthMethod> clientSecretAuthMethods) {
+        ClientCertificateSources sources = clientCertificateSources;
+        if (null == sources || !sources.isBuiltFrom(clientSecretAuthMethods)) {
+            sources = clientCertificateSources = new ClientCertificateSources(clientSecretAuthMethods);
         }
-        return new ClientCertificate();
+        return sources;
     }
 
     private static ClientCertificate getClientCertificateFromRequestParameter(HttpServletRequest request) {
@@ -78,4 +77,27 @@ public class ClientCertificateUtil {
         return new ClientCertificate();
     }
 
+    /**
+     * The client secret auth methods resolved into the sources to be checked, in the order of request parameters and header
+     */
+    private static class ClientCertificateSources {
+        /**
+         * A copy of the configured list, so that the list modified in place is also detected
+         */
+        private final List<ClientSecretAuthMethod> clientSecretAuthMethods;
+        private final boolean parameter;
+        private final boolean header;
+
+        ClientCertificateSources(List<ClientSecretAuthMethod> clientSecretAuthMethods) {
+            this.clientSecretAuthMethods = null == clientSecretAuthMethods ? null : new ArrayList<>(clientSecretAuthMethods);
+            boolean all = ObjectUtil.isEmpty(clientSecretAuthMethods) || clientSecretAuthMethods.contains(ClientSecretAuthMethod.ALL);
+            this.parameter = all || clientSecretAuthMethods.contains(ClientSecretAuthMethod.CLIENT_SECRET_POST)
+                || clientSecretAuthMethods.contains(ClientSecretAuthMethod.NONE);
+            this.header = all || clientSecretAuthMethods.contains(ClientSecretAuthMethod.CLIENT_SECRET_BASIC);
+        }
+
+        boolean isBuiltFrom(List<ClientSecretAuthMethod> clientSecretAuthMethods) {
+            return Objects.equals(this.clientSecretAuthMethods, clientSecretAuthMethods);
+        }
+    }
 }
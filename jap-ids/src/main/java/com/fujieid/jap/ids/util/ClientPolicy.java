@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.ids.model.ClientDetail;
+import com.fujieid.jap.ids.model.enums.GrantType;
+import com.fujieid.jap.ids.model.enums.ResponseType;
+import com.xkcoding.json.util.StringUtil;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The pre-compiled authorization policy of the client.
+ * <p>
+ * The space-separated scopes, grant types, response types and redirect uris in {@link ClientDetail} are parsed only once,
+ * the validation in the authorize and token endpoints is performed on the enum sets, the scope bitset and the redirect uri set.
+ * The policy is cached by client id, and will be recompiled when the client detail changes.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class ClientPolicy {
+
+    private static final Map<String, ClientPolicy> POLICIES = new ConcurrentHashMap<>();
+    private static final Map<String, GrantType> GRANT_TYPES = new HashMap<>();
+    private static final Map<String, ResponseType> RESPONSE_TYPES = new HashMap<>();
+
+    static {
+        for (GrantType grantType : GrantType.values()) {
+            GRANT_TYPES.put(grantType.getType(), grantType);
+        }
+        for (ResponseType responseType : ResponseType.values()) {
+            RESPONSE_TYPES.put(responseType.getType(), responseType);
+        }
+    }
+
+    private final String scopeText;
+    private final String grantTypeText;
+    private final String responseTypeText;
+    private final String redirectUriText;
+
+    private final BitSet scopes = new BitSet();
+    private final EnumSet<GrantType> grantTypes = EnumSet.noneOf(GrantType.class);
+    private final EnumSet<ResponseType> responseTypes = EnumSet.noneOf(ResponseType.class);
+    private final Set<String> redirectUris = new HashSet<>();
+
+    private ClientPolicy(ClientDetail clientDetail) {
+        this.scopeText = clientDetail.getScopes();
+        this.grantTypeText = clientDetail.getGrantTypes();
+        this.responseTypeText = clientDetail.getResponseTypes();
+        this.redirectUriText = clientDetail.getRedirectUri();
+
+        for (String scope : OauthUtil.convertStrToList(scopeText)) {
+            scopes.set(ScopeIds.intern(scope));
+        }
+        for (String grantType : OauthUtil.convertStrToList(grantTypeText)) {
+            Optional.ofNullable(GRANT_TYPES.get(grantType)).ifPresent(grantTypes::add);
+        }
+        for (String responseType : OauthUtil.convertStrToList(responseTypeText)) {
+            Optional.ofNullable(RESPONSE_TYPES.get(responseType)).ifPresent(responseTypes::add);
+        }
+        if (null != redirectUriText) {
+            // The registered value itself always matches exactly, the whitespace-separated entries are also accepted.
+            // '+' is a legal character in a redirect uri (e.g. in the query), so it must not be treated as a separator here.
+            redirectUris.add(redirectUriText);
+            for (String redirectUri : redirectUriText.split("\\s+")) {
+                if (!redirectUri.isEmpty()) {
+                    redirectUris.add(redirectUri);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the policy of the client, the policy will be compiled when it does not exist or the client detail has changed
+     *
+     * @param clientDetail client detail
+     * @return ClientPolicy
+     */
+    public static ClientPolicy of(ClientDetail clientDetail) {
+        String clientId = clientDetail.getClientId();
+        ClientPolicy policy = null == clientId ? null : POLICIES.get(clientId);
+        if (null != policy && policy.isCompiledFrom(clientDetail)) {
+            return policy;
+        }
+        policy = new ClientPolicy(clientDetail);
+        if (null != clientId) {
+            POLICIES.put(clientId, policy);
+        }
+        return policy;
+    }
+
+    /**
+     * Remove the compiled policy of the client
+     *
+     * @param clientId client id
+     */
+    public static void evict(String clientId) {
+        if (null != clientId) {
+            POLICIES.remove(clientId);
+        }
+    }
+
+    private boolean isCompiledFrom(ClientDetail clientDetail) {
+        return Objects.equals(scopeText, clientDetail.getScopes())
+            && Objects.equals(grantTypeText, clientDetail.getGrantTypes())
+            && Objects.equals(responseTypeText, clientDetail.getResponseTypes())
+            && Objects.equals(redirectUriText, clientDetail.getRedirectUri());
+    }
+
+    /**
+     * Find the first scope in the request that is not granted to the client
+     *
+     * @param requestScopes The scope parameter in the current HTTP request
+     * @return the unsupported scope, null if all scopes are supported or the client does not limit the scope
+     */
+    public String findUnsupportedScope(String requestScopes) {
+        if (StringUtil.isEmpty(scopeText) || null == requestScopes) {
+            return null;
+        }
+        int length = requestScopes.length();
+        int index = 0;
+        while (index < length) {
+            int start = OauthUtil.skipSeparators(requestScopes, index);
+            index = OauthUtil.tokenEnd(requestScopes, start);
+            if (start < index) {
+                String scope = requestScopes.substring(start, index);
+                int id = ScopeIds.idOf(scope);
+                if (id < 0 || !scopes.get(id)) {
+                    return scope;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether the scope is granted to the client
+     *
+     * @param scope scope code
+     * @return boolean
+     */
+    public boolean supportsScope(String scope) {
+        if (StringUtil.isEmpty(scopeText)) {
+            return true;
+        }
+        int id = ScopeIds.idOf(scope);
+        return id >= 0 && scopes.get(id);
+    }
+
+    /**
+     * Whether the grant type is granted to the client
+     *
+     * @param grantType grant type
+     * @return boolean
+     */
+    public boolean supportsGrantType(String grantType) {
+        GrantType type = null == grantType ? null : GRANT_TYPES.get(grantType);
+        return null != type && grantTypes.contains(type);
+    }
+
+    /**
+     * Whether the client has at least one authorized grant type
+     *
+     * @return boolean
+     */
+    public boolean hasGrantType() {
+        return !grantTypes.isEmpty();
+    }
+
+    /**
+     * Whether the client supports the grant types that use the redirect uri, such as implicit and authorization_code
+     *
+     * @return boolean
+     */
+    public boolean supportsRedirectGrantType() {
+        return grantTypes.contains(GrantType.AUTHORIZATION_CODE) || grantTypes.contains(GrantType.IMPLICIT);
+    }
+
+    /**
+     * Whether the response type is granted to the client, when the client does not limit the response type, all response types are supported
+     *
+     * @param responseType response type
+     * @return boolean
+     */
+    public boolean supportsResponseType(String responseType) {
+        if (StringUtil.isEmpty(responseTypeText)) {
+            return true;
+        }
+        ResponseType type = null == responseType ? null : RESPONSE_TYPES.get(responseType);
+        return null != type && responseTypes.contains(type);
+    }
+
+    /**
+     * Whether the redirect uri is registered by the client
+     *
+     * @param redirectUri redirect uri
+     * @return boolean
+     */
+    public boolean isRegisteredRedirectUri(String redirectUri) {
+        return null != redirectUri && redirectUris.contains(redirectUri);
+    }
+
+    /**
+     * @return The ids of the scopes granted to the client, see {@link ScopeIds}
+     */
+    public BitSet getScopeIds() {
+        return (BitSet) scopes.clone();
+    }
+
+    /**
+     * @return The scopes in client detail, separated by spaces
+     */
+    public String getScopes() {
+        return scopeText;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.ids.exception.IdsException;
+import com.fujieid.jap.ids.model.ClientDetail;
+import org.jose4j.base64url.Base64Url;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The memo of the successful client secret verifications, so that slow secret hashes (such as bcrypt or PBKDF2)
+ * are not recomputed on every token request.
+ * <p>
+ * The memo is keyed by the client id and the HMAC of the presented secret, the HMAC key is generated randomly
+ * when the process starts, so the presented secrets are never kept in memory.
+ * An entry is only valid for the stored secret it was verified against, and expires after
+ * {@code IdsConfig#getClientSecretMemoTtl()}. Modifying the client through {@link com.fujieid.jap.ids.service.IdsClientDetailRegistry}
+ * evicts the entries of the client, otherwise please call {@link #evict(String)}.
+ * When {@value #MAX_CLIENTS} clients or {@value #MAX_SECRETS_PER_CLIENT} secrets of a client are memoized, the expired entries
+ * are purged first, then the entries that expire the earliest are evicted.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class ClientSecretMemo {
+
+    /**
+     * The maximum number of clients whose verifications are memoized
+     */
+    static final int MAX_CLIENTS = 10000;
+    /**
+     * The maximum number of memoized secrets of each client
+     */
+    static final int MAX_SECRETS_PER_CLIENT = 8;
+    /**
+     * The number of clients kept after an eviction, leaves room so that the eviction does not run on every put
+     */
+    private static final int EVICTION_TARGET = MAX_CLIENTS * 9 / 10;
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final byte[] HMAC_KEY = new byte[32];
+    private static final Map<String, Map<String, Entry>> MEMO = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(HMAC_KEY, HMAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IdsException("Unable to initialize the client secret memo: " + e.getMessage());
+        }
+    });
+
+    static {
+        new SecureRandom().nextBytes(HMAC_KEY);
+    }
+
+    private ClientSecretMemo() {
+    }
+
+    /**
+     * Whether the presented secret of the client has been verified and the memo has not expired
+     *
+     * @param clientDetail    client detail
+     * @param presentedSecret The client secret in the current HTTP request
+     * @return boolean
+     */
+    public static boolean isVerified(ClientDetail clientDetail, String presentedSecret) {
+        Map<String, Entry> entries = MEMO.get(clientDetail.getClientId());
+        if (null == entries) {
+            return false;
+        }
+        String key = hmac(presentedSecret);
+        Entry entry = entries.get(key);
+        if (null == entry) {
+            return false;
+        }
+        if (DateUtil.isExpired(entry.expiresAt) || !entry.storedSecret.equals(clientDetail.getClientSecret())) {
+            entries.remove(key, entry);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Memoize the successful verification
+     *
+     * @param clientDetail    client detail
+     * @param presentedSecret The client secret in the current HTTP request
+     * @param ttl             validity period, in milliseconds
+     */
+    public static void put(ClientDetail clientDetail, String presentedSecret, long ttl) {
+        String clientId = clientDetail.getClientId();
+        if (null == clientId || null == clientDetail.getClientSecret() || ttl <= 0) {
+            return;
+        }
+        if (MEMO.size() >= MAX_CLIENTS && !MEMO.containsKey(clientId)) {
+            evictOldestClients();
+        }
+        Map<String, Entry> entries = MEMO.computeIfAbsent(clientId, key -> new ConcurrentHashMap<>(4));
+        String key = hmac(presentedSecret);
+        if (entries.size() >= MAX_SECRETS_PER_CLIENT && !entries.containsKey(key)) {
+            synchronized (entries) {
+                if (entries.size() >= MAX_SECRETS_PER_CLIENT) {
+                    CacheEviction.evictOldest(entries, entry -> entry.expiresAt, MAX_SECRETS_PER_CLIENT - 1);
+                }
+            }
+        }
+        entries.put(key, new Entry(clientDetail.getClientSecret(), DateUtil.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Evict all memoized verifications of the client, it needs to be called after the client is modified
+     *
+     * @param clientId client id
+     */
+    public static void evict(String clientId) {
+        if (null != clientId) {
+            MEMO.remove(clientId);
+        }
+    }
+
+    public static void clear() {
+        MEMO.clear();
+    }
+
+    /**
+     * Purge the expired verifications, then evict the clients whose latest verification expires first
+     */
+    private static void evictOldestClients() {
+        synchronized (MEMO) {
+            if (MEMO.size() >= MAX_CLIENTS) {
+                // Clients without unexpired verifications get Long.MIN_VALUE and are removed as expired
+                CacheEviction.evictOldest(MEMO, entries -> CacheEviction.purgeExpired(entries, entry -> entry.expiresAt), EVICTION_TARGET);
+            }
+        }
+    }
+
+    private static String hmac(String presentedSecret) {
+        return Base64Url.encode(MAC.get().doFinal(presentedSecret.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static class Entry {
+        private final String storedSecret;
+        private final long expiresAt;
+
+        Entry(String storedSecret, long expiresAt) {
+            this.storedSecret = storedSecret;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
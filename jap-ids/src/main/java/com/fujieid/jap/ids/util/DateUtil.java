@@ -15,7 +15,10 @@
  */
 package com.fujieid.jap.ids.util;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 
 /**
@@ -25,6 +28,72 @@ import java.time.ZoneOffset;
  */
 public class DateUtil extends cn.hutool.core.date.DateUtil {
 
+    /**
+     * The clock shared by jap ids when calculating and verifying the expiration time
+     */
+    private static volatile Clock clock = Clock.systemUTC();
+
+    /**
+     * Get the current time of the shared clock
+     *
+     * @return Current time, in epoch milliseconds
+     */
+    public static long currentTimeMillis() {
+        return clock.millis();
+    }
+
+    /**
+     * Replace the shared clock, such as using a fixed clock in unit tests
+     *
+     * @param clock clock
+     */
+    public static void setClock(Clock clock) {
+        DateUtil.clock = null == clock ? Clock.systemUTC() : clock;
+    }
+
+    /**
+     * Calculate the expiration time after {@code expiresIn} seconds from now
+     *
+     * @param expiresIn Validity period, in seconds
+     * @return Expiration time, in epoch milliseconds
+     */
+    public static long expiresAt(long expiresIn) {
+        return currentTimeMillis() + expiresIn * 1000;
+    }
+
+    /**
+     * Determine whether the expiration time has passed
+     *
+     * @param expiresAt Expiration time, in epoch milliseconds
+     * @return boolean
+     */
+    public static boolean isExpired(long expiresAt) {
+        return expiresAt < currentTimeMillis();
+    }
+
+    /**
+     * Convert epoch milliseconds to LocalDateTime in the system default time zone
+     *
+     * @param epochMilli Long type timestamp, in milliseconds
+     * @return java.time.LocalDateTime
+     */
+    public static LocalDateTime ofEpochMilli(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
+    }
+
+    /**
+     * Convert LocalDateTime in the system default time zone to epoch milliseconds
+     *
+     * @param localDateTime java.time.LocalDateTime
+     * @return Long type timestamp, in milliseconds. {@code 0} when {@code localDateTime} is null
+     */
+    public static long toEpochMilli(LocalDateTime localDateTime) {
+        if (null == localDateTime) {
+            return 0;
+        }
+        return localDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
     /**
      * Convert timestamp to LocalDateTime
      *
@@ -46,6 +115,6 @@ public class DateUtil extends cn.hutool.core.date.DateUtil {
      * @return LocalDateTime
      */
     public static LocalDateTime nowDate() {
-        return LocalDateTime.now();
+        return LocalDateTime.now(clock.withZone(ZoneId.systemDefault()));
     }
 }
@@ -15,15 +15,17 @@
  */
 package com.fujieid.jap.ids.util;
 
-import com.fujieid.jap.core.util.RequestUtil;
 import com.fujieid.jap.ids.JapIds;
-import com.fujieid.jap.ids.config.IdsConfig;
+import com.fujieid.jap.ids.config.IdsConfigSnapshot;
+import com.fujieid.jap.ids.context.IdsRequestContext;
 import com.fujieid.jap.ids.exception.IdsException;
 
 import javax.servlet.http.HttpServletRequest;
 
 /**
- * Get the request url of each api of the oauth endpoint
+ * Get the request url of each api of the oauth endpoint.
+ * <p>
+ * The urls are read from the current {@link IdsConfigSnapshot}, they will not be concatenated on each call.
  *
  * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
  * @version 1.0.0
@@ -31,88 +33,80 @@ import javax.servlet.http.HttpServletRequest;
  */
 public class EndpointUtil {
 
-    public static String getIssuer(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        if (config.isEnableDynamicIssuer() && null == request) {
+    /**
+     * Get the endpoint urls of the issuer of the current request
+     *
+     * @param request current HTTP request, it cannot be empty when the dynamic issuer is enabled
+     * @return EndpointUrls
+     */
+    public static IdsConfigSnapshot.EndpointUrls getEndpointUrls(HttpServletRequest request) {
+        IdsConfigSnapshot snapshot = JapIds.getConfigSnapshot();
+        if (!snapshot.isEnableDynamicIssuer()) {
+            return snapshot.getEndpointUrls();
+        }
+        if (null == request) {
             throw new IdsException("The second-level domain name verification has been enabled, the HTTP request cannot be empty");
         }
-        return config.isEnableDynamicIssuer() ? RequestUtil.getFullDomainName(request) : config.getIssuer();
+        return snapshot.getEndpointUrls(IdsRequestContext.of(request).getIssuer());
     }
 
+    public static String getIssuer(HttpServletRequest request) {
+        return getEndpointUrls(request).getIssuer();
+    }
 
     public static String getLoginUrl(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        return getIssuer(request) + config.getLoginUrl();
+        return getEndpointUrls(request).getLoginUrl();
     }
 
     public static String getErrorUrl(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        return getIssuer(request) + config.getErrorUrl();
+        return getEndpointUrls(request).getErrorUrl();
     }
 
     public static String getAuthorizeUrl(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        return getIssuer(request) + config.getAuthorizeUrl();
+        return getEndpointUrls(request).getAuthorizeUrl();
     }
 
     public static String getAuthorizeAutoApproveUrl(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        return getIssuer(request) + config.getAuthorizeAutoApproveUrl();
+        return getEndpointUrls(request).getAuthorizeAutoApproveUrl();
     }
 
     public static String getTokenUrl(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        return getIssuer(request) + config.getTokenUrl();
+        return getEndpointUrls(request).getTokenUrl();
     }
 
     public static String getUserinfoUrl(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        return getIssuer(request) + config.getUserinfoUrl();
+        return getEndpointUrls(request).getUserinfoUrl();
     }
 
     public static String getRegistrationUrl(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        return getIssuer(request) + config.getRegistrationUrl();
+        return getEndpointUrls(request).getRegistrationUrl();
     }
 
     public static String getEndSessionUrl(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        return getIssuer(request) + config.getEndSessionUrl();
+        return getEndpointUrls(request).getEndSessionUrl();
     }
 
     public static String getCheckSessionUrl(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        return getIssuer(request) + config.getCheckSessionUrl();
+        return getEndpointUrls(request).getCheckSessionUrl();
     }
 
     public static String getLogoutRedirectUrl(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        return getIssuer(request) + config.getLogoutRedirectUrl();
+        return getEndpointUrls(request).getLogoutRedirectUrl();
     }
 
     public static String getJwksUrl(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        return getIssuer(request) + config.getJwksUrl();
+        return getEndpointUrls(request).getJwksUrl();
     }
 
     public static String getDiscoveryUrl(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        return getIssuer(request) + config.getDiscoveryUrl();
+        return getEndpointUrls(request).getDiscoveryUrl();
     }
 
     public static String getLoginPageUrl(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        if (config.isExternalLoginPageUrl()) {
-            return config.getLoginPageUrl();
-        }
-        return getIssuer(request) + config.getLoginPageUrl();
+        return getEndpointUrls(request).getLoginPageUrl();
     }
 
     public static String getConfirmPageUrl(HttpServletRequest request) {
-        IdsConfig config = JapIds.getIdsConfig();
-        if (config.isExternalConfirmPageUrl()) {
-            return config.getConfirmPageUrl();
-        }
-        return getIssuer(request) + config.getConfirmPageUrl();
+        return getEndpointUrls(request).getConfirmPageUrl();
     }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.config.ConcurrencyLimitConfig;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The adaptive concurrency limiters of each class of ids endpoints, according to {@code IdsConfig#getConcurrencyLimitConfig()}.
+ * <p>
+ * Each class of endpoints has its own limiter, so a slow user database that backs up the token endpoint
+ * does not starve the discovery and jwks endpoints.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class IdsConcurrencyLimiter {
+
+    private static volatile Limiters limiters;
+
+    private IdsConcurrencyLimiter() {
+    }
+
+    /**
+     * Get the limiter of the endpoint type
+     *
+     * @param endpointType endpoint type
+     * @return AdaptiveConcurrencyLimiter, null when concurrency limiting is disabled
+     */
+    public static AdaptiveConcurrencyLimiter getLimiter(EndpointType endpointType) {
+        ConcurrencyLimitConfig config = JapIds.getIdsConfig().getConcurrencyLimitConfig();
+        if (!config.isEnabled() || null == endpointType) {
+            return null;
+        }
+        Limiters current = limiters;
+        if (null == current || !current.isBuiltFrom(config)) {
+            synchronized (IdsConcurrencyLimiter.class) {
+                current = limiters;
+                if (null == current || !current.isBuiltFrom(config)) {
+                    current = limiters = new Limiters(config);
+                }
+            }
+        }
+        return current.limiters.get(endpointType);
+    }
+
+    /**
+     * The classes of ids endpoints limited separately
+     */
+    public enum EndpointType {
+        /**
+         * token endpoint
+         */
+        TOKEN,
+        /**
+         * authorize, auto-approve authorize and login endpoints
+         */
+        AUTHORIZE,
+        /**
+         * userinfo endpoint
+         */
+        USERINFO,
+        /**
+         * discovery and jwks endpoints
+         */
+        DISCOVERY
+    }
+
+    private static class Limiters {
+        private final ConcurrencyLimitConfig config;
+        private final int initialLimit;
+        private final int minLimit;
+        private final int maxLimit;
+        private final Map<EndpointType, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(EndpointType.class);
+
+        Limiters(ConcurrencyLimitConfig config) {
+            this.config = config;
+            this.initialLimit = config.getInitialLimit();
+            this.minLimit = config.getMinLimit();
+            this.maxLimit = config.getMaxLimit();
+            for (EndpointType endpointType : EndpointType.values()) {
+                limiters.put(endpointType, new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit));
+            }
+        }
+
+        boolean isBuiltFrom(ConcurrencyLimitConfig config) {
+            return this.config == config && initialLimit == config.getInitialLimit()
+                && minLimit == config.getMinLimit() && maxLimit == config.getMaxLimit();
+        }
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.ids.model.IdsJsonResponse;
+import com.xkcoding.json.JsonUtil;
+
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A streaming json writer, the json is encoded as UTF-8 directly into a {@link Utf8Buffer}.
+ * <p>
+ * The field names of the typed responses are declared as {@link Name} constants, which are escaped and encoded only once.
+ * Strings, numbers, booleans, maps, collections and arrays are written directly, other objects are serialized by {@link JsonUtil}.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public final class IdsJsonWriter {
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final Utf8Buffer buffer;
+    /**
+     * Whether the object or array of each level already has an element
+     */
+    private boolean[] hasElement = new boolean[16];
+    private int depth;
+    private boolean afterName;
+
+    public IdsJsonWriter(Utf8Buffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Write the json response to the HTTP response, with the content type and content length
+     *
+     * @param response current HTTP response
+     * @param body     json response
+     * @throws IOException IOException
+     */
+    public static void write(ServletResponse response, IdsJsonResponse body) throws IOException {
+        write(response, body, "application/json;charset=UTF-8");
+    }
+
+    /**
+     * Write the json response to the HTTP response, with the content type and content length
+     *
+     * @param response    current HTTP response
+     * @param body        json response
+     * @param contentType content type
+     * @throws IOException IOException
+     */
+    public static void write(ServletResponse response, IdsJsonResponse body, String contentType) throws IOException {
+        Utf8Buffer buffer = Utf8Buffer.acquire();
+        try {
+            body.writeJson(new IdsJsonWriter(buffer));
+            response.setContentType(contentType);
+            response.setContentLength(buffer.size());
+            OutputStream out;
+            try {
+                out = response.getOutputStream();
+            } catch (IllegalStateException e) {
+                // The writer of the response has been used
+                response.getWriter().write(buffer.toString());
+                return;
+            }
+            buffer.writeTo(out);
+            out.flush();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Write the json response to the output stream
+     *
+     * @param out  output stream
+     * @param body json response
+     * @throws IOException IOException
+     */
+    public static void write(OutputStream out, IdsJsonResponse body) throws IOException {
+        Utf8Buffer buffer = Utf8Buffer.acquire();
+        try {
+            body.writeJson(new IdsJsonWriter(buffer));
+            buffer.writeTo(out);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Serialize the json response as a string
+     *
+     * @param body json response
+     * @return json string
+     */
+    public static String toJsonString(IdsJsonResponse body) {
+        Utf8Buffer buffer = Utf8Buffer.acquire();
+        try {
+            body.writeJson(new IdsJsonWriter(buffer));
+            return buffer.toString();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    public IdsJsonWriter beginObject() {
+        beforeValue();
+        buffer.write((byte) '{');
+        push();
+        return this;
+    }
+
+    public IdsJsonWriter endObject() {
+        depth--;
+        buffer.write((byte) '}');
+        return this;
+    }
+
+    public IdsJsonWriter beginArray() {
+        beforeValue();
+        buffer.write((byte) '[');
+        push();
+        return this;
+    }
+
+    public IdsJsonWriter endArray() {
+        depth--;
+        buffer.write((byte) ']');
+        return this;
+    }
+
+    public IdsJsonWriter name(Name name) {
+        beforeName();
+        buffer.write(name.bytes);
+        afterName = true;
+        return this;
+    }
+
+    public IdsJsonWriter name(String name) {
+        beforeName();
+        writeString(name);
+        buffer.write((byte) ':');
+        afterName = true;
+        return this;
+    }
+
+    public IdsJsonWriter nullValue() {
+        beforeValue();
+        buffer.write(NULL);
+        return this;
+    }
+
+    public IdsJsonWriter value(String value) {
+        if (null == value) {
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    public IdsJsonWriter value(long value) {
+        beforeValue();
+        buffer.write(value);
+        return this;
+    }
+
+    public IdsJsonWriter value(boolean value) {
+        beforeValue();
+        buffer.write(value ? TRUE : FALSE);
+        return this;
+    }
+
+    /**
+     * Write any value, maps, collections and arrays are written recursively
+     *
+     * @param value value
+     * @return IdsJsonWriter
+     */
+    public IdsJsonWriter value(Object value) {
+        if (null == value) {
+            return nullValue();
+        }
+        if (value instanceof CharSequence) {
+            return value(value.toString());
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return value(((Number) value).longValue());
+        }
+        if (value instanceof Number) {
+            beforeValue();
+            buffer.write(value.toString().getBytes(StandardCharsets.US_ASCII));
+            return this;
+        }
+        if (value instanceof Boolean) {
+            return value(((Boolean) value).booleanValue());
+        }
+        if (value instanceof IdsJsonResponse) {
+            ((IdsJsonResponse) value).writeJson(this);
+            return this;
+        }
+        if (value instanceof Map) {
+            beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                name(String.valueOf(entry.getKey())).value(entry.getValue());
+            }
+            return endObject();
+        }
+        if (value instanceof Collection) {
+            beginArray();
+            for (Object element : (Collection<?>) value) {
+                value(element);
+            }
+            return endArray();
+        }
+        if (value instanceof Object[]) {
+            return value(Arrays.asList((Object[]) value));
+        }
+        beforeValue();
+        String json = JsonUtil.toJsonString(value);
+        for (int i = 0; i < json.length(); ) {
+            i += buffer.writeChar(json, i);
+        }
+        return this;
+    }
+
+    /**
+     * Write the field when the value is not null
+     *
+     * @param name  field name
+     * @param value field value
+     * @return IdsJsonWriter
+     */
+    public IdsJsonWriter fieldIfPresent(Name name, String value) {
+        if (null != value) {
+            name(name).value(value);
+        }
+        return this;
+    }
+
+    private void push() {
+        depth++;
+        if (depth == hasElement.length) {
+            hasElement = Arrays.copyOf(hasElement, depth << 1);
+        }
+        hasElement[depth] = false;
+    }
+
+    private void beforeName() {
+        if (hasElement[depth]) {
+            buffer.write((byte) ',');
+        }
+        hasElement[depth] = true;
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            beforeName();
+        }
+    }
+
+    private void writeString(String value) {
+        buffer.write((byte) '"');
+        int length = value.length();
+        for (int i = 0; i < length; ) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer.write((byte) '\\');
+                buffer.write((byte) c);
+                i++;
+            } else if (c < 0x20) {
+                writeControlChar(c);
+                i++;
+            } else {
+                i += buffer.writeChar(value, i);
+            }
+        }
+        buffer.write((byte) '"');
+    }
+
+    private void writeControlChar(char c) {
+        buffer.write((byte) '\\');
+        switch (c) {
+            case '\n':
+                buffer.write((byte) 'n');
+                break;
+            case '\r':
+                buffer.write((byte) 'r');
+                break;
+            case '\t':
+                buffer.write((byte) 't');
+                break;
+            case '\b':
+                buffer.write((byte) 'b');
+                break;
+            case '\f':
+                buffer.write((byte) 'f');
+                break;
+            default:
+                buffer.write((byte) 'u');
+                buffer.write((byte) '0');
+                buffer.write((byte) '0');
+                buffer.write(HEX[c >> 4]);
+                buffer.write(HEX[c & 0xf]);
+        }
+    }
+
+    /**
+     * A pre-encoded field name, including the quotes and the colon
+     */
+    public static final class Name {
+        private final byte[] bytes;
+
+        private Name(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        public static Name of(String name) {
+            Utf8Buffer buffer = new Utf8Buffer();
+            new IdsJsonWriter(buffer).writeString(name);
+            buffer.write((byte) ':');
+            return new Name(buffer.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
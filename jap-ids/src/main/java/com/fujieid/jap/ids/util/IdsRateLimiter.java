@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.core.util.RequestUtil;
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.config.RateLimitConfig;
+import com.fujieid.jap.ids.exception.SlowDownException;
+import com.fujieid.jap.ids.model.IdsConsts;
+import com.xkcoding.json.util.StringUtil;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Limit the requests of the token and login endpoints by the client ip, the client id and the username,
+ * according to {@code IdsConfig#getRateLimitConfig()}.
+ * <p>
+ * It is used by {@link com.fujieid.jap.ids.filter.IdsRateLimitFilter},
+ * and can also be called in {@link com.fujieid.jap.ids.pipeline.IdsPipeline#preHandle}.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class IdsRateLimiter {
+
+    private static volatile Limiters limiters;
+
+    private IdsRateLimiter() {
+    }
+
+    /**
+     * Take a token of the current request from the buckets of the client ip, the client id and the username in turn.
+     * The request that has been rejected does not consume the tokens of the subsequent dimensions,
+     * so the requests rejected by ip do not exhaust the buckets of the usernames they try.
+     *
+     * @param request current HTTP request
+     * @throws SlowDownException when the request exceeds the rate limit
+     */
+    public static void check(HttpServletRequest request) {
+        RateLimitConfig config = JapIds.getIdsConfig().getRateLimitConfig();
+        if (!config.isEnabled()) {
+            return;
+        }
+        Limiters current = getLimiters(config);
+        acquire(current.ip, request.getRemoteAddr());
+        acquire(current.client, ClientCertificateUtil.getClientCertificate(request).getId());
+        acquire(current.username, RequestUtil.getParam(IdsConsts.USERNAME, request));
+    }
+
+    private static void acquire(TokenBucketLimiter limiter, String key) {
+        if (null == limiter || StringUtil.isEmpty(key)) {
+            return;
+        }
+        long waitMillis = limiter.tryAcquire(key);
+        if (waitMillis > 0) {
+            throw new SlowDownException((waitMillis + 999) / 1000);
+        }
+    }
+
+    private static Limiters getLimiters(RateLimitConfig config) {
+        Limiters current = limiters;
+        if (null == current || !current.isBuiltFrom(config)) {
+            synchronized (IdsRateLimiter.class) {
+                current = limiters;
+                if (null == current || !current.isBuiltFrom(config)) {
+                    current = limiters = new Limiters(config);
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * The limiters of each dimension built from the rate limit config, they are rebuilt when the config changes
+     */
+    private static class Limiters {
+        private final RateLimitConfig config;
+        private final double ipPermitsPerSecond;
+        private final int ipBurst;
+        private final double clientPermitsPerSecond;
+        private final int clientBurst;
+        private final double usernamePermitsPerSecond;
+        private final int usernameBurst;
+        private final int hotKeys;
+        private final int buckets;
+        private final TokenBucketLimiter ip;
+        private final TokenBucketLimiter client;
+        private final TokenBucketLimiter username;
+
+        Limiters(RateLimitConfig config) {
+            this.config = config;
+            this.ipPermitsPerSecond = config.getIpPermitsPerSecond();
+            this.ipBurst = config.getIpBurst();
+            this.clientPermitsPerSecond = config.getClientPermitsPerSecond();
+            this.clientBurst = config.getClientBurst();
+            this.usernamePermitsPerSecond = config.getUsernamePermitsPerSecond();
+            this.usernameBurst = config.getUsernameBurst();
+            this.hotKeys = config.getHotKeys();
+            this.buckets = config.getBuckets();
+            this.ip = create(ipPermitsPerSecond, ipBurst, buckets, hotKeys);
+            this.client = create(clientPermitsPerSecond, clientBurst, buckets, hotKeys);
+            this.username = create(usernamePermitsPerSecond, usernameBurst, buckets, hotKeys);
+        }
+
+        boolean isBuiltFrom(RateLimitConfig config) {
+            return this.config == config
+                && ipPermitsPerSecond == config.getIpPermitsPerSecond() && ipBurst == config.getIpBurst()
+                && clientPermitsPerSecond == config.getClientPermitsPerSecond() && clientBurst == config.getClientBurst()
+                && usernamePermitsPerSecond == config.getUsernamePermitsPerSecond() && usernameBurst == config.getUsernameBurst()
+                && hotKeys == config.getHotKeys() && buckets == config.getBuckets();
+        }
+
+        private static TokenBucketLimiter create(double permitsPerSecond, int burst, int buckets, int hotKeys) {
+            if (permitsPerSecond <= 0 || burst <= 0) {
+                return null;
+            }
+            return new TokenBucketLimiter(permitsPerSecond, burst, buckets, hotKeys);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import com.fujieid.jap.ids.exception.InvalidJwksException;
+import com.fujieid.jap.ids.model.enums.TokenSigningAlg;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.PublicJsonWebKey;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A ring of signing keys, which supports rotating the signing key without restarting and without invalidating the issued tokens.
+ * <p>
+ * Each key in the ring is in one of the following states:
+ * <ul>
+ *     <li>{@code NEXT}: The key that will be activated in the next rotation, it has been published in advance so that the relying parties can cache it</li>
+ *     <li>{@code ACTIVE}: The key currently used to sign tokens</li>
+ *     <li>{@code RETIRING}: The key that is no longer used to sign, the tokens signed by it are still accepted within {@code verificationWindow}</li>
+ * </ul>
+ * The keys are looked up by kid in an immutable map, and the published jwks (public only) is rendered once per rotation.
+ * New keys are generated by {@link #initialize()} at setup time ({@link com.fujieid.jap.ids.config.JwtConfig#setKeyRing(JwkKeyRing)}
+ * and {@link #scheduleRotation()} call it) and on the rotation thread, never on the request path.
+ * <p>
+ * Usage:
+ * <pre>
+ * JwkKeyRing keyRing = new JwkKeyRing(TokenSigningAlg.RS256, TimeUnit.DAYS.toMillis(7), TimeUnit.DAYS.toMillis(30))
+ *     // Optional, continue to use the existing keys
+ *     .load(jwksJson, activeKeyId, nextKeyId, retiredAt);
+ * keyRing.scheduleRotation();
+ * new JwtConfig().setKeyRing(keyRing);
+ * </pre>
+ * Note: the keys only exist in the memory of the current node. For multiple nodes or restarts, please save the keys and their states
+ * ({@link #getKeys()} and {@link #getRetiredAt()}) through {@link #setRotationListener(Consumer)}, and load them through
+ * {@link #load(String, String, String, Map)}.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class JwkKeyRing {
+    private static final Log log = LogFactory.get();
+
+    private final TokenSigningAlg signingAlg;
+    private final long rotationPeriod;
+    private final long verificationWindow;
+    private volatile Snapshot snapshot = new Snapshot(null, null, Collections.emptyList());
+    private volatile Consumer<JwkKeyRing> rotationListener;
+    private ScheduledExecutorService rotationScheduler;
+
+    /**
+     * @param signingAlg         The algorithm of the signing keys
+     * @param rotationPeriod     How long a key is used to sign tokens, in milliseconds
+     * @param verificationWindow How long a retired key is still accepted, in milliseconds, should not be less than the longest validity period of the tokens
+     */
+    public JwkKeyRing(TokenSigningAlg signingAlg, long rotationPeriod, long verificationWindow) {
+        this.signingAlg = signingAlg;
+        this.rotationPeriod = rotationPeriod;
+        this.verificationWindow = verificationWindow;
+    }
+
+    /**
+     * Load the existing keys, such as the key in {@link com.fujieid.jap.ids.config.JwtConfig#getJwksJson()}.
+     * The key of {@code activeKeyId} will be used as the active key, and the other keys will be dropped.
+     *
+     * @param jwksJson    The jwks containing the private keys
+     * @param activeKeyId The kid of the active key
+     * @return JwkKeyRing
+     */
+    public JwkKeyRing load(String jwksJson, String activeKeyId) {
+        return this.load(jwksJson, activeKeyId, null, null);
+    }
+
+    /**
+     * Load the existing keys, the keys other than the active key and the next key will be dropped.
+     *
+     * @param jwksJson    The jwks containing the private keys
+     * @param activeKeyId The kid of the active key
+     * @param nextKeyId   The kid of the next key, a new next key is generated by {@link #initialize()} when it is null
+     * @return JwkKeyRing
+     * @see #load(String, String, String, Map)
+     */
+    public JwkKeyRing load(String jwksJson, String activeKeyId, String nextKeyId) {
+        return this.load(jwksJson, activeKeyId, nextKeyId, null);
+    }
+
+    /**
+     * Load the existing keys, such as the keys saved by other nodes or before a restart.
+     * The key of {@code activeKeyId} will be used as the active key, the key of {@code nextKeyId} will be the next key
+     * that has already been published, and the other keys will be retiring since the time saved in {@code retiredAt}.
+     * The keys whose retirement time is unknown or beyond the verification window are dropped.
+     *
+     * @param jwksJson    The jwks containing the private keys
+     * @param activeKeyId The kid of the active key
+     * @param nextKeyId   The kid of the next key, a new next key is generated by {@link #initialize()} when it is null
+     * @param retiredAt   The retirement time of the retiring keys, kid -&gt; epoch milliseconds, see {@link #getRetiredAt()}
+     * @return JwkKeyRing
+     */
+    public synchronized JwkKeyRing load(String jwksJson, String activeKeyId, String nextKeyId, Map<String, Long> retiredAt) {
+        JsonWebKeySet jsonWebKeySet = JwtUtil.IdsVerificationKeyResolver.createJsonWebKeySet(jwksJson);
+        long now = DateUtil.currentTimeMillis();
+        SigningKey active = null;
+        SigningKey next = null;
+        List<SigningKey> retiring = new ArrayList<>();
+        for (JsonWebKey jsonWebKey : jsonWebKeySet.getJsonWebKeys()) {
+            if (!(jsonWebKey instanceof PublicJsonWebKey) || null == jsonWebKey.getKeyId()) {
+                continue;
+            }
+            PublicJsonWebKey key = (PublicJsonWebKey) jsonWebKey;
+            if (key.getKeyId().equals(activeKeyId)) {
+                active = new SigningKey(key, KeyState.ACTIVE, now);
+            } else if (key.getKeyId().equals(nextKeyId)) {
+                next = new SigningKey(key, KeyState.NEXT, now);
+            } else {
+                Long since = null == retiredAt ? null : retiredAt.get(key.getKeyId());
+                if (null == since) {
+                    log.warn("The retirement time of the key {} is unknown, the key is dropped.", key.getKeyId());
+                    continue;
+                }
+                SigningKey retiringKey = new SigningKey(key, KeyState.RETIRING, since);
+                if (!retiringKey.isExpired(now, verificationWindow)) {
+                    retiring.add(retiringKey);
+                }
+            }
+        }
+        if (null == active) {
+            throw new InvalidJwksException("Unable to load the key ring: the active key " + activeKeyId + " does not exist.");
+        }
+        if (null != nextKeyId && null == next) {
+            throw new InvalidJwksException("Unable to load the key ring: the next key " + nextKeyId + " does not exist.");
+        }
+        this.snapshot = new Snapshot(null == next ? snapshot.next : next, active, retiring);
+        return this;
+    }
+
+    /**
+     * Generate the active key and the next key if they do not exist
+     *
+     * @return JwkKeyRing
+     */
+    public synchronized JwkKeyRing initialize() {
+        Snapshot current = snapshot;
+        if (null != current.active && null != current.next) {
+            return this;
+        }
+        long now = DateUtil.currentTimeMillis();
+        SigningKey active = null == current.active ? new SigningKey(this.generateKey(), KeyState.ACTIVE, now) : current.active;
+        SigningKey next = null == current.next ? new SigningKey(this.generateKey(), KeyState.NEXT, now) : current.next;
+        this.snapshot = new Snapshot(next, active, current.retiring);
+        return this;
+    }
+
+    /**
+     * Rotate the keys: the next key becomes active, the active key becomes retiring, a new next key is generated,
+     * and the retiring keys beyond the verification window are removed.
+     */
+    public void rotate() {
+        synchronized (this) {
+            this.initialize();
+            Snapshot current = snapshot;
+            long now = DateUtil.currentTimeMillis();
+            List<SigningKey> retiring = new ArrayList<>(current.retiring.size() + 1);
+            for (SigningKey key : current.retiring) {
+                if (!key.isExpired(now, verificationWindow)) {
+                    retiring.add(key);
+                }
+            }
+            retiring.add(new SigningKey(current.active.jsonWebKey, KeyState.RETIRING, now));
+            SigningKey active = new SigningKey(current.next.jsonWebKey, KeyState.ACTIVE, now);
+            SigningKey next = new SigningKey(this.generateKey(), KeyState.NEXT, now);
+            this.snapshot = new Snapshot(next, active, retiring);
+        }
+        Consumer<JwkKeyRing> listener = rotationListener;
+        if (null != listener) {
+            listener.accept(this);
+        }
+    }
+
+    /**
+     * Rotate the keys periodically on a background thread
+     */
+    public synchronized void scheduleRotation() {
+        this.initialize();
+        JwkPool.warmUp(signingAlg);
+        if (null == rotationScheduler) {
+            rotationScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "JapIds-JwkKeyRing-Rotation");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            rotationScheduler.scheduleAtFixedRate(() -> {
+                try {
+                    this.rotate();
+                } catch (RuntimeException e) {
+                    log.error("Failed to rotate the signing keys.", e);
+                }
+            }, rotationPeriod, rotationPeriod, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop rotating the keys periodically
+     */
+    public synchronized void shutdown() {
+        if (null != rotationScheduler) {
+            rotationScheduler.shutdown();
+            rotationScheduler = null;
+        }
+    }
+
+    /**
+     * Get the key currently used to sign tokens
+     *
+     * @return PublicJsonWebKey
+     */
+    public PublicJsonWebKey getActiveKey() {
+        return this.getInitializedSnapshot().active.jsonWebKey;
+    }
+
+    /**
+     * Get the key that can be used to verify the token
+     *
+     * @param keyId kid in the header of the token
+     * @return PublicJsonWebKey, null if the key does not exist or is beyond the verification window
+     */
+    public PublicJsonWebKey getVerificationKey(String keyId) {
+        if (null == keyId) {
+            return null;
+        }
+        SigningKey key = snapshot.keys.get(keyId);
+        if (null == key || key.isExpired(DateUtil.currentTimeMillis(), verificationWindow)) {
+            return null;
+        }
+        return key.jsonWebKey;
+    }
+
+    /**
+     * Get the published jwks, including the public keys of the next, active and retiring keys
+     *
+     * @return jwks json
+     */
+    public String getJwksJson() {
+        return this.getInitializedSnapshot().jwksJson;
+    }
+
+    /**
+     * Get all keys in the ring, including the private keys, can be used to save the keys
+     *
+     * @return keys
+     */
+    public List<SigningKey> getKeys() {
+        return Collections.unmodifiableList(new ArrayList<>(snapshot.keys.values()));
+    }
+
+    /**
+     * Get the retirement time of the retiring keys, should be saved with the keys and passed to {@link #load(String, String, String, Map)}
+     *
+     * @return kid -&gt; epoch milliseconds
+     */
+    public Map<String, Long> getRetiredAt() {
+        Map<String, Long> retiredAt = new LinkedHashMap<>();
+        for (SigningKey key : snapshot.retiring) {
+            retiredAt.put(key.jsonWebKey.getKeyId(), key.since);
+        }
+        return Collections.unmodifiableMap(retiredAt);
+    }
+
+    public TokenSigningAlg getSigningAlg() {
+        return signingAlg;
+    }
+
+    /**
+     * @param rotationListener Called after each rotation, for example, to save the keys
+     * @return JwkKeyRing
+     */
+    public JwkKeyRing setRotationListener(Consumer<JwkKeyRing> rotationListener) {
+        this.rotationListener = rotationListener;
+        return this;
+    }
+
+    private Snapshot getInitializedSnapshot() {
+        Snapshot current = snapshot;
+        if (null == current.active) {
+            throw new InvalidJwksException("The key ring has not been initialized, please call JwkKeyRing#initialize() or JwkKeyRing#scheduleRotation() at startup.");
+        }
+        return current;
+    }
+
+    private PublicJsonWebKey generateKey() {
+        return JwkUtil.createJsonWebKey(TokenGenerator.generateJti(), signingAlg);
+    }
+
+    public enum KeyState {
+        /**
+         * Published, will be activated in the next rotation
+         */
+        NEXT,
+        /**
+         * Used to sign tokens
+         */
+        ACTIVE,
+        /**
+         * No longer used to sign tokens, still accepted within the verification window
+         */
+        RETIRING
+    }
+
+    public static class SigningKey {
+        private final PublicJsonWebKey jsonWebKey;
+        private final KeyState state;
+        /**
+         * The time when the key entered the current state
+         */
+        private final long since;
+
+        SigningKey(PublicJsonWebKey jsonWebKey, KeyState state, long since) {
+            this.jsonWebKey = jsonWebKey;
+            this.state = state;
+            this.since = since;
+        }
+
+        boolean isExpired(long now, long verificationWindow) {
+            return state == KeyState.RETIRING && now - since > verificationWindow;
+        }
+
+        public PublicJsonWebKey getJsonWebKey() {
+            return jsonWebKey;
+        }
+
+        public KeyState getState() {
+            return state;
+        }
+
+        public long getSince() {
+            return since;
+        }
+    }
+
+    /**
+     * An immutable view of the ring
+     */
+    private static class Snapshot {
+        private final SigningKey next;
+        private final SigningKey active;
+        private final List<SigningKey> retiring;
+        private final Map<String, SigningKey> keys;
+        private final String jwksJson;
+
+        Snapshot(SigningKey next, SigningKey active, List<SigningKey> retiring) {
+            this.next = next;
+            this.active = active;
+            this.retiring = Collections.unmodifiableList(retiring);
+            Map<String, SigningKey> keys = new LinkedHashMap<>();
+            List<JsonWebKey> published = new ArrayList<>();
+            for (SigningKey key : Arrays.asList(next, active)) {
+                if (null != key) {
+                    keys.put(key.jsonWebKey.getKeyId(), key);
+                    published.add(key.jsonWebKey);
+                }
+            }
+            for (SigningKey key : retiring) {
+                keys.putIfAbsent(key.jsonWebKey.getKeyId(), key);
+                published.add(key.jsonWebKey);
+            }
+            this.keys = Collections.unmodifiableMap(keys);
+            this.jwksJson = new JsonWebKeySet(published).toJson(JsonWebKey.OutputControlLevel.PUBLIC_ONLY);
+        }
+    }
+}
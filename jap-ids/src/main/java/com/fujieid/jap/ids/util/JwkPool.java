@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import com.fujieid.jap.ids.exception.InvalidJwksException;
+import com.fujieid.jap.ids.model.enums.TokenSigningAlg;
+import org.jose4j.jwk.EcJwkGenerator;
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
+import org.jose4j.keys.EllipticCurves;
+import org.jose4j.keys.RsaKeyUtil;
+import org.jose4j.lang.JoseException;
+
+import java.security.spec.ECParameterSpec;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A pool of pre-generated key material, generating a 2048-bit RSA key often takes more than 100 ms.
+ * <p>
+ * Each signing algorithm keeps up to {@link #setSize(int)} ready-made keys, which are refilled on a low-priority background thread.
+ * The EC keys are generated on the curve of the algorithm: P-256 for ES256, P-384 for ES384 and P-521 for ES512.
+ * Taking a key never waits for the background thread, when the pool is empty, the key is generated synchronously.
+ * An algorithm is pooled after it is used for the first time or after {@link #warmUp(TokenSigningAlg)}.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class JwkPool {
+    private static final Log log = LogFactory.get();
+
+    private static final int RSA_KEY_SIZE = 2048;
+
+    private static final Map<TokenSigningAlg, Queue<PublicJsonWebKey>> POOLS = new ConcurrentHashMap<>();
+    private static final Map<TokenSigningAlg, AtomicBoolean> REFILLING = new ConcurrentHashMap<>();
+
+    private static volatile int size = 2;
+
+    private JwkPool() {
+    }
+
+    /**
+     * Set the number of keys kept for each signing algorithm, 0 means that the keys are no longer pre-generated
+     *
+     * @param size number of keys
+     */
+    public static void setSize(int size) {
+        JwkPool.size = Math.max(0, size);
+    }
+
+    /**
+     * Pre-generate the keys of the signing algorithm in the background
+     *
+     * @param signingAlg signing algorithm
+     */
+    public static void warmUp(TokenSigningAlg signingAlg) {
+        refill(signingAlg);
+    }
+
+    /**
+     * Take a key of the signing algorithm, the key will never be handed out again
+     *
+     * @param signingAlg signing algorithm
+     * @return RsaJsonWebKey or EllipticCurveJsonWebKey without key id and algorithm
+     */
+    public static PublicJsonWebKey take(TokenSigningAlg signingAlg) {
+        PublicJsonWebKey key = getPool(signingAlg).poll();
+        refill(signingAlg);
+        return null == key ? generate(signingAlg) : key;
+    }
+
+    /**
+     * @param signingAlg signing algorithm
+     * @return The number of ready-made keys of the signing algorithm
+     */
+    public static int available(TokenSigningAlg signingAlg) {
+        return getPool(signingAlg).size();
+    }
+
+    private static Queue<PublicJsonWebKey> getPool(TokenSigningAlg signingAlg) {
+        return POOLS.computeIfAbsent(signingAlg, k -> new ConcurrentLinkedQueue<>());
+    }
+
+    private static void refill(TokenSigningAlg signingAlg) {
+        Queue<PublicJsonWebKey> pool = getPool(signingAlg);
+        if (size <= pool.size()) {
+            return;
+        }
+        AtomicBoolean refilling = REFILLING.computeIfAbsent(signingAlg, k -> new AtomicBoolean());
+        if (!refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Generator.EXECUTOR.execute(() -> {
+                try {
+                    while (pool.size() < size) {
+                        pool.offer(generate(signingAlg));
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Failed to pre-generate the json web key.", e);
+                } finally {
+                    refilling.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refilling.set(false);
+        }
+    }
+
+    private static PublicJsonWebKey generate(TokenSigningAlg signingAlg) {
+        try {
+            if (RsaKeyUtil.RSA.equals(signingAlg.getKeyType())) {
+                return RsaJwkGenerator.generateJwk(RSA_KEY_SIZE);
+            }
+            return EcJwkGenerator.generateJwk(getCurve(signingAlg));
+        } catch (JoseException e) {
+            throw new InvalidJwksException("Unable to create " + signingAlg.getAlg() + " Json Web Key.");
+        }
+    }
+
+    private static ECParameterSpec getCurve(TokenSigningAlg signingAlg) {
+        switch (signingAlg) {
+            case ES384:
+                return EllipticCurves.P384;
+            case ES512:
+                return EllipticCurves.P521;
+            default:
+                return EllipticCurves.P256;
+        }
+    }
+
+    /**
+     * The background thread is created only when the pool is used
+     */
+    private static class Generator {
+        private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "JapIds-JwkPool-Generator");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+}
@@ -18,8 +18,7 @@ package com.fujieid.jap.ids.util;
 import com.fujieid.jap.ids.exception.InvalidJwksException;
 import com.fujieid.jap.ids.model.enums.TokenSigningAlg;
 import org.jose4j.jwk.*;
-import org.jose4j.keys.EllipticCurves;
-import org.jose4j.lang.JoseException;
+import org.jose4j.keys.RsaKeyUtil;
 
 import java.util.Arrays;
 
@@ -32,6 +31,20 @@ import java.util.Arrays;
  */
 public class JwkUtil {
 
+    /**
+     * Create json web key according to the key type of the algorithm
+     *
+     * @param keyId      key id
+     * @param signingAlg Encryption Algorithm
+     * @return RsaJsonWebKey or EllipticCurveJsonWebKey
+     */
+    public static PublicJsonWebKey createJsonWebKey(String keyId, TokenSigningAlg signingAlg) {
+        if (RsaKeyUtil.RSA.equals(signingAlg.getKeyType())) {
+            return createRsaJsonWebKey(keyId, signingAlg);
+        }
+        return createEsJsonWebKey(keyId, signingAlg);
+    }
+
     /**
      * Create rsa json web key
      *
@@ -43,15 +56,10 @@ public class JwkUtil {
         if (!Arrays.asList(TokenSigningAlg.RS256, TokenSigningAlg.RS384, TokenSigningAlg.RS512).contains(signingAlg)) {
             throw new InvalidJwksException("Unable to create RSA Json Web Key. Unsupported jwk algorithm, only supports RS256, RS384, RS512");
         }
-        RsaJsonWebKey jwk = null;
-        try {
-            jwk = RsaJwkGenerator.generateJwk(2048);
-            jwk.setKeyId(keyId);
-            jwk.setAlgorithm(signingAlg.getAlg());
-        } catch (JoseException e) {
-            e.printStackTrace();
-            throw new InvalidJwksException("Unable to create RSA Json Web Key.");
-        }
+        // The key is taken from the pre-generated pool, and generated synchronously when the pool is empty
+        RsaJsonWebKey jwk = (RsaJsonWebKey) JwkPool.take(signingAlg);
+        jwk.setKeyId(keyId);
+        jwk.setAlgorithm(signingAlg.getAlg());
         return jwk;
     }
 
@@ -90,16 +98,10 @@ public class JwkUtil {
         if (!Arrays.asList(TokenSigningAlg.ES256, TokenSigningAlg.ES384, TokenSigningAlg.ES512).contains(signingAlg)) {
             throw new InvalidJwksException("Unable to create ES Json Web Key. Unsupported jwk algorithm, only supports ES256, ES384, ES512");
         }
-        EllipticCurveJsonWebKey jwk = null;
-        try {
-            jwk = EcJwkGenerator.generateJwk(EllipticCurves.P256);
-            jwk.setUse(Use.SIGNATURE);
-            jwk.setKeyId(keyId);
-            jwk.setAlgorithm(signingAlg.getAlg());
-        } catch (JoseException e) {
-            e.printStackTrace();
-            throw new InvalidJwksException("Unable to create ES Json Web Key.");
-        }
+        EllipticCurveJsonWebKey jwk = (EllipticCurveJsonWebKey) JwkPool.take(signingAlg);
+        jwk.setUse(Use.SIGNATURE);
+        jwk.setKeyId(keyId);
+        jwk.setAlgorithm(signingAlg.getAlg());
         return jwk;
     }
 
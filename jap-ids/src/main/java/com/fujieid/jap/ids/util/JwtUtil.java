@@ -18,6 +18,9 @@ package com.fujieid.jap.ids.util;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.log.Log;
 import cn.hutool.log.LogFactory;
+import com.fujieid.jap.core.jfr.JapFlightRecorder;
+import com.fujieid.jap.core.metrics.JapMetrics;
+import com.fujieid.jap.core.metrics.JapMetricsHelper;
 import com.fujieid.jap.ids.JapIds;
 import com.fujieid.jap.ids.config.IdsConfig;
 import com.fujieid.jap.ids.config.JwtConfig;
@@ -42,8 +45,12 @@ import org.jose4j.keys.RsaKeyUtil;
 import org.jose4j.keys.resolvers.HttpsJwksVerificationKeyResolver;
 import org.jose4j.keys.resolvers.JwksVerificationKeyResolver;
 import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.jwx.JsonWebStructure;
 import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UnresolvableKeyException;
 
+import java.security.Key;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -98,9 +105,11 @@ public class JwtUtil {
         // Identify the audience for ID Token. OAuth2's client_ID must be included
         claims.setAudience(clientId);
         // Expiration time. ID Token beyond this time will become invalid and will no longer be authenticated
-        claims.setExpirationTime(NumericDate.fromMilliseconds(System.currentTimeMillis() + (tokenExpireIn * 1000)));
+        claims.setExpirationTime(NumericDate.fromMilliseconds(DateUtil.expiresAt(tokenExpireIn)));
         // JWT build time
-        claims.setIssuedAt(NumericDate.fromMilliseconds(System.currentTimeMillis()));
+        claims.setIssuedAt(NumericDate.fromMilliseconds(DateUtil.currentTimeMillis()));
+        // A unique identifier for the JWT, tokens issued for the same subject within the same second will not be repeated
+        claims.setJwtId(TokenGenerator.generateJti());
 
         // optional
         // The random string provided by the RP when it sends a request is used to mitigate replay attacks, and the ID Token can also be associated with the RP's own Session
@@ -123,7 +132,10 @@ public class JwtUtil {
         if (null == jwtConfig) {
             throw new InvalidJwksException("Unable to create Jwt Token: jwt config cannot be empty.");
         }
-        PublicJsonWebKey publicJsonWebKey = IdsVerificationKeyResolver.createPublicJsonWebKey(jwtConfig.getJwksKeyId(), jwtConfig.getJwksJson(), jwtConfig.getTokenSigningAlg());
+        JwkKeyRing keyRing = jwtConfig.getKeyRing();
+        PublicJsonWebKey publicJsonWebKey = null == keyRing
+            ? IdsVerificationKeyResolver.createPublicJsonWebKey(jwtConfig.getJwksKeyId(), jwtConfig.getJwksJson(), jwtConfig.getTokenSigningAlg())
+            : keyRing.getActiveKey();
         if (null == publicJsonWebKey) {
             throw new InvalidJwksException("Unable to create Jwt Token: Unable to create public json web key.");
         }
@@ -136,20 +148,27 @@ public class JwtUtil {
         jws.setKeyIdHeaderValue(publicJsonWebKey.getKeyId());
 
         // Set the signature algorithm on the JWT/JWS that will integrity protect the claims
-        jws.setAlgorithmHeaderValue(jwtConfig.getTokenSigningAlg().getAlg());
+        jws.setAlgorithmHeaderValue((null == keyRing ? jwtConfig.getTokenSigningAlg() : keyRing.getSigningAlg()).getAlg());
 
         String idToken = null;
+        String signingAlg = jws.getAlgorithmHeaderValue();
 
         // Sign the JWS and produce the compact serialization or the complete JWT/JWS
         // representation, which is a string consisting of three dot ('.') separated
         // base64url-encoded parts in the form Header.Payload.Signature
         // If you wanted to encrypt it, you can simply set this jwt as the payload
         // of a JsonWebEncryption object and set the cty (Content Type) header to "jwt".
+        long start = JapMetricsHelper.startTimer();
+        Object event = JapFlightRecorder.beginJwtSign();
         try {
             idToken = jws.getCompactSerialization();
         } catch (JoseException e) {
             throw new IdsTokenException("Unable to create Jwt Token: " + e.getMessage());
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.JWT_SIGN, signingAlg, start);
+            JapFlightRecorder.commitJwtSign(event, clientId, signingAlg);
         }
+        JapMetricsHelper.recordValue(JapMetrics.JWT_SIZE, signingAlg, idToken.length());
 
         return idToken;
     }
@@ -206,29 +225,45 @@ public class JwtUtil {
     }
 
     public static Map<String, Object> parseJwtToken(String jwtToken) {
+        String tokenHash = null == jwtToken ? null : TokenUtil.hash(jwtToken);
+        Map<String, Object> cachedClaims = ValidatedTokenCache.getClaims(tokenHash);
+        if (null != cachedClaims) {
+            return cachedClaims;
+        }
+        long epoch = ValidatedTokenCache.epoch();
         JwtConfig jwtConfig = JapIds.getContext().getIdentityService().getJwtConfig(null);
         if (null == jwtConfig) {
             throw new InvalidJwksException("Unable to parse Jwt Token: jwt config cannot be empty.");
         }
 
-        PublicJsonWebKey publicJsonWebKey = IdsVerificationKeyResolver.createPublicJsonWebKey(jwtConfig.getJwksKeyId(), jwtConfig.getJwksJson(), jwtConfig.getTokenSigningAlg());
-        if (null == publicJsonWebKey) {
-            throw new InvalidJwksException("Unable to parse Jwt Token: Unable to create public json web key.");
-        }
-        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+        JwtConsumerBuilder jwtConsumerBuilder = new JwtConsumerBuilder()
             .setSkipDefaultAudienceValidation()
             // whom the JWT needs to have been issued by
             // allow some leeway in validating time based claims to account for clock skew
-            .setAllowedClockSkewInSeconds(30)
+            .setAllowedClockSkewInSeconds(30);
+        if (null == jwtConfig.getKeyRing()) {
+            PublicJsonWebKey publicJsonWebKey = IdsVerificationKeyResolver.createPublicJsonWebKey(jwtConfig.getJwksKeyId(), jwtConfig.getJwksJson(), jwtConfig.getTokenSigningAlg());
+            if (null == publicJsonWebKey) {
+                throw new InvalidJwksException("Unable to parse Jwt Token: Unable to create public json web key.");
+            }
             // verify the signature with the public key
-            .setVerificationKey(publicJsonWebKey.getPublicKey())
-            // create the JwtConsumer instance
-            .build();
+            jwtConsumerBuilder.setVerificationKey(publicJsonWebKey.getPublicKey());
+        } else {
+            // verify the signature with the key of the kid in the key ring
+            jwtConsumerBuilder.setVerificationKeyResolver(new KeyRingVerificationKeyResolver(jwtConfig.getKeyRing()));
+        }
+        // create the JwtConsumer instance
+        JwtConsumer jwtConsumer = jwtConsumerBuilder.build();
 
+        long start = JapMetricsHelper.startTimer();
+        Object event = JapFlightRecorder.beginJwtVerify();
         try {
             //  Validate the JWT and process it to the Claims
             JwtClaims jwtClaims = jwtConsumer.processToClaims(jwtToken);
-            return jwtClaims.getClaimsMap();
+            // The claims are shared by the subsequent requests with the same token
+            Map<String, Object> claims = Collections.unmodifiableMap(jwtClaims.getClaimsMap());
+            ValidatedTokenCache.putClaims(tokenHash, claims, epoch);
+            return claims;
 
         } catch (InvalidJwtException e) {
             // InvalidJwtException will be thrown, if the JWT failed processing or validation in anyway.
@@ -238,6 +273,9 @@ public class JwtUtil {
                 throw new InvalidTokenException(ErrorResponse.EXPIRED_TOKEN);
             }
             throw new InvalidTokenException(ErrorResponse.INVALID_TOKEN);
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.JWT_VERIFY, "parse", start);
+            JapFlightRecorder.commitJwtVerify(event, null, "parse");
         }
     }
 
@@ -273,9 +311,16 @@ public class JwtUtil {
             }
         }
 
-        PublicJsonWebKey publicJsonWebKey = IdsVerificationKeyResolver.createPublicJsonWebKey(jwtConfig.getJwksKeyId(), jwtConfig.getJwksJson(), jwtConfig.getTokenSigningAlg());
-        if (null == publicJsonWebKey) {
-            throw new InvalidJwksException("Unable to verify Jwt Token: Unable to create public json web key.");
+        if (null == jwtConfig.getKeyRing()) {
+            PublicJsonWebKey publicJsonWebKey = IdsVerificationKeyResolver.createPublicJsonWebKey(jwtConfig.getJwksKeyId(), jwtConfig.getJwksJson(), jwtConfig.getTokenSigningAlg());
+            if (null == publicJsonWebKey) {
+                throw new InvalidJwksException("Unable to verify Jwt Token: Unable to create public json web key.");
+            }
+            // verify the signature with the public key
+            jwtConsumerBuilder.setVerificationKey(publicJsonWebKey.getPublicKey());
+        } else {
+            // verify the signature with the key of the kid in the key ring
+            jwtConsumerBuilder.setVerificationKeyResolver(new KeyRingVerificationKeyResolver(jwtConfig.getKeyRing()));
         }
         JwtConsumer jwtConsumer = jwtConsumerBuilder
             .setRequireIssuedAt()
@@ -290,11 +335,11 @@ public class JwtUtil {
             .setExpectedAudience(clientId)
             // allow some leeway in validating time based claims to account for clock skew
             .setAllowedClockSkewInSeconds(30)
-            // verify the signature with the public key
-            .setVerificationKey(publicJsonWebKey.getPublicKey())
             // create the JwtConsumer instance
             .build();
 
+        long start = JapMetricsHelper.startTimer();
+        Object event = JapFlightRecorder.beginJwtVerify();
         try {
             //  Validate the JWT and process it to the Claims
             JwtClaims jwtClaims = jwtConsumer.processToClaims(jwtToken);
@@ -319,6 +364,29 @@ public class JwtUtil {
             }
 
             throw new InvalidTokenException(ErrorResponse.INVALID_TOKEN);
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.JWT_VERIFY, "validate", start);
+            JapFlightRecorder.commitJwtVerify(event, clientId, "validate");
+        }
+    }
+
+    /**
+     * Find the verification key from the key ring through the kid in the header of the token
+     */
+    public static class KeyRingVerificationKeyResolver implements VerificationKeyResolver {
+        private final JwkKeyRing keyRing;
+
+        public KeyRingVerificationKeyResolver(JwkKeyRing keyRing) {
+            this.keyRing = keyRing;
+        }
+
+        @Override
+        public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException {
+            PublicJsonWebKey publicJsonWebKey = keyRing.getVerificationKey(jws.getKeyIdHeaderValue());
+            if (null == publicJsonWebKey) {
+                throw new UnresolvableKeyException("Unable to find the verification key of kid: " + jws.getKeyIdHeaderValue());
+            }
+            return publicJsonWebKey.getPublicKey();
         }
     }
 
@@ -20,6 +20,9 @@ import cn.hutool.core.util.ArrayUtil;
 import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.URLUtil;
 import cn.hutool.crypto.SecureUtil;
+import com.fujieid.jap.core.event.JapEventBus;
+import com.fujieid.jap.core.event.JapEventType;
+import com.fujieid.jap.ids.JapIds;
 import com.fujieid.jap.ids.exception.*;
 import com.fujieid.jap.ids.model.ClientDetail;
 import com.fujieid.jap.ids.model.IdsConsts;
@@ -40,8 +43,6 @@ import java.util.*;
  * @since 1.0.0
  */
 public class OauthUtil {
-    private static final Collection<String> REDIRECT_GRANT_TYPES = Arrays.asList("implicit", "authorization_code");
-
     /**
      * Convert string to list
      *
@@ -65,7 +66,71 @@ public class OauthUtil {
      * @return List of strings (de-duplicated)
      */
     public static Set<String> convertStrToList(String text) {
-        return convertStrToList(text, "[\\s+]");
+        Set<String> result = new TreeSet<>();
+        if (text != null) {
+            int length = text.length();
+            int index = 0;
+            while (index < length) {
+                int start = skipSeparators(text, index);
+                index = tokenEnd(text, start);
+                if (start < index) {
+                    result.add(text.substring(start, index));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether the character separates the values in a string such as scope, equivalent to the regular expression {@code [\s+]}
+     */
+    private static boolean isSeparator(char c) {
+        return c == '+' || Character.isWhitespace(c);
+    }
+
+    /**
+     * @return the index of the first non-separator character starting from {@code from}
+     */
+    static int skipSeparators(String text, int from) {
+        int index = from;
+        while (index < text.length() && isSeparator(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * @return the index of the first separator character starting from {@code from}
+     */
+    static int tokenEnd(String text, int from) {
+        int index = from;
+        while (index < text.length() && !isSeparator(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Whether the string separated by spaces contains the value, no collection will be created
+     *
+     * @param text  The string separated by spaces, such as scope
+     * @param value The value to be found
+     * @return boolean
+     */
+    public static boolean containsValue(String text, String value) {
+        if (null == text || null == value) {
+            return false;
+        }
+        int length = text.length();
+        int index = 0;
+        while (index < length) {
+            int start = skipSeparators(text, index);
+            index = tokenEnd(text, start);
+            if (index - start == value.length() && text.regionMatches(start, value, 0, value.length())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -92,20 +157,21 @@ public class OauthUtil {
         return scopes;
     }
 
-
     /**
-     * Determine whether the current grant type supports redirect uri
+     * Verify the scope through the pre-compiled {@link ClientPolicy}
      *
-     * @param grantTypes some grant types
-     * @return true if the supplied grant types includes one or more of the redirect types
+     * @param requestScopes The scope parameter in the current HTTP request
+     * @param clientDetail  client detail
      */
-    private static boolean containsRedirectGrantType(Set<String> grantTypes) {
-        for (String type : grantTypes) {
-            if (REDIRECT_GRANT_TYPES.contains(type)) {
-                return true;
-            }
+    public static void validateScope(String requestScopes, ClientDetail clientDetail) {
+        if (StringUtil.isEmpty(requestScopes)) {
+            throw new InvalidScopeException(ErrorResponse.INVALID_SCOPE);
+        }
+        ClientPolicy policy = ClientPolicy.of(clientDetail);
+        String unsupportedScope = policy.findUnsupportedScope(requestScopes);
+        if (null != unsupportedScope) {
+            throw new InvalidScopeException("Invalid scope: " + unsupportedScope + ". Only the following scopes are supported: " + policy.getScopes());
         }
-        return false;
     }
 
     /**
@@ -115,17 +181,15 @@ public class OauthUtil {
      * @param clientDetail       client detail
      */
     public static void validateRedirectUri(String requestRedirectUri, ClientDetail clientDetail) {
-        String clientGrantTypes = clientDetail.getGrantTypes();
-        Set<String> clientGrantTypeSet = OauthUtil.convertStrToList(clientGrantTypes);
-        if (clientGrantTypeSet.isEmpty()) {
+        ClientPolicy policy = ClientPolicy.of(clientDetail);
+        if (!policy.hasGrantType()) {
             throw new InvalidGrantException("A client must have at least one authorized grant type.");
         }
-        if (!containsRedirectGrantType(clientGrantTypeSet)) {
+        if (!policy.supportsRedirectGrantType()) {
             throw new InvalidGrantException(
                 "A redirect_uri can only be used by implicit or authorization_code grant types.");
         }
-        String clientRedirectUri = clientDetail.getRedirectUri();
-        if (requestRedirectUri == null || !requestRedirectUri.equals(clientRedirectUri)) {
+        if (!policy.isRegisteredRedirectUri(requestRedirectUri)) {
             throw new InvalidRedirectUriException(ErrorResponse.INVALID_REDIRECT_URI);
         }
     }
@@ -146,17 +210,41 @@ public class OauthUtil {
             if (param.isEnablePkce()) {
                 oauth2Service.validateAuthrizationCodeChallenge(param.getCodeVerifier(), param.getCode());
             } else {
-                if (StringUtil.isEmpty(param.getClientSecret()) || !clientDetail.getClientSecret().equals(param.getClientSecret())) {
+                if (!isValidSecret(clientDetail, param.getClientSecret())) {
                     throw new InvalidClientException(ErrorResponse.INVALID_CLIENT);
                 }
             }
         } else {
-            if (StringUtil.isEmpty(param.getClientSecret()) || !clientDetail.getClientSecret().equals(param.getClientSecret())) {
+            if (!isValidSecret(clientDetail, param.getClientSecret())) {
                 throw new InvalidClientException(ErrorResponse.INVALID_CLIENT);
             }
         }
     }
 
+    /**
+     * Verify the client secret through {@link com.fujieid.jap.ids.service.ClientSecretVerifier},
+     * the successful verifications are memoized by {@link ClientSecretMemo}
+     *
+     * @param clientDetail client detail
+     * @param clientSecret The client secret in the current HTTP request
+     * @return boolean
+     */
+    private static boolean isValidSecret(ClientDetail clientDetail, String clientSecret) {
+        if (StringUtil.isEmpty(clientSecret) || StringUtil.isEmpty(clientDetail.getClientSecret())) {
+            return false;
+        }
+        if (ClientSecretMemo.isVerified(clientDetail, clientSecret)) {
+            return true;
+        }
+        boolean valid = JapIds.getContext().getClientSecretVerifier().verify(clientSecret, clientDetail.getClientSecret());
+        if (valid) {
+            ClientSecretMemo.put(clientDetail, clientSecret, JapIds.getIdsConfig().getClientSecretMemoTtl() * 1000);
+        } else {
+            JapEventBus.getDefault().publish(JapEventType.CLIENT_SECRET_FAILURE, null, clientDetail.getClientId(), null);
+        }
+        return valid;
+    }
+
     /**
      * Verify the response type
      *
@@ -170,6 +258,18 @@ public class OauthUtil {
         }
     }
 
+    /**
+     * Verify the response type through the pre-compiled {@link ClientPolicy}
+     *
+     * @param requestResponseType The response type in the current HTTP request
+     * @param clientDetail        client detail
+     */
+    public static void validateResponseType(String requestResponseType, ClientDetail clientDetail) {
+        if (!ClientPolicy.of(clientDetail).supportsResponseType(requestResponseType)) {
+            throw new UnsupportedResponseTypeException(ErrorResponse.UNSUPPORTED_RESPONSE_TYPE);
+        }
+    }
+
     /**
      * Verify the grant type
      *
@@ -187,6 +287,22 @@ public class OauthUtil {
         }
     }
 
+    /**
+     * Verify the grant type through the pre-compiled {@link ClientPolicy}
+     *
+     * @param requestGrantType The grant type in the current HTTP request
+     * @param clientDetail     client detail
+     * @param equalTo          {@code requestGrantType} Must match grant type value
+     */
+    public static void validateGrantType(String requestGrantType, ClientDetail clientDetail, GrantType equalTo) {
+        if (StringUtil.isEmpty(requestGrantType) || !ClientPolicy.of(clientDetail).supportsGrantType(requestGrantType)) {
+            throw new UnsupportedGrantTypeException(ErrorResponse.UNSUPPORTED_GRANT_TYPE);
+        }
+        if (null != equalTo && !requestGrantType.equals(equalTo.getType())) {
+            throw new UnsupportedGrantTypeException(ErrorResponse.UNSUPPORTED_GRANT_TYPE);
+        }
+    }
+
     public static void validClientDetail(ClientDetail clientDetail) {
         if (clientDetail == null) {
             throw new InvalidClientException(ErrorResponse.INVALID_CLIENT);
@@ -243,8 +359,7 @@ public class OauthUtil {
      * @return long
      */
     public static LocalDateTime getAccessTokenExpiresAt(Long expiresIn) {
-        expiresIn = getAccessTokenExpiresIn(expiresIn);
-        return DateUtil.ofEpochSecond(System.currentTimeMillis() + expiresIn * 1000, null);
+        return DateUtil.ofEpochMilli(DateUtil.expiresAt(getAccessTokenExpiresIn(expiresIn)));
     }
 
     /**
@@ -254,8 +369,7 @@ public class OauthUtil {
      * @return long
      */
     public static LocalDateTime getRefreshTokenExpiresAt(Long expiresIn) {
-        expiresIn = getRefreshTokenExpiresIn(expiresIn);
-        return DateUtil.ofEpochSecond(System.currentTimeMillis() + expiresIn * 1000, null);
+        return DateUtil.ofEpochMilli(DateUtil.expiresAt(getRefreshTokenExpiresIn(expiresIn)));
     }
 
     /**
@@ -265,8 +379,7 @@ public class OauthUtil {
      * @return long
      */
     public static LocalDateTime getCodeExpiresAt(Long expiresIn) {
-        expiresIn = getCodeExpiresIn(expiresIn);
-        return DateUtil.ofEpochSecond(System.currentTimeMillis() + expiresIn * 1000, null);
+        return DateUtil.ofEpochMilli(DateUtil.expiresAt(getCodeExpiresIn(expiresIn)));
     }
 
     /**
@@ -276,8 +389,7 @@ public class OauthUtil {
      * @return long
      */
     public static LocalDateTime getIdTokenExpiresAt(Long expiresIn) {
-        expiresIn = getIdTokenExpiresIn(expiresIn);
-        return DateUtil.ofEpochSecond(System.currentTimeMillis() + expiresIn * 1000, null);
+        return DateUtil.ofEpochMilli(DateUtil.expiresAt(getIdTokenExpiresIn(expiresIn)));
     }
 
     /**
@@ -339,8 +451,7 @@ public class OauthUtil {
     }
 
     public static boolean isOidcProtocol(String scopes) {
-        Set<String> scopeList = OauthUtil.convertStrToList(scopes);
-        return scopeList.contains("openid");
+        return containsValue(scopes, "openid");
     }
 
     /**
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assign a stable small integer id to each scope code, so that a group of scopes can be expressed as a {@link java.util.BitSet}.
+ * <p>
+ * Only the scopes configured by the system or the client will be interned,
+ * the scope passed in the HTTP request is only queried through {@link #idOf(String)}, otherwise the ids would grow without limit.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class ScopeIds {
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] codes = new String[0];
+
+    private ScopeIds() {
+    }
+
+    /**
+     * Get the id of the scope code, assign a new id if the scope code has not been interned
+     *
+     * @param code scope code
+     * @return id of the scope code
+     */
+    public static int intern(String code) {
+        Integer id = IDS.get(code);
+        if (null != id) {
+            return id;
+        }
+        synchronized (IDS) {
+            id = IDS.get(code);
+            if (null != id) {
+                return id;
+            }
+            String[] newCodes = Arrays.copyOf(codes, codes.length + 1);
+            newCodes[codes.length] = code;
+            // Publish the code before the id, so that every visible id can be resolved
+            codes = newCodes;
+            IDS.put(code, codes.length - 1);
+            return codes.length - 1;
+        }
+    }
+
+    /**
+     * Get the id of the scope code
+     *
+     * @param code scope code
+     * @return id of the scope code, -1 if the scope code has not been interned
+     */
+    public static int idOf(String code) {
+        Integer id = IDS.get(code);
+        return null == id ? -1 : id;
+    }
+
+    /**
+     * Convert the scopes separated by spaces to the ids of the scope codes, the scope codes that have not been interned are ignored
+     *
+     * @param scopes The scopes separated by spaces, such as the scope parameter in the current HTTP request
+     * @return The ids of the scope codes
+     */
+    public static BitSet parse(String scopes) {
+        BitSet ids = new BitSet();
+        if (null == scopes) {
+            return ids;
+        }
+        int length = scopes.length();
+        int index = 0;
+        while (index < length) {
+            int start = OauthUtil.skipSeparators(scopes, index);
+            index = OauthUtil.tokenEnd(scopes, start);
+            if (start < index) {
+                int id = idOf(scopes.substring(start, index));
+                if (id >= 0) {
+                    ids.set(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Get the scope code of the id
+     *
+     * @param id id of the scope code
+     * @return scope code
+     */
+    public static String codeOf(int id) {
+        return codes[id];
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A token-bucket rate limiter with a bounded amount of memory.
+ * <p>
+ * Each key is limited by its own exact bucket, the exact buckets are kept in a map bounded by {@code hotKeys}.
+ * When the map is full, the buckets holding at least half of the burst are swept out: such a bucket has seen
+ * few requests recently, dropping it only gives its key a few more tokens, while the drained buckets of the
+ * abusive keys are kept. So a flood of many distinct keys never leaves the legitimate keys without a bucket.
+ * <p>
+ * Only the keys that find no room in the map (the long tail, when the map is full of drained buckets)
+ * are limited by the approximate buckets kept in fixed-size arrays: each key is hashed into two buckets
+ * with random seeds (like a count-min sketch), and a request is permitted only when both buckets have tokens.
+ * The approximate buckets are guarded by a fixed number of striped locks.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class TokenBucketLimiter {
+
+    /**
+     * The default maximum number of keys with an exact bucket
+     */
+    public static final int DEFAULT_HOT_KEYS = 4096;
+
+    private static final int STRIPES = 64;
+    private static final SecureRandom SEED_RANDOM = new SecureRandom();
+
+    private final double permitsPerMillis;
+    private final int burst;
+    private final int mask;
+    private final double[] tokens;
+    /**
+     * The last time the bucket was refilled, 0 means the bucket is full
+     */
+    private final long[] refilledAt;
+    private final Object[] locks = new Object[STRIPES];
+    private final int seed1 = SEED_RANDOM.nextInt();
+    private final int seed2 = SEED_RANDOM.nextInt();
+    private final int hotKeys;
+    private final Map<String, Bucket> hotBuckets = new ConcurrentHashMap<>();
+    /**
+     * When the last sweep could not free any room, the next sweep is not attempted before this time
+     */
+    private volatile long nextSweepAt;
+
+    /**
+     * @param permitsPerSecond The rate at which the tokens are added to each bucket
+     * @param burst            The capacity of each bucket, that is, the maximum number of requests permitted at once
+     * @param buckets          The number of approximate buckets, rounded up to a power of 2
+     */
+    public TokenBucketLimiter(double permitsPerSecond, int burst, int buckets) {
+        this(permitsPerSecond, burst, buckets, DEFAULT_HOT_KEYS);
+    }
+
+    /**
+     * @param permitsPerSecond The rate at which the tokens are added to each bucket
+     * @param burst            The capacity of each bucket, that is, the maximum number of requests permitted at once
+     * @param buckets          The number of approximate buckets, rounded up to a power of 2
+     * @param hotKeys          The maximum number of keys with an exact bucket, 0 means all keys use the approximate buckets
+     */
+    public TokenBucketLimiter(double permitsPerSecond, int burst, int buckets, int hotKeys) {
+        if (permitsPerSecond <= 0 || burst <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("The rate, burst and buckets of the limiter must be greater than 0");
+        }
+        if (hotKeys < 0) {
+            throw new IllegalArgumentException("The hot keys of the limiter must not be less than 0");
+        }
+        this.hotKeys = hotKeys;
+        int size = 1;
+        while (size < buckets && size < (1 << 30)) {
+            size <<= 1;
+        }
+        this.permitsPerMillis = permitsPerSecond / 1000;
+        this.burst = burst;
+        this.mask = size - 1;
+        this.tokens = new double[size];
+        this.refilledAt = new long[size];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Try to take a token for the key
+     *
+     * @param key The key to be limited, such as client id, username or ip
+     * @return 0 when the request is permitted, otherwise the number of milliseconds until a token is available
+     */
+    public long tryAcquire(String key) {
+        long now = DateUtil.currentTimeMillis();
+        Bucket bucket = getHotBucket(key, now);
+        if (null != bucket) {
+            return bucket.tryAcquire(now);
+        }
+        return tryAcquireApproximate(key, now);
+    }
+
+    /**
+     * Get the exact bucket of the key, a new bucket is created when there is room in the map
+     *
+     * @return null when the map is full of drained buckets
+     */
+    private Bucket getHotBucket(String key, long now) {
+        Bucket bucket = hotBuckets.get(key);
+        if (null != bucket || 0 == hotKeys) {
+            return bucket;
+        }
+        if (hotBuckets.size() >= hotKeys && !sweep(now)) {
+            return null;
+        }
+        return hotBuckets.computeIfAbsent(key, k -> new Bucket());
+    }
+
+    /**
+     * Remove the exact buckets holding at least half of the burst
+     *
+     * @return true if there is room for a new bucket
+     */
+    private boolean sweep(long now) {
+        if (now < nextSweepAt) {
+            return false;
+        }
+        synchronized (hotBuckets) {
+            if (hotBuckets.size() < hotKeys) {
+                return true;
+            }
+            Iterator<Bucket> iterator = hotBuckets.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().available(now) * 2 >= burst) {
+                    iterator.remove();
+                }
+            }
+            if (hotBuckets.size() < hotKeys) {
+                return true;
+            }
+            // All buckets are drained, retry when half of the burst may have been refilled
+            nextSweepAt = now + Math.max(1, (long) Math.ceil(burst / 2.0 / permitsPerMillis));
+            return false;
+        }
+    }
+
+    private long tryAcquireApproximate(String key, long now) {
+        int first = index(key, seed1);
+        int second = index(key, seed2);
+        // Always lock the stripes in the same order, the monitors are reentrant when both buckets are in one stripe
+        int firstStripe = first & (STRIPES - 1);
+        int secondStripe = second & (STRIPES - 1);
+        Object outer = locks[Math.min(firstStripe, secondStripe)];
+        Object inner = locks[Math.max(firstStripe, secondStripe)];
+        synchronized (outer) {
+            synchronized (inner) {
+                double available = Math.min(refill(first, now), refill(second, now));
+                if (available >= 1) {
+                    tokens[first] -= 1;
+                    if (second != first) {
+                        tokens[second] -= 1;
+                    }
+                    return 0;
+                }
+                return waitMillis(available);
+            }
+        }
+    }
+
+    private double refill(int index, long now) {
+        long last = refilledAt[index];
+        double current = 0 == last ? burst : Math.min(burst, tokens[index] + Math.max(0, now - last) * permitsPerMillis);
+        tokens[index] = current;
+        refilledAt[index] = now;
+        return current;
+    }
+
+    private long waitMillis(double available) {
+        return Math.max(1, (long) Math.ceil((1 - available) / permitsPerMillis));
+    }
+
+    private int index(String key, int seed) {
+        int h = seed;
+        for (int i = 0, length = key.length(); i < length; i++) {
+            h = (h ^ key.charAt(i)) * 0x5bd1e995;
+            h ^= h >>> 15;
+        }
+        h ^= h >>> 13;
+        h *= 0x5bd1e995;
+        h ^= h >>> 15;
+        return h & mask;
+    }
+
+    /**
+     * The exact bucket of a hot key
+     */
+    private class Bucket {
+        private double tokens = burst;
+        private long refilledAt = DateUtil.currentTimeMillis();
+
+        synchronized long tryAcquire(long now) {
+            double available = available(now);
+            if (available >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return waitMillis(available);
+        }
+
+        synchronized double available(long now) {
+            tokens = Math.min(burst, tokens + Math.max(0, now - refilledAt) * permitsPerMillis);
+            refilledAt = Math.max(refilledAt, now);
+            return tokens;
+        }
+    }
+}
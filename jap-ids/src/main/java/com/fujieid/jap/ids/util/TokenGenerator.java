@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import java.security.SecureRandom;
+
+/**
+ * Generate random tokens, such as authorization code, refresh token, opaque access token and jwt id.
+ * <p>
+ * Each thread holds its own {@link SecureRandom} and a buffer of random bytes, the buffer is refilled in batches,
+ * and the random bytes are directly encoded as base64url (without padding).
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class TokenGenerator {
+
+    /**
+     * 128 bits
+     */
+    private static final int SHORT_TOKEN_BYTES = 16;
+    /**
+     * 256 bits
+     */
+    private static final int LONG_TOKEN_BYTES = 32;
+    /**
+     * The size of the random byte buffer held by each thread
+     */
+    private static final int BUFFER_SIZE = 1024;
+
+    private static final char[] BASE64_URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    private static final ThreadLocal<RandomBuffer> RANDOM_BUFFER = ThreadLocal.withInitial(RandomBuffer::new);
+
+    private TokenGenerator() {
+    }
+
+    /**
+     * Generate authorization code, 128 bits
+     *
+     * @return authorization code
+     */
+    public static String generateCode() {
+        return generate(SHORT_TOKEN_BYTES);
+    }
+
+    /**
+     * Generate refresh token, 256 bits
+     *
+     * @return refresh token
+     */
+    public static String generateRefreshToken() {
+        return generate(LONG_TOKEN_BYTES);
+    }
+
+    /**
+     * Generate opaque access token, 256 bits
+     *
+     * @return opaque token
+     */
+    public static String generateOpaqueToken() {
+        return generate(LONG_TOKEN_BYTES);
+    }
+
+    /**
+     * Generate the unique identifier of the jwt token ({@code jti}) or other records, 128 bits
+     *
+     * @return jwt id
+     */
+    public static String generateJti() {
+        return generate(SHORT_TOKEN_BYTES);
+    }
+
+    /**
+     * Generate a random token of the specified number of bytes
+     *
+     * @param numBytes Number of random bytes
+     * @return base64url encoded token without padding
+     */
+    public static String generate(int numBytes) {
+        if (numBytes <= 0 || numBytes > BUFFER_SIZE) {
+            throw new IllegalArgumentException("The number of bytes must be between 1 and " + BUFFER_SIZE);
+        }
+        return RANDOM_BUFFER.get().nextToken(numBytes);
+    }
+
+    private static class RandomBuffer {
+        private final SecureRandom random = new SecureRandom();
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position = BUFFER_SIZE;
+
+        String nextToken(int numBytes) {
+            if (position + numBytes > BUFFER_SIZE) {
+                random.nextBytes(buffer);
+                position = 0;
+            }
+            char[] chars = new char[(numBytes * 4 + 2) / 3];
+            int end = position + numBytes;
+            int i = position;
+            int j = 0;
+            for (; i + 3 <= end; i += 3) {
+                int bits = (buffer[i] & 0xff) << 16 | (buffer[i + 1] & 0xff) << 8 | (buffer[i + 2] & 0xff);
+                chars[j++] = BASE64_URL[bits >>> 18];
+                chars[j++] = BASE64_URL[(bits >>> 12) & 0x3f];
+                chars[j++] = BASE64_URL[(bits >>> 6) & 0x3f];
+                chars[j++] = BASE64_URL[bits & 0x3f];
+            }
+            int remaining = end - i;
+            if (remaining == 1) {
+                int bits = buffer[i] & 0xff;
+                chars[j++] = BASE64_URL[bits >>> 2];
+                chars[j] = BASE64_URL[(bits << 4) & 0x3f];
+            } else if (remaining == 2) {
+                int bits = (buffer[i] & 0xff) << 8 | (buffer[i + 1] & 0xff);
+                chars[j++] = BASE64_URL[bits >>> 10];
+                chars[j++] = BASE64_URL[(bits >>> 4) & 0x3f];
+                chars[j] = BASE64_URL[(bits << 2) & 0x3f];
+            }
+            // Consumed random bytes will never be reused
+            for (int k = position; k < end; k++) {
+                buffer[k] = 0;
+            }
+            position = end;
+            return new String(chars);
+        }
+    }
+}
@@ -17,18 +17,24 @@ package com.fujieid.jap.ids.util;
 
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.crypto.SecureUtil;
+import com.fujieid.jap.core.cache.JapCache;
+import com.fujieid.jap.core.event.JapEventBus;
+import com.fujieid.jap.core.event.JapEventType;
+import com.fujieid.jap.core.jfr.JapFlightRecorder;
 import com.fujieid.jap.core.util.RequestUtil;
 import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.exception.InvalidGrantException;
 import com.fujieid.jap.ids.exception.InvalidTokenException;
 import com.fujieid.jap.ids.model.*;
 import com.fujieid.jap.ids.model.enums.ErrorResponse;
+import com.fujieid.jap.ids.model.enums.GrantType;
 import com.fujieid.jap.ids.model.enums.TokenAuthMethod;
 import com.xkcoding.json.util.StringUtil;
 
 import javax.servlet.http.HttpServletRequest;
-import java.time.LocalDateTime;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
@@ -37,6 +43,22 @@ import java.util.List;
  */
 public class TokenUtil {
 
+    /**
+     * Striped locks, rotating the refresh token of the same token family is mutually exclusive
+     */
+    private static final Object[] FAMILY_LOCKS = new Object[64];
+
+    static {
+        for (int i = 0; i < FAMILY_LOCKS.length; i++) {
+            FAMILY_LOCKS[i] = new Object();
+        }
+    }
+
+    /**
+     * The sources of the access token compiled from {@code IdsConfig#getTokenAuthMethods()}
+     */
+    private static volatile TokenSources tokenSources;
+
     /**
      * Get access token from request
      *
@@ -44,38 +66,26 @@ public class TokenUtil {
      * @return String
      */
     public static String getAccessToken(HttpServletRequest request) {
-        List<TokenAuthMethod> tokenAuthMethods = JapIds.getIdsConfig().getTokenAuthMethods();
-        if (ObjectUtil.isEmpty(tokenAuthMethods)) {
-            tokenAuthMethods = Collections.singletonList(TokenAuthMethod.ALL);
-        }
-        if (tokenAuthMethods.contains(TokenAuthMethod.ALL)) {
-            String accessToken = getAccessTokenFromUrl(request);
-            if (StringUtil.isEmpty(accessToken)) {
-                accessToken = getAccessTokenFromHeader(request);
-                if (StringUtil.isEmpty(accessToken)) {
-                    accessToken = getAccessTokenFromCookie(request);
-                }
-            }
-            return accessToken;
-        } else {
-            if (tokenAuthMethods.contains(TokenAuthMethod.TOKEN_URL)) {
-                String accessToken = getAccessTokenFromUrl(request);
-                if (accessToken != null) {
-                    return accessToken;
-                }
-            }
-            if (tokenAuthMethods.contains(TokenAuthMethod.TOKEN_HEADER)) {
-                String accessToken = getAccessTokenFromHeader(request);
-                if (accessToken != null) {
-                    return accessToken;
-                }
-            }
-            if (tokenAuthMethods.contains(TokenAuthMethod.TOKEN_COOKIE)) {
-                return getAccessTokenFromCookie(request);
-            }
+        TokenSources sources = getTokenSources(JapIds.getIdsConfig().getTokenAuthMethods());
+        String accessToken = null;
+        if (sources.url) {
+            accessToken = getAccessTokenFromUrl(request);
         }
+        if (sources.header && StringUtil.isEmpty(accessToken)) {
+            accessToken = getAccessTokenFromHeader(request);
+        }
+        if (sources.cookie && StringUtil.isEmpty(accessToken)) {
+            accessToken = getAccessTokenFromCookie(request);
+        }
+        return accessToken;
+    }
 
-        return null;
+    private static TokenSources getTokenSources(List<TokenAuthMethod> tokenAuthMethods) {
+        TokenSources sources = tokenSources;
+        if (null == sources || !sources.isBuiltFrom(tokenAuthMethods)) {
+            sources = tokenSources = new TokenSources(tokenAuthMethods);
+        }
+        return sources;
     }
 
     private static String getAccessTokenFromUrl(HttpServletRequest request) {
@@ -106,15 +116,17 @@ public class TokenUtil {
     }
 
     public static AccessToken createAccessToken(UserInfo user, ClientDetail clientDetail, String grantType, String scope, String nonce, String issuer) {
+        Object event = JapFlightRecorder.beginTokenIssued();
         String clientId = clientDetail.getClientId();
 
         long accessTokenExpiresIn = OauthUtil.getAccessTokenExpiresIn(clientDetail.getAccessTokenExpiresIn());
-        long refreshTokenExpiresIn = OauthUtil.getAccessTokenExpiresIn(clientDetail.getRefreshTokenExpiresIn());
+        long refreshTokenExpiresIn = OauthUtil.getRefreshTokenExpiresIn(clientDetail.getRefreshTokenExpiresIn());
 
         String accessTokenStr = JwtUtil.createJwtToken(clientId, user, accessTokenExpiresIn, nonce, issuer);
-        String refreshTokenStr = SecureUtil.sha256(clientId.concat(scope).concat(System.currentTimeMillis() + ""));
+        String refreshTokenStr = TokenGenerator.generateRefreshToken();
 
         AccessToken accessToken = new AccessToken();
+        accessToken.setFamilyId(TokenGenerator.generateJti());
         accessToken.setAccessToken(accessTokenStr);
         accessToken.setRefreshToken(refreshTokenStr);
         accessToken.setGrantType(grantType);
@@ -128,30 +140,75 @@ public class TokenUtil {
         accessToken.setRefreshTokenExpiresIn(refreshTokenExpiresIn);
         accessToken.setAccessTokenExpiresIn(accessTokenExpiresIn);
 
-        accessToken.setAccessTokenExpiration(OauthUtil.getAccessTokenExpiresAt(accessTokenExpiresIn));
-        accessToken.setRefreshTokenExpiration(OauthUtil.getRefreshTokenExpiresAt(refreshTokenExpiresIn));
+        accessToken.setAccessTokenExpiresAt(DateUtil.expiresAt(accessTokenExpiresIn));
+        accessToken.setRefreshTokenExpiresAt(DateUtil.expiresAt(refreshTokenExpiresIn));
 
-        String token = IdsConsts.OAUTH_ACCESS_TOKEN_CACHE_KEY + accessTokenStr;
-        String rtoken = IdsConsts.OAUTH_REFRESH_TOKEN_CACHE_KEY + refreshTokenStr;
-        JapIds.getContext().getCache().set(token, accessToken, accessTokenExpiresIn * 1000);
-        JapIds.getContext().getCache().set(rtoken, accessToken, refreshTokenExpiresIn * 1000);
+        saveGrant(accessToken);
+        JapEventBus.getDefault().publish(JapEventType.TOKEN_ISSUED, accessToken.getUserId(), clientId, grantType);
+        JapFlightRecorder.commitTokenIssued(event, clientId, grantType);
         return accessToken;
     }
 
+    /**
+     * Refresh the access token and rotate the refresh token.
+     * <p>
+     * The refresh token carried by {@code accessToken} is the one presented by the client. It can only be used once:
+     * if it is no longer the current refresh token of its token family (it has already been rotated),
+     * the whole token family will be revoked.
+     *
+     * @param user         User info
+     * @param clientDetail Client detail
+     * @param accessToken  The grant record obtained through the refresh token presented by the client
+     * @param nonce        Random string
+     * @param issuer       The issuer name
+     * @return The new grant record, with the new access token and the new refresh token
+     */
     public static AccessToken refreshAccessToken(UserInfo user, ClientDetail clientDetail, AccessToken accessToken, String nonce, String issuer) {
-        String rawToken = accessToken.getAccessToken();
-        String accessTokenStr = JwtUtil.createJwtToken(clientDetail.getClientId(), user, clientDetail.getAccessTokenExpiresIn(), nonce, issuer);
-        accessToken.setAccessToken(accessTokenStr);
-        accessToken.setAccessTokenExpiresIn(clientDetail.getAccessTokenExpiresIn());
-
-        accessToken.setAccessTokenExpiration(OauthUtil.getAccessTokenExpiresAt(clientDetail.getAccessTokenExpiresIn()));
-
-        String tokenCacheKey = IdsConsts.OAUTH_ACCESS_TOKEN_CACHE_KEY + accessTokenStr;
-        JapIds.getContext().getCache().set(tokenCacheKey, accessTokenStr, clientDetail.getAccessTokenExpiresIn() * 1000);
+        Object event = JapFlightRecorder.beginTokenIssued();
+        String familyId = accessToken.getFamilyId();
+        String presentedRefreshToken = accessToken.getRefreshToken();
+
+        synchronized (getFamilyLock(familyId)) {
+            AccessToken current = getGrant(familyId);
+            if (null == current) {
+                throw new InvalidTokenException(ErrorResponse.INVALID_TOKEN);
+            }
+            if (!current.getRefreshToken().equals(presentedRefreshToken)) {
+                // The refresh token has been used, it may have been leaked
+                revokeFamily(current);
+                throw new InvalidGrantException(ErrorResponse.INVALID_GRANT);
+            }
 
-        String rawTokenCacheKey = IdsConsts.OAUTH_ACCESS_TOKEN_CACHE_KEY + rawToken;
-        JapIds.getContext().getCache().removeKey(rawTokenCacheKey);
-        return accessToken;
+            long accessTokenExpiresIn = OauthUtil.getAccessTokenExpiresIn(clientDetail.getAccessTokenExpiresIn());
+            long refreshTokenExpiresIn = OauthUtil.getRefreshTokenExpiresIn(clientDetail.getRefreshTokenExpiresIn());
+
+            String accessTokenStr = JwtUtil.createJwtToken(clientDetail.getClientId(), user, accessTokenExpiresIn, nonce, issuer);
+            String refreshTokenStr = TokenGenerator.generateRefreshToken();
+
+            // Never modify the stored record in place, the local cache shares the same instance with other threads
+            AccessToken rotated = new AccessToken()
+                .setFamilyId(familyId)
+                .setAccessToken(accessTokenStr)
+                .setRefreshToken(refreshTokenStr)
+                .setUserId(current.getUserId())
+                .setUserName(current.getUserName())
+                .setGrantType(current.getGrantType())
+                .setScope(current.getScope())
+                .setClientId(current.getClientId())
+                .setAccessTokenExpiresIn(accessTokenExpiresIn)
+                .setRefreshTokenExpiresIn(refreshTokenExpiresIn)
+                .setAccessTokenExpiresAt(DateUtil.expiresAt(accessTokenExpiresIn))
+                .setRefreshTokenExpiresAt(DateUtil.expiresAt(refreshTokenExpiresIn));
+
+            // The index of the used refresh token is retained until it expires, which is used for reuse detection
+            String currentTokenHash = hash(current.getAccessToken());
+            JapIds.getContext().getCache().removeKey(IdsConsts.OAUTH_ACCESS_TOKEN_CACHE_KEY + currentTokenHash);
+            ValidatedTokenCache.evict(currentTokenHash);
+            saveGrant(rotated);
+            JapEventBus.getDefault().publish(JapEventType.TOKEN_REFRESHED, rotated.getUserId(), rotated.getClientId(), rotated.getGrantType());
+            JapFlightRecorder.commitTokenIssued(event, rotated.getClientId(), GrantType.REFRESH_TOKEN.getType());
+            return rotated;
+        }
     }
 
     public static AccessToken createClientCredentialsAccessToken(ClientDetail clientDetail, String grantType, String scope, String nonce, String issuer) {
@@ -163,10 +220,7 @@ public class TokenUtil {
         String accessTokenStr = TokenUtil.getAccessToken(request);
         AccessToken accessToken = TokenUtil.getByAccessToken(accessTokenStr);
         if (null != accessToken) {
-            String token = IdsConsts.OAUTH_ACCESS_TOKEN_CACHE_KEY + accessTokenStr;
-            String rtoken = IdsConsts.OAUTH_REFRESH_TOKEN_CACHE_KEY + accessToken.getRefreshToken();
-            JapIds.getContext().getCache().removeKey(token);
-            JapIds.getContext().getCache().removeKey(rtoken);
+            revokeFamily(accessToken);
         }
     }
 
@@ -178,9 +232,7 @@ public class TokenUtil {
             throw new InvalidTokenException(ErrorResponse.INVALID_TOKEN);
         }
 
-        LocalDateTime nowDateTime = DateUtil.nowDate();
-
-        if (token.getAccessTokenExpiration().isBefore(nowDateTime)) {
+        if (DateUtil.isExpired(token.getAccessTokenExpiresAt())) {
             throw new InvalidTokenException(ErrorResponse.EXPIRED_TOKEN);
         }
 
@@ -194,9 +246,7 @@ public class TokenUtil {
             throw new InvalidTokenException(ErrorResponse.INVALID_TOKEN);
         }
 
-        LocalDateTime nowDateTime = DateUtil.nowDate();
-
-        if (token.getRefreshTokenExpiration().isBefore(nowDateTime)) {
+        if (DateUtil.isExpired(token.getRefreshTokenExpiresAt())) {
             throw new InvalidTokenException(ErrorResponse.EXPIRED_TOKEN);
         }
     }
@@ -206,15 +256,121 @@ public class TokenUtil {
             return null;
         }
         accessToken = BearerToken.parse(accessToken);
-        String token = IdsConsts.OAUTH_ACCESS_TOKEN_CACHE_KEY + accessToken;
-        return (AccessToken) JapIds.getContext().getCache().get(token);
+        String tokenHash = hash(accessToken);
+        AccessToken token = ValidatedTokenCache.getGrant(tokenHash);
+        if (null != token) {
+            return token;
+        }
+        long epoch = ValidatedTokenCache.epoch();
+        token = getGrantByIndex(IdsConsts.OAUTH_ACCESS_TOKEN_CACHE_KEY + tokenHash);
+        // The access token that has been replaced by refreshing is no longer valid
+        if (null == token || !accessToken.equals(token.getAccessToken())) {
+            return null;
+        }
+        ValidatedTokenCache.putGrant(tokenHash, token, epoch);
+        return token;
     }
 
+    /**
+     * Get the grant record through the refresh token.
+     * <p>
+     * When a refresh token that has already been rotated is presented again, the refresh token may have been leaked,
+     * so the whole token family will be revoked.
+     *
+     * @param refreshToken refresh token
+     * @return AccessToken
+     */
     public static AccessToken getByRefreshToken(String refreshToken) {
         if (null == refreshToken) {
             return null;
         }
-        String token = IdsConsts.OAUTH_REFRESH_TOKEN_CACHE_KEY + refreshToken;
-        return (AccessToken) JapIds.getContext().getCache().get(token);
+        AccessToken token = getGrantByIndex(IdsConsts.OAUTH_REFRESH_TOKEN_CACHE_KEY + hash(refreshToken));
+        if (null == token) {
+            return null;
+        }
+        if (!refreshToken.equals(token.getRefreshToken())) {
+            revokeFamily(token);
+            return null;
+        }
+        return token;
+    }
+
+    /**
+     * Save the grant record, and index it by the hash of access token and refresh token.
+     * The grant record is stored only once, the index only stores the family id.
+     *
+     * @param accessToken grant record
+     */
+    private static void saveGrant(AccessToken accessToken) {
+        JapCache cache = JapIds.getContext().getCache();
+        String familyId = accessToken.getFamilyId();
+        long accessTokenTimeout = accessToken.getAccessTokenExpiresIn() * 1000;
+        long refreshTokenTimeout = accessToken.getRefreshTokenExpiresIn() * 1000;
+
+        cache.set(IdsConsts.OAUTH_GRANT_CACHE_KEY + familyId, accessToken, Math.max(accessTokenTimeout, refreshTokenTimeout));
+        cache.set(IdsConsts.OAUTH_ACCESS_TOKEN_CACHE_KEY + hash(accessToken.getAccessToken()), familyId, accessTokenTimeout);
+        cache.set(IdsConsts.OAUTH_REFRESH_TOKEN_CACHE_KEY + hash(accessToken.getRefreshToken()), familyId, refreshTokenTimeout);
+    }
+
+    private static AccessToken getGrant(String familyId) {
+        if (null == familyId) {
+            return null;
+        }
+        return (AccessToken) JapIds.getContext().getCache().get(IdsConsts.OAUTH_GRANT_CACHE_KEY + familyId);
+    }
+
+    private static AccessToken getGrantByIndex(String indexKey) {
+        return getGrant((String) JapIds.getContext().getCache().get(indexKey));
+    }
+
+    /**
+     * Revoke all tokens of the token family
+     *
+     * @param accessToken grant record
+     */
+    private static void revokeFamily(AccessToken accessToken) {
+        JapCache cache = JapIds.getContext().getCache();
+        String accessTokenHash = hash(accessToken.getAccessToken());
+        cache.removeKey(IdsConsts.OAUTH_GRANT_CACHE_KEY + accessToken.getFamilyId());
+        cache.removeKey(IdsConsts.OAUTH_ACCESS_TOKEN_CACHE_KEY + accessTokenHash);
+        cache.removeKey(IdsConsts.OAUTH_REFRESH_TOKEN_CACHE_KEY + hash(accessToken.getRefreshToken()));
+        ValidatedTokenCache.evict(accessTokenHash);
+        JapEventBus.getDefault().publish(JapEventType.TOKEN_REVOKED, accessToken.getUserId(), accessToken.getClientId(), accessToken.getGrantType());
+    }
+
+    private static Object getFamilyLock(String familyId) {
+        return FAMILY_LOCKS[(familyId.hashCode() & 0x7fffffff) % FAMILY_LOCKS.length];
+    }
+
+    /**
+     * @return the sha256 of the token, which is used as the key of the token index and {@link ValidatedTokenCache}
+     */
+    static String hash(String token) {
+        return SecureUtil.sha256(token);
+    }
+
+    /**
+     * The token auth methods resolved into the sources to be checked, in the order of url, header and cookie
+     */
+    private static class TokenSources {
+        /**
+         * A copy of the configured list, so that the list modified in place is also detected
+         */
+        private final List<TokenAuthMethod> tokenAuthMethods;
+        private final boolean url;
+        private final boolean header;
+        private final boolean cookie;
+
+        TokenSources(List<TokenAuthMethod> tokenAuthMethods) {
+            this.tokenAuthMethods = null == tokenAuthMethods ? null : new ArrayList<>(tokenAuthMethods);
+            boolean all = ObjectUtil.isEmpty(tokenAuthMethods) || tokenAuthMethods.contains(TokenAuthMethod.ALL);
+            this.url = all || tokenAuthMethods.contains(TokenAuthMethod.TOKEN_URL);
+            this.header = all || tokenAuthMethods.contains(TokenAuthMethod.TOKEN_HEADER);
+            this.cookie = all || tokenAuthMethods.contains(TokenAuthMethod.TOKEN_COOKIE);
+        }
+
+        boolean isBuiltFrom(List<TokenAuthMethod> tokenAuthMethods) {
+            return Objects.equals(this.tokenAuthMethods, tokenAuthMethods);
+        }
     }
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.ids.oidc.OidcDocument;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The cache of the rendered userinfo responses, keyed by the user id and the bitmask of the granted scopes
+ * (see {@link com.fujieid.jap.ids.model.enums.ScopeClaimsMapping#maskOf(java.util.Set)}).
+ * <p>
+ * The responses expire after {@code IdsConfig#getUserinfoCacheTtl()}. When the information of a user is modified,
+ * please call {@link #evict(String)} so that the next userinfo request returns the latest information.
+ * Each eviction advances the eviction epoch: a response that was loaded before an eviction and put after it is dropped again,
+ * so the information loaded before the modification can never be re-cached by a concurrent request.
+ * When {@value #MAX_USERS} users are cached, the expired responses are purged first, then the users whose responses
+ * were cached the earliest are evicted until the cache is back under the limit.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class UserInfoCache {
+
+    /**
+     * The maximum number of users whose responses are cached
+     */
+    static final int MAX_USERS = 10000;
+    /**
+     * The number of users kept after an eviction, leaves room so that the eviction does not run on every put
+     */
+    private static final int EVICTION_TARGET = MAX_USERS * 9 / 10;
+
+    private static final Map<String, Map<Integer, Entry>> CACHE = new ConcurrentHashMap<>();
+    private static final AtomicLong EPOCH = new AtomicLong();
+
+    private UserInfoCache() {
+    }
+
+    /**
+     * Get the current eviction epoch, it must be read before the user to be cached is loaded
+     *
+     * @return the number of evictions so far
+     */
+    public static long epoch() {
+        return EPOCH.get();
+    }
+
+    /**
+     * Get the unexpired userinfo response
+     *
+     * @param userId    user id
+     * @param scopeMask bitmask of the granted scopes
+     * @return OidcDocument, null when the response is not cached or has expired
+     */
+    public static OidcDocument get(String userId, int scopeMask) {
+        Map<Integer, Entry> entries = CACHE.get(userId);
+        if (null == entries) {
+            return null;
+        }
+        Entry entry = entries.get(scopeMask);
+        if (null == entry) {
+            return null;
+        }
+        if (DateUtil.isExpired(entry.expiresAt)) {
+            entries.remove(scopeMask, entry);
+            return null;
+        }
+        return entry.document;
+    }
+
+    /**
+     * Cache the userinfo response
+     *
+     * @param userId    user id
+     * @param scopeMask bitmask of the granted scopes
+     * @param document  rendered userinfo response
+     * @param ttl       validity period, in milliseconds
+     * @param epoch     the eviction epoch read before the user was loaded
+     */
+    public static void put(String userId, int scopeMask, OidcDocument document, long ttl, long epoch) {
+        if (null == userId || ttl <= 0) {
+            return;
+        }
+        if (CACHE.size() >= MAX_USERS && !CACHE.containsKey(userId)) {
+            evictOldest();
+        }
+        Map<Integer, Entry> entries = CACHE.computeIfAbsent(userId, key -> new ConcurrentHashMap<>(4));
+        Entry entry = new Entry(document, DateUtil.currentTimeMillis() + ttl);
+        entries.put(scopeMask, entry);
+        // The user was modified between the lookup and the put, the response may be stale
+        if (EPOCH.get() != epoch) {
+            entries.remove(scopeMask, entry);
+        }
+    }
+
+    /**
+     * Evict all cached responses of the user, it needs to be called after the user is modified
+     *
+     * @param userId user id
+     */
+    public static void evict(String userId) {
+        if (null != userId) {
+            // Advance the epoch before removing, so that a concurrent put that has missed the removal sees the new epoch
+            EPOCH.incrementAndGet();
+            CACHE.remove(userId);
+        }
+    }
+
+    public static void clear() {
+        EPOCH.incrementAndGet();
+        CACHE.clear();
+    }
+
+    /**
+     * Purge the expired responses, then evict the users whose latest response expires first
+     */
+    private static void evictOldest() {
+        synchronized (CACHE) {
+            if (CACHE.size() >= MAX_USERS) {
+                // Users without unexpired responses get Long.MIN_VALUE and are removed as expired
+                CacheEviction.evictOldest(CACHE, entries -> CacheEviction.purgeExpired(entries, entry -> entry.expiresAt), EVICTION_TARGET);
+            }
+        }
+    }
+
+    private static class Entry {
+        private final OidcDocument document;
+        private final long expiresAt;
+
+        Entry(OidcDocument document, long expiresAt) {
+            this.document = document;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
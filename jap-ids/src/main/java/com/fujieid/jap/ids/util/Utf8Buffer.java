@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer that encodes chars as UTF-8 without creating intermediate strings or byte arrays.
+ * <p>
+ * Each thread can reuse one buffer through {@link #acquire()} and {@link #release()}, when the buffer of the current thread
+ * is in use (such as rendering nested content), a new buffer is returned.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public final class Utf8Buffer {
+
+    /**
+     * The buffer larger than 64kb will not be kept by the thread after release
+     */
+    private static final int MAX_RETAINED_SIZE = 64 * 1024;
+    private static final int INITIAL_SIZE = 4096;
+    private static final ThreadLocal<Utf8Buffer> THREAD_BUFFER = ThreadLocal.withInitial(Utf8Buffer::new);
+
+    private byte[] bytes = new byte[INITIAL_SIZE];
+    private int size;
+    private boolean inUse;
+
+    /**
+     * Get the buffer of the current thread, it must be released by {@link #release()} after use
+     *
+     * @return empty Utf8Buffer
+     */
+    public static Utf8Buffer acquire() {
+        Utf8Buffer buffer = THREAD_BUFFER.get();
+        if (buffer.inUse) {
+            return new Utf8Buffer();
+        }
+        buffer.inUse = true;
+        return buffer;
+    }
+
+    /**
+     * Return the buffer to the current thread
+     */
+    public void release() {
+        this.size = 0;
+        this.inUse = false;
+        if (bytes.length > MAX_RETAINED_SIZE) {
+            this.bytes = new byte[INITIAL_SIZE];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void write(byte b) {
+        ensureCapacity(1);
+        bytes[size++] = b;
+    }
+
+    public void write(byte[] src) {
+        ensureCapacity(src.length);
+        System.arraycopy(src, 0, bytes, size, src.length);
+        size += src.length;
+    }
+
+    /**
+     * Write the decimal representation of the number
+     *
+     * @param value number
+     */
+    public void write(long value) {
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            bytes[size++] = '-';
+            value = -value;
+        }
+        int start = size;
+        do {
+            bytes[size++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (int i = start, j = size - 1; i < j; i++, j--) {
+            byte tmp = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = tmp;
+        }
+    }
+
+    /**
+     * Encode the char at {@code index} as UTF-8, a surrogate pair is encoded as one code point
+     *
+     * @param value The chars
+     * @param index The index of the char
+     * @return The number of chars consumed, 1 or 2
+     */
+    public int writeChar(CharSequence value, int index) {
+        char c = value.charAt(index);
+        ensureCapacity(4);
+        if (c < 0x80) {
+            bytes[size++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[size++] = (byte) (0xc0 | (c >> 6));
+            bytes[size++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isSurrogate(c)) {
+            if (Character.isHighSurrogate(c) && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+                bytes[size++] = (byte) (0xf0 | (codePoint >> 18));
+                bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                bytes[size++] = (byte) (0x80 | (codePoint & 0x3f));
+                return 2;
+            }
+            // Unpaired surrogate, consistent with String.getBytes(UTF_8)
+            bytes[size++] = '?';
+        } else {
+            bytes[size++] = (byte) (0xe0 | (c >> 12));
+            bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            bytes[size++] = (byte) (0x80 | (c & 0x3f));
+        }
+        return 1;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, size, StandardCharsets.UTF_8);
+    }
+
+    private void ensureCapacity(int length) {
+        if (size + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, size + length));
+        }
+    }
+}
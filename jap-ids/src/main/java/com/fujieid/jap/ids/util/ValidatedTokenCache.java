@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2020-2040, 北京符节科技有限公司 (support@fujieid.com & https://www.fujieid.com).
+ * <p>
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.gnu.org/licenses/lgpl.html
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.model.AccessToken;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The in-process cache of the validated tokens, so that repeated requests with the same token
+ * do not look up the grant record in {@link com.fujieid.jap.core.cache.JapCache} or verify the jwt signature again.
+ * <p>
+ * The grant records and the jwt claims are keyed by the sha256 of the token computed in {@link TokenUtil}, so that
+ * the raw tokens are never retained in the heap. An entry never lives longer than the token itself or
+ * {@code IdsConfig#getValidatedTokenCacheTtl()}. Revoking or rotating tokens through {@link TokenUtil} evicts
+ * the corresponding entries and advances the revocation epoch: an entry that was loaded before a revocation
+ * and put after it is dropped again, so a revoked token can never be re-cached by a concurrent lookup.
+ *
+ * @author yadong.zhang (yadong.zhang0415(a)gmail.com)
+ * @version 1.0.0
+ * @since 1.0.2
+ */
+public class ValidatedTokenCache {
+
+    /**
+     * The maximum number of cached tokens of each kind. When the limit is reached, the expired entries are purged first,
+     * then the entries that expire the earliest are evicted until the cache is back under the limit
+     */
+    static final int MAX_TOKENS = 10000;
+    /**
+     * The number of tokens kept after an eviction, leaves room so that the eviction does not run on every put
+     */
+    private static final int EVICTION_TARGET = MAX_TOKENS * 9 / 10;
+
+    private static final Map<String, Entry<AccessToken>> GRANTS = new ConcurrentHashMap<>();
+    private static final Map<String, Entry<Map<String, Object>>> CLAIMS = new ConcurrentHashMap<>();
+    private static final AtomicLong EPOCH = new AtomicLong();
+
+    private ValidatedTokenCache() {
+    }
+
+    /**
+     * Get the current revocation epoch, it must be read before the value to be cached is loaded
+     *
+     * @return the number of evictions so far
+     */
+    public static long epoch() {
+        return EPOCH.get();
+    }
+
+    /**
+     * Get the unexpired grant record of the access token
+     *
+     * @param tokenHash sha256 of the access token
+     * @return AccessToken, null when the grant record is not cached or has expired
+     */
+    public static AccessToken getGrant(String tokenHash) {
+        return get(GRANTS, tokenHash);
+    }
+
+    /**
+     * Cache the grant record that has been looked up by the access token
+     *
+     * @param tokenHash sha256 of the access token
+     * @param grant     grant record
+     * @param epoch     the revocation epoch read before the grant record was looked up
+     */
+    public static void putGrant(String tokenHash, AccessToken grant, long epoch) {
+        if (null != grant) {
+            put(GRANTS, tokenHash, grant, grant.getAccessTokenExpiresAt(), epoch);
+        }
+    }
+
+    /**
+     * Get the unexpired claims of the verified jwt token
+     *
+     * @param tokenHash sha256 of the jwt token
+     * @return claims, null when the claims are not cached or have expired
+     */
+    public static Map<String, Object> getClaims(String tokenHash) {
+        return get(CLAIMS, tokenHash);
+    }
+
+    /**
+     * Cache the claims of the verified jwt token
+     *
+     * @param tokenHash sha256 of the jwt token
+     * @param claims    claims of the jwt token, the {@code exp} claim limits the validity period of the entry
+     * @param epoch     the revocation epoch read before the jwt token was verified
+     */
+    public static void putClaims(String tokenHash, Map<String, Object> claims, long epoch) {
+        if (null == claims) {
+            return;
+        }
+        Object exp = claims.get("exp");
+        long expiresAt = exp instanceof Number ? ((Number) exp).longValue() * 1000 : Long.MAX_VALUE;
+        put(CLAIMS, tokenHash, claims, expiresAt, epoch);
+    }
+
+    /**
+     * Evict the cached grant record and claims of the access token
+     *
+     * @param tokenHash sha256 of the access token
+     */
+    public static void evict(String tokenHash) {
+        if (null != tokenHash) {
+            // Advance the epoch before removing, so that a concurrent put that has missed the removal sees the new epoch
+            EPOCH.incrementAndGet();
+            GRANTS.remove(tokenHash);
+            CLAIMS.remove(tokenHash);
+        }
+    }
+
+    public static void clear() {
+        EPOCH.incrementAndGet();
+        GRANTS.clear();
+        CLAIMS.clear();
+    }
+
+    private static <V> V get(Map<String, Entry<V>> cache, String tokenHash) {
+        if (null == tokenHash) {
+            return null;
+        }
+        Entry<V> entry = cache.get(tokenHash);
+        if (null == entry) {
+            return null;
+        }
+        if (DateUtil.isExpired(entry.expiresAt)) {
+            cache.remove(tokenHash, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    private static <V> void put(Map<String, Entry<V>> cache, String tokenHash, V value, long tokenExpiresAt, long epoch) {
+        if (null == tokenHash) {
+            return;
+        }
+        long ttl = JapIds.getIdsConfig().getValidatedTokenCacheTtl() * 1000;
+        if (ttl <= 0) {
+            return;
+        }
+        long expiresAt = Math.min(tokenExpiresAt, DateUtil.currentTimeMillis() + ttl);
+        if (DateUtil.isExpired(expiresAt)) {
+            return;
+        }
+        if (cache.size() >= MAX_TOKENS) {
+            evictOldest(cache);
+        }
+        Entry<V> entry = new Entry<>(value, expiresAt);
+        cache.put(tokenHash, entry);
+        // A revocation happened between the lookup and the put, the value may be stale
+        if (EPOCH.get() != epoch) {
+            cache.remove(tokenHash, entry);
+        }
+    }
+
+    /**
+     * Purge the expired entries, then evict the entries that expire first
+     */
+    private static <V> void evictOldest(Map<String, Entry<V>> cache) {
+        synchronized (cache) {
+            if (cache.size() >= MAX_TOKENS) {
+                CacheEviction.evictOldest(cache, entry -> entry.expiresAt, EVICTION_TARGET);
+            }
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
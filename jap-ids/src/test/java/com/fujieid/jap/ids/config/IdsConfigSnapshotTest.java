@@ -0,0 +1,65 @@
+package com.fujieid.jap.ids.config;
+
+import com.fujieid.jap.ids.BaseIdsTest;
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.exception.IdsException;
+import com.fujieid.jap.ids.util.EndpointUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IdsConfigSnapshotTest extends BaseIdsTest {
+
+    @Test
+    public void endpointUrls() {
+        IdsConfigSnapshot snapshot = JapIds.getConfigSnapshot();
+        Assert.assertSame(snapshot, JapIds.getConfigSnapshot());
+        Assert.assertEquals(issuer + "/oauth/token", EndpointUtil.getTokenUrl(null));
+        Assert.assertSame(EndpointUtil.getTokenUrl(null), EndpointUtil.getTokenUrl(null));
+        Assert.assertEquals(issuer + "/oauth/login", EndpointUtil.getLoginPageUrl(null));
+    }
+
+    @Test
+    public void externalPageUrls() {
+        JapIds.getIdsConfig().setLoginPageUrl("http://login.com/login").setExternalLoginPageUrl(true);
+        // The snapshot is not changed until the config is reloaded
+        Assert.assertEquals(issuer + "/oauth/login", EndpointUtil.getLoginPageUrl(null));
+
+        JapIds.reloadIdsConfig();
+        Assert.assertEquals("http://login.com/login", EndpointUtil.getLoginPageUrl(null));
+        Assert.assertEquals(issuer + "/oauth/confirm", EndpointUtil.getConfirmPageUrl(null));
+    }
+
+    @Test
+    public void replaceConfig() {
+        IdsConfigSnapshot snapshot = JapIds.getConfigSnapshot();
+        JapIds.getContext().setIdsConfig(new IdsConfig().setIssuer(issuer).setTokenUrl("/oauth/v2/token"));
+        Assert.assertNotSame(snapshot, JapIds.getConfigSnapshot());
+        Assert.assertEquals(issuer + "/oauth/v2/token", EndpointUtil.getTokenUrl(null));
+    }
+
+    @Test
+    public void dynamicIssuer() {
+        JapIds.getContext().setIdsConfig(new IdsConfig().setEnableDynamicIssuer(true));
+        IdsConfigSnapshot snapshot = JapIds.getConfigSnapshot();
+        Assert.assertNull(snapshot.getEndpointUrls());
+        Assert.assertThrows(IdsException.class, () -> EndpointUtil.getTokenUrl(null));
+
+        IdsConfigSnapshot.EndpointUrls urls = snapshot.getEndpointUrls("http://a.com");
+        Assert.assertSame(urls, snapshot.getEndpointUrls("http://a.com"));
+        Assert.assertEquals("http://a.com/oauth/authorize", urls.getAuthorizeUrl());
+        Assert.assertEquals("http://b.com/oauth/authorize", snapshot.getEndpointUrls("http://b.com").getAuthorizeUrl());
+        for (int i = 0; i < IdsConfigSnapshot.MAX_ISSUERS; i++) {
+            snapshot.getEndpointUrls("http://" + i + ".com");
+        }
+        Assert.assertNotSame(urls, snapshot.getEndpointUrls("http://a.com"));
+    }
+
+    @Test
+    public void ignoreUrls() {
+        IdsConfigSnapshot snapshot = JapIds.getConfigSnapshot();
+        Assert.assertTrue(snapshot.getIgnoreUrls().contains("/oauth/authorize"));
+        Assert.assertTrue(snapshot.getIgnoreUrls().contains("/oauth/token"));
+        Assert.assertFalse(snapshot.getIgnoreUrls().contains("/oauth/userinfo"));
+        Assert.assertEquals(1, snapshot.getIgnoreUrls().stream().filter("/oauth/login"::equals).count());
+    }
+}
@@ -0,0 +1,76 @@
+package com.fujieid.jap.ids.context;
+
+import com.fujieid.jap.ids.BaseIdsTest;
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.model.ClientDetail;
+import com.fujieid.jap.ids.model.IdsConsts;
+import com.fujieid.jap.ids.model.UserInfo;
+import com.fujieid.jap.ids.service.IdsUserStoreService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class IdsRequestContextTest extends BaseIdsTest {
+
+    private final Map<String, Object> attributes = new HashMap<>();
+    private String clientId;
+
+    @Before
+    public void initRequest() {
+        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getAllClientDetail().get(0);
+        clientId = clientDetail.getClientId();
+        when(httpServletRequestMock.getParameterMap()).thenReturn(Collections.singletonMap(IdsConsts.CLIENT_ID, new String[]{clientId}));
+        when(httpServletRequestMock.getParameter(IdsConsts.CLIENT_ID)).thenReturn(clientId);
+        when(httpServletRequestMock.getParameter(IdsConsts.SCOPE)).thenReturn("openid");
+        when(httpServletRequestMock.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> attributes.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(httpServletRequestMock).setAttribute(anyString(), any());
+    }
+
+    @Test
+    public void parseRequestOnce() {
+        IdsRequestContext requestContext = IdsRequestContext.of(httpServletRequestMock);
+        Assert.assertSame(requestContext, IdsRequestContext.of(httpServletRequestMock));
+        Assert.assertSame(requestContext.getParam(), IdsRequestContext.of(httpServletRequestMock).getParam());
+        Assert.assertEquals("openid", requestContext.getParam().getScope());
+        verify(httpServletRequestMock, times(1)).getParameter(IdsConsts.SCOPE);
+    }
+
+    @Test
+    public void getClientDetail() {
+        IdsRequestContext requestContext = IdsRequestContext.of(httpServletRequestMock);
+        ClientDetail clientDetail = requestContext.getClientDetail();
+        Assert.assertNotNull(clientDetail);
+        Assert.assertEquals(clientId, clientDetail.getClientId());
+        Assert.assertSame(clientDetail, requestContext.getClientDetail(clientId));
+        Assert.assertNull(requestContext.getClientDetail("unknown"));
+        Assert.assertNotNull(requestContext.getClientPolicy());
+    }
+
+    @Test
+    public void getUserInfo() {
+        Assert.assertNull(JapIds.getUserInfo(httpServletRequestMock));
+        UserInfo userInfo = new UserInfo().setId("1");
+        JapIds.saveUserInfo(userInfo, httpServletRequestMock);
+        Assert.assertSame(userInfo, IdsRequestContext.of(httpServletRequestMock).getUserInfo());
+        JapIds.removeUserInfo(httpServletRequestMock);
+        Assert.assertNull(IdsRequestContext.of(httpServletRequestMock).getUserInfo());
+    }
+
+    @Test
+    public void getAnonymousUserInfoOnce() {
+        IdsUserStoreService userStoreService = spy(JapIds.getContext().getUserStoreService());
+        JapIds.getContext().setUserStoreService(userStoreService);
+        Assert.assertNull(JapIds.getUserInfo(httpServletRequestMock));
+        Assert.assertNull(JapIds.getUserInfo(httpServletRequestMock));
+        verify(userStoreService, times(1)).get(httpServletRequestMock);
+    }
+}
@@ -0,0 +1,111 @@
+package com.fujieid.jap.ids.endpoint;
+
+import com.fujieid.jap.ids.BaseIdsTest;
+import com.fujieid.jap.ids.IdsUserServiceImpl;
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.model.AccessToken;
+import com.fujieid.jap.ids.model.ClientDetail;
+import com.fujieid.jap.ids.model.UserInfo;
+import com.fujieid.jap.ids.model.enums.GrantType;
+import com.fujieid.jap.ids.service.IdsUserService;
+import com.fujieid.jap.ids.util.TokenUtil;
+import com.fujieid.jap.ids.util.UserInfoCache;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class UserInfoEndpointTest extends BaseIdsTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @After
+    public void clear() {
+        UserInfoCache.clear();
+    }
+
+    private IdsUserService mockUserService(String scope) throws IOException {
+        IdsUserService userService = spy(new IdsUserServiceImpl());
+        JapIds.getContext().setUserService(userService);
+        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getAllClientDetail().get(0);
+        // Unset claims are omitted from the response, so give the claims under test a value
+        UserInfo userInfo = userService.getById("1").setNickname("nickname").setEmail("email@fujieid.com").setPhone_number("10000000000");
+        AccessToken accessToken = TokenUtil.createAccessToken(userInfo, clientDetail, GrantType.PASSWORD.getType(), scope, null, issuer);
+        when(httpServletRequestMock.getParameter("access_token")).thenReturn(accessToken.getAccessToken());
+        when(httpServletResponseMock.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                out.write(b);
+            }
+        });
+        return userService;
+    }
+
+    @Test
+    public void writeCurrentUserInfoCached() throws IOException {
+        IdsUserService userService = this.mockUserService("openid profile");
+        UserInfoEndpoint endpoint = new UserInfoEndpoint();
+
+        endpoint.writeCurrentUserInfo(httpServletRequestMock, httpServletResponseMock);
+        endpoint.writeCurrentUserInfo(httpServletRequestMock, httpServletResponseMock);
+        verify(userService, times(2)).getById(anyString());
+
+        String json = new String(out.toByteArray(), "UTF-8");
+        Assert.assertTrue(json.startsWith("{\"id\":\"1\""));
+        Assert.assertTrue(json.contains("\"nickname\""));
+
+        UserInfoCache.evict("1");
+        endpoint.writeCurrentUserInfo(httpServletRequestMock, httpServletResponseMock);
+        verify(userService, times(3)).getById(anyString());
+    }
+
+    @Test
+    public void writeCurrentUserInfoNotModified() throws IOException {
+        this.mockUserService("openid");
+        UserInfoEndpoint endpoint = new UserInfoEndpoint();
+        endpoint.writeCurrentUserInfo(httpServletRequestMock, httpServletResponseMock);
+        String etag = UserInfoCache.get("1", 0).getEtag();
+        Assert.assertFalse(new String(out.toByteArray(), "UTF-8").contains("\"nickname\""));
+
+        when(httpServletRequestMock.getHeader("If-None-Match")).thenReturn(etag);
+        endpoint.writeCurrentUserInfo(httpServletRequestMock, httpServletResponseMock);
+        verify(httpServletResponseMock).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(httpServletResponseMock, times(2)).setHeader("Cache-Control", "private, no-cache");
+    }
+
+    @Test
+    public void getCurrentUserInfo() throws IOException {
+        this.mockUserService("openid");
+        Assert.assertEquals("1", new UserInfoEndpoint().getCurrentUserInfo(httpServletRequestMock).get("id"));
+        Assert.assertFalse(new UserInfoEndpoint().getCurrentUserInfo(httpServletRequestMock).containsKey("nickname"));
+    }
+
+    @Test
+    public void getCurrentUserInfoRequiredClaims() throws IOException {
+        IdsUserService userService = this.mockUserService("openid email");
+        Map<String, Object> userInfo = new UserInfoEndpoint().getCurrentUserInfo(httpServletRequestMock);
+        Assert.assertTrue(userInfo.containsKey("email"));
+        Assert.assertFalse(userInfo.containsKey("phone_number"));
+        Assert.assertFalse(userInfo.containsKey("nickname"));
+
+        verify(userService).getById(eq("1"), argThat(claims -> claims.contains("email") && claims.contains("sub") && !claims.contains("nickname")));
+    }
+}
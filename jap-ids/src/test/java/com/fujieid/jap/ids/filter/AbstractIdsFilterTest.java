@@ -0,0 +1,28 @@
+package com.fujieid.jap.ids.filter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AbstractIdsFilterTest {
+
+    @Test
+    public void addIgnoreUrlsRecompile() {
+        AbstractIdsFilter filter = new AbstractIdsFilter();
+        filter.initIgnoreUrls("/oauth/check_session");
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getServletPath()).thenReturn("/custom/health");
+        Assert.assertFalse(filter.isIgnoredServletPath(request));
+
+        // The urls added after the matcher has been compiled take effect immediately
+        filter.addIgnoreUrls(Collections.singletonList("/custom/**"));
+        Assert.assertTrue(filter.isIgnoredServletPath(request));
+        Assert.assertTrue(filter.getIgnoreUrls().contains("/custom/**"));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> filter.getIgnoreUrls().add("/other"));
+    }
+}
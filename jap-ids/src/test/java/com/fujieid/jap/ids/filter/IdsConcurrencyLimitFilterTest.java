@@ -0,0 +1,71 @@
+package com.fujieid.jap.ids.filter;
+
+import com.fujieid.jap.ids.BaseIdsTest;
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.config.ConcurrencyLimitConfig;
+import com.fujieid.jap.ids.exception.InvalidGrantException;
+import com.fujieid.jap.ids.model.enums.ErrorResponse;
+import com.fujieid.jap.ids.util.AdaptiveConcurrencyLimiter;
+import com.fujieid.jap.ids.util.IdsConcurrencyLimiter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.FilterChain;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class IdsConcurrencyLimitFilterTest extends BaseIdsTest {
+
+    private final StringWriter body = new StringWriter();
+
+    @Before
+    public void enableConcurrencyLimit() throws Exception {
+        JapIds.getIdsConfig().setConcurrencyLimitConfig(new ConcurrencyLimitConfig()
+            .setEnabled(true)
+            .setInitialLimit(1)
+            .setMinLimit(1)
+            .setMaxLimit(1));
+        when(httpServletResponseMock.getOutputStream()).thenThrow(new IllegalStateException());
+        when(httpServletResponseMock.getWriter()).thenReturn(new PrintWriter(body));
+    }
+
+    @Test
+    public void rejectWhenSaturated() throws Exception {
+        when(httpServletRequestMock.getServletPath()).thenReturn("/oauth/token");
+        IdsConcurrencyLimitFilter filter = new IdsConcurrencyLimitFilter();
+        FilterChain filterChain = mock(FilterChain.class);
+
+        AdaptiveConcurrencyLimiter limiter = IdsConcurrencyLimiter.getLimiter(IdsConcurrencyLimiter.EndpointType.TOKEN);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        filter.doFilter(httpServletRequestMock, httpServletResponseMock, filterChain);
+        verify(filterChain, never()).doFilter(any(), any());
+        verify(httpServletResponseMock).setStatus(503);
+        Assert.assertTrue(body.toString().contains(ErrorResponse.TEMPORARILY_UNAVAILABLE.getError()));
+
+        // Other classes of endpoints have their own limit
+        when(httpServletRequestMock.getServletPath()).thenReturn("/oauth/userinfo");
+        filter.doFilter(httpServletRequestMock, httpServletResponseMock, filterChain);
+        verify(filterChain, times(1)).doFilter(any(), any());
+
+        permit.release(true);
+        when(httpServletRequestMock.getServletPath()).thenReturn("/oauth/token");
+        filter.doFilter(httpServletRequestMock, httpServletResponseMock, filterChain);
+        verify(filterChain, times(2)).doFilter(any(), any());
+        Assert.assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void releaseOnException() throws Exception {
+        when(httpServletRequestMock.getServletPath()).thenReturn("/oauth/token");
+        IdsConcurrencyLimitFilter filter = new IdsConcurrencyLimitFilter();
+        FilterChain filterChain = mock(FilterChain.class);
+        doThrow(new InvalidGrantException(ErrorResponse.INVALID_GRANT)).when(filterChain).doFilter(any(), any());
+
+        Assert.assertThrows(InvalidGrantException.class, () -> filter.doFilter(httpServletRequestMock, httpServletResponseMock, filterChain));
+        Assert.assertEquals(0, IdsConcurrencyLimiter.getLimiter(IdsConcurrencyLimiter.EndpointType.TOKEN).getInFlight());
+    }
+}
@@ -0,0 +1,116 @@
+package com.fujieid.jap.ids.filter;
+
+import com.fujieid.jap.ids.BaseIdsTest;
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.config.IdsConfig;
+import com.fujieid.jap.ids.config.RateLimitConfig;
+import com.fujieid.jap.ids.exception.SlowDownException;
+import com.fujieid.jap.ids.util.IdsRateLimiter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.mockito.Mockito.*;
+
+public class IdsRateLimitFilterTest extends BaseIdsTest {
+
+    private final StringWriter body = new StringWriter();
+
+    @Before
+    public void enableRateLimit() throws Exception {
+        JapIds.getIdsConfig().setRateLimitConfig(new RateLimitConfig()
+            .setEnabled(true)
+            .setIpPermitsPerSecond(0.001)
+            .setIpBurst(2));
+        when(httpServletRequestMock.getRemoteAddr()).thenReturn("10.0.0." + System.nanoTime() % 255);
+        when(httpServletResponseMock.getOutputStream()).thenThrow(new IllegalStateException());
+        when(httpServletResponseMock.getWriter()).thenReturn(new PrintWriter(body));
+    }
+
+    @Test
+    public void limitTokenUrl() throws Exception {
+        when(httpServletRequestMock.getServletPath()).thenReturn("/oauth/token");
+        IdsRateLimitFilter filter = new IdsRateLimitFilter();
+        filter.init(mock(FilterConfig.class));
+        FilterChain filterChain = mock(FilterChain.class);
+
+        filter.doFilter(httpServletRequestMock, httpServletResponseMock, filterChain);
+        filter.doFilter(httpServletRequestMock, httpServletResponseMock, filterChain);
+        filter.doFilter(httpServletRequestMock, httpServletResponseMock, filterChain);
+
+        verify(filterChain, times(2)).doFilter(httpServletRequestMock, httpServletResponseMock);
+        verify(httpServletResponseMock).setStatus(429);
+        verify(httpServletResponseMock).setHeader(eq("Retry-After"), anyString());
+        Assert.assertTrue(body.toString().contains("\"slow_down\""));
+    }
+
+    @Test
+    public void passOtherUrls() throws Exception {
+        when(httpServletRequestMock.getServletPath()).thenReturn("/oauth/userinfo");
+        IdsRateLimitFilter filter = new IdsRateLimitFilter();
+        filter.init(mock(FilterConfig.class));
+        FilterChain filterChain = mock(FilterChain.class);
+        for (int i = 0; i < 5; i++) {
+            filter.doFilter(httpServletRequestMock, httpServletResponseMock, filterChain);
+        }
+        verify(filterChain, times(5)).doFilter(httpServletRequestMock, httpServletResponseMock);
+    }
+
+    @Test
+    public void limitUrlWithSpaces() throws Exception {
+        when(httpServletRequestMock.getServletPath()).thenReturn("/custom/token");
+        FilterConfig filterConfig = mock(FilterConfig.class);
+        when(filterConfig.getInitParameter("limitUrl")).thenReturn("/custom/login, /custom/token ,");
+        IdsRateLimitFilter filter = new IdsRateLimitFilter();
+        filter.init(filterConfig);
+        FilterChain filterChain = mock(FilterChain.class);
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(httpServletRequestMock, httpServletResponseMock, filterChain);
+        }
+        verify(filterChain, times(2)).doFilter(httpServletRequestMock, httpServletResponseMock);
+        verify(httpServletResponseMock).setStatus(429);
+    }
+
+    @Test
+    public void rebuildDefaultUrlsAfterConfigReplaced() throws Exception {
+        when(httpServletRequestMock.getServletPath()).thenReturn("/oauth/v2/token");
+        IdsRateLimitFilter filter = new IdsRateLimitFilter();
+        filter.init(mock(FilterConfig.class));
+        FilterChain filterChain = mock(FilterChain.class);
+        filter.doFilter(httpServletRequestMock, httpServletResponseMock, filterChain);
+
+        JapIds.getContext().setIdsConfig(new IdsConfig()
+            .setIssuer(issuer)
+            .setTokenUrl("/oauth/v2/token")
+            .setRateLimitConfig(JapIds.getIdsConfig().getRateLimitConfig()));
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(httpServletRequestMock, httpServletResponseMock, filterChain);
+        }
+        verify(filterChain, times(3)).doFilter(httpServletRequestMock, httpServletResponseMock);
+        verify(httpServletResponseMock).setStatus(429);
+    }
+
+    @Test
+    public void limitUsername() {
+        JapIds.getIdsConfig().getRateLimitConfig()
+            .setIpPermitsPerSecond(0)
+            .setUsernamePermitsPerSecond(0.001)
+            .setUsernameBurst(1);
+        when(httpServletRequestMock.getParameter("username")).thenReturn("rate-limit-user-" + System.nanoTime());
+        IdsRateLimiter.check(httpServletRequestMock);
+        Assert.assertThrows(SlowDownException.class, () -> IdsRateLimiter.check(httpServletRequestMock));
+    }
+
+    @Test
+    public void disabled() {
+        JapIds.getIdsConfig().getRateLimitConfig().setEnabled(false);
+        for (int i = 0; i < 5; i++) {
+            IdsRateLimiter.check(httpServletRequestMock);
+        }
+    }
+}
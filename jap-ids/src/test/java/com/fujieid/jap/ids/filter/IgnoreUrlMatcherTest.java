@@ -0,0 +1,91 @@
+package com.fujieid.jap.ids.filter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class IgnoreUrlMatcherTest {
+
+    @Test
+    public void exact() {
+        IgnoreUrlMatcher matcher = IgnoreUrlMatcher.compile(Arrays.asList("/oauth/token", "/favicon.ico"));
+        Assert.assertTrue(matcher.matches("/oauth/token"));
+        // Every slash is significant, as in the plain string comparison
+        Assert.assertFalse(matcher.matches("/oauth/token/"));
+        Assert.assertFalse(matcher.matches("//oauth/token"));
+        Assert.assertFalse(matcher.matches("/oauth//token"));
+        Assert.assertFalse(matcher.matches("oauth/token"));
+        Assert.assertTrue(matcher.matches("/favicon.ico"));
+        Assert.assertFalse(matcher.matches("/oauth/tokens"));
+        Assert.assertFalse(matcher.matches("/oauth"));
+        Assert.assertFalse(matcher.matches("/oauth/token/revoke"));
+        Assert.assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    public void anySegments() {
+        IgnoreUrlMatcher matcher = IgnoreUrlMatcher.compile(Arrays.asList("/oauth/**", "/static/**/*.css", "/assets/**.js"));
+        // A trailing "**" requires the slash before it, like the prefix "/oauth/"
+        Assert.assertFalse(matcher.matches("/oauth"));
+        Assert.assertTrue(matcher.matches("/oauth/"));
+        Assert.assertTrue(matcher.matches("/oauth/authorize"));
+        Assert.assertTrue(matcher.matches("/oauth//authorize"));
+        Assert.assertTrue(matcher.matches("/oauth/a/b/c"));
+        Assert.assertFalse(matcher.matches("/oauth2/token"));
+
+        Assert.assertTrue(matcher.matches("/static/a.css"));
+        Assert.assertTrue(matcher.matches("/static/a/b/c.css"));
+        Assert.assertFalse(matcher.matches("/static/a/b/c.js"));
+
+        Assert.assertTrue(matcher.matches("/assets/a.js"));
+        Assert.assertTrue(matcher.matches("/assets/lib/a.js"));
+        Assert.assertFalse(matcher.matches("/assets/lib/a.json"));
+    }
+
+    @Test
+    public void anySegmentsInSegment() {
+        IgnoreUrlMatcher matcher = IgnoreUrlMatcher.compile(Arrays.asList("/api**", "/v**x"));
+        Assert.assertTrue(matcher.matches("/api"));
+        Assert.assertTrue(matcher.matches("/api2"));
+        Assert.assertTrue(matcher.matches("/api/user"));
+        Assert.assertFalse(matcher.matches("/ap"));
+        Assert.assertTrue(matcher.matches("/vx"));
+        Assert.assertTrue(matcher.matches("/v1/x"));
+        Assert.assertFalse(matcher.matches("/v1/y"));
+    }
+
+    @Test
+    public void wildcardSegment() {
+        IgnoreUrlMatcher matcher = IgnoreUrlMatcher.compile(Arrays.asList("/api/*/public", "/v?/status", "/img/*.png"));
+        Assert.assertTrue(matcher.matches("/api/user/public"));
+        Assert.assertFalse(matcher.matches("/api/user/private"));
+        Assert.assertFalse(matcher.matches("/api/a/b/public"));
+        Assert.assertFalse(matcher.matches("/api//public"));
+        Assert.assertTrue(matcher.matches("/v1/status"));
+        Assert.assertFalse(matcher.matches("/v10/status"));
+        Assert.assertTrue(matcher.matches("/img/logo.png"));
+        Assert.assertFalse(matcher.matches("/img/logo.png.exe"));
+    }
+
+    @Test
+    public void largeIgnoreList() {
+        String[] patterns = new String[1000];
+        for (int i = 0; i < patterns.length; i++) {
+            patterns[i] = "/module" + i + "/resource";
+        }
+        IgnoreUrlMatcher matcher = IgnoreUrlMatcher.compile(Arrays.asList(patterns));
+        Assert.assertTrue(matcher.matches("/module0/resource"));
+        Assert.assertTrue(matcher.matches("/module999/resource"));
+        Assert.assertFalse(matcher.matches("/module1000/resource"));
+    }
+
+    @Test
+    public void shared() {
+        IgnoreUrlMatcher matcher = IgnoreUrlMatcher.compile(Arrays.asList("/a/**", " /b "));
+        Assert.assertSame(matcher, IgnoreUrlMatcher.compile(Arrays.asList("/a/**", "/b", "")));
+        Assert.assertEquals(Arrays.asList("/a/**", "/b"), matcher.getPatterns());
+        Assert.assertFalse(IgnoreUrlMatcher.compile(Collections.emptyList()).matches("/"));
+    }
+}
@@ -2,12 +2,23 @@ package com.fujieid.jap.ids.oidc;
 
 import com.fujieid.jap.ids.BaseIdsTest;
 import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.config.IdsConfig;
 import com.fujieid.jap.ids.exception.InvalidJwksException;
 import com.fujieid.jap.ids.model.OidcDiscoveryDto;
+import com.fujieid.jap.ids.service.IdsIdentityService;
+import com.fujieid.jap.ids.util.DateUtil;
 import com.xkcoding.json.JsonUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.*;
+
 public class OidcUtilTest extends BaseIdsTest {
 
     @Test
@@ -29,4 +40,84 @@ public class OidcUtilTest extends BaseIdsTest {
         JapIds.getIdsConfig().getJwtConfig().setJwksJson(null);
         Assert.assertThrows(InvalidJwksException.class, () -> OidcUtil.getJwksPublicKey(null));
     }
+
+    @Test
+    public void getOidcDiscoveryDocumentCached() {
+        OidcDocument document = OidcUtil.getOidcDiscoveryDocument(null);
+        Assert.assertSame(document, OidcUtil.getOidcDiscoveryDocument(null));
+        Assert.assertEquals(JsonUtil.toJsonString(OidcUtil.getOidcDiscoveryInfo(null)), document.getJson());
+
+        // The document is re-rendered after the config changes
+        JapIds.getContext().setIdsConfig(new IdsConfig().setIssuer(issuer).setTokenUrl("/oauth/v2/token"));
+        OidcDocument newDocument = OidcUtil.getOidcDiscoveryDocument(null);
+        Assert.assertNotSame(document, newDocument);
+        Assert.assertNotEquals(document.getEtag(), newDocument.getEtag());
+    }
+
+    @Test
+    public void getJwksDocumentCached() {
+        OidcDocument document = OidcUtil.getJwksDocument(null);
+        Assert.assertSame(document, OidcUtil.getJwksDocument(null));
+        Assert.assertEquals(OidcUtil.getJwksPublicKey(null), document.getJson());
+    }
+
+    @Test
+    public void getJwksDocumentReadOncePerTtl() {
+        String jwksJson = JapIds.getIdsConfig().getJwtConfig().getJwksJson();
+        AtomicInteger reads = new AtomicInteger();
+        JapIds.getContext().setIdentityService(new IdsIdentityService() {
+            @Override
+            public String getJwksJson(String identity) {
+                reads.incrementAndGet();
+                return jwksJson;
+            }
+        });
+        OidcUtil.clearDocuments();
+        OidcDocument document = OidcUtil.getJwksDocument("jwks-ttl");
+        Assert.assertSame(document, OidcUtil.getJwksDocument("jwks-ttl"));
+        Assert.assertEquals(1, reads.get());
+
+        // The jwks is read again after the ttl, the unchanged jwks is not re-rendered
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofSeconds(JapIds.getIdsConfig().getJwksDocumentTtl() + 1)));
+        try {
+            Assert.assertSame(document, OidcUtil.getJwksDocument("jwks-ttl"));
+            Assert.assertEquals(2, reads.get());
+        } finally {
+            DateUtil.setClock(null);
+        }
+    }
+
+    @Test
+    public void getJwksDocumentEmptyJwksJson() {
+        JapIds.getContext().setIdentityService(new IdsIdentityService() {
+            @Override
+            public String getJwksJson(String identity) {
+                return null;
+            }
+        });
+        OidcUtil.clearDocuments();
+        Assert.assertThrows(InvalidJwksException.class, () -> OidcUtil.getJwksDocument("jwks-null"));
+    }
+
+    @Test
+    public void writeDocumentNotModified() throws IOException {
+        OidcDocument document = OidcUtil.getJwksDocument(null);
+        when(httpServletRequestMock.getHeader("If-None-Match")).thenReturn(document.getEtag());
+
+        document.write(httpServletRequestMock, httpServletResponseMock, 600);
+        verify(httpServletResponseMock).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(httpServletResponseMock).setHeader("ETag", document.getEtag());
+        verify(httpServletResponseMock).setHeader("Cache-Control", "public, max-age=600");
+        verify(httpServletResponseMock, never()).getOutputStream();
+    }
+
+    @Test
+    public void isNotModified() {
+        OidcDocument document = new OidcDocument("{}");
+        Assert.assertTrue(document.isNotModified(document.getEtag()));
+        Assert.assertTrue(document.isNotModified("W/" + document.getEtag() + ", \"other\""));
+        Assert.assertTrue(document.isNotModified("*"));
+        Assert.assertFalse(document.isNotModified("\"other\""));
+        Assert.assertFalse(document.isNotModified(null));
+    }
 }
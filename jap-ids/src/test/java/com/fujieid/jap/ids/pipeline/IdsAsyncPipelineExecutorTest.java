@@ -0,0 +1,165 @@
+package com.fujieid.jap.ids.pipeline;
+
+import com.fujieid.jap.ids.BaseIdsTest;
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.config.AsyncPipelineConfig;
+import com.fujieid.jap.ids.model.UserInfo;
+import com.fujieid.jap.ids.model.enums.AsyncOverflowPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class IdsAsyncPipelineExecutorTest extends BaseIdsTest {
+
+    private IdsPipelineEvent createEvent(String userId, long sequence) {
+        return new IdsPipelineEvent(IdsPipelineEvent.Type.SIGNIN, new UserInfo().setId(userId), "clientId", "127.0.0.1", sequence);
+    }
+
+    private IdsAsyncStage blockingStage(CountDownLatch started, CountDownLatch release) {
+        return event -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    @Test
+    public void orderedPerUser() throws InterruptedException {
+        Map<String, List<Long>> handled = new ConcurrentHashMap<>();
+        IdsAsyncStage stage = event -> handled.computeIfAbsent(event.getUserInfo().getId(), k -> Collections.synchronizedList(new ArrayList<>()))
+            .add(event.getTimestamp());
+        IdsAsyncPipelineExecutor executor = new IdsAsyncPipelineExecutor(new AsyncPipelineConfig().setThreads(4)
+            .setOverflowPolicy(AsyncOverflowPolicy.BLOCK).setBlockTimeout(10000), Collections.singletonList(stage));
+        for (long i = 0; i < 1000; i++) {
+            Assert.assertTrue(executor.submit(createEvent(String.valueOf(i % 10), i)));
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10000));
+
+        Assert.assertEquals(10, handled.size());
+        for (List<Long> sequences : handled.values()) {
+            Assert.assertEquals(100, sequences.size());
+            for (int i = 1; i < sequences.size(); i++) {
+                Assert.assertTrue(sequences.get(i - 1) < sequences.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void dropWhenFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IdsAsyncPipelineExecutor executor = new IdsAsyncPipelineExecutor(new AsyncPipelineConfig().setThreads(1).setQueueCapacity(2),
+            Collections.singletonList(blockingStage(started, release)));
+        Assert.assertTrue(executor.submit(createEvent("1", 0)));
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Assert.assertTrue(executor.submit(createEvent("1", 1)));
+        Assert.assertTrue(executor.submit(createEvent("1", 2)));
+        Assert.assertFalse(executor.submit(createEvent("1", 3)));
+        Assert.assertEquals(1, executor.getDropped());
+        Assert.assertEquals(2, executor.getQueueSize());
+
+        release.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5000));
+        Assert.assertEquals(0, executor.getQueueSize());
+        Assert.assertFalse(executor.submit(createEvent("1", 4)));
+    }
+
+    private IdsAsyncPipelineExecutor createBlockingExecutor(long blockTimeout, CountDownLatch release) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        IdsAsyncPipelineExecutor executor = new IdsAsyncPipelineExecutor(new AsyncPipelineConfig().setThreads(1).setQueueCapacity(1)
+            .setOverflowPolicy(AsyncOverflowPolicy.BLOCK).setBlockTimeout(blockTimeout), Collections.singletonList(blockingStage(started, release)));
+        Assert.assertTrue(executor.submit(createEvent("1", 0)));
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(executor.submit(createEvent("1", 1)));
+        return executor;
+    }
+
+    @Test
+    public void blockTimeout() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        IdsAsyncPipelineExecutor executor = this.createBlockingExecutor(20, release);
+        Assert.assertFalse(executor.submit(createEvent("1", 2)));
+        Assert.assertEquals(1, executor.getDropped());
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void blockUntilQueueAvailable() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        IdsAsyncPipelineExecutor executor = this.createBlockingExecutor(5000, release);
+        new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ignored) {
+            }
+            release.countDown();
+        }).start();
+        Assert.assertTrue(executor.submit(createEvent("1", 2)));
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5000));
+        Assert.assertEquals(0, executor.getDropped());
+    }
+
+    @Test
+    public void stageFailureDoesNotAffectOthers() throws InterruptedException {
+        CountDownLatch handled = new CountDownLatch(2);
+        IdsAsyncStage failed = event -> {
+            throw new IllegalStateException("failed");
+        };
+        IdsAsyncPipelineExecutor executor = new IdsAsyncPipelineExecutor(new AsyncPipelineConfig(),
+            Arrays.asList(failed, event -> handled.countDown()));
+        executor.submit(createEvent("1", 0));
+        executor.submit(createEvent("1", 1));
+        Assert.assertTrue(handled.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    public void publish() throws InterruptedException {
+        Assert.assertFalse(IdsAsyncPipelineExecutor.publish(createEvent("1", 0)));
+
+        CountDownLatch handled = new CountDownLatch(1);
+        JapIds.getContext().addAsyncStage(event -> handled.countDown());
+        Assert.assertTrue(IdsAsyncPipelineExecutor.publish(createEvent("1", 0)));
+        Assert.assertTrue(handled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void orderedAcrossReplacement() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch handled = new CountDownLatch(2);
+        List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        IdsAsyncStage blocking = blockingStage(started, release);
+        JapIds.getContext().addAsyncStage(event -> {
+            if (event.getTimestamp() == 0) {
+                blocking.handle(event);
+            }
+            sequences.add(event.getTimestamp());
+            handled.countDown();
+        });
+        Assert.assertTrue(IdsAsyncPipelineExecutor.publish(createEvent("1", 0)));
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // The config changes while the previous executor is still handling the event of the same user
+        JapIds.getIdsConfig().setAsyncPipelineConfig(new AsyncPipelineConfig().setThreads(3));
+        Assert.assertTrue(IdsAsyncPipelineExecutor.publish(createEvent("1", 1)));
+        Thread.sleep(50);
+        Assert.assertTrue(sequences.isEmpty());
+
+        release.countDown();
+        Assert.assertTrue(handled.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(0L, 1L), sequences);
+    }
+}
@@ -1,11 +1,15 @@
 package com.fujieid.jap.ids.provider;
 
 import com.fujieid.jap.ids.model.IdsScope;
+import com.fujieid.jap.ids.util.ScopeIds;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class IdsScopeProviderTest {
 
@@ -40,4 +44,44 @@ public class IdsScopeProviderTest {
         List<String> scopeList = IdsScopeProvider.getScopeCodes();
         Assert.assertNotNull(scopeList);
     }
+
+    @Test
+    public void addScopeOverwrite() {
+        IdsScopeProvider.addScope(new IdsScope().setCode("overwrite").setDescription("first"));
+        IdsScopeProvider.addScope(new IdsScope().setCode("overwrite").setDescription("second"));
+        List<IdsScope> scopeList = IdsScopeProvider.getScopeByCodes(Collections.singletonList("overwrite"));
+        Assert.assertEquals(1, scopeList.size());
+        Assert.assertEquals("second", scopeList.get(0).getDescription());
+        Assert.assertEquals(1, IdsScopeProvider.getScopeCodes().stream().filter("overwrite"::equals).count());
+    }
+
+    @Test
+    public void getScopeByIds() {
+        List<IdsScope> scopeList = IdsScopeProvider.getScopeByIds(ScopeIds.parse("phone openid unknown-scope email"));
+        Assert.assertEquals(3, scopeList.size());
+        Assert.assertEquals("email", scopeList.get(0).getCode());
+        Assert.assertEquals("openid", scopeList.get(1).getCode());
+        Assert.assertEquals("phone", scopeList.get(2).getCode());
+    }
+
+    @Test
+    public void addScopeConcurrently() throws InterruptedException {
+        int threads = 8;
+        int scopesPerThread = 50;
+        CountDownLatch latch = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            executor.execute(() -> {
+                for (int j = 0; j < scopesPerThread; j++) {
+                    IdsScopeProvider.addScope(new IdsScope().setCode("concurrent-" + thread + "-" + j));
+                    IdsScopeProvider.getScopes();
+                }
+                latch.countDown();
+            });
+        }
+        latch.await();
+        executor.shutdown();
+        Assert.assertEquals(threads * scopesPerThread, IdsScopeProvider.getScopeCodes().stream().filter(code -> code.startsWith("concurrent-")).count());
+    }
 }
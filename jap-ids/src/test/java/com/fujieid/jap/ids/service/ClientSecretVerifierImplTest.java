@@ -0,0 +1,50 @@
+package com.fujieid.jap.ids.service;
+
+import cn.hutool.crypto.digest.BCrypt;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClientSecretVerifierImplTest {
+
+    private final ClientSecretVerifier verifier = new ClientSecretVerifierImpl(1000);
+
+    @Test
+    public void verifyPlaintext() {
+        Assert.assertTrue(verifier.verify("secret", "secret"));
+        Assert.assertTrue(verifier.verify("secret", "{noop}secret"));
+        Assert.assertFalse(verifier.verify("secret2", "secret"));
+        Assert.assertFalse(verifier.verify(null, "secret"));
+        Assert.assertFalse(verifier.verify("secret", null));
+    }
+
+    @Test
+    public void verifyPbkdf2() {
+        String encoded = verifier.encode("secret");
+        Assert.assertTrue(encoded.startsWith(ClientSecretVerifierImpl.PBKDF2_PREFIX));
+        Assert.assertNotEquals(encoded, verifier.encode("secret"));
+        Assert.assertTrue(verifier.verify("secret", encoded));
+        Assert.assertFalse(verifier.verify("secret2", encoded));
+        Assert.assertFalse(verifier.verify("secret", "{pbkdf2}invalid"));
+    }
+
+    @Test
+    public void verifyMalformedPbkdf2() {
+        String[] parts = verifier.encode("secret").substring(ClientSecretVerifierImpl.PBKDF2_PREFIX.length()).split("\\$");
+        String prefix = ClientSecretVerifierImpl.PBKDF2_PREFIX;
+        Assert.assertFalse(verifier.verify("secret", prefix + "0$" + parts[1] + "$" + parts[2]));
+        Assert.assertFalse(verifier.verify("secret", prefix + "-1$" + parts[1] + "$" + parts[2]));
+        Assert.assertFalse(verifier.verify("secret", prefix + "abc$" + parts[1] + "$" + parts[2]));
+        Assert.assertFalse(verifier.verify("secret", prefix + parts[0] + "$$" + parts[2]));
+        Assert.assertFalse(verifier.verify("secret", prefix + parts[0] + "$" + parts[1] + "$"));
+        Assert.assertFalse(verifier.verify("secret", prefix + parts[0] + "$%%%$" + parts[2]));
+        Assert.assertFalse(verifier.verify("secret", prefix + parts[0] + "$" + parts[1] + "$%%%"));
+    }
+
+    @Test
+    public void verifyBcrypt() {
+        String encoded = ClientSecretVerifierImpl.BCRYPT_PREFIX + BCrypt.hashpw("secret", BCrypt.gensalt(4));
+        Assert.assertTrue(verifier.verify("secret", encoded));
+        Assert.assertFalse(verifier.verify("secret2", encoded));
+        Assert.assertFalse(verifier.verify("secret", "{bcrypt}invalid"));
+    }
+}
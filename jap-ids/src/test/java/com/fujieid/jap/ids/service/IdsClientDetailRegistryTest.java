@@ -0,0 +1,206 @@
+package com.fujieid.jap.ids.service;
+
+import com.fujieid.jap.ids.IdsClientDetailServiceImpl;
+import com.fujieid.jap.ids.exception.IdsException;
+import com.fujieid.jap.ids.model.ClientDetail;
+import com.fujieid.jap.ids.util.DateUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IdsClientDetailRegistryTest {
+
+    @Test
+    public void getByClientIdFromSnapshot() {
+        CountingClientDetailService delegate = new CountingClientDetailService();
+        IdsClientDetailRegistry registry = new IdsClientDetailRegistry(delegate);
+        String clientId = delegate.clientDetails.get(0).getClientId();
+
+        ClientDetail clientDetail = registry.getByClientId(clientId);
+        Assert.assertSame(clientDetail, registry.getByClientId(clientId));
+        Assert.assertEquals(0, delegate.lookups.get());
+    }
+
+    @Test
+    public void getByClientIdReadThrough() {
+        CountingClientDetailService delegate = new CountingClientDetailService();
+        IdsClientDetailRegistry registry = new IdsClientDetailRegistry(delegate, 1000);
+
+        Assert.assertNull(registry.getByClientId("unknown"));
+        Assert.assertNull(registry.getByClientId("unknown"));
+        Assert.assertEquals(1, delegate.lookups.get());
+
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofSeconds(2)));
+        try {
+            Assert.assertNull(registry.getByClientId("unknown"));
+            Assert.assertEquals(2, delegate.lookups.get());
+        } finally {
+            DateUtil.setClock(null);
+        }
+    }
+
+    @Test
+    public void unknownClientIdExpiresEarly() {
+        CountingClientDetailService delegate = new CountingClientDetailService();
+        IdsClientDetailRegistry registry = new IdsClientDetailRegistry(delegate);
+        String clientId = delegate.clientDetails.get(0).getClientId();
+        delegate.clientDetails.clear();
+        registry.reload();
+        Assert.assertNull(registry.getByClientId("unknown"));
+        delegate.clientDetails.add(new ClientDetail().setId("1").setClientId(clientId));
+        Assert.assertNotNull(registry.getByClientId(clientId));
+
+        // Unknown client ids are read again long before the read-through ttl of the known clients
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofSeconds(11)));
+        try {
+            Assert.assertNull(registry.getByClientId("unknown"));
+            Assert.assertNotNull(registry.getByClientId(clientId));
+            Assert.assertEquals(3, delegate.lookups.get());
+        } finally {
+            DateUtil.setClock(null);
+        }
+    }
+
+    @Test
+    public void invalidateDuringReadThrough() {
+        IdsClientDetailRegistry[] holder = new IdsClientDetailRegistry[1];
+        CountingClientDetailService delegate = new CountingClientDetailService() {
+            @Override
+            public ClientDetail getByClientId(String clientId) {
+                ClientDetail clientDetail = super.getByClientId(clientId);
+                // The client is updated after it has been read but before it is cached
+                if (lookups.get() == 1) {
+                    holder[0].invalidate(clientId);
+                }
+                return clientDetail;
+            }
+        };
+        delegate.clientDetails.add(new ClientDetail().setId("read-through").setClientId("read-through-client"));
+        IdsClientDetailRegistry registry = holder[0] = new IdsClientDetailRegistry(delegate);
+        registry.invalidate("read-through-client");
+
+        Assert.assertNotNull(registry.getByClientId("read-through-client"));
+        // The stale client is not cached, the next query reads the delegate again
+        Assert.assertNotNull(registry.getByClientId("read-through-client"));
+        Assert.assertNotNull(registry.getByClientId("read-through-client"));
+        Assert.assertEquals(2, delegate.lookups.get());
+    }
+
+    @Test
+    public void getByClientIdWithoutGetAllClientDetail() {
+        CountingClientDetailService delegate = new CountingClientDetailService() {
+            @Override
+            public List<ClientDetail> getAllClientDetail() {
+                throw new IdsException("Not implemented `IdsClientDetailService.getAllClientDetail()`");
+            }
+        };
+        IdsClientDetailRegistry registry = new IdsClientDetailRegistry(delegate);
+        String clientId = delegate.clientDetails.get(0).getClientId();
+
+        Assert.assertNotNull(registry.getByClientId(clientId));
+        Assert.assertNotNull(registry.getByClientId(clientId));
+        Assert.assertEquals(1, delegate.lookups.get());
+    }
+
+    @Test
+    public void removeByClientIdInvalidate() {
+        CountingClientDetailService delegate = new CountingClientDetailService();
+        IdsClientDetailRegistry registry = new IdsClientDetailRegistry(delegate);
+        String clientId = delegate.clientDetails.get(0).getClientId();
+        Assert.assertNotNull(registry.getByClientId(clientId));
+
+        Assert.assertTrue(registry.removeByClientId(clientId));
+        Assert.assertNull(registry.getByClientId(clientId));
+    }
+
+    @Test
+    public void updateInvalidate() {
+        CountingClientDetailService delegate = new CountingClientDetailService();
+        IdsClientDetailRegistry registry = new IdsClientDetailRegistry(delegate);
+        ClientDetail origin = delegate.clientDetails.get(0);
+        Assert.assertSame(origin, registry.getByClientId(origin.getClientId()));
+
+        ClientDetail updated = new ClientDetail().setId(origin.getId()).setClientId(origin.getClientId()).setAppName("updated");
+        registry.update(updated);
+        Assert.assertEquals("updated", registry.getByClientId(origin.getClientId()).getAppName());
+    }
+
+    @Test
+    public void reload() {
+        CountingClientDetailService delegate = new CountingClientDetailService();
+        IdsClientDetailRegistry registry = new IdsClientDetailRegistry(delegate);
+        ClientDetail clientDetail = new ClientDetail().setId("reload").setClientId("reload-client");
+        delegate.clientDetails.add(clientDetail);
+
+        registry.reload();
+        Assert.assertSame(clientDetail, registry.getByClientId("reload-client"));
+        Assert.assertEquals(0, delegate.lookups.get());
+    }
+
+    @Test
+    public void invalidateDuringReload() {
+        IdsClientDetailRegistry[] holder = new IdsClientDetailRegistry[1];
+        AtomicInteger loads = new AtomicInteger();
+        CountingClientDetailService delegate = new CountingClientDetailService() {
+            @Override
+            public List<ClientDetail> getAllClientDetail() {
+                List<ClientDetail> clientDetails = new ArrayList<>(super.getAllClientDetail());
+                // The client is updated after all clients have been read but before the snapshot is replaced
+                if (loads.incrementAndGet() == 2) {
+                    ClientDetail origin = clientDetails.get(0);
+                    holder[0].update(new ClientDetail().setId(origin.getId()).setClientId(origin.getClientId()).setAppName("updated"));
+                }
+                return clientDetails;
+            }
+        };
+        IdsClientDetailRegistry registry = holder[0] = new IdsClientDetailRegistry(delegate);
+        String clientId = delegate.clientDetails.get(0).getClientId();
+
+        registry.reload();
+        Assert.assertEquals(3, loads.get());
+        Assert.assertEquals("updated", registry.getByClientId(clientId).getAppName());
+    }
+
+    @Test
+    public void removeByIdInvalidate() {
+        CountingClientDetailService delegate = new CountingClientDetailService();
+        IdsClientDetailRegistry registry = new IdsClientDetailRegistry(delegate);
+        ClientDetail clientDetail = delegate.clientDetails.get(0);
+        Assert.assertNotNull(registry.getByClientId(clientDetail.getClientId()));
+
+        registry.removeById(clientDetail.getId());
+        Assert.assertNull(registry.getByClientId(clientDetail.getClientId()));
+    }
+
+    private static class CountingClientDetailService extends IdsClientDetailServiceImpl {
+        final AtomicInteger lookups = new AtomicInteger();
+
+        @Override
+        public ClientDetail getByClientId(String clientId) {
+            lookups.incrementAndGet();
+            return super.getByClientId(clientId);
+        }
+
+        @Override
+        public ClientDetail update(ClientDetail clientDetail) {
+            clientDetails.removeIf(client -> client.getId().equals(clientDetail.getId()));
+            clientDetails.add(clientDetail);
+            return clientDetail;
+        }
+
+        @Override
+        public boolean removeByClientId(String clientId) {
+            return clientDetails.removeIf(client -> client.getClientId().equals(clientId));
+        }
+
+        @Override
+        public boolean removeById(String id) {
+            return clientDetails.removeIf(client -> client.getId().equals(id));
+        }
+    }
+}
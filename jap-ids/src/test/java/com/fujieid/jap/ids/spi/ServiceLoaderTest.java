@@ -16,9 +16,15 @@
 package com.fujieid.jap.ids.spi;
 
 import com.fujieid.jap.core.spi.JapServiceLoader;
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.context.IdsContext;
 import com.fujieid.jap.ids.pipeline.IdsFilterPipeline;
 import com.fujieid.jap.ids.pipeline.IdsPipeline;
 import com.fujieid.jap.ids.pipeline.IdsSignInPipeline;
+import com.fujieid.jap.ids.service.ClientSecretVerifier;
+import com.fujieid.jap.ids.service.ClientSecretVerifierImpl;
+import com.fujieid.jap.ids.service.CustomizeClientSecretVerifier;
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.List;
@@ -65,4 +71,22 @@ public class ServiceLoaderTest {
             System.out.println();
         }
     }
+
+    @Test
+    public void loadClientSecretVerifier() {
+        ClientSecretVerifier clientSecretVerifier = JapServiceLoader.loadFirst(ClientSecretVerifier.class);
+        Assert.assertTrue(clientSecretVerifier instanceof CustomizeClientSecretVerifier);
+
+        IdsContext context = new IdsContext();
+        JapIds.registerContext(context);
+        Assert.assertTrue(context.getClientSecretVerifier() instanceof CustomizeClientSecretVerifier);
+    }
+
+    @Test
+    public void keepRegisteredClientSecretVerifier() {
+        ClientSecretVerifier clientSecretVerifier = new ClientSecretVerifierImpl(1000);
+        IdsContext context = new IdsContext().setClientSecretVerifier(clientSecretVerifier);
+        JapIds.registerContext(context);
+        Assert.assertSame(clientSecretVerifier, context.getClientSecretVerifier());
+    }
 }
@@ -0,0 +1,86 @@
+package com.fujieid.jap.ids.template;
+
+import com.fujieid.jap.ids.BaseIdsTest;
+import com.fujieid.jap.ids.endpoint.ErrorEndpoint;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HtmlTemplateTest extends BaseIdsTest {
+
+    @Test
+    public void compile() {
+        HtmlTemplate template = HtmlTemplate.compile("<p>${ a }</p><p>${b}</p>${c");
+        Assert.assertEquals(Arrays.asList("a", "b"), template.getSlots());
+        Assert.assertEquals("<p>1</p><p></p>${c", template.render(Collections.singletonMap("a", 1)));
+    }
+
+    @Test
+    public void renderEscaped() {
+        HtmlTemplate template = HtmlTemplate.compile("<a href=\"${url}\">${text}</a>");
+        Map<String, Object> model = new HashMap<>();
+        model.put("url", "/oauth/authorize?a=1&b=\"2\"");
+        model.put("text", "<script>'中文😀'</script>");
+        Assert.assertEquals("<a href=\"/oauth/authorize?a=1&amp;b=&quot;2&quot;\">&lt;script&gt;&#39;中文😀&#39;&lt;/script&gt;</a>", template.render(model));
+    }
+
+    @Test
+    public void renderSection() {
+        HtmlTemplate item = HtmlTemplate.compile("<li>${code}</li>");
+        HtmlTemplate template = HtmlTemplate.compile("<ul>${items}</ul>");
+        String html = template.render(Collections.singletonMap("items", HtmlTemplate.each(item, Arrays.asList(
+            Collections.singletonMap("code", "read"),
+            Collections.singletonMap("code", "<write>")))));
+        Assert.assertEquals("<ul><li>read</li><li>&lt;write&gt;</li></ul>", html);
+    }
+
+    @Test
+    public void writeResponse() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        when(httpServletResponseMock.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                out.write(b);
+            }
+        });
+        HtmlTemplate template = HtmlTemplate.compile("<p>${text}</p>");
+        template.write(httpServletResponseMock, Collections.singletonMap("text", "中文"));
+
+        byte[] expected = "<p>中文</p>".getBytes(StandardCharsets.UTF_8);
+        Assert.assertArrayEquals(expected, out.toByteArray());
+        verify(httpServletResponseMock).setContentType("text/html;charset=UTF-8");
+        verify(httpServletResponseMock).setContentLength(expected.length);
+    }
+
+    @Test
+    public void overrideTemplate() {
+        IdsPageTemplates.setErrorTemplate("<h1>${error}</h1><p>${errorDescription}</p>");
+        try {
+            Assert.assertEquals("<h1>invalid_request</h1><p>&lt;bad&gt;</p>", new ErrorEndpoint().createErrorPageHtml("invalid_request", "<bad>"));
+        } finally {
+            IdsPageTemplates.setErrorTemplate(null);
+        }
+        Assert.assertTrue(new ErrorEndpoint().createErrorPageHtml("invalid_request", "bad").contains("Oops!, something went wrong"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.fujieid.jap.ids.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long BASE_LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void rejectBeyondLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire();
+        AdaptiveConcurrencyLimiter.Permit second = limiter.acquire();
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(second);
+        Assert.assertNull(limiter.acquire());
+        Assert.assertEquals(2, limiter.getInFlight());
+
+        first.release(true);
+        // Releasing twice has no effect
+        first.release(true);
+        Assert.assertEquals(1, limiter.getInFlight());
+        Assert.assertNotNull(limiter.acquire());
+    }
+
+    @Test
+    public void growWithoutQueueing() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 500);
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(BASE_LATENCY, limiter.getLimit());
+        }
+        Assert.assertTrue(limiter.getLimit() > 20);
+
+        // The limit does not grow when it is not used
+        int limit = limiter.getLimit();
+        limiter.onSample(BASE_LATENCY, 1);
+        Assert.assertEquals(limit, limiter.getLimit());
+    }
+
+    @Test
+    public void shrinkWhenLatencyIncreases() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 4, 500);
+        limiter.onSample(BASE_LATENCY, 100);
+        int limit = limiter.getLimit();
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(BASE_LATENCY * 10, limiter.getLimit());
+        }
+        Assert.assertTrue(limiter.getLimit() < limit);
+        Assert.assertTrue(limiter.getLimit() >= 4);
+    }
+
+    @Test
+    public void shrinkWhenDropped() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 4, 500);
+        limiter.acquire().release(false);
+        Assert.assertEquals(90, limiter.getLimit());
+        for (int i = 0; i < 100; i++) {
+            limiter.onDropped();
+        }
+        Assert.assertEquals(4, limiter.getLimit());
+    }
+}
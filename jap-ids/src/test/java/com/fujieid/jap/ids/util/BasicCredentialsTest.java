@@ -0,0 +1,33 @@
+package com.fujieid.jap.ids.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BasicCredentialsTest {
+
+    @Test
+    public void parse() {
+        BasicCredentials credentials = BasicCredentials.parse(new BasicCredentials("client", "se:cret").create());
+        Assert.assertEquals("client", credentials.getId());
+        Assert.assertEquals("se:cret", credentials.getSecret());
+
+        credentials = BasicCredentials.parse("basic  " + new BasicCredentials("client", "secret").create().substring(6) + " ");
+        Assert.assertEquals("client", credentials.getId());
+        Assert.assertEquals("secret", credentials.getSecret());
+    }
+
+    @Test
+    public void parseWithoutSecret() {
+        // "client"
+        BasicCredentials credentials = BasicCredentials.parse("Basic Y2xpZW50");
+        Assert.assertEquals("client", credentials.getId());
+        Assert.assertEquals("", credentials.getSecret());
+    }
+
+    @Test
+    public void parseInvalid() {
+        Assert.assertNull(BasicCredentials.parse(null));
+        Assert.assertEquals("", BasicCredentials.parse("Bearer Y2xpZW50").getId());
+        Assert.assertEquals("", BasicCredentials.parse("Basic a b").getId());
+    }
+}
@@ -0,0 +1,30 @@
+package com.fujieid.jap.ids.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BearerTokenTest {
+
+    @Test
+    public void parseChallenge() {
+        Assert.assertEquals("hello-world", BearerToken.parse("Bearer hello-world"));
+        Assert.assertEquals("hello-world", BearerToken.parse("Bearer   hello-world  "));
+        Assert.assertNull(BearerToken.parse("Bearer hello world"));
+        Assert.assertNull(BearerToken.parse("Bearer "));
+    }
+
+    @Test
+    public void parseFormParameters() {
+        Assert.assertEquals("hello-world", BearerToken.parse("key1=value1&access_token=hello-world"));
+        Assert.assertEquals("hello world", BearerToken.parse("access_token=hello+world&key1=value1"));
+        Assert.assertEquals("a/b", BearerToken.parse("key1=value1&access_token=a%2Fb"));
+        Assert.assertEquals("second", BearerToken.parse("access_token=&x_access_token=first&access_token=second"));
+        Assert.assertNull(BearerToken.parse("key1=value1&key2=value2"));
+    }
+
+    @Test
+    public void parseRawToken() {
+        Assert.assertEquals("hello-world", BearerToken.parse("hello-world"));
+        Assert.assertNull(BearerToken.parse(null));
+    }
+}
@@ -0,0 +1,94 @@
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.ids.exception.InvalidGrantException;
+import com.fujieid.jap.ids.exception.InvalidRedirectUriException;
+import com.fujieid.jap.ids.exception.InvalidScopeException;
+import com.fujieid.jap.ids.exception.UnsupportedGrantTypeException;
+import com.fujieid.jap.ids.exception.UnsupportedResponseTypeException;
+import com.fujieid.jap.ids.model.ClientDetail;
+import com.fujieid.jap.ids.model.enums.GrantType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClientPolicyTest {
+
+    private ClientDetail clientDetail() {
+        return new ClientDetail()
+            .setClientId("client-policy-test")
+            .setScopes("read openid  email")
+            .setGrantTypes("authorization_code refresh_token")
+            .setResponseTypes("code")
+            .setRedirectUri("http://localhost:8080/callback");
+    }
+
+    @Test
+    public void compileOnce() {
+        ClientDetail clientDetail = clientDetail();
+        ClientPolicy policy = ClientPolicy.of(clientDetail);
+        Assert.assertSame(policy, ClientPolicy.of(clientDetail));
+        Assert.assertSame(policy, ClientPolicy.of(clientDetail()));
+
+        clientDetail.setScopes("read");
+        Assert.assertNotSame(policy, ClientPolicy.of(clientDetail));
+    }
+
+    @Test
+    public void validateScope() {
+        ClientDetail clientDetail = clientDetail();
+        OauthUtil.validateScope("openid email", clientDetail);
+        OauthUtil.validateScope("read+openid", clientDetail);
+        Assert.assertThrows(InvalidScopeException.class, () -> OauthUtil.validateScope("openid phone", clientDetail));
+        Assert.assertThrows(InvalidScopeException.class, () -> OauthUtil.validateScope("openid never-interned-scope", clientDetail));
+        Assert.assertThrows(InvalidScopeException.class, () -> OauthUtil.validateScope("", clientDetail));
+
+        // The client does not limit the scope
+        OauthUtil.validateScope("anything", clientDetail().setClientId("client-policy-test-any").setScopes(null));
+    }
+
+    @Test
+    public void validateGrantType() {
+        ClientDetail clientDetail = clientDetail();
+        OauthUtil.validateGrantType("refresh_token", clientDetail, GrantType.REFRESH_TOKEN);
+        Assert.assertThrows(UnsupportedGrantTypeException.class, () -> OauthUtil.validateGrantType("password", clientDetail, null));
+        Assert.assertThrows(UnsupportedGrantTypeException.class, () -> OauthUtil.validateGrantType("refresh_token", clientDetail, GrantType.PASSWORD));
+        Assert.assertThrows(UnsupportedGrantTypeException.class, () -> OauthUtil.validateGrantType(null, clientDetail, null));
+    }
+
+    @Test
+    public void validateResponseType() {
+        ClientDetail clientDetail = clientDetail();
+        OauthUtil.validateResponseType("code", clientDetail);
+        Assert.assertThrows(UnsupportedResponseTypeException.class, () -> OauthUtil.validateResponseType("token", clientDetail));
+        Assert.assertThrows(UnsupportedResponseTypeException.class, () -> OauthUtil.validateResponseType(null, clientDetail));
+    }
+
+    @Test
+    public void validateRedirectUri() {
+        ClientDetail clientDetail = clientDetail();
+        OauthUtil.validateRedirectUri("http://localhost:8080/callback", clientDetail);
+        Assert.assertThrows(InvalidRedirectUriException.class, () -> OauthUtil.validateRedirectUri("http://localhost:8080/callback2", clientDetail));
+        Assert.assertThrows(InvalidGrantException.class, () -> OauthUtil.validateRedirectUri("http://localhost:8080/callback", clientDetail.setGrantTypes("password")));
+    }
+
+    @Test
+    public void validateRedirectUriWithPlusInQuery() {
+        ClientDetail clientDetail = clientDetail().setRedirectUri("https://app/cb?q=a+b");
+        OauthUtil.validateRedirectUri("https://app/cb?q=a+b", clientDetail);
+        Assert.assertThrows(InvalidRedirectUriException.class, () -> OauthUtil.validateRedirectUri("https://app/cb?q=a", clientDetail));
+        Assert.assertThrows(InvalidRedirectUriException.class, () -> OauthUtil.validateRedirectUri("b", clientDetail));
+    }
+
+    @Test
+    public void isOidcProtocol() {
+        Assert.assertTrue(OauthUtil.isOidcProtocol("read openid"));
+        Assert.assertTrue(OauthUtil.isOidcProtocol("openid"));
+        Assert.assertFalse(OauthUtil.isOidcProtocol("read openid2"));
+        Assert.assertFalse(OauthUtil.isOidcProtocol(null));
+    }
+
+    @Test
+    public void convertStrToList() {
+        Assert.assertArrayEquals(new String[]{"email", "openid", "read"}, OauthUtil.convertStrToList(" read+openid\temail read ").toArray());
+        Assert.assertTrue(OauthUtil.convertStrToList(null).isEmpty());
+    }
+}
@@ -0,0 +1,122 @@
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.ids.BaseIdsTest;
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.exception.InvalidClientException;
+import com.fujieid.jap.ids.model.ClientDetail;
+import com.fujieid.jap.ids.model.IdsRequestParam;
+import com.fujieid.jap.ids.model.enums.GrantType;
+import com.fujieid.jap.ids.service.ClientSecretVerifier;
+import com.fujieid.jap.ids.service.ClientSecretVerifierImpl;
+import com.fujieid.jap.ids.service.Oauth2ServiceImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ClientSecretMemoTest extends BaseIdsTest {
+
+    private ClientSecretVerifier verifier;
+    private ClientDetail clientDetail;
+
+    @Before
+    public void initVerifier() {
+        verifier = spy(new ClientSecretVerifierImpl(1000));
+        JapIds.getContext().setClientSecretVerifier(verifier);
+        clientDetail = new ClientDetail()
+            .setClientId("client-secret-memo-test")
+            .setClientSecret(verifier.encode("secret"));
+    }
+
+    @After
+    public void clear() {
+        ClientSecretMemo.clear();
+        DateUtil.setClock(null);
+    }
+
+    private void validateSecret(String clientSecret) {
+        IdsRequestParam param = new IdsRequestParam()
+            .setGrantType(GrantType.CLIENT_CREDENTIALS.getType())
+            .setClientSecret(clientSecret);
+        OauthUtil.validateSecret(param, clientDetail, new Oauth2ServiceImpl());
+    }
+
+    @Test
+    public void memoizeVerification() {
+        this.validateSecret("secret");
+        this.validateSecret("secret");
+        verify(verifier, times(1)).verify(anyString(), anyString());
+
+        // Failed verifications are never memoized
+        Assert.assertThrows(InvalidClientException.class, () -> this.validateSecret("secret2"));
+        Assert.assertThrows(InvalidClientException.class, () -> this.validateSecret("secret2"));
+        verify(verifier, times(3)).verify(anyString(), anyString());
+    }
+
+    @Test
+    public void expire() {
+        this.validateSecret("secret");
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofSeconds(JapIds.getIdsConfig().getClientSecretMemoTtl() + 1)));
+        this.validateSecret("secret");
+        verify(verifier, times(2)).verify(anyString(), anyString());
+    }
+
+    @Test
+    public void secretChanged() {
+        this.validateSecret("secret");
+        Assert.assertTrue(ClientSecretMemo.isVerified(clientDetail, "secret"));
+
+        clientDetail.setClientSecret(verifier.encode("secret3"));
+        Assert.assertFalse(ClientSecretMemo.isVerified(clientDetail, "secret"));
+        Assert.assertThrows(InvalidClientException.class, () -> this.validateSecret("secret"));
+    }
+
+    @Test
+    public void evict() {
+        this.validateSecret("secret");
+        ClientSecretMemo.evict(clientDetail.getClientId());
+        Assert.assertFalse(ClientSecretMemo.isVerified(clientDetail, "secret"));
+    }
+
+    @Test
+    public void keepWarmClientsWhenFull() {
+        ClientDetail warm = new ClientDetail().setClientId("warm-client").setClientSecret("{noop}secret");
+        int half = ClientSecretMemo.MAX_CLIENTS / 2;
+        for (int i = 0; i < half; i++) {
+            ClientSecretMemo.put(new ClientDetail().setClientId("old-" + i).setClientSecret("{noop}secret"), "secret", 60000);
+        }
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofSeconds(1)));
+        ClientSecretMemo.put(warm, "secret", 60000);
+        for (int i = 1; i < ClientSecretMemo.MAX_CLIENTS - half; i++) {
+            ClientSecretMemo.put(new ClientDetail().setClientId("new-" + i).setClientSecret("{noop}secret"), "secret", 60000);
+        }
+
+        // The memo is not cleared, only the clients memoized the earliest are evicted
+        ClientDetail extra = new ClientDetail().setClientId("extra-client").setClientSecret("{noop}secret");
+        ClientSecretMemo.put(extra, "secret", 60000);
+        Assert.assertTrue(ClientSecretMemo.isVerified(extra, "secret"));
+        Assert.assertTrue(ClientSecretMemo.isVerified(warm, "secret"));
+        Assert.assertFalse(ClientSecretMemo.isVerified(new ClientDetail().setClientId("old-0").setClientSecret("{noop}secret"), "secret"));
+    }
+
+    @Test
+    public void keepWarmSecretsWhenFull() {
+        ClientSecretMemo.put(clientDetail, "secret-0", 60000);
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofSeconds(1)));
+        for (int i = 1; i <= ClientSecretMemo.MAX_SECRETS_PER_CLIENT; i++) {
+            ClientSecretMemo.put(clientDetail, "secret-" + i, 60000);
+        }
+
+        // Only the secret memoized the earliest is evicted
+        Assert.assertFalse(ClientSecretMemo.isVerified(clientDetail, "secret-0"));
+        for (int i = 1; i <= ClientSecretMemo.MAX_SECRETS_PER_CLIENT; i++) {
+            Assert.assertTrue(ClientSecretMemo.isVerified(clientDetail, "secret-" + i));
+        }
+    }
+}
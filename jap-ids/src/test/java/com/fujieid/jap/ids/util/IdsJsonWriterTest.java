@@ -0,0 +1,82 @@
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.ids.model.*;
+import com.fujieid.jap.ids.model.enums.ErrorResponse;
+import com.xkcoding.json.JsonUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class IdsJsonWriterTest {
+
+    @Test
+    public void writeTokenResponse() {
+        IdsTokenResponse response = new IdsTokenResponse()
+            .setAccessToken("at")
+            .setRefreshToken("rt")
+            .setExpiresIn(7200)
+            .setScope("openid read");
+        Assert.assertEquals("{\"access_token\":\"at\",\"refresh_token\":\"rt\",\"expires_in\":7200,\"token_type\":\"Bearer\",\"scope\":\"openid read\"}",
+            IdsJsonWriter.toJsonString(response));
+
+        IdsResponse<String, Object> idsResponse = response.toIdsResponse();
+        Assert.assertEquals("at", idsResponse.get(IdsConsts.ACCESS_TOKEN));
+        Assert.assertEquals(7200L, idsResponse.get(IdsConsts.EXPIRES_IN));
+        Assert.assertFalse(idsResponse.containsKey(IdsConsts.ID_TOKEN));
+        Assert.assertTrue(idsResponse.isSuccess());
+    }
+
+    @Test
+    public void writeErrorResponse() {
+        IdsErrorResponse response = new IdsErrorResponse(ErrorResponse.INVALID_TOKEN).setState("s");
+        Map<String, Object> json = JsonUtil.parseKv(IdsJsonWriter.toJsonString(response));
+        Assert.assertEquals(ErrorResponse.INVALID_TOKEN.getError(), json.get("error"));
+        Assert.assertEquals(ErrorResponse.INVALID_TOKEN.getErrorDescription(), json.get("error_description"));
+        Assert.assertEquals("s", json.get("state"));
+        Assert.assertEquals(ErrorResponse.INVALID_TOKEN.getError(), response.toIdsResponse().getError());
+    }
+
+    @Test
+    public void writeUserInfoResponse() {
+        UserInfo user = new UserInfo().setId("1").setName("张\"三").setEmail("a@b.com")
+            .setAddress(Collections.singletonMap("country", "cn"));
+        IdsUserInfoResponse response = new IdsUserInfoResponse(user, new HashSet<>(Arrays.asList("email", "email_verified")));
+        String json = IdsJsonWriter.toJsonString(response);
+
+        Map<String, Object> expected = JsonUtil.parseKv(JsonUtil.toJsonString(user));
+        expected.remove("email");
+        expected.remove("email_verified");
+        expected.values().removeIf(Objects::isNull);
+        Assert.assertEquals(expected, JsonUtil.parseKv(json));
+        Assert.assertEquals(expected, JsonUtil.parseKv(JsonUtil.toJsonString(response.toIdsResponse())));
+        // Unset claims are omitted rather than written as null
+        Assert.assertEquals("{\"id\":\"1\",\"sub\":\"1\",\"name\":\"张\\\"三\",\"address\":{\"country\":\"cn\"}}", json);
+    }
+
+    @Test
+    public void writeIdsResponse() throws IOException {
+        IdsResponse<String, Object> response = new IdsResponse<String, Object>()
+            .add("list", Arrays.asList(1, "a", null, true))
+            .add("map", Collections.singletonMap("k", 1.5));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IdsJsonWriter.write(out, response);
+        Assert.assertEquals(JsonUtil.parseKv(JsonUtil.toJsonString(response)), JsonUtil.parseKv(new String(out.toByteArray(), StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void escapeString() {
+        IdsResponse<String, Object> response = new IdsResponse<String, Object>().add("k\"", "a\\b\n\u0001😀");
+        Assert.assertEquals("{\"k\\\"\":\"a\\\\b\\n\\u0001😀\"}", IdsJsonWriter.toJsonString(response));
+    }
+
+    @Test
+    public void writeNumber() {
+        Utf8Buffer buffer = new Utf8Buffer();
+        new IdsJsonWriter(buffer).beginArray().value(0).value(-12).value(Long.MAX_VALUE).value(Long.MIN_VALUE).endArray();
+        Assert.assertEquals("[0,-12," + Long.MAX_VALUE + "," + Long.MIN_VALUE + "]", buffer.toString());
+    }
+}
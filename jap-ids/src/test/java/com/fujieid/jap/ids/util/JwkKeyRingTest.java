@@ -0,0 +1,171 @@
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.ids.BaseIdsTest;
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.config.JwtConfig;
+import com.fujieid.jap.ids.exception.InvalidJwksException;
+import com.fujieid.jap.ids.exception.InvalidTokenException;
+import com.fujieid.jap.ids.model.UserInfo;
+import com.fujieid.jap.ids.model.enums.TokenSigningAlg;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.lang.JoseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class JwkKeyRingTest extends BaseIdsTest {
+
+    private JwkKeyRing createKeyRing() {
+        JwkKeyRing keyRing = new JwkKeyRing(TokenSigningAlg.ES256, TimeUnit.DAYS.toMillis(1), TimeUnit.HOURS.toMillis(1));
+        JapIds.getIdsConfig().getJwtConfig().setKeyRing(keyRing);
+        return keyRing;
+    }
+
+    private String createToken() {
+        return JwtUtil.createJwtToken("clientId", new UserInfo().setId("1"), 3600L, null, issuer);
+    }
+
+    @Test
+    public void initialize() throws JoseException {
+        JwkKeyRing keyRing = createKeyRing();
+        String activeKeyId = keyRing.getActiveKey().getKeyId();
+        Assert.assertNotNull(keyRing.getVerificationKey(activeKeyId));
+        Assert.assertEquals(2, keyRing.getKeys().size());
+        Assert.assertEquals(2, new JsonWebKeySet(keyRing.getJwksJson()).getJsonWebKeys().size());
+        Assert.assertFalse(keyRing.getJwksJson().contains("\"d\""));
+    }
+
+    @Test
+    public void rotateAcceptRetiringKey() throws JoseException {
+        JwkKeyRing keyRing = createKeyRing();
+        String token = createToken();
+        String activeKeyId = keyRing.getActiveKey().getKeyId();
+
+        keyRing.rotate();
+        Assert.assertNotEquals(activeKeyId, keyRing.getActiveKey().getKeyId());
+        Assert.assertEquals(3, new JsonWebKeySet(keyRing.getJwksJson()).getJsonWebKeys().size());
+        Assert.assertEquals(JapIds.getContext().getIdentityService().getJwksJson(null), keyRing.getJwksJson());
+        // The token signed by the retiring key is still valid
+        Assert.assertEquals("1", JwtUtil.parseJwtToken(token).get("sub"));
+        Assert.assertEquals("1", JwtUtil.parseJwtToken(createToken()).get("sub"));
+    }
+
+    @Test
+    public void rejectExpiredRetiringKey() {
+        JwkKeyRing keyRing = createKeyRing();
+        String token = createToken();
+        keyRing.rotate();
+
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofHours(2)));
+        try {
+            Assert.assertThrows(InvalidTokenException.class, () -> JwtUtil.parseJwtToken(token));
+        } finally {
+            DateUtil.setClock(null);
+        }
+    }
+
+    @Test
+    public void load() {
+        JwtConfig jwtConfig = JapIds.getIdsConfig().getJwtConfig();
+        JwkKeyRing keyRing = new JwkKeyRing(TokenSigningAlg.RS256, TimeUnit.DAYS.toMillis(1), TimeUnit.HOURS.toMillis(1))
+            .load(jwtConfig.getJwksJson(), jwtConfig.getJwksKeyId());
+        Assert.assertEquals(jwtConfig.getJwksKeyId(), keyRing.getActiveKey().getKeyId());
+    }
+
+    @Test
+    public void loadNextKey() {
+        JwkKeyRing keyRing = createKeyRing();
+        String activeKeyId = null;
+        String nextKeyId = null;
+        List<JsonWebKey> jsonWebKeys = new ArrayList<>();
+        for (JwkKeyRing.SigningKey key : keyRing.getKeys()) {
+            jsonWebKeys.add(key.getJsonWebKey());
+            if (key.getState() == JwkKeyRing.KeyState.ACTIVE) {
+                activeKeyId = key.getJsonWebKey().getKeyId();
+            } else if (key.getState() == JwkKeyRing.KeyState.NEXT) {
+                nextKeyId = key.getJsonWebKey().getKeyId();
+            }
+        }
+        String jwksJson = new JsonWebKeySet(jsonWebKeys).toJson(JsonWebKey.OutputControlLevel.INCLUDE_PRIVATE);
+
+        // The published next key is restored after a restart, and is activated in the next rotation
+        JwkKeyRing restored = new JwkKeyRing(TokenSigningAlg.ES256, TimeUnit.DAYS.toMillis(1), TimeUnit.HOURS.toMillis(1))
+            .load(jwksJson, activeKeyId, nextKeyId)
+            .initialize();
+        Assert.assertEquals(keyRing.getJwksJson(), restored.getJwksJson());
+        restored.rotate();
+        Assert.assertEquals(nextKeyId, restored.getActiveKey().getKeyId());
+    }
+
+    @Test
+    public void loadRetiringKeyAfterRestart() {
+        JwkKeyRing keyRing = createKeyRing();
+        String token = createToken();
+        keyRing.rotate();
+        String jwksJson = toJwksJson(keyRing);
+        String activeKeyId = keyRing.getActiveKey().getKeyId();
+        Map<String, Long> retiredAt = keyRing.getRetiredAt();
+        Assert.assertEquals(1, retiredAt.size());
+
+        // Within the verification window, the retiring key keeps its original retirement time
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofMinutes(50)));
+        try {
+            JwkKeyRing restored = new JwkKeyRing(TokenSigningAlg.ES256, TimeUnit.DAYS.toMillis(1), TimeUnit.HOURS.toMillis(1))
+                .load(jwksJson, activeKeyId, null, retiredAt)
+                .initialize();
+            JapIds.getIdsConfig().getJwtConfig().setKeyRing(restored);
+            Assert.assertEquals(retiredAt, restored.getRetiredAt());
+            Assert.assertEquals("1", JwtUtil.parseJwtToken(token).get("sub"));
+        } finally {
+            DateUtil.setClock(null);
+        }
+
+        // Beyond the verification window, a restart does not bring the retired key back
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofHours(2)));
+        try {
+            JwkKeyRing restored = new JwkKeyRing(TokenSigningAlg.ES256, TimeUnit.DAYS.toMillis(1), TimeUnit.HOURS.toMillis(1))
+                .load(jwksJson, activeKeyId, null, retiredAt)
+                .initialize();
+            JapIds.getIdsConfig().getJwtConfig().setKeyRing(restored);
+            Assert.assertTrue(restored.getRetiredAt().isEmpty());
+            Assert.assertEquals(2, restored.getKeys().size());
+            Assert.assertThrows(InvalidTokenException.class, () -> JwtUtil.parseJwtToken(token));
+        } finally {
+            DateUtil.setClock(null);
+        }
+    }
+
+    @Test
+    public void dropRetiringKeyWithoutRetirementTime() {
+        JwkKeyRing keyRing = createKeyRing();
+        keyRing.rotate();
+        String activeKeyId = keyRing.getActiveKey().getKeyId();
+
+        JwkKeyRing restored = new JwkKeyRing(TokenSigningAlg.ES256, TimeUnit.DAYS.toMillis(1), TimeUnit.HOURS.toMillis(1))
+            .load(toJwksJson(keyRing), activeKeyId);
+        Assert.assertEquals(1, restored.getKeys().size());
+        Assert.assertTrue(restored.getRetiredAt().isEmpty());
+    }
+
+    private String toJwksJson(JwkKeyRing keyRing) {
+        List<JsonWebKey> jsonWebKeys = new ArrayList<>();
+        for (JwkKeyRing.SigningKey key : keyRing.getKeys()) {
+            jsonWebKeys.add(key.getJsonWebKey());
+        }
+        return new JsonWebKeySet(jsonWebKeys).toJson(JsonWebKey.OutputControlLevel.INCLUDE_PRIVATE);
+    }
+
+    @Test
+    public void notInitialized() {
+        JwkKeyRing keyRing = new JwkKeyRing(TokenSigningAlg.ES256, TimeUnit.DAYS.toMillis(1), TimeUnit.HOURS.toMillis(1));
+        Assert.assertThrows(InvalidJwksException.class, keyRing::getActiveKey);
+        Assert.assertThrows(InvalidJwksException.class, keyRing::getJwksJson);
+    }
+}
@@ -0,0 +1,49 @@
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.ids.model.enums.TokenSigningAlg;
+import org.jose4j.jwk.EllipticCurveJsonWebKey;
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.jose4j.keys.EllipticCurves;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JwkPoolTest {
+
+    @After
+    public void reset() {
+        JwkPool.setSize(2);
+    }
+
+    @Test
+    public void takeRefillInBackground() throws InterruptedException {
+        JwkPool.setSize(3);
+        JwkPool.warmUp(TokenSigningAlg.ES256);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (JwkPool.available(TokenSigningAlg.ES256) < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(3, JwkPool.available(TokenSigningAlg.ES256));
+
+        PublicJsonWebKey first = JwkPool.take(TokenSigningAlg.ES256);
+        PublicJsonWebKey second = JwkPool.take(TokenSigningAlg.ES256);
+        Assert.assertTrue(first instanceof EllipticCurveJsonWebKey);
+        Assert.assertNotEquals(first.getPublicKey(), second.getPublicKey());
+    }
+
+    @Test
+    public void takeWithoutPool() {
+        JwkPool.setSize(0);
+        PublicJsonWebKey key = JwkPool.take(TokenSigningAlg.ES256);
+        Assert.assertNotNull(key.getPrivateKey());
+    }
+
+    @Test
+    public void takeOnTheCurveOfTheAlgorithm() {
+        JwkPool.setSize(0);
+        Assert.assertEquals(256, ((EllipticCurveJsonWebKey) JwkPool.take(TokenSigningAlg.ES256)).getECPublicKey().getParams().getCurve().getField().getFieldSize());
+        Assert.assertEquals(384, ((EllipticCurveJsonWebKey) JwkPool.take(TokenSigningAlg.ES384)).getECPublicKey().getParams().getCurve().getField().getFieldSize());
+        Assert.assertEquals(521, ((EllipticCurveJsonWebKey) JwkPool.take(TokenSigningAlg.ES512)).getECPublicKey().getParams().getCurve().getField().getFieldSize());
+        Assert.assertEquals(EllipticCurves.P_384, ((EllipticCurveJsonWebKey) JwkUtil.createJsonWebKey("es384", TokenSigningAlg.ES384)).getCurveName());
+    }
+}
@@ -0,0 +1,101 @@
+package com.fujieid.jap.ids.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+public class TokenBucketLimiterTest {
+
+    @After
+    public void resetClock() {
+        DateUtil.setClock(null);
+    }
+
+    private void setTime(long millis) {
+        DateUtil.setClock(Clock.fixed(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+    }
+
+    @Test
+    public void burstAndRefill() {
+        setTime(1000000);
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 3, 1024);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(0, limiter.tryAcquire("key"));
+        }
+        long waitMillis = limiter.tryAcquire("key");
+        Assert.assertTrue(waitMillis > 0 && waitMillis <= 1000);
+
+        // Other keys are not affected
+        Assert.assertEquals(0, limiter.tryAcquire("other"));
+
+        setTime(1000000 + 1000);
+        Assert.assertEquals(0, limiter.tryAcquire("key"));
+        Assert.assertTrue(limiter.tryAcquire("key") > 0);
+
+        // The bucket never holds more than the burst
+        setTime(1000000 + 3600000);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(0, limiter.tryAcquire("key"));
+        }
+        Assert.assertTrue(limiter.tryAcquire("key") > 0);
+    }
+
+    @Test
+    public void fixedMemory() {
+        setTime(1000000);
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 1 << 16);
+        Assert.assertEquals(0, limiter.tryAcquire("victim"));
+        setTime(1000000 + 1000);
+        // A long tail of keys does not evict or exhaust the bucket of other keys
+        int rejected = 0;
+        for (int i = 0; i < 200; i++) {
+            if (limiter.tryAcquire("key" + i) > 0) {
+                rejected++;
+            }
+        }
+        Assert.assertTrue(rejected < 5);
+        Assert.assertEquals(0, limiter.tryAcquire("victim"));
+    }
+
+    @Test
+    public void manyKeyFlood() {
+        setTime(1000000);
+        // The username limit: 0.2 requests per second, 10 at once
+        TokenBucketLimiter limiter = new TokenBucketLimiter(0.2, 10, 1024, 64);
+        int permitted = 0;
+        while (limiter.tryAcquire("attacker") == 0) {
+            permitted++;
+        }
+        Assert.assertEquals(10, permitted);
+        // A flood of distinct usernames, far more than the approximate buckets can absorb
+        for (int i = 0; i < 50000; i++) {
+            limiter.tryAcquire("flood" + i);
+        }
+        // An unrelated username is still permitted, the abusive one is still limited
+        Assert.assertEquals(0, limiter.tryAcquire("victim"));
+        Assert.assertTrue(limiter.tryAcquire("attacker") > 0);
+    }
+
+    @Test
+    public void approximateBucketsWhenHotKeysAreDrained() {
+        setTime(1000000);
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 1024, 2);
+        Assert.assertEquals(0, limiter.tryAcquire("a"));
+        Assert.assertEquals(0, limiter.tryAcquire("b"));
+        // No exact bucket can be swept out, the key falls back to the approximate buckets
+        Assert.assertEquals(0, limiter.tryAcquire("c"));
+        Assert.assertTrue(limiter.tryAcquire("c") > 0);
+        Assert.assertTrue(limiter.tryAcquire("a") > 0);
+    }
+
+    @Test
+    public void invalidArguments() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(0, 1, 1));
+        Assert.assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(1, 0, 1));
+        Assert.assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(1, 1, 1, -1));
+    }
+}
@@ -0,0 +1,47 @@
+package com.fujieid.jap.ids.util;
+
+import org.jose4j.base64url.Base64Url;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class TokenGeneratorTest {
+
+    @Test
+    public void generateCode() {
+        String code = TokenGenerator.generateCode();
+        Assert.assertEquals(22, code.length());
+        Assert.assertEquals(16, Base64Url.decode(code).length);
+    }
+
+    @Test
+    public void generateRefreshToken() {
+        String refreshToken = TokenGenerator.generateRefreshToken();
+        Assert.assertEquals(43, refreshToken.length());
+        Assert.assertEquals(32, Base64Url.decode(refreshToken).length);
+    }
+
+    @Test
+    public void generate() {
+        for (int i = 1; i <= 64; i++) {
+            String token = TokenGenerator.generate(i);
+            Assert.assertTrue(token.matches("[A-Za-z0-9_-]+"));
+            Assert.assertEquals(i, Base64Url.decode(token).length);
+        }
+    }
+
+    @Test
+    public void generateUnique() {
+        Set<String> tokens = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            Assert.assertTrue(tokens.add(TokenGenerator.generateRefreshToken()));
+        }
+    }
+
+    @Test
+    public void generateIllegalLength() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> TokenGenerator.generate(0));
+    }
+}
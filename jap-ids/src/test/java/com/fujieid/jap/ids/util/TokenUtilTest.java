@@ -0,0 +1,128 @@
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.ids.BaseIdsTest;
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.exception.InvalidCodeException;
+import com.fujieid.jap.ids.exception.InvalidGrantException;
+import com.fujieid.jap.ids.exception.InvalidTokenException;
+import com.fujieid.jap.ids.model.AccessToken;
+import com.fujieid.jap.ids.model.AuthCode;
+import com.fujieid.jap.ids.model.ClientDetail;
+import com.fujieid.jap.ids.model.IdsConsts;
+import com.fujieid.jap.ids.model.UserInfo;
+import com.fujieid.jap.ids.model.enums.GrantType;
+import com.fujieid.jap.ids.model.enums.TokenAuthMethod;
+import com.fujieid.jap.ids.service.Oauth2Service;
+import com.fujieid.jap.ids.service.Oauth2ServiceImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+
+public class TokenUtilTest extends BaseIdsTest {
+
+    private AccessToken createAccessToken(ClientDetail clientDetail, UserInfo userInfo) {
+        return TokenUtil.createAccessToken(userInfo, clientDetail, GrantType.PASSWORD.getType(), "openid", null, issuer);
+    }
+
+    @Test
+    public void createAccessToken() {
+        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getAllClientDetail().get(0);
+        AccessToken accessToken = this.createAccessToken(clientDetail, new UserInfo().setId("1"));
+
+        AccessToken byAccessToken = TokenUtil.getByAccessToken(accessToken.getAccessToken());
+        AccessToken byRefreshToken = TokenUtil.getByRefreshToken(accessToken.getRefreshToken());
+        Assert.assertNotNull(byAccessToken);
+        Assert.assertSame(byAccessToken, byRefreshToken);
+        Assert.assertNotNull(byAccessToken.getFamilyId());
+    }
+
+    @Test
+    public void refreshAccessTokenRotateRefreshToken() {
+        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getAllClientDetail().get(0);
+        UserInfo userInfo = new UserInfo().setId("1");
+        AccessToken accessToken = this.createAccessToken(clientDetail, userInfo);
+
+        AccessToken grant = TokenUtil.getByRefreshToken(accessToken.getRefreshToken());
+        AccessToken refreshed = TokenUtil.refreshAccessToken(userInfo, clientDetail, grant, null, issuer);
+
+        Assert.assertEquals(accessToken.getFamilyId(), refreshed.getFamilyId());
+        Assert.assertNotEquals(accessToken.getRefreshToken(), refreshed.getRefreshToken());
+        Assert.assertNull(TokenUtil.getByAccessToken(accessToken.getAccessToken()));
+        Assert.assertNotNull(TokenUtil.getByAccessToken(refreshed.getAccessToken()));
+        Assert.assertNotNull(TokenUtil.getByRefreshToken(refreshed.getRefreshToken()));
+    }
+
+    @Test
+    public void refreshAccessTokenReuseRevokeFamily() {
+        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getAllClientDetail().get(0);
+        UserInfo userInfo = new UserInfo().setId("1");
+        AccessToken accessToken = this.createAccessToken(clientDetail, userInfo);
+
+        AccessToken grant = TokenUtil.getByRefreshToken(accessToken.getRefreshToken());
+        AccessToken refreshed = TokenUtil.refreshAccessToken(userInfo, clientDetail, grant, null, issuer);
+
+        // The same refresh token is used again
+        Assert.assertThrows(InvalidGrantException.class, () -> TokenUtil.refreshAccessToken(userInfo, clientDetail, grant, null, issuer));
+        Assert.assertNull(TokenUtil.getByAccessToken(refreshed.getAccessToken()));
+        Assert.assertNull(TokenUtil.getByRefreshToken(refreshed.getRefreshToken()));
+    }
+
+    @Test
+    public void getByRefreshTokenReuseRevokeFamily() {
+        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getAllClientDetail().get(0);
+        UserInfo userInfo = new UserInfo().setId("1");
+        AccessToken accessToken = this.createAccessToken(clientDetail, userInfo);
+
+        AccessToken grant = TokenUtil.getByRefreshToken(accessToken.getRefreshToken());
+        AccessToken refreshed = TokenUtil.refreshAccessToken(userInfo, clientDetail, grant, null, issuer);
+
+        Assert.assertNull(TokenUtil.getByRefreshToken(accessToken.getRefreshToken()));
+        Assert.assertNull(TokenUtil.getByAccessToken(refreshed.getAccessToken()));
+    }
+
+    @Test
+    public void validateAuthCodeWithoutExpiresAt() {
+        // A code cached without the expiration time is valid until it expires in the cache
+        AuthCode authCode = new AuthCode().setUser(new UserInfo().setId("1")).setScope("openid");
+        JapIds.getContext().getCache().set(IdsConsts.OAUTH_CODE_CACHE_KEY + "code-without-expires-at", authCode, 60000);
+        Oauth2Service oauth2Service = new Oauth2ServiceImpl();
+        Assert.assertSame(authCode, oauth2Service.validateAndGetAuthrizationCode(GrantType.AUTHORIZATION_CODE.getType(), "code-without-expires-at"));
+        Assert.assertNull(authCode.getExpiration());
+
+        authCode.setExpiresAt(DateUtil.currentTimeMillis() - 1000);
+        Assert.assertThrows(InvalidCodeException.class, () -> oauth2Service.validateAndGetAuthrizationCode(GrantType.AUTHORIZATION_CODE.getType(), "code-without-expires-at"));
+    }
+
+    @Test
+    public void validateAccessTokenExpired() {
+        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getAllClientDetail().get(0);
+        AccessToken accessToken = this.createAccessToken(clientDetail, new UserInfo().setId("1"));
+        TokenUtil.validateAccessToken(accessToken.getAccessToken());
+
+        long expiresIn = accessToken.getAccessTokenExpiresIn();
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofSeconds(expiresIn + 1)));
+        try {
+            Assert.assertThrows(InvalidTokenException.class, () -> TokenUtil.validateAccessToken(accessToken.getAccessToken()));
+        } finally {
+            DateUtil.setClock(null);
+        }
+    }
+
+    @Test
+    public void getAccessTokenAfterTokenAuthMethodsModifiedInPlace() {
+        List<TokenAuthMethod> tokenAuthMethods = new ArrayList<>(Collections.singletonList(TokenAuthMethod.TOKEN_URL));
+        JapIds.getIdsConfig().setTokenAuthMethods(tokenAuthMethods);
+        when(httpServletRequestMock.getParameter("access_token")).thenReturn("token");
+        Assert.assertEquals("token", TokenUtil.getAccessToken(httpServletRequestMock));
+
+        tokenAuthMethods.set(0, TokenAuthMethod.TOKEN_HEADER);
+        Assert.assertNull(TokenUtil.getAccessToken(httpServletRequestMock));
+    }
+}
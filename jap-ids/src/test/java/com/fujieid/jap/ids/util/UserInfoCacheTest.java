@@ -0,0 +1,68 @@
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.ids.oidc.OidcDocument;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+
+public class UserInfoCacheTest {
+
+    private final OidcDocument document = new OidcDocument("{\"sub\":\"1\"}");
+
+    @After
+    public void clear() {
+        UserInfoCache.clear();
+        DateUtil.setClock(null);
+    }
+
+    @Test
+    public void evictOldestWhenFull() {
+        int half = UserInfoCache.MAX_USERS / 2;
+        for (int i = 0; i < half; i++) {
+            UserInfoCache.put("old-" + i, 0, document, 60000, UserInfoCache.epoch());
+        }
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofSeconds(1)));
+        for (int i = 0; i < UserInfoCache.MAX_USERS - half; i++) {
+            UserInfoCache.put("new-" + i, 0, document, 60000, UserInfoCache.epoch());
+        }
+
+        // The cache is not cleared, only the users cached the earliest are evicted
+        UserInfoCache.put("extra", 0, document, 60000, UserInfoCache.epoch());
+        Assert.assertSame(document, UserInfoCache.get("extra", 0));
+        Assert.assertNull(UserInfoCache.get("old-0", 0));
+        Assert.assertSame(document, UserInfoCache.get("old-" + (half - 1), 0));
+        Assert.assertSame(document, UserInfoCache.get("new-0", 0));
+    }
+
+    @Test
+    public void purgeExpiredWhenFull() {
+        UserInfoCache.put("live", 0, document, 60000, UserInfoCache.epoch());
+        UserInfoCache.put("live", 1, document, 1000, UserInfoCache.epoch());
+        for (int i = 1; i < UserInfoCache.MAX_USERS; i++) {
+            UserInfoCache.put("expiring-" + i, 0, document, 1000, UserInfoCache.epoch());
+        }
+
+        // Only the expired responses are purged, the live response survives
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofSeconds(2)));
+        UserInfoCache.put("extra", 0, document, 60000, UserInfoCache.epoch());
+        Assert.assertSame(document, UserInfoCache.get("live", 0));
+        Assert.assertNull(UserInfoCache.get("live", 1));
+        Assert.assertSame(document, UserInfoCache.get("extra", 0));
+    }
+
+    @Test
+    public void evictedUserIsNotRecached() {
+        // The userinfo request loads the user, then the user is modified before the response is put into the cache
+        long epoch = UserInfoCache.epoch();
+        UserInfoCache.evict("1");
+        UserInfoCache.put("1", 0, document, 60000, epoch);
+        Assert.assertNull(UserInfoCache.get("1", 0));
+
+        // No eviction since the lookup, the response is cached
+        UserInfoCache.put("1", 0, document, 60000, UserInfoCache.epoch());
+        Assert.assertSame(document, UserInfoCache.get("1", 0));
+    }
+}
@@ -0,0 +1,140 @@
+package com.fujieid.jap.ids.util;
+
+import com.fujieid.jap.ids.BaseIdsTest;
+import com.fujieid.jap.ids.JapIds;
+import com.fujieid.jap.ids.model.AccessToken;
+import com.fujieid.jap.ids.model.ClientDetail;
+import com.fujieid.jap.ids.model.IdsConsts;
+import com.fujieid.jap.ids.model.UserInfo;
+import com.fujieid.jap.ids.model.enums.GrantType;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.mockito.Mockito.when;
+
+public class ValidatedTokenCacheTest extends BaseIdsTest {
+
+    @After
+    public void clear() {
+        ValidatedTokenCache.clear();
+        DateUtil.setClock(null);
+    }
+
+    private AccessToken createAccessToken() {
+        ClientDetail clientDetail = JapIds.getContext().getClientDetailService().getAllClientDetail().get(0);
+        return TokenUtil.createAccessToken(new UserInfo().setId("1"), clientDetail, GrantType.PASSWORD.getType(), "openid", null, issuer);
+    }
+
+    private void removeGrant(AccessToken accessToken) {
+        JapIds.getContext().getCache().removeKey(IdsConsts.OAUTH_GRANT_CACHE_KEY + accessToken.getFamilyId());
+    }
+
+    @Test
+    public void getByAccessTokenFromCache() {
+        AccessToken accessToken = this.createAccessToken();
+        AccessToken grant = TokenUtil.getByAccessToken(accessToken.getAccessToken());
+        Assert.assertNotNull(grant);
+
+        // The grant record is served from the in-process cache
+        this.removeGrant(accessToken);
+        Assert.assertSame(grant, TokenUtil.getByAccessToken(accessToken.getAccessToken()));
+
+        // Entries never live longer than the configured ttl
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofSeconds(JapIds.getIdsConfig().getValidatedTokenCacheTtl() + 1)));
+        Assert.assertNull(TokenUtil.getByAccessToken(accessToken.getAccessToken()));
+    }
+
+    @Test
+    public void invalidateTokenEvict() {
+        AccessToken accessToken = this.createAccessToken();
+        Assert.assertNotNull(TokenUtil.getByAccessToken(accessToken.getAccessToken()));
+
+        when(httpServletRequestMock.getParameter("access_token")).thenReturn(accessToken.getAccessToken());
+        TokenUtil.invalidateToken(httpServletRequestMock);
+        Assert.assertNull(ValidatedTokenCache.getGrant(TokenUtil.hash(accessToken.getAccessToken())));
+        Assert.assertNull(TokenUtil.getByAccessToken(accessToken.getAccessToken()));
+    }
+
+    @Test
+    public void revokedTokenIsNotRecached() {
+        AccessToken accessToken = this.createAccessToken();
+        String tokenHash = TokenUtil.hash(accessToken.getAccessToken());
+
+        // The lookup reads the grant record, then the token is revoked before the lookup puts it into the cache
+        long epoch = ValidatedTokenCache.epoch();
+        AccessToken grant = TokenUtil.getByAccessToken(accessToken.getAccessToken());
+        ValidatedTokenCache.evict(tokenHash);
+        ValidatedTokenCache.putGrant(tokenHash, grant, epoch);
+        Assert.assertNull(ValidatedTokenCache.getGrant(tokenHash));
+
+        // No revocation since the lookup, the grant record is cached
+        ValidatedTokenCache.putGrant(tokenHash, grant, ValidatedTokenCache.epoch());
+        Assert.assertSame(grant, ValidatedTokenCache.getGrant(tokenHash));
+    }
+
+    @Test
+    public void disabled() {
+        JapIds.getIdsConfig().setValidatedTokenCacheTtl(0);
+        AccessToken accessToken = this.createAccessToken();
+        Assert.assertNotNull(TokenUtil.getByAccessToken(accessToken.getAccessToken()));
+        Assert.assertNull(ValidatedTokenCache.getGrant(TokenUtil.hash(accessToken.getAccessToken())));
+    }
+
+    @Test
+    public void claimsExpireWithToken() {
+        String jwt = JwtUtil.createJwtToken("clientId", new UserInfo().setId("1"), 10L, null, issuer);
+        Map<String, Object> claims = JwtUtil.parseJwtToken(jwt);
+        Assert.assertSame(claims, JwtUtil.parseJwtToken(jwt));
+        Assert.assertSame(claims, ValidatedTokenCache.getClaims(TokenUtil.hash(jwt)));
+
+        // The token expires before the configured ttl
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofSeconds(11)));
+        Assert.assertNull(ValidatedTokenCache.getClaims(TokenUtil.hash(jwt)));
+    }
+
+    @Test
+    public void evictOldestWhenFull() {
+        Map<String, Object> claims = Collections.singletonMap("sub", "1");
+        int half = ValidatedTokenCache.MAX_TOKENS / 2;
+        for (int i = 0; i < half; i++) {
+            ValidatedTokenCache.putClaims("old-" + i, claims, ValidatedTokenCache.epoch());
+        }
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofSeconds(1)));
+        for (int i = 0; i < ValidatedTokenCache.MAX_TOKENS - half; i++) {
+            ValidatedTokenCache.putClaims("new-" + i, claims, ValidatedTokenCache.epoch());
+        }
+
+        // The cache is not cleared, only the entries that expire first are evicted
+        ValidatedTokenCache.putClaims("extra", claims, ValidatedTokenCache.epoch());
+        Assert.assertNotNull(ValidatedTokenCache.getClaims("extra"));
+        Assert.assertNull(ValidatedTokenCache.getClaims("old-0"));
+        Assert.assertNotNull(ValidatedTokenCache.getClaims("old-" + (half - 1)));
+        Assert.assertNotNull(ValidatedTokenCache.getClaims("new-0"));
+    }
+
+    @Test
+    public void purgeExpiredWhenFull() {
+        Map<String, Object> claims = Collections.singletonMap("sub", "1");
+        ValidatedTokenCache.putClaims("live", claims, ValidatedTokenCache.epoch());
+        JapIds.getIdsConfig().setValidatedTokenCacheTtl(1);
+        try {
+            for (int i = 1; i < ValidatedTokenCache.MAX_TOKENS; i++) {
+                ValidatedTokenCache.putClaims("expiring-" + i, claims, ValidatedTokenCache.epoch());
+            }
+        } finally {
+            JapIds.getIdsConfig().setValidatedTokenCacheTtl(30);
+        }
+
+        // Only the expired entries are purged, the live entry survives
+        DateUtil.setClock(Clock.offset(Clock.systemUTC(), Duration.ofSeconds(2)));
+        ValidatedTokenCache.putClaims("extra", claims, ValidatedTokenCache.epoch());
+        Assert.assertNotNull(ValidatedTokenCache.getClaims("live"));
+        Assert.assertNotNull(ValidatedTokenCache.getClaims("extra"));
+    }
+}
@@ -19,6 +19,8 @@ import cn.hutool.core.img.ImgUtil;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.log.Log;
 import cn.hutool.log.LogFactory;
+import com.fujieid.jap.core.event.JapEventBus;
+import com.fujieid.jap.core.event.JapEventType;
 import com.fujieid.jap.sso.util.QrCodeUtil;
 import com.warrenstrange.googleauth.*;
 
@@ -101,7 +103,9 @@ public class JapMfa {
      * @return {@code bool}
      */
     public boolean verifyByUsername(String username, int otpCode) {
-        return authenticator.authorizeUser(username, otpCode);
+        boolean verified = authenticator.authorizeUser(username, otpCode);
+        JapEventBus.getDefault().publish(verified ? JapEventType.MFA_SUCCESS : JapEventType.MFA_FAILURE, username, null, null);
+        return verified;
     }
 
     /**
@@ -112,7 +116,9 @@ public class JapMfa {
      * @return {@code bool}
      */
     public boolean verifyBySecret(String secret, int otpCode) {
-        return authenticator.authorize(secret, otpCode);
+        boolean verified = authenticator.authorize(secret, otpCode);
+        JapEventBus.getDefault().publish(verified ? JapEventType.MFA_SUCCESS : JapEventType.MFA_FAILURE, null, null, null);
+        return verified;
     }
 
     /**
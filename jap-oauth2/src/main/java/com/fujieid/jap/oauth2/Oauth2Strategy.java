@@ -24,6 +24,9 @@ import com.fujieid.jap.core.config.JapConfig;
 import com.fujieid.jap.core.context.JapAuthentication;
 import com.fujieid.jap.core.exception.JapException;
 import com.fujieid.jap.core.exception.JapOauth2Exception;
+import com.fujieid.jap.core.jfr.JapFlightRecorder;
+import com.fujieid.jap.core.metrics.JapMetrics;
+import com.fujieid.jap.core.metrics.JapMetricsHelper;
 import com.fujieid.jap.core.result.JapErrorCode;
 import com.fujieid.jap.core.result.JapResponse;
 import com.fujieid.jap.core.strategy.AbstractJapStrategy;
@@ -82,6 +85,17 @@ public class Oauth2Strategy extends AbstractJapStrategy {
      */
     @Override
     public JapResponse authenticate(AuthenticateConfig config, HttpServletRequest request, HttpServletResponse response) {
+        long start = JapMetricsHelper.startTimer();
+        Object event = JapFlightRecorder.beginStrategyAuthenticate();
+        try {
+            return this.doAuthenticate(config, request, response);
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.STRATEGY_AUTHENTICATE, "oauth2", start);
+            JapFlightRecorder.commitStrategyAuthenticate(event, "oauth2");
+        }
+    }
+
+    private JapResponse doAuthenticate(AuthenticateConfig config, HttpServletRequest request, HttpServletResponse response) {
 
         try {
             Oauth2Util.checkOauthCallbackRequest(request.getParameter("error"), request.getParameter("error_description"),
@@ -145,7 +159,13 @@ public class Oauth2Strategy extends AbstractJapStrategy {
 
         Oauth2Util.checkOauthResponse(userInfo, "Oauth2Strategy failed to get userInfo with accessToken.");
 
-        JapUser japUser = this.japUserService.createAndGetOauth2User(oAuthConfig.getPlatform(), userInfo, accessToken);
+        long start = JapMetricsHelper.startTimer();
+        JapUser japUser;
+        try {
+            japUser = this.japUserService.createAndGetOauth2User(oAuthConfig.getPlatform(), userInfo, accessToken);
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.USER_SERVICE, "createAndGetOauth2User", start);
+        }
         if (ObjectUtil.isNull(japUser)) {
             return null;
         }
@@ -22,6 +22,9 @@ import cn.hutool.core.util.StrUtil;
 import cn.hutool.crypto.SecureUtil;
 import com.fujieid.jap.core.context.JapAuthentication;
 import com.fujieid.jap.core.exception.JapOauth2Exception;
+import com.fujieid.jap.core.jfr.JapFlightRecorder;
+import com.fujieid.jap.core.metrics.JapMetrics;
+import com.fujieid.jap.core.metrics.JapMetricsHelper;
 import com.fujieid.jap.oauth2.pkce.PkceCodeChallengeMethod;
 import com.xkcoding.http.HttpUtil;
 import com.xkcoding.json.JsonUtil;
@@ -213,10 +216,22 @@ public class Oauth2Util {
     public static Kv request(Oauth2EndpointMethodType endpointMethodType, String url, Map<String, String> params) {
 
         String res = null;
+        long start = JapMetricsHelper.startTimer();
+        Object event = JapFlightRecorder.beginIdpHttpCall();
         if (null == endpointMethodType || Oauth2EndpointMethodType.GET == endpointMethodType) {
-            res = HttpUtil.get(url, params, false);
+            try {
+                res = HttpUtil.get(url, params, false);
+            } finally {
+                JapMetricsHelper.stopTimer(JapMetrics.HTTP_REQUEST, "GET", start);
+                JapFlightRecorder.commitIdpHttpCall(event, "GET", url);
+            }
         } else {
-            res = HttpUtil.post(url, params, false);
+            try {
+                res = HttpUtil.post(url, params, false);
+            } finally {
+                JapMetricsHelper.stopTimer(JapMetrics.HTTP_REQUEST, "POST", start);
+                JapFlightRecorder.commitIdpHttpCall(event, "POST", url);
+            }
         }
         return JsonUtil.parseKv(res);
     }
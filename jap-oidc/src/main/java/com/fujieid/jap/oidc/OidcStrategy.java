@@ -23,6 +23,9 @@ import com.fujieid.jap.core.config.AuthenticateConfig;
 import com.fujieid.jap.core.config.JapConfig;
 import com.fujieid.jap.core.exception.JapException;
 import com.fujieid.jap.core.exception.OidcException;
+import com.fujieid.jap.core.jfr.JapFlightRecorder;
+import com.fujieid.jap.core.metrics.JapMetrics;
+import com.fujieid.jap.core.metrics.JapMetricsHelper;
 import com.fujieid.jap.core.result.JapErrorCode;
 import com.fujieid.jap.core.result.JapResponse;
 import com.fujieid.jap.oauth2.OAuthConfig;
@@ -73,6 +76,17 @@ public class OidcStrategy extends Oauth2Strategy {
      */
     @Override
     public JapResponse authenticate(AuthenticateConfig config, HttpServletRequest request, HttpServletResponse response) {
+        long start = JapMetricsHelper.startTimer();
+        Object event = JapFlightRecorder.beginStrategyAuthenticate();
+        try {
+            return this.doAuthenticate(config, request, response);
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.STRATEGY_AUTHENTICATE, "oidc", start);
+            JapFlightRecorder.commitStrategyAuthenticate(event, "oidc");
+        }
+    }
+
+    private JapResponse doAuthenticate(AuthenticateConfig config, HttpServletRequest request, HttpServletResponse response) {
 
         try {
             this.checkAuthenticateConfig(config, OidcConfig.class);
@@ -17,6 +17,9 @@ package com.fujieid.jap.simple;
 
 import cn.hutool.core.util.BooleanUtil;
 import cn.hutool.core.util.ObjectUtil;
+import com.fujieid.jap.core.jfr.JapFlightRecorder;
+import com.fujieid.jap.core.metrics.JapMetrics;
+import com.fujieid.jap.core.metrics.JapMetricsHelper;
 import com.fujieid.jap.core.util.RequestUtil;
 import com.fujieid.jap.core.JapUser;
 import com.fujieid.jap.core.JapUserService;
@@ -65,6 +68,17 @@ public class SimpleStrategy extends AbstractJapStrategy {
 
     @Override
     public JapResponse authenticate(AuthenticateConfig config, HttpServletRequest request, HttpServletResponse response) {
+        long start = JapMetricsHelper.startTimer();
+        Object event = JapFlightRecorder.beginStrategyAuthenticate();
+        try {
+            return this.doAuthenticate(config, request, response);
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.STRATEGY_AUTHENTICATE, "simple", start);
+            JapFlightRecorder.commitStrategyAuthenticate(event, "simple");
+        }
+    }
+
+    private JapResponse doAuthenticate(AuthenticateConfig config, HttpServletRequest request, HttpServletResponse response) {
         // Convert AuthenticateConfig to SimpleConfig
         try {
             this.checkAuthenticateConfig(config, SimpleConfig.class);
@@ -87,12 +101,24 @@ public class SimpleStrategy extends AbstractJapStrategy {
         if (null == credential) {
             return JapResponse.error(JapErrorCode.MISS_CREDENTIALS);
         }
-        JapUser user = japUserService.getByName(credential.getUsername());
+        long start = JapMetricsHelper.startTimer();
+        JapUser user;
+        try {
+            user = japUserService.getByName(credential.getUsername());
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.USER_SERVICE, "getByName", start);
+        }
         if (null == user) {
             return JapResponse.error(JapErrorCode.NOT_EXIST_USER);
         }
 
-        boolean valid = japUserService.validPassword(credential.getPassword(), user);
+        start = JapMetricsHelper.startTimer();
+        boolean valid;
+        try {
+            valid = japUserService.validPassword(credential.getPassword(), user);
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.USER_SERVICE, "validPassword", start);
+        }
         if (!valid) {
             return JapResponse.error(JapErrorCode.INVALID_PASSWORD);
         }
@@ -151,7 +177,13 @@ public class SimpleStrategy extends AbstractJapStrategy {
             return null;
         }
 
-        JapUser user = japUserService.getByName(credential.getUsername());
+        long start = JapMetricsHelper.startTimer();
+        JapUser user;
+        try {
+            user = japUserService.getByName(credential.getUsername());
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.USER_SERVICE, "getByName", start);
+        }
         if (null == user) {
             return null;
         }
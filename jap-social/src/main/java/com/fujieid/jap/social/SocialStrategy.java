@@ -28,6 +28,9 @@ import com.fujieid.jap.core.config.JapConfig;
 import com.fujieid.jap.core.exception.JapException;
 import com.fujieid.jap.core.exception.JapSocialException;
 import com.fujieid.jap.core.exception.JapUserException;
+import com.fujieid.jap.core.jfr.JapFlightRecorder;
+import com.fujieid.jap.core.metrics.JapMetrics;
+import com.fujieid.jap.core.metrics.JapMetricsHelper;
 import com.fujieid.jap.core.result.JapErrorCode;
 import com.fujieid.jap.core.result.JapResponse;
 import com.fujieid.jap.core.strategy.AbstractJapStrategy;
@@ -99,6 +102,17 @@ public class SocialStrategy extends AbstractJapStrategy {
 
     @Override
     public JapResponse authenticate(AuthenticateConfig config, HttpServletRequest request, HttpServletResponse response) {
+        long start = JapMetricsHelper.startTimer();
+        Object event = JapFlightRecorder.beginStrategyAuthenticate();
+        try {
+            return this.doAuthenticate(config, request, response);
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.STRATEGY_AUTHENTICATE, "social", start);
+            JapFlightRecorder.commitStrategyAuthenticate(event, "social");
+        }
+    }
+
+    private JapResponse doAuthenticate(AuthenticateConfig config, HttpServletRequest request, HttpServletResponse response) {
 
         JapUser sessionUser = this.checkSession(request, response);
         if (null != sessionUser) {
@@ -243,9 +257,20 @@ public class SocialStrategy extends AbstractJapStrategy {
         }
 
         AuthUser socialUser = (AuthUser) authUserAuthResponse.getData();
-        JapUser japUser = japUserService.getByPlatformAndUid(source, socialUser.getUuid());
+        long start = JapMetricsHelper.startTimer();
+        JapUser japUser;
+        try {
+            japUser = japUserService.getByPlatformAndUid(source, socialUser.getUuid());
+        } finally {
+            JapMetricsHelper.stopTimer(JapMetrics.USER_SERVICE, "getByPlatformAndUid", start);
+        }
         if (ObjectUtil.isNull(japUser)) {
-            japUser = japUserService.createAndGetSocialUser(socialUser);
+            start = JapMetricsHelper.startTimer();
+            try {
+                japUser = japUserService.createAndGetSocialUser(socialUser);
+            } finally {
+                JapMetricsHelper.stopTimer(JapMetrics.USER_SERVICE, "createAndGetSocialUser", start);
+            }
             if (ObjectUtil.isNull(japUser)) {
                 throw new JapUserException("Unable to save user information of " + source);
             }